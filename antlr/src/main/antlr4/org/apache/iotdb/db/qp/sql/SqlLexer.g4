@@ -653,7 +653,7 @@ TEXT
 // Encoding Type Keywords
 
 ENCODING_VALUE
-    : DICTIONARY | DIFF | GORILLA | PLAIN | REGULAR | RLE | TS_2DIFF | ZIGZAG | FREQ
+    : DICTIONARY | DIFF | GORILLA | PLAIN | REGULAR | RLE | TS_2DIFF | ZIGZAG | FREQ | AUTO
     ;
 
 DICTIONARY
@@ -692,11 +692,15 @@ FREQ
     : F R E Q
     ;
 
+AUTO
+    : A U T O
+    ;
+
 
 // Compressor Type Keywords
 
 COMPRESSOR_VALUE
-    : GZIP | LZ4 | SNAPPY | UNCOMPRESSED
+    : GZIP | LZ4 | SNAPPY | UNCOMPRESSED | ZSTD
     ;
 
 GZIP
@@ -707,6 +711,10 @@ LZ4
     : L Z '4'
     ;
 
+ZSTD
+    : Z S T D
+    ;
+
 SNAPPY
     : S N A P P Y
     ;
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.benchmark.block;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.TsBlockSerde;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Serialize and deserialize a TsBlock as it is exchanged between fragment instances. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TsBlockSerdeBenchmark {
+
+  private static final TSDataType[] DATA_TYPES = {
+    TSDataType.BOOLEAN,
+    TSDataType.INT32,
+    TSDataType.INT64,
+    TSDataType.FLOAT,
+    TSDataType.DOUBLE,
+    TSDataType.TEXT
+  };
+
+  @Param({"1000", "10000"})
+  private int positionCount;
+
+  /** Percentage of null values in every value column. */
+  @Param({"0", "10"})
+  private int nullRatio;
+
+  private final TsBlockSerde serde = new TsBlockSerde();
+  private TsBlock tsBlock;
+  private ByteBuffer serialized;
+
+  @Setup
+  public void setUp() throws IOException {
+    Random random = new Random(20220601L);
+    TsBlockBuilder builder = new TsBlockBuilder(positionCount, Arrays.asList(DATA_TYPES));
+    for (int i = 0; i < positionCount; i++) {
+      builder.getTimeColumnBuilder().writeLong(i);
+      for (int column = 0; column < DATA_TYPES.length; column++) {
+        ColumnBuilder columnBuilder = builder.getColumnBuilder(column);
+        if (random.nextInt(100) < nullRatio) {
+          columnBuilder.appendNull();
+          continue;
+        }
+        switch (DATA_TYPES[column]) {
+          case BOOLEAN:
+            columnBuilder.writeBoolean(random.nextBoolean());
+            break;
+          case INT32:
+            columnBuilder.writeInt(random.nextInt());
+            break;
+          case INT64:
+            columnBuilder.writeLong(random.nextLong());
+            break;
+          case FLOAT:
+            columnBuilder.writeFloat(random.nextFloat());
+            break;
+          case DOUBLE:
+            columnBuilder.writeDouble(random.nextDouble());
+            break;
+          case TEXT:
+          default:
+            columnBuilder.writeBinary(new Binary("value" + random.nextInt(1000)));
+            break;
+        }
+      }
+      builder.declarePosition();
+    }
+    tsBlock = builder.build();
+    serialized = serde.serialize(tsBlock);
+  }
+
+  @Benchmark
+  public ByteBuffer serialize() throws IOException {
+    return serde.serialize(tsBlock);
+  }
+
+  @Benchmark
+  public TsBlock deserialize() {
+    return serde.deserialize(serialized.duplicate());
+  }
+}
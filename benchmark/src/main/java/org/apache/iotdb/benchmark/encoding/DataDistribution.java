@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.benchmark.encoding;
+
+import java.util.Random;
+
+/** Value shapes commonly seen in IoT workloads, used to feed the encoding benchmarks. */
+public enum DataDistribution {
+  /** Timestamps sampled at a fixed interval with a small jitter, e.g. the time column. */
+  REGULAR_TIMESTAMP {
+    @Override
+    long nextLong(Random random, int index, long previous) {
+      return index == 0 ? 1_600_000_000_000L : previous + 1000 + random.nextInt(5) - 2;
+    }
+  },
+  /** Slowly drifting sensor readings, e.g. temperature or pressure. */
+  RANDOM_WALK {
+    @Override
+    long nextLong(Random random, int index, long previous) {
+      return index == 0 ? 10_000 : previous + random.nextInt(21) - 10;
+    }
+  },
+  /** A periodic signal with noise, e.g. vibration or power consumption. */
+  PERIODIC {
+    @Override
+    long nextLong(Random random, int index, long previous) {
+      return Math.round(1000 * Math.sin(index * Math.PI / 50)) + random.nextInt(10);
+    }
+  },
+  /** Values that rarely change, e.g. switch status or configuration. */
+  STEP {
+    @Override
+    long nextLong(Random random, int index, long previous) {
+      return index == 0 || random.nextInt(200) == 0 ? random.nextInt(100) : previous;
+    }
+  },
+  /** Uniformly distributed values, the worst case for most encodings. */
+  UNIFORM {
+    @Override
+    long nextLong(Random random, int index, long previous) {
+      return random.nextLong();
+    }
+  };
+
+  private static final long SEED = 20220601L;
+
+  abstract long nextLong(Random random, int index, long previous);
+
+  public long[] generateLongs(int size) {
+    Random random = new Random(SEED);
+    long[] values = new long[size];
+    long previous = 0;
+    for (int i = 0; i < size; i++) {
+      previous = nextLong(random, i, previous);
+      values[i] = previous;
+    }
+    return values;
+  }
+
+  public double[] generateDoubles(int size) {
+    long[] longs = generateLongs(size);
+    double[] values = new double[size];
+    for (int i = 0; i < size; i++) {
+      // keep two decimal places, which is the typical precision of sensor readings
+      values[i] = this == UNIFORM ? Double.longBitsToDouble(longs[i] >>> 2) : longs[i] / 100.0;
+    }
+    return values;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.benchmark.encoding;
+
+import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.TSEncodingBuilder;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/** Encode and decode one page of INT64 values with every encoding that supports INT64. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(LongEncodingBenchmark.PAGE_SIZE)
+public class LongEncodingBenchmark {
+
+  static final int PAGE_SIZE = 10_000;
+
+  @Param({"GORILLA", "RLE", "TS_2DIFF", "ZIGZAG", "FREQ", "PLAIN"})
+  private TSEncoding encoding;
+
+  @Param({"REGULAR_TIMESTAMP", "RANDOM_WALK", "PERIODIC", "STEP", "UNIFORM"})
+  private DataDistribution distribution;
+
+  private long[] values;
+  private ByteArrayOutputStream out;
+  private ByteBuffer encoded;
+  private Decoder decoder;
+
+  @Setup
+  public void setUp() throws IOException {
+    values = distribution.generateLongs(PAGE_SIZE);
+    out = new ByteArrayOutputStream(PAGE_SIZE * Long.BYTES);
+    encode();
+    encoded = ByteBuffer.wrap(out.toByteArray());
+    decoder = Decoder.getDecoderByType(encoding, TSDataType.INT64);
+  }
+
+  @Benchmark
+  public int encode() throws IOException {
+    Encoder encoder = TSEncodingBuilder.getEncodingBuilder(encoding).getEncoder(TSDataType.INT64);
+    out.reset();
+    for (long value : values) {
+      encoder.encode(value, out);
+    }
+    encoder.flush(out);
+    return out.size();
+  }
+
+  @Benchmark
+  public void decode(Blackhole blackhole) throws IOException {
+    ByteBuffer buffer = encoded.duplicate();
+    decoder.reset();
+    while (decoder.hasNext(buffer)) {
+      blackhole.consume(decoder.readLong(buffer));
+    }
+  }
+}
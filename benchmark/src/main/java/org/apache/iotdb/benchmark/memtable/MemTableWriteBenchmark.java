@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.benchmark.memtable;
+
+import org.apache.iotdb.db.engine.memtable.IMemTable;
+import org.apache.iotdb.db.engine.memtable.PrimitiveMemTable;
+import org.apache.iotdb.db.exception.WriteProcessException;
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.metadata.idtable.entry.DeviceIDFactory;
+import org.apache.iotdb.db.metadata.idtable.entry.IDeviceID;
+import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
+import org.apache.iotdb.db.metadata.mnode.MeasurementMNode;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write the same rows of one device into an empty memtable, either row by row like InsertRowPlan or
+ * at once like InsertTabletPlan. The score is the number of rows written per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemTableWriteBenchmark {
+
+  private static final String DEVICE = "root.sg.d1";
+  private static final int ROW_COUNT = 10_000;
+  private static final int LONG_SENSOR_COUNT = 5;
+  private static final int DOUBLE_SENSOR_COUNT = 5;
+  private static final int SENSOR_COUNT = LONG_SENSOR_COUNT + DOUBLE_SENSOR_COUNT;
+
+  private IDeviceID deviceId;
+  private List<IMeasurementSchema> schemaList;
+  private long[] times;
+  private Object[][] rows;
+  private InsertTabletPlan insertTabletPlan;
+
+  private IMemTable memTable;
+
+  @Setup(Level.Trial)
+  public void prepareData() throws IllegalPathException {
+    deviceId = DeviceIDFactory.getInstance().getDeviceID(new PartialPath(DEVICE));
+
+    String[] measurements = new String[SENSOR_COUNT];
+    List<Integer> dataTypes = new ArrayList<>(SENSOR_COUNT);
+    IMeasurementMNode[] mNodes = new IMeasurementMNode[SENSOR_COUNT];
+    schemaList = new ArrayList<>(SENSOR_COUNT);
+    for (int i = 0; i < SENSOR_COUNT; i++) {
+      measurements[i] = "s" + i;
+      TSDataType dataType = i < LONG_SENSOR_COUNT ? TSDataType.INT64 : TSDataType.DOUBLE;
+      dataTypes.add(dataType.ordinal());
+      MeasurementSchema schema =
+          new MeasurementSchema(measurements[i], dataType, TSEncoding.GORILLA);
+      schemaList.add(schema);
+      mNodes[i] = MeasurementMNode.getMeasurementMNode(null, measurements[i], schema, null);
+    }
+
+    Random random = new Random(20220601L);
+    times = new long[ROW_COUNT];
+    rows = new Object[ROW_COUNT][SENSOR_COUNT];
+    Object[] columns = new Object[SENSOR_COUNT];
+    for (int i = 0; i < SENSOR_COUNT; i++) {
+      columns[i] = i < LONG_SENSOR_COUNT ? new long[ROW_COUNT] : new double[ROW_COUNT];
+    }
+    for (int row = 0; row < ROW_COUNT; row++) {
+      times[row] = row;
+      for (int i = 0; i < SENSOR_COUNT; i++) {
+        if (i < LONG_SENSOR_COUNT) {
+          long value = random.nextInt(10_000);
+          ((long[]) columns[i])[row] = value;
+          rows[row][i] = value;
+        } else {
+          double value = random.nextDouble();
+          ((double[]) columns[i])[row] = value;
+          rows[row][i] = value;
+        }
+      }
+    }
+
+    insertTabletPlan = new InsertTabletPlan(new PartialPath(DEVICE), measurements, dataTypes);
+    insertTabletPlan.setTimes(times);
+    insertTabletPlan.setColumns(columns);
+    insertTabletPlan.setRowCount(ROW_COUNT);
+    insertTabletPlan.setMeasurementMNodes(mNodes);
+  }
+
+  @Setup(Level.Invocation)
+  public void createMemTable() {
+    memTable = new PrimitiveMemTable();
+  }
+
+  @TearDown(Level.Invocation)
+  public void releaseMemTable() {
+    memTable.release();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROW_COUNT)
+  public IMemTable write() {
+    for (int row = 0; row < ROW_COUNT; row++) {
+      memTable.write(deviceId, schemaList, times[row], rows[row]);
+    }
+    return memTable;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROW_COUNT)
+  public IMemTable insertTablet() throws WriteProcessException {
+    memTable.insertTablet(insertTabletPlan, 0, ROW_COUNT);
+    return memTable;
+  }
+}
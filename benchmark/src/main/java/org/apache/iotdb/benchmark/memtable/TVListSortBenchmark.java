@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.benchmark.memtable;
+
+import org.apache.iotdb.db.utils.datastructure.TVList;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sort a TVList as the flush and query paths do. The list is refilled before every invocation
+ * because sorting is done in place, so the size should be large enough to hide the cost of the
+ * setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TVListSortBenchmark {
+
+  public enum Arrival {
+    /** Points arrive in time order, the list is already sorted. */
+    IN_ORDER,
+    /** Most points arrive in order, a few are delayed by a short period. */
+    SLIGHTLY_OUT_OF_ORDER,
+    /** Points of several devices are interleaved with large delays. */
+    OUT_OF_ORDER,
+    /** Points arrive in reverse time order. */
+    REVERSE
+  }
+
+  @Param({"INT64", "DOUBLE"})
+  private TSDataType dataType;
+
+  @Param({"IN_ORDER", "SLIGHTLY_OUT_OF_ORDER", "OUT_OF_ORDER", "REVERSE"})
+  private Arrival arrival;
+
+  @Param({"100000"})
+  private int size;
+
+  private long[] times;
+  private TVList list;
+
+  @Setup(Level.Trial)
+  public void generateTimes() {
+    Random random = new Random(20220601L);
+    times = new long[size];
+    for (int i = 0; i < size; i++) {
+      switch (arrival) {
+        case IN_ORDER:
+          times[i] = i;
+          break;
+        case SLIGHTLY_OUT_OF_ORDER:
+          times[i] = random.nextInt(100) == 0 ? Math.max(0, i - random.nextInt(50)) : i;
+          break;
+        case OUT_OF_ORDER:
+          times[i] = random.nextInt(size);
+          break;
+        case REVERSE:
+        default:
+          times[i] = size - i;
+          break;
+      }
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void fillList() {
+    list = TVList.newList(dataType);
+    for (int i = 0; i < size; i++) {
+      if (dataType == TSDataType.DOUBLE) {
+        list.putDouble(times[i], i);
+      } else {
+        list.putLong(times[i], i);
+      }
+    }
+  }
+
+  @TearDown(Level.Invocation)
+  public void releaseList() {
+    list.clear();
+  }
+
+  @Benchmark
+  public TVList sort() {
+    list.sort();
+    return list;
+  }
+}
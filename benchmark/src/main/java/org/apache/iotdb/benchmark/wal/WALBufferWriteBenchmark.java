@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.benchmark.wal;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.wal.buffer.ConcurrentWALBuffer;
+import org.apache.iotdb.db.wal.buffer.IWALBuffer;
+import org.apache.iotdb.db.wal.buffer.WALBuffer;
+import org.apache.iotdb.db.wal.buffer.WALEntry;
+import org.apache.iotdb.db.wal.utils.WALMode;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many threads write InsertRowPlans into one wal buffer, either through the serialize thread of
+ * {@link WALBuffer} or concurrently through {@link ConcurrentWALBuffer}. In SYNC and GROUP_COMMIT
+ * modes each write waits for its fsync. The score is the number of wal entries written per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class WALBufferWriteBenchmark {
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  @Param({"false", "true"})
+  private boolean concurrentSerialization;
+
+  @Param({"ASYNC", "GROUP_COMMIT"})
+  private WALMode walMode;
+
+  private File logDirectory;
+  private IWALBuffer walBuffer;
+  private InsertRowPlan insertRowPlan;
+
+  @Setup(Level.Trial)
+  public void createBuffer() throws IOException, IllegalPathException {
+    config.setWalMode(walMode);
+    logDirectory = Files.createTempDirectory("wal-benchmark").toFile();
+    walBuffer =
+        concurrentSerialization
+            ? new ConcurrentWALBuffer("0", logDirectory.getPath())
+            : new WALBuffer("0", logDirectory.getPath());
+    insertRowPlan =
+        new InsertRowPlan(
+            new PartialPath("root.sg.d1"),
+            1L,
+            new String[] {"s1", "s2", "s3", "s4"},
+            new TSDataType[] {
+              TSDataType.INT64, TSDataType.INT64, TSDataType.DOUBLE, TSDataType.TEXT
+            },
+            new String[] {"1", "2", "3.0", "text"});
+  }
+
+  @TearDown(Level.Trial)
+  public void closeBuffer() {
+    walBuffer.close();
+    File[] files = logDirectory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    logDirectory.delete();
+  }
+
+  @Benchmark
+  public WALEntry write() {
+    WALEntry walEntry = new WALEntry(0, insertRowPlan);
+    walBuffer.write(walEntry);
+    walEntry.getWalFlushListener().waitForResult();
+    return walEntry;
+  }
+}
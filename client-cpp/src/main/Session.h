@@ -116,7 +116,8 @@ namespace CompressionType {
         SDT = (char) 4,
         PAA = (char) 5,
         PLA = (char) 6,
-        LZ4 = (char) 7
+        LZ4 = (char) 7,
+        ZSTD = (char) 8
     };
 }
 
@@ -145,7 +146,8 @@ namespace TSEncoding {
         REGULAR = (char) 7,
         GORILLA = (char) 8,
         ZIGZAG = (char) 9,
-        FREQ = (char) 10
+        FREQ = (char) 10,
+        AUTO = (char) 11
     };
 }
 
@@ -37,9 +37,11 @@ import org.apache.iotdb.rpc.RpcTransportFactory;
 import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.fileSystem.FSType;
+import org.apache.iotdb.tsfile.fileSystem.TsFileInputMode;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -163,6 +165,15 @@ public class IoTDBConfig {
   /** Duration a wal flush operation will wait before calling fsync. Unit: millisecond */
   private volatile long fsyncWalDelayInMs = 10;
 
+  /**
+   * Max duration a wal flush operation will wait for more writes since the first write of a batch
+   * in GROUP_COMMIT mode. Unit: microsecond
+   */
+  private volatile long walGroupCommitMaxWaitInUs = 1000;
+
+  /** Max number of wal entries covered by one fsync in GROUP_COMMIT mode */
+  private volatile int walGroupCommitMaxBatchSize = 256;
+
   /** Max number of wal nodes, each node corresponds to one wal directory */
   private int maxWalNodesNum = 0;
 
@@ -175,6 +186,18 @@ public class IoTDBConfig {
   /** Blocking queue capacity of each wal buffer */
   private int walBufferQueueCapacity = 10_000;
 
+  /**
+   * Whether writers serialize wal entries concurrently into segments of the wal buffer instead of
+   * handing them to one serialize thread
+   */
+  private boolean enableWALConcurrentSerialization = false;
+
+  /** Compressor of InsertTablet wal entries, UNCOMPRESSED means writing them as they are */
+  private volatile CompressionType walTabletCompressor = CompressionType.UNCOMPRESSED;
+
+  /** Number of threads decoding wal files and redoing them into memTables during recovery */
+  private int walRecoverThreadNum = Runtime.getRuntime().availableProcessors();
+
   /** Size threshold of each wal file. Unit: byte */
   private volatile long walFileSizeThresholdInByte = 10 * 1024 * 1024;
 
@@ -208,6 +231,18 @@ public class IoTDBConfig {
    */
   private long syncMlogPeriodInMs = 100;
 
+  /**
+   * Whether to create snapshots of the in-memory MTree periodically, so that only the metadata log
+   * written after the latest snapshot needs to be replayed when restarting.
+   */
+  private boolean enableMTreeSnapshot = false;
+
+  /** Number of metadata log entries after the latest snapshot to trigger a new MTree snapshot. */
+  private int mtreeSnapshotInterval = 100000;
+
+  /** The cycle when whether to create MTree snapshots is checked. Unit: second */
+  private long mtreeSnapshotCheckIntervalInS = 600;
+
   /**
    * The size of log buffer for every trigger management operation plan. If the size of a trigger
    * management operation plan is larger than this parameter, the trigger management operation plan
@@ -416,6 +451,15 @@ public class IoTDBConfig {
   /** The max candidate file num in inner space compaction */
   private int maxInnerCompactionCandidateFileNum = 30;
 
+  /**
+   * The time window that leveled and time window compaction selectors bucket files by, files in
+   * different windows are not compacted together. Unit: millisecond, 1 day by default.
+   */
+  private long compactionTimeWindowInMs = 86_400_000L;
+
+  /** The number of files of a level in a time window that leveled compaction merges at once */
+  private int leveledCompactionFanout = 10;
+
   /** The max candidate file num in cross space compaction */
   private int maxCrossCompactionCandidateFileNum = 1000;
 
@@ -443,6 +487,12 @@ public class IoTDBConfig {
   /** Memory allocated for chunk cache in read process */
   private long allocateMemoryForChunkCache = allocateMemoryForRead * 100 / 1001;
 
+  /**
+   * Off-heap memory for the second tier of chunk cache, which keeps the chunks evicted from chunk
+   * cache. 0 means the second tier is disabled.
+   */
+  private long allocateMemoryForOffHeapChunkCache = 0;
+
   /** Whether to enable Last cache */
   private boolean lastCacheEnable = true;
 
@@ -587,9 +637,18 @@ public class IoTDBConfig {
    */
   private long mergeIntervalSec = 0L;
 
-  /** The limit of compaction merge can reach per second */
+  /** The limit of compaction merge can reach per second, for each data dir */
   private int compactionWriteThroughputMbPerSec = 16;
 
+  /** The limit of compaction read can reach per second for each data dir, 0 means no limit */
+  private int compactionReadThroughputMbPerSec = 0;
+
+  /**
+   * Whether to scale compaction throughput limits by write load, raising them when unsequence files
+   * pile up and lowering them when flush or query latency rises.
+   */
+  private boolean enableCompactionAdaptiveThroughput = false;
+
   /**
    * How many thread will be set up to perform compaction, 10 by default. Set to 1 when less than or
    * equal to 0.
@@ -641,6 +700,12 @@ public class IoTDBConfig {
   /** Default TSfile storage is in local file system */
   private FSType tsFileStorageFs = FSType.LOCAL;
 
+  /**
+   * The way to read local TsFiles. CHANNEL reads through FileChannel, MMAP maps the files into
+   * memory, and READ_AHEAD reads through FileChannel with an adaptive read-ahead buffer.
+   */
+  private TsFileInputMode tsFileInputMode = TsFileInputMode.CHANNEL;
+
   /** Default core-site.xml file path is /etc/hadoop/conf/core-site.xml */
   private String coreSitePath = "/etc/hadoop/conf/core-site.xml";
 
@@ -695,6 +760,12 @@ public class IoTDBConfig {
   /** The default value of primitive array size in array pool */
   private int primitiveArraySize = 32;
 
+  /**
+   * Whether to keep the timestamps and values of non-aligned, fixed length TVLists in off-heap
+   * memory instead of the primitive array pool
+   */
+  private boolean enableOffHeapTVList = false;
+
   /** whether enable data partition. If disabled, all data belongs to partition 0 */
   private boolean enablePartition = false;
 
@@ -786,6 +857,18 @@ public class IoTDBConfig {
   /** the size of ioTaskQueue */
   private int ioTaskQueueSizeForFlushing = 10;
 
+  /**
+   * Whether to sort and encode the series of a memtable in parallel when flushing. The chunks are
+   * still written to the TsFile in the order of chunk groups by a single io thread.
+   */
+  private boolean enableParallelFlush = false;
+
+  /**
+   * How many threads can concurrently sort and encode the series of one memtable when parallel
+   * flush is enabled. When <= 0, use CPU core number.
+   */
+  private int parallelFlushWorkerNum = Runtime.getRuntime().availableProcessors();
+
   /** the number of data regions per user-defined storage group */
   private int dataRegionNum = 1;
 
@@ -1439,6 +1522,22 @@ public class IoTDBConfig {
     this.fsyncWalDelayInMs = fsyncWalDelayInMs;
   }
 
+  public long getWalGroupCommitMaxWaitInUs() {
+    return walGroupCommitMaxWaitInUs;
+  }
+
+  public void setWalGroupCommitMaxWaitInUs(long walGroupCommitMaxWaitInUs) {
+    this.walGroupCommitMaxWaitInUs = walGroupCommitMaxWaitInUs;
+  }
+
+  public int getWalGroupCommitMaxBatchSize() {
+    return walGroupCommitMaxBatchSize;
+  }
+
+  public void setWalGroupCommitMaxBatchSize(int walGroupCommitMaxBatchSize) {
+    this.walGroupCommitMaxBatchSize = walGroupCommitMaxBatchSize;
+  }
+
   public int getMaxWalNodesNum() {
     return maxWalNodesNum;
   }
@@ -1471,6 +1570,30 @@ public class IoTDBConfig {
     this.walBufferQueueCapacity = walBufferQueueCapacity;
   }
 
+  public CompressionType getWalTabletCompressor() {
+    return walTabletCompressor;
+  }
+
+  public void setWalTabletCompressor(CompressionType walTabletCompressor) {
+    this.walTabletCompressor = walTabletCompressor;
+  }
+
+  public int getWalRecoverThreadNum() {
+    return walRecoverThreadNum;
+  }
+
+  void setWalRecoverThreadNum(int walRecoverThreadNum) {
+    this.walRecoverThreadNum = walRecoverThreadNum;
+  }
+
+  public boolean isEnableWALConcurrentSerialization() {
+    return enableWALConcurrentSerialization;
+  }
+
+  public void setEnableWALConcurrentSerialization(boolean enableWALConcurrentSerialization) {
+    this.enableWALConcurrentSerialization = enableWALConcurrentSerialization;
+  }
+
   public long getWalFileSizeThresholdInByte() {
     return walFileSizeThresholdInByte;
   }
@@ -1705,6 +1828,22 @@ public class IoTDBConfig {
     this.compactionWriteThroughputMbPerSec = compactionWriteThroughputMbPerSec;
   }
 
+  public int getCompactionReadThroughputMbPerSec() {
+    return compactionReadThroughputMbPerSec;
+  }
+
+  public void setCompactionReadThroughputMbPerSec(int compactionReadThroughputMbPerSec) {
+    this.compactionReadThroughputMbPerSec = compactionReadThroughputMbPerSec;
+  }
+
+  public boolean isEnableCompactionAdaptiveThroughput() {
+    return enableCompactionAdaptiveThroughput;
+  }
+
+  public void setEnableCompactionAdaptiveThroughput(boolean enableCompactionAdaptiveThroughput) {
+    this.enableCompactionAdaptiveThroughput = enableCompactionAdaptiveThroughput;
+  }
+
   public boolean isEnableMemControl() {
     return enableMemControl;
   }
@@ -1826,6 +1965,14 @@ public class IoTDBConfig {
     this.allocateMemoryForChunkCache = allocateMemoryForChunkCache;
   }
 
+  public long getAllocateMemoryForOffHeapChunkCache() {
+    return allocateMemoryForOffHeapChunkCache;
+  }
+
+  public void setAllocateMemoryForOffHeapChunkCache(long allocateMemoryForOffHeapChunkCache) {
+    this.allocateMemoryForOffHeapChunkCache = allocateMemoryForOffHeapChunkCache;
+  }
+
   public boolean isLastCacheEnabled() {
     return lastCacheEnable;
   }
@@ -2047,6 +2194,14 @@ public class IoTDBConfig {
     this.tsFileStorageFs = FSType.valueOf(tsFileStorageFs);
   }
 
+  public TsFileInputMode getTsFileInputMode() {
+    return tsFileInputMode;
+  }
+
+  public void setTsFileInputMode(TsFileInputMode tsFileInputMode) {
+    this.tsFileInputMode = tsFileInputMode;
+  }
+
   String getCoreSitePath() {
     return coreSitePath;
   }
@@ -2243,6 +2398,14 @@ public class IoTDBConfig {
     this.primitiveArraySize = primitiveArraySize;
   }
 
+  public boolean isEnableOffHeapTVList() {
+    return enableOffHeapTVList;
+  }
+
+  public void setEnableOffHeapTVList(boolean enableOffHeapTVList) {
+    this.enableOffHeapTVList = enableOffHeapTVList;
+  }
+
   public String getOpenIdProviderUrl() {
     return openIdProviderUrl;
   }
@@ -2394,6 +2557,30 @@ public class IoTDBConfig {
     this.syncMlogPeriodInMs = syncMlogPeriodInMs;
   }
 
+  public boolean isEnableMTreeSnapshot() {
+    return enableMTreeSnapshot;
+  }
+
+  public void setEnableMTreeSnapshot(boolean enableMTreeSnapshot) {
+    this.enableMTreeSnapshot = enableMTreeSnapshot;
+  }
+
+  public int getMtreeSnapshotInterval() {
+    return mtreeSnapshotInterval;
+  }
+
+  public void setMtreeSnapshotInterval(int mtreeSnapshotInterval) {
+    this.mtreeSnapshotInterval = mtreeSnapshotInterval;
+  }
+
+  public long getMtreeSnapshotCheckIntervalInS() {
+    return mtreeSnapshotCheckIntervalInS;
+  }
+
+  public void setMtreeSnapshotCheckIntervalInS(long mtreeSnapshotCheckIntervalInS) {
+    this.mtreeSnapshotCheckIntervalInS = mtreeSnapshotCheckIntervalInS;
+  }
+
   public int getTlogBufferSize() {
     return tlogBufferSize;
   }
@@ -2426,6 +2613,22 @@ public class IoTDBConfig {
     this.ioTaskQueueSizeForFlushing = ioTaskQueueSizeForFlushing;
   }
 
+  public boolean isEnableParallelFlush() {
+    return enableParallelFlush;
+  }
+
+  public void setEnableParallelFlush(boolean enableParallelFlush) {
+    this.enableParallelFlush = enableParallelFlush;
+  }
+
+  public int getParallelFlushWorkerNum() {
+    return parallelFlushWorkerNum;
+  }
+
+  public void setParallelFlushWorkerNum(int parallelFlushWorkerNum) {
+    this.parallelFlushWorkerNum = parallelFlushWorkerNum;
+  }
+
   public String getAdminName() {
     return adminName;
   }
@@ -2590,6 +2793,22 @@ public class IoTDBConfig {
     this.maxInnerCompactionCandidateFileNum = maxInnerCompactionCandidateFileNum;
   }
 
+  public long getCompactionTimeWindowInMs() {
+    return compactionTimeWindowInMs;
+  }
+
+  public void setCompactionTimeWindowInMs(long compactionTimeWindowInMs) {
+    this.compactionTimeWindowInMs = compactionTimeWindowInMs;
+  }
+
+  public int getLeveledCompactionFanout() {
+    return leveledCompactionFanout;
+  }
+
+  public void setLeveledCompactionFanout(int leveledCompactionFanout) {
+    this.leveledCompactionFanout = leveledCompactionFanout;
+  }
+
   public int getMaxCrossCompactionCandidateFileNum() {
     return maxCrossCompactionCandidateFileNum;
   }
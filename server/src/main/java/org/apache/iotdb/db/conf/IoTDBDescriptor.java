@@ -39,9 +39,11 @@ import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
 import org.apache.iotdb.metrics.config.ReloadLevel;
 import org.apache.iotdb.rpc.RpcTransportFactory;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.fileSystem.FSType;
+import org.apache.iotdb.tsfile.fileSystem.TsFileInputMode;
 import org.apache.iotdb.tsfile.utils.FilePathUtils;
 
 import com.google.common.net.InetAddresses;
@@ -226,6 +228,12 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "meta_data_cache_enable", Boolean.toString(conf.isMetaDataCacheEnable()))));
 
+      conf.setAllocateMemoryForOffHeapChunkCache(
+          Long.parseLong(
+              properties.getProperty(
+                  "off_heap_chunk_cache_size_in_byte",
+                  Long.toString(conf.getAllocateMemoryForOffHeapChunkCache()))));
+
       conf.setEnableLastCache(
           Boolean.parseBoolean(
               properties.getProperty(
@@ -276,6 +284,28 @@ public class IoTDBDescriptor {
         conf.setSyncMlogPeriodInMs(forceMlogPeriodInMs);
       }
 
+      conf.setEnableMTreeSnapshot(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_mtree_snapshot", Boolean.toString(conf.isEnableMTreeSnapshot()))));
+
+      int mtreeSnapshotInterval =
+          Integer.parseInt(
+              properties.getProperty(
+                  "mtree_snapshot_interval", Integer.toString(conf.getMtreeSnapshotInterval())));
+      if (mtreeSnapshotInterval > 0) {
+        conf.setMtreeSnapshotInterval(mtreeSnapshotInterval);
+      }
+
+      long mtreeSnapshotCheckIntervalInS =
+          Long.parseLong(
+              properties.getProperty(
+                  "mtree_snapshot_check_interval_in_s",
+                  Long.toString(conf.getMtreeSnapshotCheckIntervalInS())));
+      if (mtreeSnapshotCheckIntervalInS > 0) {
+        conf.setMtreeSnapshotCheckIntervalInS(mtreeSnapshotCheckIntervalInS);
+      }
+
       conf.setMultiDirStrategyClassName(
           properties.getProperty("multi_dir_strategy", conf.getMultiDirStrategyClassName()));
 
@@ -341,6 +371,21 @@ public class IoTDBDescriptor {
                   "io_task_queue_size_for_flushing",
                   Integer.toString(conf.getIoTaskQueueSizeForFlushing()))));
 
+      conf.setEnableParallelFlush(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_parallel_flush", Boolean.toString(conf.isEnableParallelFlush()))));
+
+      conf.setParallelFlushWorkerNum(
+          Integer.parseInt(
+              properties.getProperty(
+                  "parallel_flush_worker_num",
+                  Integer.toString(conf.getParallelFlushWorkerNum()))));
+
+      if (conf.getParallelFlushWorkerNum() <= 0) {
+        conf.setParallelFlushWorkerNum(Runtime.getRuntime().availableProcessors());
+      }
+
       conf.setCompactionScheduleIntervalInMs(
           Long.parseLong(
               properties.getProperty(
@@ -577,6 +622,22 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "max_inner_compaction_candidate_file_num",
                   Integer.toString(conf.getMaxInnerCompactionCandidateFileNum()))));
+      long compactionTimeWindowInMs =
+          Long.parseLong(
+              properties.getProperty(
+                  "compaction_time_window_in_ms",
+                  Long.toString(conf.getCompactionTimeWindowInMs())));
+      if (compactionTimeWindowInMs > 0) {
+        conf.setCompactionTimeWindowInMs(compactionTimeWindowInMs);
+      }
+      int leveledCompactionFanout =
+          Integer.parseInt(
+              properties.getProperty(
+                  "leveled_compaction_fanout",
+                  Integer.toString(conf.getLeveledCompactionFanout())));
+      if (leveledCompactionFanout > 1) {
+        conf.setLeveledCompactionFanout(leveledCompactionFanout);
+      }
       conf.setMaxCrossCompactionCandidateFileNum(
           Integer.parseInt(
               properties.getProperty(
@@ -588,6 +649,16 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "compaction_write_throughput_mb_per_sec",
                   Integer.toString(conf.getCompactionWriteThroughputMbPerSec()))));
+      conf.setCompactionReadThroughputMbPerSec(
+          Integer.parseInt(
+              properties.getProperty(
+                  "compaction_read_throughput_mb_per_sec",
+                  Integer.toString(conf.getCompactionReadThroughputMbPerSec()))));
+      conf.setEnableCompactionAdaptiveThroughput(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_compaction_adaptive_throughput",
+                  String.valueOf(conf.isEnableCompactionAdaptiveThroughput()))));
 
       conf.setEnablePartialInsert(
           Boolean.parseBoolean(
@@ -627,6 +698,11 @@ public class IoTDBDescriptor {
 
       conf.setTsFileStorageFs(
           properties.getProperty("tsfile_storage_fs", conf.getTsFileStorageFs().toString()));
+      conf.setTsFileInputMode(
+          TsFileInputMode.valueOf(
+              properties
+                  .getProperty("tsfile_input_mode", conf.getTsFileInputMode().name())
+                  .trim()));
       conf.setCoreSitePath(properties.getProperty("core_site_path", conf.getCoreSitePath()));
       conf.setHdfsSitePath(properties.getProperty("hdfs_site_path", conf.getHdfsSitePath()));
       conf.setHdfsIp(properties.getProperty("hdfs_ip", conf.getRawHDFSIp()).split(","));
@@ -684,6 +760,11 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "primitive_array_size", String.valueOf(conf.getPrimitiveArraySize())))));
 
+      conf.setEnableOffHeapTVList(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_off_heap_tvlist", String.valueOf(conf.isEnableOffHeapTVList()))));
+
       conf.setThriftMaxFrameSize(
           Integer.parseInt(
               properties.getProperty(
@@ -838,6 +919,7 @@ public class IoTDBDescriptor {
           .setTSFileStorageFs(
               FSType.valueOf(
                   properties.getProperty("tsfile_storage_fs", conf.getTsFileStorageFs().name())));
+      TSFileDescriptor.getInstance().getConfig().setTsFileInputMode(conf.getTsFileInputMode());
       TSFileDescriptor.getInstance()
           .getConfig()
           .setCoreSitePath(properties.getProperty("core_site_path", conf.getCoreSitePath()));
@@ -995,9 +1077,55 @@ public class IoTDBDescriptor {
       conf.setWalBufferQueueCapacity(walBufferQueueCapacity);
     }
 
+    conf.setWalTabletCompressor(
+        parseWalTabletCompressor(
+            properties.getProperty(
+                "wal_tablet_compressor", conf.getWalTabletCompressor().toString())));
+
+    int walRecoverThreadNum =
+        Integer.parseInt(
+            properties.getProperty(
+                "wal_recover_thread_num", Integer.toString(conf.getWalRecoverThreadNum())));
+    if (walRecoverThreadNum > 0) {
+      conf.setWalRecoverThreadNum(walRecoverThreadNum);
+    }
+
+    conf.setEnableWALConcurrentSerialization(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_wal_concurrent_serialization",
+                Boolean.toString(conf.isEnableWALConcurrentSerialization()))));
+
     loadWALHotModifiedProps(properties);
   }
 
+  /**
+   * Only general purpose compressors can compress wal entries, unknown or unsupported ones fall
+   * back to UNCOMPRESSED.
+   */
+  static CompressionType parseWalTabletCompressor(String value) {
+    try {
+      CompressionType compressionType = CompressionType.valueOf(value.trim());
+      switch (compressionType) {
+        case UNCOMPRESSED:
+        case SNAPPY:
+        case LZ4:
+        case GZIP:
+        case ZSTD:
+          return compressionType;
+        default:
+          break;
+      }
+    } catch (IllegalArgumentException e) {
+      // fall through to the warning below
+    }
+    logger.warn(
+        "Unsupported wal_tablet_compressor {}, use {} instead.",
+        value,
+        CompressionType.UNCOMPRESSED);
+    return CompressionType.UNCOMPRESSED;
+  }
+
   private void loadWALHotModifiedProps(Properties properties) {
     long fsyncWalDelayInMs =
         Long.parseLong(
@@ -1007,6 +1135,24 @@ public class IoTDBDescriptor {
       conf.setFsyncWalDelayInMs(fsyncWalDelayInMs);
     }
 
+    long walGroupCommitMaxWaitInUs =
+        Long.parseLong(
+            properties.getProperty(
+                "wal_group_commit_max_wait_in_us",
+                Long.toString(conf.getWalGroupCommitMaxWaitInUs())));
+    if (walGroupCommitMaxWaitInUs >= 0) {
+      conf.setWalGroupCommitMaxWaitInUs(walGroupCommitMaxWaitInUs);
+    }
+
+    int walGroupCommitMaxBatchSize =
+        Integer.parseInt(
+            properties.getProperty(
+                "wal_group_commit_max_batch_size",
+                Integer.toString(conf.getWalGroupCommitMaxBatchSize())));
+    if (walGroupCommitMaxBatchSize > 0) {
+      conf.setWalGroupCommitMaxBatchSize(walGroupCommitMaxBatchSize);
+    }
+
     long walFileSizeThreshold =
         Long.parseLong(
             properties.getProperty(
@@ -1175,6 +1321,24 @@ public class IoTDBDescriptor {
             properties.getProperty(
                 "compressor",
                 TSFileDescriptor.getInstance().getConfig().getCompressor().toString()));
+    TSFileDescriptor.getInstance()
+        .getConfig()
+        .setWriteBufferSizeInByte(
+            Integer.parseInt(
+                properties.getProperty(
+                    "write_buffer_size_in_byte",
+                    Integer.toString(
+                        TSFileDescriptor.getInstance().getConfig().getWriteBufferSizeInByte()))));
+    TSFileDescriptor.getInstance()
+        .getConfig()
+        .setPageBufferPoolSizeInByte(
+            Long.parseLong(
+                properties.getProperty(
+                    "page_buffer_pool_size_in_byte",
+                    Long.toString(
+                        TSFileDescriptor.getInstance()
+                            .getConfig()
+                            .getPageBufferPoolSizeInByte()))));
     TSFileDescriptor.getInstance()
         .getConfig()
         .setMaxDegreeOfIndexNode(
@@ -44,7 +44,8 @@ import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class is used to cache <code>Chunk</code> of <code>ChunkMetaData</code> in IoTDB. The
- * caching strategy is LRU.
+ * caching strategy is LRU. If off_heap_chunk_cache_size_in_byte is set, the evicted chunks are kept
+ * in an {@link OffHeapChunkCache} and moved back when they are read again.
  */
 public class ChunkCache {
 
@@ -54,16 +55,27 @@ public class ChunkCache {
   private static final long MEMORY_THRESHOLD_IN_CHUNK_CACHE =
       config.getAllocateMemoryForChunkCache();
   private static final boolean CACHE_ENABLE = config.isMetaDataCacheEnable();
+  private static final long MEMORY_THRESHOLD_IN_OFF_HEAP_CHUNK_CACHE =
+      config.getAllocateMemoryForOffHeapChunkCache();
 
   private final LoadingCache<ChunkMetadata, Chunk> lruCache;
 
+  /** null if the off-heap tier is disabled */
+  private final OffHeapChunkCache offHeapCache;
+
   private final AtomicLong entryAverageSize = new AtomicLong(0);
 
   private ChunkCache() {
     if (CACHE_ENABLE) {
       logger.info("ChunkCache size = " + MEMORY_THRESHOLD_IN_CHUNK_CACHE);
     }
-    lruCache =
+    if (CACHE_ENABLE && MEMORY_THRESHOLD_IN_OFF_HEAP_CHUNK_CACHE > 0) {
+      logger.info("Off-heap ChunkCache size = " + MEMORY_THRESHOLD_IN_OFF_HEAP_CHUNK_CACHE);
+      offHeapCache = new OffHeapChunkCache(MEMORY_THRESHOLD_IN_OFF_HEAP_CHUNK_CACHE);
+    } else {
+      offHeapCache = null;
+    }
+    Caffeine<ChunkMetadata, Chunk> builder =
         Caffeine.newBuilder()
             .maximumWeight(MEMORY_THRESHOLD_IN_CHUNK_CACHE)
             .weigher(
@@ -71,10 +83,24 @@ public class ChunkCache {
                     (chunkMetadata, chunk) ->
                         (int)
                             (RamUsageEstimator.NUM_BYTES_OBJECT_REF
-                                + RamUsageEstimator.sizeOf(chunk)))
+                                + RamUsageEstimator.sizeOf(chunk)));
+    if (offHeapCache != null) {
+      // only the chunks evicted for size are demoted, not the invalidated ones
+      builder =
+          builder.evictionListener(
+              (chunkMetadata, chunk, cause) -> offHeapCache.put(chunkMetadata, chunk));
+    }
+    lruCache =
+        builder
             .recordStats()
             .build(
                 chunkMetadata -> {
+                  if (offHeapCache != null) {
+                    Chunk chunk = offHeapCache.remove(chunkMetadata);
+                    if (chunk != null) {
+                      return chunk;
+                    }
+                  }
                   try {
                     TsFileSequenceReader reader =
                         FileReaderManager.getInstance()
@@ -97,6 +123,17 @@ public class ChunkCache {
               l -> (long) (l.stats().hitRate() * 100),
               Tag.NAME.toString(),
               "chunk");
+      if (offHeapCache != null) {
+        MetricsService.getInstance()
+            .getMetricManager()
+            .getOrCreateAutoGauge(
+                Metric.CACHE_HIT.toString(),
+                MetricLevel.IMPORTANT,
+                offHeapCache,
+                c -> (long) (c.hitRate() * 100),
+                Tag.NAME.toString(),
+                "chunk_off_heap");
+      }
     }
   }
 
@@ -158,10 +195,16 @@ public class ChunkCache {
   public void clear() {
     lruCache.invalidateAll();
     lruCache.cleanUp();
+    if (offHeapCache != null) {
+      offHeapCache.clear();
+    }
   }
 
   public void remove(ChunkMetadata chunkMetaData) {
     lruCache.invalidate(chunkMetaData);
+    if (offHeapCache != null) {
+      offHeapCache.invalidate(chunkMetaData);
+    }
   }
 
   @TestOnly
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The second tier of {@link ChunkCache}, which keeps the chunks evicted from ChunkCache in off-heap
+ * memory. Only the data of a chunk is kept off-heap, it is the same as in the TsFile, i.e., the
+ * pages are still compressed. The chunk header and a small index entry stay on heap.
+ *
+ * <p>The memory is split into slabs which are filled one after another like a ring. When the ring
+ * is full, the oldest slab is reused and all the chunks in it are dropped, so there is no
+ * fragmentation and the eviction is FIFO by slab. A chunk that is read again is moved back to
+ * ChunkCache and removed from here, its space is reclaimed when its slab is reused.
+ */
+class OffHeapChunkCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(OffHeapChunkCache.class);
+
+  private static final int MAX_SLAB_SIZE = 64 * 1024 * 1024;
+
+  private static final int MIN_SLAB_NUM = 4;
+
+  private final int slabSize;
+
+  /** allocated when they are written for the first time */
+  private final ByteBuffer[] slabs;
+
+  /** entries written into each slab, they are dropped when the slab is reused */
+  private final List<Entry>[] slabEntries;
+
+  private int writeSlab = 0;
+
+  private int writeOffset = 0;
+
+  private final Map<ChunkKey, Entry> index = new ConcurrentHashMap<>();
+
+  /** reads hold the read lock while copying out of a slab, which is reused under the write lock */
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final AtomicLong hitCount = new AtomicLong();
+
+  private final AtomicLong requestCount = new AtomicLong();
+
+  OffHeapChunkCache(long capacity) {
+    this(capacity, (int) Math.max(1, Math.min(MAX_SLAB_SIZE, capacity / MIN_SLAB_NUM)));
+  }
+
+  @SuppressWarnings("unchecked")
+  OffHeapChunkCache(long capacity, int slabSize) {
+    this.slabSize = slabSize;
+    int slabNum = (int) Math.max(1, capacity / slabSize);
+    this.slabs = new ByteBuffer[slabNum];
+    this.slabEntries = new List[slabNum];
+    for (int i = 0; i < slabNum; i++) {
+      slabEntries[i] = new ArrayList<>();
+    }
+  }
+
+  /** Keep a chunk evicted from ChunkCache. Chunks larger than a slab are not kept. */
+  void put(ChunkMetadata chunkMetadata, Chunk chunk) {
+    ByteBuffer data = chunk.getData().duplicate();
+    data.rewind();
+    int length = data.remaining();
+    if (length > slabSize) {
+      return;
+    }
+    ChunkKey key = new ChunkKey(chunkMetadata);
+    lock.writeLock().lock();
+    try {
+      if (writeOffset + length > slabSize) {
+        writeSlab = (writeSlab + 1) % slabs.length;
+        writeOffset = 0;
+        recycle(writeSlab);
+      }
+      if (slabs[writeSlab] == null) {
+        try {
+          slabs[writeSlab] = ByteBuffer.allocateDirect(slabSize);
+        } catch (OutOfMemoryError e) {
+          logger.warn(
+              "Cannot allocate {} bytes of direct memory for off-heap chunk cache, check "
+                  + "-XX:MaxDirectMemorySize",
+              slabSize);
+          return;
+        }
+      }
+      ByteBuffer slab = slabs[writeSlab].duplicate();
+      slab.position(writeOffset);
+      slab.put(data);
+      Entry entry =
+          new Entry(key, chunk.getHeader(), chunk.isFromOldFile(), writeSlab, writeOffset, length);
+      writeOffset += length;
+      slabEntries[writeSlab].add(entry);
+      index.put(key, entry);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove a chunk and copy it back to heap.
+   *
+   * @return null if the chunk is not kept
+   */
+  Chunk remove(ChunkMetadata chunkMetadata) {
+    requestCount.incrementAndGet();
+    lock.readLock().lock();
+    try {
+      Entry entry = index.remove(new ChunkKey(chunkMetadata));
+      if (entry == null) {
+        return null;
+      }
+      hitCount.incrementAndGet();
+      ByteBuffer slab = slabs[entry.slab].duplicate();
+      slab.position(entry.offset);
+      slab.limit(entry.offset + entry.length);
+      ByteBuffer data = ByteBuffer.allocate(entry.length);
+      data.put(slab);
+      data.flip();
+      Chunk chunk = new Chunk(entry.header, data, null, null);
+      chunk.setFromOldFile(entry.fromOldFile);
+      return chunk;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  void invalidate(ChunkMetadata chunkMetadata) {
+    index.remove(new ChunkKey(chunkMetadata));
+  }
+
+  /** Drop all the chunks and give the memory back. */
+  void clear() {
+    lock.writeLock().lock();
+    try {
+      index.clear();
+      for (int i = 0; i < slabs.length; i++) {
+        slabs[i] = null;
+        slabEntries[i].clear();
+      }
+      writeSlab = 0;
+      writeOffset = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void recycle(int slab) {
+    for (Entry entry : slabEntries[slab]) {
+      // the chunk may have been moved to ChunkCache and evicted into another slab since
+      index.remove(entry.key, entry);
+    }
+    slabEntries[slab].clear();
+  }
+
+  int size() {
+    return index.size();
+  }
+
+  double hitRate() {
+    long requests = requestCount.get();
+    return requests == 0 ? 1.0 : (double) hitCount.get() / requests;
+  }
+
+  private static class Entry {
+
+    private final ChunkKey key;
+    private final ChunkHeader header;
+    private final boolean fromOldFile;
+    private final int slab;
+    private final int offset;
+    private final int length;
+
+    private Entry(
+        ChunkKey key, ChunkHeader header, boolean fromOldFile, int slab, int offset, int length) {
+      this.key = key;
+      this.header = header;
+      this.fromOldFile = fromOldFile;
+      this.slab = slab;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  /**
+   * A chunk is identified by its file and offset, so the index does not keep the whole {@link
+   * ChunkMetadata} with its statistics on heap.
+   */
+  private static class ChunkKey {
+
+    private final String filePath;
+    private final long offset;
+
+    private ChunkKey(ChunkMetadata chunkMetadata) {
+      this.filePath = chunkMetadata.getFilePath();
+      this.offset = chunkMetadata.getOffsetOfChunkHeader();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ChunkKey that = (ChunkKey) o;
+      return offset == that.offset && Objects.equals(filePath, that.filePath);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(filePath, offset);
+    }
+  }
+}
@@ -34,29 +34,38 @@ import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.utils.BloomFilter;
-import org.apache.iotdb.tsfile.utils.FilePathUtils;
-import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.utils.RamUsageEstimator;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.Weigher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class is used to cache <code>TimeSeriesMetadata</code> in IoTDB. The caching strategy is
  * LRU.
+ *
+ * <p>The file paths, devices and measurements of the cached entries are interned as long ids, and
+ * an entry is keyed by a {@link CompactKey} of these ids, so the key strings are not kept per
+ * entry. An id is only interned when an entry using it is put, and it is dropped once the last such
+ * entry leaves the cache. The memory of the interned ids is charged to the cache. The ids of the
+ * entries of each file are also indexed, so that all the entries of a file can be invalidated by
+ * {@link #remove(String)} without scanning the cache.
  */
 public class TimeSeriesMetadataCache {
 
@@ -67,7 +76,19 @@ public class TimeSeriesMetadataCache {
       config.getAllocateMemoryForTimeSeriesMetaDataCache();
   private static final boolean CACHE_ENABLE = config.isMetaDataCacheEnable();
 
-  private final Cache<TimeSeriesMetadataCacheKey, TimeseriesMetadata> lruCache;
+  private final Cache<CompactKey, TimeseriesMetadata> lruCache;
+
+  /** memory of the interned ids, which is taken from the maximum weight of lruCache */
+  private final AtomicLong internedSize = new AtomicLong(0);
+
+  private volatile long chargedInternedSize = 0;
+
+  private final IdTable fileIds = new IdTable(internedSize);
+  private final IdTable deviceIds = new IdTable(internedSize);
+  private final IdTable measurementIds = new IdTable(internedSize);
+
+  /** file id -> device and measurement ids of the entries of the file */
+  private final Map<Long, FileEntries> fileEntries = new ConcurrentHashMap<>();
 
   private final AtomicLong entryAverageSize = new AtomicLong(0);
 
@@ -87,14 +108,12 @@ public class TimeSeriesMetadataCache {
         Caffeine.newBuilder()
             .maximumWeight(MEMORY_THRESHOLD_IN_TIME_SERIES_METADATA_CACHE)
             .weigher(
-                (Weigher<TimeSeriesMetadataCacheKey, TimeseriesMetadata>)
+                (Weigher<CompactKey, TimeseriesMetadata>)
                     (key, value) ->
                         (int)
-                            (RamUsageEstimator.shallowSizeOf(key)
-                                + RamUsageEstimator.sizeOf(key.device)
-                                + RamUsageEstimator.sizeOf(key.measurement)
-                                + RamUsageEstimator.sizeOf(key.tsFilePrefixPath)
-                                + RamUsageEstimator.sizeOf(key.tsFileVersion)
+                            (CompactKey.SIZE
+                                // the slots in FileEntries
+                                + 2L * Long.BYTES
                                 + RamUsageEstimator.shallowSizeOf(value)
                                 + RamUsageEstimator.sizeOf(value.getMeasurementId())
                                 + RamUsageEstimator.shallowSizeOf(value.getStatistics())
@@ -105,6 +124,15 @@ public class TimeSeriesMetadataCache {
                                             + RamUsageEstimator.NUM_BYTES_OBJECT_REF)
                                     * value.getChunkMetadataList().size()
                                 + RamUsageEstimator.shallowSizeOf(value.getChunkMetadataList())))
+            .removalListener(
+                (CompactKey key, TimeseriesMetadata value, RemovalCause cause) -> {
+                  // the ids of a replaced entry are still held by the new one
+                  if (key != null && cause != RemovalCause.REPLACED) {
+                    release(key);
+                  }
+                })
+            // release the ids in the thread that removes the entry
+            .executor(Runnable::run)
             .recordStats()
             .build();
 
@@ -164,7 +192,7 @@ public class TimeSeriesMetadataCache {
           : timeseriesMetadata;
     }
 
-    TimeseriesMetadata timeseriesMetadata = lruCache.getIfPresent(key);
+    TimeseriesMetadata timeseriesMetadata = lruCache.getIfPresent(getCompactKey(key));
 
     if (timeseriesMetadata == null) {
       if (debug) {
@@ -176,7 +204,7 @@ public class TimeSeriesMetadataCache {
       synchronized (
           devices.computeIfAbsent(key.device + SEPARATOR + key.filePath, WeakReference::new)) {
         // double check
-        timeseriesMetadata = lruCache.getIfPresent(key);
+        timeseriesMetadata = lruCache.getIfPresent(getCompactKey(key));
         if (timeseriesMetadata == null) {
           Path path = new Path(key.device, key.measurement);
           // bloom filter part
@@ -198,16 +226,14 @@ public class TimeSeriesMetadataCache {
               reader.readTimeseriesMetadata(path, allSensors);
           // put TimeSeriesMetadata of all sensors used in this query into cache
           for (TimeseriesMetadata metadata : timeSeriesMetadataList) {
-            TimeSeriesMetadataCacheKey k =
-                new TimeSeriesMetadataCacheKey(
-                    key.filePath, key.device, metadata.getMeasurementId());
             if (metadata.getStatistics().getCount() != 0) {
-              lruCache.put(k, metadata);
+              put(key.filePath, key.device, metadata);
             }
             if (metadata.getMeasurementId().equals(key.measurement)) {
               timeseriesMetadata = metadata.getStatistics().getCount() == 0 ? null : metadata;
             }
           }
+          chargeInternedSize();
         }
       }
     }
@@ -253,10 +279,86 @@ public class TimeSeriesMetadataCache {
   public void clear() {
     lruCache.invalidateAll();
     lruCache.cleanUp();
+    fileEntries.clear();
+    fileIds.clear();
+    deviceIds.clear();
+    measurementIds.clear();
+    chargeInternedSize();
   }
 
   public void remove(TimeSeriesMetadataCacheKey key) {
-    lruCache.invalidate(key);
+    lruCache.invalidate(getCompactKey(key));
+  }
+
+  /** Invalidate all the entries of a file, e.g., when the file is deleted. */
+  public void remove(String filePath) {
+    long fileId = fileIds.get(filePath);
+    FileEntries entries = fileEntries.get(fileId);
+    if (entries != null) {
+      // the id of the file is dropped with its last entry
+      long[] ids = entries.toArray();
+      for (int i = 0; i < ids.length; i += 2) {
+        lruCache.invalidate(new CompactKey(fileId, ids[i], ids[i + 1]));
+      }
+    }
+  }
+
+  /** Look up the key without interning, a key with any absent id is never in the cache. */
+  private CompactKey getCompactKey(TimeSeriesMetadataCacheKey key) {
+    return new CompactKey(
+        fileIds.get(key.filePath), deviceIds.get(key.device), measurementIds.get(key.measurement));
+  }
+
+  private void put(String filePath, String device, TimeseriesMetadata metadata) {
+    CompactKey key =
+        new CompactKey(
+            fileIds.acquire(filePath),
+            deviceIds.acquire(device),
+            measurementIds.acquire(metadata.getMeasurementId()));
+    // index the entry before it can be evicted, the acquired file id keeps the index alive
+    fileEntries.computeIfAbsent(key.fileId(), id -> new FileEntries()).add(key);
+    if (lruCache.asMap().put(key, metadata) != null) {
+      // the replaced entry has acquired the ids already
+      release(key);
+    }
+  }
+
+  private void release(CompactKey key) {
+    if (fileIds.release(key.fileId())) {
+      fileEntries.remove(key.fileId());
+    }
+    deviceIds.release(key.deviceId());
+    measurementIds.release(key.measurementId());
+  }
+
+  /** Take the memory of the interned ids from the maximum weight of the entries. */
+  private void chargeInternedSize() {
+    long size = internedSize.get();
+    if (size != chargedInternedSize) {
+      chargedInternedSize = size;
+      lruCache
+          .policy()
+          .eviction()
+          .ifPresent(
+              eviction ->
+                  eviction.setMaximum(
+                      Math.max(0, MEMORY_THRESHOLD_IN_TIME_SERIES_METADATA_CACHE - size)));
+    }
+  }
+
+  @TestOnly
+  public int getCachedEntryNum(String filePath) {
+    long fileId = fileIds.get(filePath);
+    if (fileId == IdTable.ABSENT) {
+      return 0;
+    }
+    int num = 0;
+    for (CompactKey key : lruCache.asMap().keySet()) {
+      if (key.fileId() == fileId) {
+        num++;
+      }
+    }
+    return num;
   }
 
   @TestOnly
@@ -264,23 +366,24 @@ public class TimeSeriesMetadataCache {
     return lruCache.asMap().isEmpty();
   }
 
+  @TestOnly
+  public int getInternedIdNum() {
+    return fileIds.size() + deviceIds.size() + measurementIds.size();
+  }
+
+  @TestOnly
+  public long getInternedSize() {
+    return internedSize.get();
+  }
+
   public static class TimeSeriesMetadataCacheKey {
 
     private final String filePath;
-    private final String tsFilePrefixPath;
-    private final long tsFileVersion;
-    // high 32 bit is compaction level, low 32 bit is merge count
-    private final long compactionVersion;
     private final String device;
     private final String measurement;
 
     public TimeSeriesMetadataCacheKey(String filePath, String device, String measurement) {
       this.filePath = filePath;
-      Pair<String, long[]> tsFilePrefixPathAndTsFileVersionPair =
-          FilePathUtils.getTsFilePrefixPathAndTsFileVersionPair(filePath);
-      this.tsFilePrefixPath = tsFilePrefixPathAndTsFileVersionPair.left;
-      this.tsFileVersion = tsFilePrefixPathAndTsFileVersionPair.right[0];
-      this.compactionVersion = tsFilePrefixPathAndTsFileVersionPair.right[1];
       this.device = device;
       this.measurement = measurement;
     }
@@ -296,14 +399,194 @@ public class TimeSeriesMetadataCache {
       TimeSeriesMetadataCacheKey that = (TimeSeriesMetadataCacheKey) o;
       return Objects.equals(measurement, that.measurement)
           && Objects.equals(device, that.device)
-          && tsFileVersion == that.tsFileVersion
-          && compactionVersion == that.compactionVersion
-          && tsFilePrefixPath.equals(that.tsFilePrefixPath);
+          && Objects.equals(filePath, that.filePath);
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(tsFilePrefixPath, tsFileVersion, compactionVersion, device, measurement);
+      return Objects.hash(filePath, device, measurement);
+    }
+  }
+
+  /** The key of a cached entry. */
+  private static class CompactKey {
+
+    private static final long SIZE =
+        RamUsageEstimator.shallowSizeOfInstance(CompactKey.class)
+            + RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+
+    private final long fileId;
+    private final long deviceId;
+    private final long measurementId;
+
+    private CompactKey(long fileId, long deviceId, long measurementId) {
+      this.fileId = fileId;
+      this.deviceId = deviceId;
+      this.measurementId = measurementId;
+    }
+
+    private long fileId() {
+      return fileId;
+    }
+
+    private long deviceId() {
+      return deviceId;
+    }
+
+    private long measurementId() {
+      return measurementId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      CompactKey that = (CompactKey) o;
+      return fileId == that.fileId
+          && deviceId == that.deviceId
+          && measurementId == that.measurementId;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * Long.hashCode(fileId) + Long.hashCode(deviceId))
+          + Long.hashCode(measurementId);
+    }
+  }
+
+  /**
+   * The device and measurement ids of the cached entries of a file, stored in pairs. The ids of
+   * evicted entries are dropped lazily when the array is full, before it grows.
+   */
+  private class FileEntries {
+
+    private long[] entries = new long[32];
+    private int size = 0;
+
+    private synchronized void add(CompactKey key) {
+      if (size == entries.length) {
+        Set<CompactKey> alive = new HashSet<>();
+        int newSize = 0;
+        for (int i = 0; i < size; i += 2) {
+          CompactKey entry = new CompactKey(key.fileId(), entries[i], entries[i + 1]);
+          if (lruCache.asMap().containsKey(entry) && alive.add(entry)) {
+            entries[newSize++] = entries[i];
+            entries[newSize++] = entries[i + 1];
+          }
+        }
+        size = newSize;
+        if (size > entries.length / 2) {
+          entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+      }
+      entries[size++] = key.deviceId();
+      entries[size++] = key.measurementId();
+    }
+
+    private synchronized long[] toArray() {
+      return Arrays.copyOf(entries, size);
+    }
+  }
+
+  /**
+   * Interned ids of names, reference counted by the cached entries. Ids are never reused, so an id
+   * that has been dropped never refers to another name, even for a lookup that read it before it
+   * was dropped. They are longs, so that the counter can't wrap around to ABSENT or to a live id.
+   */
+  private static class IdTable {
+
+    private static final long ABSENT = -1;
+
+    /** two hash table nodes, the boxed id and the Interned */
+    private static final long MAPPING_SIZE =
+        2
+                * RamUsageEstimator.alignObjectSize(
+                    RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+                        + RamUsageEstimator.NUM_BYTES_INT
+                        + 3L * RamUsageEstimator.NUM_BYTES_OBJECT_REF)
+            + RamUsageEstimator.shallowSizeOfInstance(Long.class)
+            + RamUsageEstimator.shallowSizeOfInstance(Interned.class);
+
+    private final Map<String, Interned> ids = new ConcurrentHashMap<>();
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicLong internedSize;
+
+    private IdTable(AtomicLong internedSize) {
+      this.internedSize = internedSize;
+    }
+
+    /** @return the id of the name, or ABSENT if it is not interned */
+    private long get(String name) {
+      Interned interned = ids.get(name);
+      return interned == null ? ABSENT : interned.id;
+    }
+
+    /** Intern the name if absent and add a reference to its id. */
+    private long acquire(String name) {
+      return ids.compute(
+              name,
+              (k, interned) -> {
+                if (interned == null) {
+                  long id = nextId.getAndIncrement();
+                  if (id < 0) {
+                    throw new IllegalStateException("The interned ids are used up");
+                  }
+                  interned = new Interned(id, RamUsageEstimator.sizeOf(k));
+                  names.put(interned.id, k);
+                  internedSize.addAndGet(interned.size);
+                }
+                interned.refCount++;
+                return interned;
+              })
+          .id;
+    }
+
+    /** @return true if the last reference is released and the id is dropped */
+    private boolean release(long id) {
+      String name = names.get(id);
+      if (name == null) {
+        return false;
+      }
+      boolean[] dropped = new boolean[1];
+      ids.computeIfPresent(
+          name,
+          (k, interned) -> {
+            if (interned.id != id || --interned.refCount > 0) {
+              return interned;
+            }
+            names.remove(id);
+            internedSize.addAndGet(-interned.size);
+            dropped[0] = true;
+            return null;
+          });
+      return dropped[0];
+    }
+
+    private int size() {
+      return ids.size();
+    }
+
+    private void clear() {
+      ids.values().forEach(interned -> internedSize.addAndGet(-interned.size));
+      ids.clear();
+      names.clear();
+    }
+
+    private static class Interned {
+
+      private final long id;
+      private final long size;
+      private int refCount = 0;
+
+      private Interned(long id, long nameSize) {
+        this.id = id;
+        this.size = nameSize + MAPPING_SIZE;
+      }
     }
   }
 
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token buckets limiting the read and write throughput of compaction. Each data dir is supposed to
+ * be on its own disk and has its own budget, so that compactions on different disks don't slow each
+ * other down. The budgets are the configured limits scaled by {@link
+ * CompactionThroughputController}.
+ */
+public class CompactionRateLimiter {
+  /** key of the budget shared by files out of data dirs */
+  private static final String OTHER_DIR = "";
+
+  private final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private final Map<String, RateLimiter> readRateLimiters = new ConcurrentHashMap<>();
+  private final Map<String, RateLimiter> writeRateLimiters = new ConcurrentHashMap<>();
+
+  /** @return the rate limiter of the data dir where the file to read is */
+  public RateLimiter getReadRateLimiter(File file) {
+    RateLimiter rateLimiter =
+        readRateLimiters.computeIfAbsent(
+            getDataDir(file), k -> RateLimiter.create(Double.MAX_VALUE));
+    setRate(rateLimiter, config.getCompactionReadThroughputMbPerSec());
+    return rateLimiter;
+  }
+
+  /** @return the rate limiter of the data dir where the file to write is */
+  public RateLimiter getWriteRateLimiter(File file) {
+    RateLimiter rateLimiter =
+        writeRateLimiters.computeIfAbsent(
+            getDataDir(file), k -> RateLimiter.create(Double.MAX_VALUE));
+    setRate(rateLimiter, config.getCompactionWriteThroughputMbPerSec());
+    return rateLimiter;
+  }
+
+  private void setRate(RateLimiter rateLimiter, int throughputMbPerSec) {
+    double throughput =
+        throughputMbPerSec
+            * 1024.0
+            * 1024.0
+            * CompactionThroughputController.getInstance().getThroughputFactor();
+    // if throughput = 0, disable rate limiting
+    if (throughput == 0) {
+      throughput = Double.MAX_VALUE;
+    }
+    if (rateLimiter.getRate() != throughput) {
+      rateLimiter.setRate(throughput);
+    }
+  }
+
+  private String getDataDir(File file) {
+    String path = file.getAbsolutePath();
+    for (String dataDir : config.getDataDirs()) {
+      String dataDirPath = new File(dataDir).getAbsolutePath();
+      if (path.startsWith(dataDirPath + File.separator)) {
+        return dataDirPath;
+      }
+    }
+    return OTHER_DIR;
+  }
+}
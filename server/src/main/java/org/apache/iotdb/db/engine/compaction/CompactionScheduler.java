@@ -55,6 +55,14 @@ public class CompactionScheduler {
     if (!tsFileManager.isAllowCompaction()) {
       return;
     }
+    CompactionThroughputController.getInstance()
+        .updateUnseqFileNum(
+            tsFileManager.getStorageGroupName()
+                + IoTDBConstant.FILE_NAME_SEPARATOR
+                + tsFileManager.getDataRegion()
+                + IoTDBConstant.FILE_NAME_SEPARATOR
+                + timePartition,
+            tsFileManager.getUnsequenceListByTimePartition(timePartition).size());
     try {
       tryToSubmitCrossSpaceCompactionTask(
           tsFileManager.getStorageGroupName(),
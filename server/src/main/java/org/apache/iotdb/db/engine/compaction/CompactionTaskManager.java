@@ -36,6 +36,7 @@ import com.google.common.util.concurrent.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -80,7 +81,7 @@ public class CompactionTaskManager implements IService {
   private final long TASK_SUBMIT_INTERVAL =
       IoTDBDescriptor.getInstance().getConfig().getCompactionSubmissionIntervalInMs();
 
-  private final RateLimiter mergeWriteRateLimiter = RateLimiter.create(Double.MAX_VALUE);
+  private final CompactionRateLimiter compactionRateLimiter = new CompactionRateLimiter();
 
   public static CompactionTaskManager getInstance() {
     return INSTANCE;
@@ -119,6 +120,13 @@ public class CompactionTaskManager implements IService {
           TASK_SUBMIT_INTERVAL,
           TASK_SUBMIT_INTERVAL,
           TimeUnit.MILLISECONDS);
+      if (IoTDBDescriptor.getInstance().getConfig().isEnableCompactionAdaptiveThroughput()) {
+        compactionTaskSubmissionThreadPool.scheduleWithFixedDelay(
+            CompactionThroughputController.getInstance()::adjust,
+            CompactionThroughputController.ADJUST_INTERVAL_IN_MS,
+            CompactionThroughputController.ADJUST_INTERVAL_IN_MS,
+            TimeUnit.MILLISECONDS);
+      }
     }
     logger.info("Compaction task manager started.");
   }
@@ -261,22 +269,16 @@ public class CompactionTaskManager implements IService {
     }
   }
 
-  public RateLimiter getMergeWriteRateLimiter() {
-    setWriteMergeRate(
-        IoTDBDescriptor.getInstance().getConfig().getCompactionWriteThroughputMbPerSec());
-    return mergeWriteRateLimiter;
+  /** @return the write rate limiter of the disk where the target file is */
+  public RateLimiter getMergeWriteRateLimiter(File targetFile) {
+    return compactionRateLimiter.getWriteRateLimiter(targetFile);
   }
 
-  private void setWriteMergeRate(final double throughoutMbPerSec) {
-    double throughout = throughoutMbPerSec * 1024.0 * 1024.0;
-    // if throughout = 0, disable rate limiting
-    if (throughout == 0) {
-      throughout = Double.MAX_VALUE;
-    }
-    if (mergeWriteRateLimiter.getRate() != throughout) {
-      mergeWriteRateLimiter.setRate(throughout);
-    }
+  /** @return the read rate limiter of the disk where the source file is */
+  public RateLimiter getMergeReadRateLimiter(File sourceFile) {
+    return compactionRateLimiter.getReadRateLimiter(sourceFile);
   }
+
   /** wait by throughoutMbPerSec limit to avoid continuous Write Or Read */
   public static void mergeRateLimiterAcquire(RateLimiter limiter, long bytesLength) {
     while (bytesLength >= Integer.MAX_VALUE) {
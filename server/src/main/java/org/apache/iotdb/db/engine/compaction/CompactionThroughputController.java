@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CompactionThroughputController scales the compaction throughput limits by the load of the server.
+ * It is adjusted periodically by {@link CompactionTaskManager}: the limits are lowered when the
+ * latency of flush or query rises, so that compaction gives way to them, and are raised when
+ * unsequence files keep growing, so that compaction catches up with writing.
+ */
+public class CompactionThroughputController {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+  private static final CompactionThroughputController INSTANCE =
+      new CompactionThroughputController();
+
+  public static final long ADJUST_INTERVAL_IN_MS = 10_000L;
+  static final double MIN_FACTOR = 0.25;
+  static final double MAX_FACTOR = 4.0;
+  private static final double ADJUST_RATIO = 2.0;
+  /** the latency is seen as risen if it exceeds the long-term average by this ratio */
+  private static final double LATENCY_RISE_RATIO = 1.5;
+
+  private final LatencyTracker flushLatency = new LatencyTracker();
+  private final LatencyTracker queryLatency = new LatencyTracker();
+  /** unsequence file number of each time partition */
+  private final Map<String, Integer> unseqFileNums = new ConcurrentHashMap<>();
+
+  private long lastUnseqFileNum = 0;
+  private volatile double throughputFactor = 1.0;
+
+  public static CompactionThroughputController getInstance() {
+    return INSTANCE;
+  }
+
+  /** @return the factor that the configured compaction throughput limits should be scaled by */
+  public double getThroughputFactor() {
+    return IoTDBDescriptor.getInstance().getConfig().isEnableCompactionAdaptiveThroughput()
+        ? throughputFactor
+        : 1.0;
+  }
+
+  public void recordFlushCost(long costInMs) {
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableCompactionAdaptiveThroughput()) {
+      flushLatency.record(costInMs);
+    }
+  }
+
+  public void recordQueryCost(long costInMs) {
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableCompactionAdaptiveThroughput()) {
+      queryLatency.record(costInMs);
+    }
+  }
+
+  public void updateUnseqFileNum(String timePartitionName, int unseqFileNum) {
+    unseqFileNums.put(timePartitionName, unseqFileNum);
+  }
+
+  /** Adjust the factor by the load since last adjustment. */
+  public synchronized void adjust() {
+    // both trackers should be updated, so do not short-circuit
+    boolean latencyRisen = flushLatency.checkRisenAndReset() | queryLatency.checkRisenAndReset();
+    long unseqFileNum = 0;
+    for (int num : unseqFileNums.values()) {
+      unseqFileNum += num;
+    }
+    double factor = throughputFactor;
+    if (latencyRisen) {
+      factor = Math.max(MIN_FACTOR, factor / ADJUST_RATIO);
+    } else if (unseqFileNum > lastUnseqFileNum) {
+      factor = Math.min(MAX_FACTOR, factor * ADJUST_RATIO);
+    } else if (factor > 1.0) {
+      factor = Math.max(1.0, factor / ADJUST_RATIO);
+    } else if (factor < 1.0) {
+      factor = Math.min(1.0, factor * ADJUST_RATIO);
+    }
+    lastUnseqFileNum = unseqFileNum;
+    if (factor != throughputFactor) {
+      LOGGER.info(
+          "[Compaction] adjust throughput factor from {} to {}, latency risen: {}, unseq file num: {}",
+          throughputFactor,
+          factor,
+          latencyRisen,
+          unseqFileNum);
+      throughputFactor = factor;
+    }
+  }
+
+  /** reset the state, only for test */
+  void reset() {
+    flushLatency.checkRisenAndReset();
+    queryLatency.checkRisenAndReset();
+    flushLatency.longTermAverage = -1;
+    queryLatency.longTermAverage = -1;
+    unseqFileNums.clear();
+    lastUnseqFileNum = 0;
+    throughputFactor = 1.0;
+  }
+
+  /**
+   * Compare the average latency of an adjusting interval with the long-term average, which is the
+   * exponentially weighted moving average of the averages of previous intervals.
+   */
+  private static class LatencyTracker {
+    private static final double LONG_TERM_WEIGHT = 0.2;
+
+    private final LongAdder costSum = new LongAdder();
+    private final LongAdder count = new LongAdder();
+    private double longTermAverage = -1;
+
+    private void record(long costInMs) {
+      costSum.add(costInMs);
+      count.increment();
+    }
+
+    private boolean checkRisenAndReset() {
+      long intervalCount = count.sumThenReset();
+      long intervalCostSum = costSum.sumThenReset();
+      if (intervalCount == 0) {
+        return false;
+      }
+      double average = (double) intervalCostSum / intervalCount;
+      if (longTermAverage < 0) {
+        longTermAverage = average;
+        return false;
+      }
+      boolean risen = average > longTermAverage * LATENCY_RISE_RATIO;
+      longTermAverage = longTermAverage * (1 - LONG_TERM_WEIGHT) + average * LONG_TERM_WEIGHT;
+      return risen;
+    }
+  }
+}
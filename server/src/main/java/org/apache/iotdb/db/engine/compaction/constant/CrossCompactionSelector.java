@@ -20,14 +20,18 @@ package org.apache.iotdb.db.engine.compaction.constant;
 
 import org.apache.iotdb.db.engine.compaction.cross.ICrossSpaceSelector;
 import org.apache.iotdb.db.engine.compaction.cross.rewrite.RewriteCrossSpaceCompactionSelector;
+import org.apache.iotdb.db.engine.compaction.cross.rewrite.TimeWindowCrossSpaceCompactionSelector;
 import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
 
 public enum CrossCompactionSelector {
-  REWRITE;
+  REWRITE,
+  TIME_WINDOW;
 
   public static CrossCompactionSelector getCrossCompactionSelector(String name) {
     if (REWRITE.toString().equalsIgnoreCase(name)) {
       return REWRITE;
+    } else if (TIME_WINDOW.toString().equalsIgnoreCase(name)) {
+      return TIME_WINDOW;
     }
     throw new RuntimeException("Illegal Cross Compaction Selector " + name);
   }
@@ -38,6 +42,9 @@ public enum CrossCompactionSelector {
       long timePartition,
       TsFileManager tsFileManager) {
     switch (this) {
+      case TIME_WINDOW:
+        return new TimeWindowCrossSpaceCompactionSelector(
+            logicalStorageGroupName, virtualGroupId, timePartition, tsFileManager);
       case REWRITE:
       default:
         return new RewriteCrossSpaceCompactionSelector(
@@ -20,15 +20,19 @@
 package org.apache.iotdb.db.engine.compaction.constant;
 
 import org.apache.iotdb.db.engine.compaction.inner.IInnerSeqSpaceSelector;
+import org.apache.iotdb.db.engine.compaction.inner.leveled.LeveledCompactionSelector;
 import org.apache.iotdb.db.engine.compaction.inner.sizetiered.SizeTieredCompactionSelector;
 import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
 
 public enum InnerSequenceCompactionSelector {
-  SIZE_TIERED;
+  SIZE_TIERED,
+  LEVELED;
 
   public static InnerSequenceCompactionSelector getInnerSequenceCompactionSelector(String name) {
     if (SIZE_TIERED.toString().equalsIgnoreCase(name)) {
       return SIZE_TIERED;
+    } else if (LEVELED.toString().equalsIgnoreCase(name)) {
+      return LEVELED;
     }
     throw new RuntimeException("Illegal Compaction Selector " + name);
   }
@@ -39,6 +43,9 @@ public enum InnerSequenceCompactionSelector {
       long timePartition,
       TsFileManager tsFileManager) {
     switch (this) {
+      case LEVELED:
+        return new LeveledCompactionSelector(
+            logicalStorageGroupName, virtualStorageGroupName, timePartition, tsFileManager, true);
       case SIZE_TIERED:
       default:
         return new SizeTieredCompactionSelector(
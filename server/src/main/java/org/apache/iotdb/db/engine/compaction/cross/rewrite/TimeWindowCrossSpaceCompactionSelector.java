@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.cross.rewrite;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TimeWindowCrossSpaceCompactionSelector selects like {@link RewriteCrossSpaceCompactionSelector},
+ * but only offers the oldest unsequence files whose start time lies in the same time window as the
+ * first one, so that a cross space task only rewrites the sequence files of one window instead of
+ * every sequence file overlapped by a long run of unsequence files. The offered files are always a
+ * prefix of the unsequence list, as older unsequence files must be compacted first.
+ */
+public class TimeWindowCrossSpaceCompactionSelector extends RewriteCrossSpaceCompactionSelector {
+
+  public TimeWindowCrossSpaceCompactionSelector(
+      String logicalStorageGroupName,
+      String dataRegionId,
+      long timePartition,
+      TsFileManager tsFileManager) {
+    super(logicalStorageGroupName, dataRegionId, timePartition, tsFileManager);
+  }
+
+  @Override
+  public List selectCrossSpaceTask(
+      List<TsFileResource> sequenceFileList, List<TsFileResource> unsequenceFileList) {
+    return super.selectCrossSpaceTask(
+        sequenceFileList, selectFirstWindow(unsequenceFileList, getTimeWindow()));
+  }
+
+  public static List<TsFileResource> selectFirstWindow(
+      List<TsFileResource> unsequenceFileList, long timeWindow) {
+    List<TsFileResource> selected = new ArrayList<>();
+    long firstWindow = 0;
+    for (TsFileResource resource : unsequenceFileList) {
+      long window = Math.floorDiv(resource.getFileStartTime(), timeWindow);
+      if (selected.isEmpty()) {
+        firstWindow = window;
+      } else if (window != firstWindow) {
+        break;
+      }
+      selected.add(resource);
+    }
+    return selected;
+  }
+
+  private static long getTimeWindow() {
+    return IoTDBDescriptor.getInstance().getConfig().getCompactionTimeWindowInMs();
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.inner.leveled;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.inner.IInnerSeqSpaceSelector;
+import org.apache.iotdb.db.engine.compaction.inner.IInnerUnseqSpaceSelector;
+import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
+import org.apache.iotdb.db.engine.storagegroup.TsFileNameGenerator;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * LeveledCompactionSelector buckets files by the time window of their start time and by their level
+ * (the inner compaction count in the file name). Consecutive files of the same level in the same
+ * window are compacted together once there are {@link IoTDBConfig#getLeveledCompactionFanout()} of
+ * them or their total size reaches the target compaction file size. Files that have reached the
+ * target size are never selected again, so the size of each level is bounded and a point is
+ * rewritten at most about log(fanout) times, while size-tiered selection keeps rewriting a growing
+ * file whenever small files pile up behind it.
+ *
+ * <p>Files of different windows are never compacted together, hence a task only touches the data of
+ * one window, and the tasks of lower levels and older windows are returned first.
+ */
+public class LeveledCompactionSelector implements IInnerSeqSpaceSelector, IInnerUnseqSpaceSelector {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  protected String logicalStorageGroupName;
+  protected String dataRegionId;
+  protected long timePartition;
+  protected TsFileManager tsFileManager;
+  protected boolean sequence;
+
+  public LeveledCompactionSelector(
+      String logicalStorageGroupName,
+      String dataRegionId,
+      long timePartition,
+      TsFileManager tsFileManager,
+      boolean sequence) {
+    this.logicalStorageGroupName = logicalStorageGroupName;
+    this.dataRegionId = dataRegionId;
+    this.timePartition = timePartition;
+    this.tsFileManager = tsFileManager;
+    this.sequence = sequence;
+  }
+
+  @Override
+  public List<List<TsFileResource>> selectInnerSpaceTask(List<TsFileResource> tsFileResources) {
+    try {
+      List<LeveledTask> tasks = selectTasks(tsFileResources);
+      tasks.sort(
+          Comparator.comparingInt((LeveledTask task) -> task.level)
+              .thenComparingLong(task -> task.window));
+      List<List<TsFileResource>> taskList = new ArrayList<>(tasks.size());
+      for (LeveledTask task : tasks) {
+        LOGGER.debug(
+            "{}-{} [Compaction] select {} files of level {} in window {}, size is {}",
+            logicalStorageGroupName,
+            dataRegionId,
+            task.files.size(),
+            task.level,
+            task.window,
+            task.size);
+        taskList.add(task.files);
+      }
+      return taskList;
+    } catch (Exception e) {
+      LOGGER.error("Exception occurs while selecting files", e);
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * Traverse the files from old to new and collect runs of consecutive closed files sharing the
+   * same level and window. A run becomes a task once it is large enough, other runs are left for
+   * later selections.
+   */
+  private List<LeveledTask> selectTasks(List<TsFileResource> tsFileResources) throws IOException {
+    long targetCompactionFileSize = config.getTargetCompactionFileSize();
+    int maxFileNum =
+        Math.min(
+            config.getLeveledCompactionFanout(), config.getMaxInnerCompactionCandidateFileNum());
+    List<LeveledTask> tasks = new ArrayList<>();
+    LeveledTask current = null;
+    for (TsFileResource currentFile : tsFileResources) {
+      if (currentFile.getStatus() != TsFileResourceStatus.CLOSED
+          || currentFile.getTsFileSize() >= targetCompactionFileSize) {
+        // the run is broken, compacting across this file would reorder the files
+        current = null;
+        continue;
+      }
+      int level =
+          TsFileNameGenerator.getTsFileName(currentFile.getTsFile().getName())
+              .getInnerCompactionCnt();
+      long window = getWindow(currentFile);
+      if (current == null || current.level != level || current.window != window) {
+        current = new LeveledTask(level, window);
+      }
+      current.add(currentFile);
+      if (current.files.size() >= maxFileNum || current.size >= targetCompactionFileSize) {
+        if (current.files.size() > 1) {
+          tasks.add(current);
+        }
+        current = null;
+      }
+    }
+    return tasks;
+  }
+
+  private long getWindow(TsFileResource resource) {
+    return Math.floorDiv(resource.getFileStartTime(), config.getCompactionTimeWindowInMs());
+  }
+
+  private static class LeveledTask {
+    private final int level;
+    private final long window;
+    private final List<TsFileResource> files = new ArrayList<>();
+    private long size = 0L;
+
+    private LeveledTask(int level, long window) {
+      this.level = level;
+      this.window = window;
+    }
+
+    private void add(TsFileResource resource) {
+      files.add(resource);
+      size += resource.getTsFileSize();
+    }
+  }
+}
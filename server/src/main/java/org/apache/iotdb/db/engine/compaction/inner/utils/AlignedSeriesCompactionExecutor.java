@@ -39,6 +39,7 @@ import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
 
 import com.google.common.util.concurrent.RateLimiter;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -57,8 +58,7 @@ public class AlignedSeriesCompactionExecutor {
   private final AlignedChunkWriterImpl chunkWriter;
   private final List<IMeasurementSchema> schemaList;
   private long remainingPointInChunkWriter = 0L;
-  private final RateLimiter rateLimiter =
-      CompactionTaskManager.getInstance().getMergeWriteRateLimiter();
+  private final RateLimiter rateLimiter;
 
   private final long chunkSizeThreshold =
       IoTDBDescriptor.getInstance().getConfig().getTargetChunkSize();
@@ -74,6 +74,8 @@ public class AlignedSeriesCompactionExecutor {
     this.readerAndChunkMetadataList = readerAndChunkMetadataList;
     this.writer = writer;
     this.targetResource = targetResource;
+    this.rateLimiter =
+        CompactionTaskManager.getInstance().getMergeWriteRateLimiter(targetResource.getTsFile());
     schemaList = collectSchemaFromAlignedChunkMetadataList(readerAndChunkMetadataList);
     chunkWriter = new AlignedChunkWriterImpl(schemaList);
   }
@@ -116,11 +118,16 @@ public class AlignedSeriesCompactionExecutor {
           readerAndChunkMetadataList.removeFirst();
       TsFileSequenceReader reader = readerListPair.left;
       List<AlignedChunkMetadata> alignedChunkMetadataList = readerListPair.right;
+      RateLimiter readRateLimiter =
+          CompactionTaskManager.getInstance()
+              .getMergeReadRateLimiter(new File(reader.getFileName()));
       TsFileAlignedSeriesReaderIterator readerIterator =
           new TsFileAlignedSeriesReaderIterator(reader, alignedChunkMetadataList, schemaList);
       while (readerIterator.hasNext()) {
         Pair<AlignedChunkReader, Long> chunkReaderAndChunkSize = readerIterator.nextReader();
         CompactionMetricsManager.recordReadInfo(chunkReaderAndChunkSize.right);
+        CompactionTaskManager.mergeRateLimiterAcquire(
+            readRateLimiter, chunkReaderAndChunkSize.right);
         compactOneAlignedChunk(chunkReaderAndChunkSize.left);
       }
     }
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.inner.utils;
+
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Chunks compacted by one {@link SingleSeriesCompactionExecutor} running in a sub task. The sub
+ * task puts chunks in order and the thread owning the {@link TsFileIOWriter} writes them, so that
+ * different series can be compacted concurrently while chunks of one series stay together in the
+ * chunk group. The capacity bounds the memory of compacted chunks waiting to be written.
+ */
+public class SeriesChunkQueue {
+  private static final int CAPACITY = 4;
+
+  private final BlockingQueue<Item> items = new ArrayBlockingQueue<>(CAPACITY);
+
+  void put(Chunk chunk, ChunkMetadata chunkMetadata) throws IOException {
+    Item item = new Item();
+    item.chunk = chunk;
+    item.chunkMetadata = chunkMetadata;
+    put(item);
+  }
+
+  /** The chunk will be copied from the source file without being read into memory. */
+  void put(TsFileSequenceReader reader, ChunkHeader chunkHeader, ChunkMetadata chunkMetadata)
+      throws IOException {
+    Item item = new Item();
+    item.reader = reader;
+    item.chunkHeader = chunkHeader;
+    item.chunkMetadata = chunkMetadata;
+    put(item);
+  }
+
+  /** The chunk writer won't be used by the sub task anymore. */
+  void put(ChunkWriterImpl chunkWriter) throws IOException {
+    Item item = new Item();
+    item.chunkWriter = chunkWriter;
+    put(item);
+  }
+
+  /** Mark the end of this series with its time range. */
+  void finish(long minStartTimestamp, long maxEndTimestamp) throws IOException {
+    Item item = new Item();
+    item.finished = true;
+    item.minStartTimestamp = minStartTimestamp;
+    item.maxEndTimestamp = maxEndTimestamp;
+    put(item);
+  }
+
+  public void fail(Throwable cause) throws IOException {
+    Item item = new Item();
+    item.cause = cause;
+    put(item);
+  }
+
+  private void put(Item item) throws IOException {
+    try {
+      items.put(item);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted when waiting for compacted chunks written");
+    }
+  }
+
+  /**
+   * Write all chunks of this series into the current chunk group of the writer and update the time
+   * range of device in target resource. Return until the sub task has finished this series.
+   */
+  public void writeTo(TsFileIOWriter writer, TsFileResource targetResource, String device)
+      throws IOException, InterruptedException {
+    while (true) {
+      Item item = items.take();
+      if (item.cause != null) {
+        throw new IOException("Fail to compact series of device " + device, item.cause);
+      } else if (item.finished) {
+        targetResource.updateStartTime(device, item.minStartTimestamp);
+        targetResource.updateEndTime(device, item.maxEndTimestamp);
+        return;
+      } else if (item.chunk != null) {
+        writer.writeChunk(item.chunk, item.chunkMetadata);
+      } else if (item.reader != null) {
+        writer.writeRawChunk(item.reader, item.chunkHeader, item.chunkMetadata);
+      } else {
+        item.chunkWriter.writeToFileWriter(writer);
+      }
+    }
+  }
+
+  private static class Item {
+    private Chunk chunk;
+    private TsFileSequenceReader reader;
+    private ChunkHeader chunkHeader;
+    private ChunkMetadata chunkMetadata;
+    private ChunkWriterImpl chunkWriter;
+    private Throwable cause;
+    private boolean finished;
+    private long minStartTimestamp;
+    private long maxEndTimestamp;
+  }
+}
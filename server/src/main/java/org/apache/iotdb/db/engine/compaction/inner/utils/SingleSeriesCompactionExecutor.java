@@ -26,7 +26,9 @@ import org.apache.iotdb.db.engine.compaction.constant.ProcessChunkType;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.metadata.path.PartialPath;
 import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.TimeValuePair;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Chunk;
@@ -40,6 +42,7 @@ import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
 
 import com.google.common.util.concurrent.RateLimiter;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
@@ -50,13 +53,14 @@ public class SingleSeriesCompactionExecutor {
   private LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>> readerAndChunkMetadataList;
   private TsFileIOWriter fileWriter;
   private TsFileResource targetResource;
+  /** not null if this executor runs in a sub task and hands compacted chunks to another thread */
+  private SeriesChunkQueue chunkQueue;
 
   private IMeasurementSchema schema;
   private ChunkWriterImpl chunkWriter;
   private Chunk cachedChunk;
   private ChunkMetadata cachedChunkMetadata;
-  private RateLimiter compactionRateLimiter =
-      CompactionTaskManager.getInstance().getMergeWriteRateLimiter();
+  private RateLimiter compactionRateLimiter;
   // record the min time and max time to update the target resource
   private long minStartTimestamp = Long.MAX_VALUE;
   private long maxEndTimestamp = Long.MIN_VALUE;
@@ -87,6 +91,23 @@ public class SingleSeriesCompactionExecutor {
     this.cachedChunk = null;
     this.cachedChunkMetadata = null;
     this.targetResource = targetResource;
+    this.compactionRateLimiter =
+        CompactionTaskManager.getInstance().getMergeWriteRateLimiter(targetResource.getTsFile());
+  }
+
+  public SingleSeriesCompactionExecutor(
+      PartialPath series,
+      IMeasurementSchema measurementSchema,
+      LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>> readerAndChunkMetadataList,
+      SeriesChunkQueue chunkQueue,
+      TsFileResource targetResource) {
+    this(
+        series,
+        measurementSchema,
+        readerAndChunkMetadataList,
+        (TsFileIOWriter) null,
+        targetResource);
+    this.chunkQueue = chunkQueue;
   }
 
   /**
@@ -99,23 +120,34 @@ public class SingleSeriesCompactionExecutor {
           readerAndChunkMetadataList.removeFirst();
       TsFileSequenceReader reader = readerListPair.left;
       List<ChunkMetadata> chunkMetadataList = readerListPair.right;
+      RateLimiter readRateLimiter =
+          CompactionTaskManager.getInstance()
+              .getMergeReadRateLimiter(new File(reader.getFileName()));
       for (ChunkMetadata chunkMetadata : chunkMetadataList) {
-        Chunk currentChunk = reader.readMemChunk(chunkMetadata);
-        CompactionMetricsManager.recordReadInfo(
-            currentChunk.getHeader().getSerializedSize() + currentChunk.getHeader().getDataSize());
+        // read the header only, the data of a large chunk may not be read into memory
+        ChunkHeader chunkHeader = reader.readChunkHeader(chunkMetadata);
+        long chunkSize = chunkHeader.getSerializedSize() + chunkHeader.getDataSize();
+        CompactionMetricsManager.recordReadInfo(chunkSize);
+        CompactionTaskManager.mergeRateLimiterAcquire(readRateLimiter, chunkSize);
 
         // if this chunk is modified, deserialize it into points
         if (chunkMetadata.getDeleteIntervalList() != null) {
-          processModifiedChunk(currentChunk);
+          processModifiedChunk(reader.readMemChunk(chunkMetadata, chunkHeader));
           continue;
         }
 
-        long chunkSize = getChunkSize(currentChunk);
-        long chunkPointNum = currentChunk.getChunkStatistic().getCount();
+        long chunkPointNum = chunkMetadata.getStatistics().getCount();
         // we process this chunk in three different way according to the size of it
         if (chunkSize >= targetChunkSize || chunkPointNum >= targetChunkPointNum) {
-          processLargeChunk(currentChunk, chunkMetadata);
-        } else if (chunkSize < chunkSizeLowerBound && chunkPointNum < chunkPointNumLowerBound) {
+          if (canCopyRawChunk(chunkMetadata)) {
+            copyRawChunk(reader, chunkHeader, chunkMetadata);
+          } else {
+            processLargeChunk(reader.readMemChunk(chunkMetadata, chunkHeader), chunkMetadata);
+          }
+          continue;
+        }
+        Chunk currentChunk = reader.readMemChunk(chunkMetadata, chunkHeader);
+        if (chunkSize < chunkSizeLowerBound && chunkPointNum < chunkPointNumLowerBound) {
           processSmallChunk(currentChunk);
         } else {
           processMiddleChunk(currentChunk, chunkMetadata);
@@ -131,8 +163,12 @@ public class SingleSeriesCompactionExecutor {
     } else if (pointCountInChunkWriter != 0L) {
       flushChunkWriter();
     }
-    targetResource.updateStartTime(device, minStartTimestamp);
-    targetResource.updateEndTime(device, maxEndTimestamp);
+    if (chunkQueue != null) {
+      chunkQueue.finish(minStartTimestamp, maxEndTimestamp);
+    } else {
+      targetResource.updateStartTime(device, minStartTimestamp);
+      targetResource.updateEndTime(device, maxEndTimestamp);
+    }
   }
 
   private long getChunkSize(Chunk chunk) {
@@ -155,10 +191,15 @@ public class SingleSeriesCompactionExecutor {
       // deserialize current chunk and write to ChunkWriter, then flush the ChunkWriter
       writeChunkIntoChunkWriter(chunk);
       flushChunkWriterIfLargeEnough();
-    } else if (cachedChunk != null) {
+    } else if (cachedChunk != null && canAppendToCachedChunk(chunk)) {
       // if there is a cached chunk, merge it with current chunk, then flush it
       mergeWithCachedChunk(chunk, chunkMetadata);
       flushCachedChunkIfLargeEnough();
+    } else if (cachedChunk != null) {
+      // the pages can't be appended to the cached chunk, deserialize both of them
+      writeCachedChunkIntoChunkWriter();
+      writeChunkIntoChunkWriter(chunk);
+      flushChunkWriterIfLargeEnough();
     } else {
       // there is no points remaining in ChunkWriter and no cached chunk
       // flush it to file directly
@@ -166,6 +207,33 @@ public class SingleSeriesCompactionExecutor {
     }
   }
 
+  /**
+   * A large chunk can be copied into target file byte by byte if there are no points remaining in
+   * ChunkWriter, no cached chunk and it doesn't overlap with the data written. The copied chunk
+   * keeps its own header, so its encoding needn't be the same as that of other chunks.
+   */
+  private boolean canCopyRawChunk(ChunkMetadata chunkMetadata) {
+    return pointCountInChunkWriter == 0L
+        && cachedChunk == null
+        && chunkMetadata.getStartTime() > maxEndTimestamp;
+  }
+
+  /** Copy the chunk into target file without reading it into memory or deserializing it. */
+  private void copyRawChunk(
+      TsFileSequenceReader reader, ChunkHeader chunkHeader, ChunkMetadata chunkMetadata)
+      throws IOException {
+    long chunkSize = chunkHeader.getSerializedSize() + chunkHeader.getDataSize();
+    CompactionTaskManager.mergeRateLimiterAcquire(compactionRateLimiter, chunkSize);
+    updateTimeRange(chunkMetadata);
+    CompactionMetricsManager.recordWriteInfo(
+        CompactionType.INNER_SEQ_COMPACTION, ProcessChunkType.FLUSH_CHUNK, false, chunkSize);
+    if (chunkQueue != null) {
+      chunkQueue.put(reader, chunkHeader, chunkMetadata);
+    } else {
+      fileWriter.writeRawChunk(reader, chunkHeader, chunkMetadata);
+    }
+  }
+
   private void processMiddleChunk(Chunk chunk, ChunkMetadata chunkMetadata) throws IOException {
     // the chunk is not too large either too small
     if (pointCountInChunkWriter != 0L) {
@@ -173,10 +241,15 @@ public class SingleSeriesCompactionExecutor {
       // deserialize current chunk and write to ChunkWriter
       writeChunkIntoChunkWriter(chunk);
       flushChunkWriterIfLargeEnough();
-    } else if (cachedChunk != null) {
+    } else if (cachedChunk != null && canAppendToCachedChunk(chunk)) {
       // if there is a cached chunk, merge it with current chunk
       mergeWithCachedChunk(chunk, chunkMetadata);
       flushCachedChunkIfLargeEnough();
+    } else if (cachedChunk != null) {
+      // the pages can't be appended to the cached chunk, deserialize both of them
+      writeCachedChunkIntoChunkWriter();
+      writeChunkIntoChunkWriter(chunk);
+      flushChunkWriterIfLargeEnough();
     } else {
       // there is no points remaining in ChunkWriter and no cached chunk
       // cached current chunk
@@ -230,6 +303,18 @@ public class SingleSeriesCompactionExecutor {
     cachedChunkMetadata = null;
   }
 
+  /**
+   * The pages of a chunk are decoded by the encoding and compression in its header, so they can
+   * only be appended to the cached chunk if both are the same. The encodings may differ if the
+   * series uses {@link TSEncoding#AUTO}, which selects the encoding for each chunk.
+   */
+  private boolean canAppendToCachedChunk(Chunk chunk) {
+    ChunkHeader cachedChunkHeader = cachedChunk.getHeader();
+    ChunkHeader chunkHeader = chunk.getHeader();
+    return cachedChunkHeader.getEncodingType() == chunkHeader.getEncodingType()
+        && cachedChunkHeader.getCompressionType() == chunkHeader.getCompressionType();
+  }
+
   private void mergeWithCachedChunk(Chunk currentChunk, ChunkMetadata currentChunkMetadata)
       throws IOException {
     // Notice!!!
@@ -267,18 +352,26 @@ public class SingleSeriesCompactionExecutor {
   private void flushChunkToFileWriter(
       Chunk chunk, ChunkMetadata chunkMetadata, boolean isCachedChunk) throws IOException {
     CompactionTaskManager.mergeRateLimiterAcquire(compactionRateLimiter, getChunkSize(chunk));
+    updateTimeRange(chunkMetadata);
+    CompactionMetricsManager.recordWriteInfo(
+        CompactionType.INNER_SEQ_COMPACTION,
+        isCachedChunk ? ProcessChunkType.MERGE_CHUNK : ProcessChunkType.FLUSH_CHUNK,
+        false,
+        getChunkSize(chunk));
+    if (chunkQueue != null) {
+      chunkQueue.put(chunk, chunkMetadata);
+    } else {
+      fileWriter.writeChunk(chunk, chunkMetadata);
+    }
+  }
+
+  private void updateTimeRange(ChunkMetadata chunkMetadata) {
     if (chunkMetadata.getStartTime() < minStartTimestamp) {
       minStartTimestamp = chunkMetadata.getStartTime();
     }
     if (chunkMetadata.getEndTime() > maxEndTimestamp) {
       maxEndTimestamp = chunkMetadata.getEndTime();
     }
-    CompactionMetricsManager.recordWriteInfo(
-        CompactionType.INNER_SEQ_COMPACTION,
-        isCachedChunk ? ProcessChunkType.MERGE_CHUNK : ProcessChunkType.FLUSH_CHUNK,
-        false,
-        getChunkSize(chunk));
-    fileWriter.writeChunk(chunk, chunkMetadata);
   }
 
   private void flushChunkWriterIfLargeEnough() throws IOException {
@@ -291,7 +384,7 @@ public class SingleSeriesCompactionExecutor {
           ProcessChunkType.DESERIALIZE_CHUNK,
           false,
           chunkWriter.estimateMaxSeriesMemSize());
-      chunkWriter.writeToFileWriter(fileWriter);
+      writeChunkWriter();
       pointCountInChunkWriter = 0L;
     }
   }
@@ -313,7 +406,17 @@ public class SingleSeriesCompactionExecutor {
         ProcessChunkType.DESERIALIZE_CHUNK,
         false,
         chunkWriter.estimateMaxSeriesMemSize());
-    chunkWriter.writeToFileWriter(fileWriter);
+    writeChunkWriter();
     pointCountInChunkWriter = 0L;
   }
+
+  private void writeChunkWriter() throws IOException {
+    if (chunkQueue != null) {
+      // the chunk writer is written by another thread, so continue with a new one
+      chunkQueue.put(chunkWriter);
+      chunkWriter = new ChunkWriterImpl(schema);
+    } else {
+      chunkWriter.writeToFileWriter(fileWriter);
+    }
+  }
 }
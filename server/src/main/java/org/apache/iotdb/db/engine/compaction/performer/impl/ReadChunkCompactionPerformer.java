@@ -20,8 +20,10 @@ package org.apache.iotdb.db.engine.compaction.performer.impl;
 
 import org.apache.iotdb.commons.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
 import org.apache.iotdb.db.engine.compaction.inner.utils.AlignedSeriesCompactionExecutor;
 import org.apache.iotdb.db.engine.compaction.inner.utils.MultiTsFileDeviceIterator;
+import org.apache.iotdb.db.engine.compaction.inner.utils.SeriesChunkQueue;
 import org.apache.iotdb.db.engine.compaction.inner.utils.SingleSeriesCompactionExecutor;
 import org.apache.iotdb.db.engine.compaction.performer.ISeqCompactionPerformer;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
@@ -42,14 +44,30 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Future;
 
 public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
   private static final Logger LOGGER =
       LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
   private TsFileResource targetResource;
   private List<TsFileResource> seqFiles;
+  private final int subTaskNum =
+      IoTDBDescriptor.getInstance().getConfig().getSubCompactionTaskNum();
+
+  /**
+   * Series compacted by sub tasks but not written into the target file yet, in the order of the
+   * target file. An element with null queue marks the start of the chunk group of its device.
+   */
+  private final Deque<Pair<String, SeriesChunkQueue>> pendingSeries = new ArrayDeque<>();
+
+  private final List<Future<Void>> subTaskFutures = new ArrayList<>();
+  /** device of the chunk group which is being written by the writer */
+  private String chunkGroupDevice;
 
   public ReadChunkCompactionPerformer(List<TsFileResource> sourceFiles, TsFileResource targetFile) {
     this.seqFiles = sourceFiles;
@@ -67,17 +85,28 @@ public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
       throws IOException, MetadataException, InterruptedException, StorageEngineException {
     try (MultiTsFileDeviceIterator deviceIterator = new MultiTsFileDeviceIterator(seqFiles);
         TsFileIOWriter writer = new TsFileIOWriter(targetResource.getTsFile())) {
+      chunkGroupDevice = null;
       while (deviceIterator.hasNextDevice()) {
         Pair<String, Boolean> deviceInfo = deviceIterator.nextDevice();
         String device = deviceInfo.left;
         boolean aligned = deviceInfo.right;
 
-        writer.startChunkGroup(device);
-        if (aligned) {
-          compactAlignedSeries(device, targetResource, writer, deviceIterator);
+        if (aligned || subTaskNum <= 1) {
+          writePendingSeries(writer, 0);
+          switchChunkGroup(writer, device);
+          if (aligned) {
+            compactAlignedSeries(device, targetResource, writer, deviceIterator);
+          } else {
+            compactNotAlignedSeries(device, targetResource, writer, deviceIterator);
+          }
         } else {
-          compactNotAlignedSeries(device, targetResource, writer, deviceIterator);
+          // series of this device may be compacted while series of previous devices are written
+          pendingSeries.addLast(new Pair<>(device, null));
+          compactNotAlignedSeriesConcurrently(device, writer, deviceIterator);
         }
+      }
+      writePendingSeries(writer, 0);
+      if (chunkGroupDevice != null) {
         writer.endChunkGroup();
       }
 
@@ -86,6 +115,34 @@ public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
       }
       writer.endFile();
       targetResource.close();
+    } finally {
+      // sub tasks blocked on their queues must be stopped if the compaction is aborted
+      for (Future<Void> future : subTaskFutures) {
+        future.cancel(true);
+      }
+      subTaskFutures.clear();
+      pendingSeries.clear();
+    }
+  }
+
+  private void switchChunkGroup(TsFileIOWriter writer, String device) throws IOException {
+    if (chunkGroupDevice != null) {
+      writer.endChunkGroup();
+    }
+    writer.startChunkGroup(device);
+    chunkGroupDevice = device;
+  }
+
+  /** Write pending series in order until no more than maxPendingNum series left. */
+  private void writePendingSeries(TsFileIOWriter writer, int maxPendingNum)
+      throws IOException, InterruptedException {
+    while (pendingSeries.size() > maxPendingNum) {
+      Pair<String, SeriesChunkQueue> series = pendingSeries.removeFirst();
+      if (series.right == null) {
+        switchChunkGroup(writer, series.left);
+      } else {
+        series.right.writeTo(writer, targetResource, series.left);
+      }
     }
   }
 
@@ -133,7 +190,6 @@ public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
         deviceIterator.iterateNotAlignedSeries(device, true);
     while (seriesIterator.hasNextSeries()) {
       checkThreadInterrupted();
-      // TODO: we can provide a configuration item to enable concurrent between each series
       PartialPath p = new PartialPath(device, seriesIterator.nextSeries());
       IMeasurementSchema measurementSchema;
       // TODO: seriesIterator needs to be refactor.
@@ -159,6 +215,65 @@ public class ReadChunkCompactionPerformer implements ISeqCompactionPerformer {
     }
   }
 
+  /**
+   * Each series is compacted by a sub task with its own chunk writer, and compacted chunks are
+   * written by current thread in the order of series, so that at most subTaskNum series are
+   * compacted at the same time and the target file is the same as that of serial compaction.
+   */
+  private void compactNotAlignedSeriesConcurrently(
+      String device, TsFileIOWriter writer, MultiTsFileDeviceIterator deviceIterator)
+      throws IOException, MetadataException, InterruptedException {
+    MultiTsFileDeviceIterator.MeasurementIterator seriesIterator =
+        deviceIterator.iterateNotAlignedSeries(device, true);
+    while (seriesIterator.hasNextSeries()) {
+      checkThreadInterrupted();
+      PartialPath p = new PartialPath(device, seriesIterator.nextSeries());
+      IMeasurementSchema measurementSchema;
+      // This statement must be called before next hasNextSeries() called, or it may be trapped in a
+      // dead-loop.
+      LinkedList<Pair<TsFileSequenceReader, List<ChunkMetadata>>> readerAndChunkMetadataList =
+          seriesIterator.getMetadataListForCurrentSeries();
+      try {
+        if (IoTDBDescriptor.getInstance().getConfig().isEnableIDTable()) {
+          measurementSchema =
+              IDTableManager.getInstance().getSeriesSchema(device, p.getMeasurement());
+        } else {
+          measurementSchema = IoTDB.schemaProcessor.getSeriesSchema(p);
+        }
+      } catch (PathNotExistException e) {
+        LOGGER.info("A deleted path is skipped: {}", e.getMessage());
+        continue;
+      }
+      SeriesChunkQueue chunkQueue = new SeriesChunkQueue();
+      SingleSeriesCompactionExecutor compactionExecutor =
+          new SingleSeriesCompactionExecutor(
+              p, measurementSchema, readerAndChunkMetadataList, chunkQueue, targetResource);
+      Future<Void> future =
+          CompactionTaskManager.getInstance()
+              .submitSubTask(
+                  () -> {
+                    try {
+                      compactionExecutor.execute();
+                    } catch (Exception e) {
+                      chunkQueue.fail(e);
+                    }
+                    return null;
+                  });
+      if (future == null) {
+        // sub task pool is not available, compact this series in current thread
+        writePendingSeries(writer, 0);
+        new SingleSeriesCompactionExecutor(
+                p, measurementSchema, readerAndChunkMetadataList, writer, targetResource)
+            .execute();
+        continue;
+      }
+      subTaskFutures.removeIf(Future::isDone);
+      subTaskFutures.add(future);
+      pendingSeries.addLast(new Pair<>(device, chunkQueue));
+      writePendingSeries(writer, subTaskNum);
+    }
+  }
+
   @Override
   public void setSourceFiles(List<TsFileResource> seqFiles) {
     this.seqFiles = seqFiles;
@@ -142,7 +142,7 @@ public abstract class AbstractCompactionWriter implements AutoCloseable {
 
   protected void flushChunkToFileWriter(TsFileIOWriter targetWriter, int subTaskId)
       throws IOException {
-    writeRateLimit(chunkWriters[subTaskId].estimateMaxSeriesMemSize());
+    writeRateLimit(targetWriter, chunkWriters[subTaskId].estimateMaxSeriesMemSize());
     synchronized (targetWriter) {
       chunkWriters[subTaskId].writeToFileWriter(targetWriter);
     }
@@ -171,9 +171,10 @@ public abstract class AbstractCompactionWriter implements AutoCloseable {
     }
   }
 
-  protected void writeRateLimit(long bytesLength) {
+  protected void writeRateLimit(TsFileIOWriter targetWriter, long bytesLength) {
     CompactionTaskManager.mergeRateLimiterAcquire(
-        CompactionTaskManager.getInstance().getMergeWriteRateLimiter(), bytesLength);
+        CompactionTaskManager.getInstance().getMergeWriteRateLimiter(targetWriter.getFile()),
+        bytesLength);
   }
 
   public abstract List<TsFileIOWriter> getFileIOWriter();
@@ -20,6 +20,7 @@ package org.apache.iotdb.db.engine.flush;
 
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.CompactionThroughputController;
 import org.apache.iotdb.db.engine.flush.pool.FlushSubTaskPoolManager;
 import org.apache.iotdb.db.engine.memtable.IMemTable;
 import org.apache.iotdb.db.engine.memtable.IWritableMemChunk;
@@ -39,15 +40,25 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * flush task to flush one memtable using a pipeline model to flush, which is sort memtable ->
  * encoding -> write to disk (io task)
+ *
+ * <p>If parallel flush is enabled, the sort and encoding of different series are done by a set of
+ * workers concurrently, and the chunks are written to disk in the order of chunk groups by the
+ * flush thread itself.
  */
 public class MemTableFlushTask {
 
@@ -55,8 +66,9 @@ public class MemTableFlushTask {
   private static final FlushSubTaskPoolManager SUB_TASK_POOL_MANAGER =
       FlushSubTaskPoolManager.getInstance();
   private static IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
-  private final Future<?> encodingTaskFuture;
-  private final Future<?> ioTaskFuture;
+  private final boolean parallelFlush = config.isEnableParallelFlush();
+  private Future<?> encodingTaskFuture;
+  private Future<?> ioTaskFuture;
   private RestorableTsFileIOWriter writer;
 
   private final LinkedBlockingQueue<Object> encodingTaskQueue = new LinkedBlockingQueue<>();
@@ -82,8 +94,10 @@ public class MemTableFlushTask {
     this.memTable = memTable;
     this.writer = writer;
     this.storageGroup = storageGroup;
-    this.encodingTaskFuture = SUB_TASK_POOL_MANAGER.submit(encodingTask);
-    this.ioTaskFuture = SUB_TASK_POOL_MANAGER.submit(ioTask);
+    if (!parallelFlush) {
+      this.encodingTaskFuture = SUB_TASK_POOL_MANAGER.submit(encodingTask);
+      this.ioTaskFuture = SUB_TASK_POOL_MANAGER.submit(ioTask);
+    }
     LOGGER.debug(
         "flush task of Storage group {} memtable is created, flushing to file {}.",
         storageGroup,
@@ -101,11 +115,62 @@ public class MemTableFlushTask {
 
     long estimatedTemporaryMemSize = 0L;
     if (config.isEnableMemControl() && SystemInfo.getInstance().isEncodingFasterThanIo()) {
+      // the chunks waiting for io, and the chunks being encoded by the other encoders
       estimatedTemporaryMemSize =
-          memTable.memSize() / memTable.getSeriesNumber() * config.getIoTaskQueueSizeForFlushing();
+          memTable.memSize()
+              / memTable.getSeriesNumber()
+              * (config.getIoTaskQueueSizeForFlushing() + getEncoderNum() - 1);
       SystemInfo.getInstance().applyTemporaryMemoryForFlushing(estimatedTemporaryMemSize);
     }
     long start = System.currentTimeMillis();
+    if (parallelFlush) {
+      parallelFlush();
+    } else {
+      pipelineFlush();
+    }
+
+    try {
+      writer.writePlanIndices();
+    } catch (IOException e) {
+      throw new ExecutionException(e);
+    }
+
+    if (config.isEnableMemControl()) {
+      if (estimatedTemporaryMemSize != 0) {
+        SystemInfo.getInstance().releaseTemporaryMemoryForFlushing(estimatedTemporaryMemSize);
+      }
+      SystemInfo.getInstance().setEncodingFasterThanIo(ioTime >= memSerializeTime);
+    }
+
+    if (MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
+      MetricsService.getInstance()
+          .getMetricManager()
+          .timer(
+              System.currentTimeMillis() - start,
+              TimeUnit.MILLISECONDS,
+              Metric.COST_TASK.toString(),
+              MetricLevel.IMPORTANT,
+              Tag.NAME.toString(),
+              "flush");
+    }
+
+    long flushCost = System.currentTimeMillis() - start;
+    CompactionThroughputController.getInstance().recordFlushCost(flushCost);
+    LOGGER.info(
+        "Storage group {} memtable {} flushing a memtable has finished! Time consumption: {}ms",
+        storageGroup,
+        memTable,
+        flushCost);
+  }
+
+  /** @return number of the threads encoding series concurrently */
+  private int getEncoderNum() {
+    return parallelFlush
+        ? Math.max(Math.min(config.getParallelFlushWorkerNum(), memTable.getSeriesNumber()), 1)
+        : 1;
+  }
+
+  private void pipelineFlush() throws ExecutionException, InterruptedException {
     long sortTime = 0;
 
     // for map do not use get(key) to iterate
@@ -142,37 +207,147 @@ public class MemTableFlushTask {
     }
 
     ioTaskFuture.get();
+  }
+
+  /**
+   * Sort and encode the series by a set of workers, and write the encoded chunks to disk in the
+   * flush thread. The workers take the series in the same order as they are written, so an
+   * in-flight permit is always held by a chunk that will be written before all the chunks not taken
+   * yet, which makes limiting the in-flight chunks free of dead lock.
+   */
+  private void parallelFlush() throws ExecutionException, InterruptedException {
+    List<Object> ioTasks = new ArrayList<>();
+    ConcurrentLinkedQueue<SeriesEncodingTask> encodingTasks = new ConcurrentLinkedQueue<>();
+    // for map do not use get(key) to iterate
+    for (Map.Entry<IDeviceID, IWritableMemChunkGroup> memTableEntry :
+        memTable.getMemTableMap().entrySet()) {
+      ioTasks.add(new StartFlushGroupIOTask(memTableEntry.getKey().toStringID()));
+      for (IWritableMemChunk series : memTableEntry.getValue().getMemChunkMap().values()) {
+        SeriesEncodingTask encodingTask = new SeriesEncodingTask(series);
+        encodingTasks.add(encodingTask);
+        ioTasks.add(encodingTask);
+      }
+      ioTasks.add(new EndChunkGroupIoTask());
+    }
 
+    int workerNum = getEncoderNum();
+    // the encoded chunks waiting for io are limited in the same way as the ioTaskQueue, besides
+    // the chunks being encoded, which are charged in syncFlushMemTable
+    int maxInFlightChunks =
+        config.isEnableMemControl() && SystemInfo.getInstance().isEncodingFasterThanIo()
+            ? Math.max(config.getIoTaskQueueSizeForFlushing() + workerNum - 1, 1)
+            : Math.max(encodingTasks.size(), 1);
+    Semaphore inFlightChunks = new Semaphore(maxInFlightChunks);
+    AtomicLong encodingTime = new AtomicLong();
+    List<Future<?>> workers = new ArrayList<>(workerNum);
+    for (int i = 0; i < workerNum; i++) {
+      workers.add(
+          SUB_TASK_POOL_MANAGER.submit(
+              () -> encodeSeries(encodingTasks, inFlightChunks, encodingTime)));
+    }
+
+    Throwable failure = null;
     try {
-      writer.writePlanIndices();
+      for (Object ioTask : ioTasks) {
+        if (ioTask instanceof StartFlushGroupIOTask) {
+          this.writer.startChunkGroup(((StartFlushGroupIOTask) ioTask).deviceId);
+        } else if (ioTask instanceof EndChunkGroupIoTask) {
+          this.writer.setMinPlanIndex(memTable.getMinPlanIndex());
+          this.writer.setMaxPlanIndex(memTable.getMaxPlanIndex());
+          this.writer.endChunkGroup();
+        } else {
+          IChunkWriter seriesWriter = ((SeriesEncodingTask) ioTask).encodedChunk.get();
+          long starTime = System.currentTimeMillis();
+          seriesWriter.writeToFileWriter(this.writer);
+          ioTime += System.currentTimeMillis() - starTime;
+          inFlightChunks.release();
+        }
+      }
     } catch (IOException e) {
-      throw new ExecutionException(e);
+      LOGGER.error("Storage group {} memtable {}, io task meets error.", storageGroup, memTable, e);
+      ExecutionException executionException = new ExecutionException(e);
+      failure = executionException;
+      throw executionException;
+    } catch (ExecutionException | InterruptedException | RuntimeException | Error e) {
+      failure = e;
+      throw e;
+    } finally {
+      // make the workers exit as soon as possible if the flush is aborted
+      encodingTasks.clear();
+      inFlightChunks.release(workerNum);
+      awaitWorkers(workers, failure);
     }
 
-    if (config.isEnableMemControl()) {
-      if (estimatedTemporaryMemSize != 0) {
-        SystemInfo.getInstance().releaseTemporaryMemoryForFlushing(estimatedTemporaryMemSize);
+    memSerializeTime = encodingTime.get() / workerNum;
+    LOGGER.debug(
+        "Storage group {} memtable flushing into file {}: data sort and encoding time cost {} ms "
+            + "by {} workers, io cost {} ms.",
+        storageGroup,
+        writer.getFile().getName(),
+        encodingTime.get(),
+        workerNum,
+        ioTime);
+  }
+
+  /**
+   * Wait for all the workers to exit. If the flush has failed, the failures of the workers are
+   * added to it as suppressed instead of being thrown, so the original failure is not masked.
+   */
+  private void awaitWorkers(List<Future<?>> workers, Throwable failure)
+      throws ExecutionException, InterruptedException {
+    for (Future<?> worker : workers) {
+      try {
+        worker.get();
+      } catch (ExecutionException | InterruptedException e) {
+        if (failure == null) {
+          throw e;
+        }
+        failure.addSuppressed(e);
+        if (e instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        }
       }
-      SystemInfo.getInstance().setEncodingFasterThanIo(ioTime >= memSerializeTime);
     }
+  }
 
-    if (MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
-      MetricsService.getInstance()
-          .getMetricManager()
-          .timer(
-              System.currentTimeMillis() - start,
-              TimeUnit.MILLISECONDS,
-              Metric.COST_TASK.toString(),
-              MetricLevel.IMPORTANT,
-              Tag.NAME.toString(),
-              "flush");
+  /** sort and encoding task of parallel flush, run by each worker */
+  @SuppressWarnings("squid:S1181")
+  private void encodeSeries(
+      ConcurrentLinkedQueue<SeriesEncodingTask> encodingTasks,
+      Semaphore inFlightChunks,
+      AtomicLong encodingTime) {
+    while (true) {
+      try {
+        inFlightChunks.acquire();
+      } catch (InterruptedException e) {
+        LOGGER.error(
+            "Storage group {} memtable flushing to file {}, encoding task is interrupted.",
+            storageGroup,
+            writer.getFile().getName(),
+            e);
+        Thread.currentThread().interrupt();
+        // fail the remaining series so that the io will not wait for them forever
+        SeriesEncodingTask encodingTask;
+        while ((encodingTask = encodingTasks.poll()) != null) {
+          encodingTask.encodedChunk.completeExceptionally(e);
+        }
+        return;
+      }
+      SeriesEncodingTask encodingTask = encodingTasks.poll();
+      if (encodingTask == null) {
+        inFlightChunks.release();
+        return;
+      }
+      long startTime = System.currentTimeMillis();
+      try {
+        encodingTask.encode();
+      } catch (Throwable e) {
+        LOGGER.error(
+            "Storage group {} memtable {}, encoding task meets error.", storageGroup, memTable, e);
+        encodingTask.encodedChunk.completeExceptionally(e);
+      }
+      encodingTime.addAndGet(System.currentTimeMillis() - startTime);
     }
-
-    LOGGER.info(
-        "Storage group {} memtable {} flushing a memtable has finished! Time consumption: {}ms",
-        storageGroup,
-        memTable,
-        System.currentTimeMillis() - start);
   }
 
   /** encoding task (second task of pipeline) */
@@ -305,4 +480,23 @@ public class MemTableFlushTask {
       this.deviceId = deviceId;
     }
   }
+
+  static class SeriesEncodingTask {
+
+    private final IWritableMemChunk series;
+    private final CompletableFuture<IChunkWriter> encodedChunk = new CompletableFuture<>();
+
+    SeriesEncodingTask(IWritableMemChunk series) {
+      this.series = series;
+    }
+
+    void encode() {
+      series.sortTvListForFlush();
+      IChunkWriter seriesWriter = series.createIChunkWriter();
+      series.encode(seriesWriter);
+      seriesWriter.sealCurrentPage();
+      seriesWriter.clearPageWriter();
+      encodedChunk.complete(seriesWriter);
+    }
+  }
 }
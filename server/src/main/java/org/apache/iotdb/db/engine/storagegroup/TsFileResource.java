@@ -21,6 +21,7 @@ package org.apache.iotdb.db.engine.storagegroup;
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.engine.storagegroup.DataRegion.SettleTsFileCallBack;
@@ -513,6 +514,7 @@ public class TsFileResource {
       LOGGER.error("TsFile {} cannot be deleted: {}", file, e.getMessage());
       return false;
     }
+    TimeSeriesMetadataCache.getInstance().remove(getTsFilePath());
     if (!removeResourceFile()) {
       return false;
     }
@@ -87,6 +87,7 @@ public class LocalConfigNode {
   private volatile boolean initialized = false;
 
   private ScheduledExecutorService timedForceMLogThread;
+  private ScheduledExecutorService timedCreateMTreeSnapshotThread;
 
   private IStorageGroupSchemaManager storageGroupSchemaManager =
       StorageGroupSchemaManager.getInstance();
@@ -149,6 +150,17 @@ public class LocalConfigNode {
             config.getSyncMlogPeriodInMs(),
             TimeUnit.MILLISECONDS);
       }
+
+      if (config.isEnableMTreeSnapshot()) {
+        timedCreateMTreeSnapshotThread =
+            IoTDBThreadPoolFactory.newSingleThreadScheduledExecutor(
+                "timedCreateMTreeSnapshotThread");
+        timedCreateMTreeSnapshotThread.scheduleAtFixedRate(
+            schemaEngine::createMTreeSnapshot,
+            config.getMtreeSnapshotCheckIntervalInS(),
+            config.getMtreeSnapshotCheckIntervalInS(),
+            TimeUnit.SECONDS);
+      }
     } catch (MetadataException | IOException e) {
       logger.error(
           "Cannot recover all MTree from file, we try to recover as possible as we can", e);
@@ -170,6 +182,11 @@ public class LocalConfigNode {
         timedForceMLogThread = null;
       }
 
+      if (timedCreateMTreeSnapshotThread != null) {
+        timedCreateMTreeSnapshotThread.shutdown();
+        timedCreateMTreeSnapshotThread = null;
+      }
+
       schemaPartitionTable.clear();
       schemaEngine.clear();
       storageGroupSchemaManager.clear();
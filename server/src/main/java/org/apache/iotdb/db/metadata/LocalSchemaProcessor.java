@@ -48,6 +48,7 @@ import org.apache.iotdb.db.qp.physical.sys.AppendTemplatePlan;
 import org.apache.iotdb.db.qp.physical.sys.AutoCreateDeviceMNodePlan;
 import org.apache.iotdb.db.qp.physical.sys.ChangeAliasPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateAlignedTimeSeriesPlan;
+import org.apache.iotdb.db.qp.physical.sys.CreateMultiTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateTemplatePlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.DeleteStorageGroupPlan;
@@ -214,6 +215,21 @@ public class LocalSchemaProcessor {
             (CreateAlignedTimeSeriesPlan) plan;
         createAlignedTimeSeries(createAlignedTimeSeriesPlan);
         break;
+      case CREATE_MULTI_TIMESERIES:
+        CreateMultiTimeSeriesPlan createMultiTimeSeriesPlan = (CreateMultiTimeSeriesPlan) plan;
+        for (int i = 0; i < createMultiTimeSeriesPlan.getPaths().size(); i++) {
+          createTimeseries(
+              new CreateTimeSeriesPlan(
+                  createMultiTimeSeriesPlan.getPaths().get(i),
+                  createMultiTimeSeriesPlan.getDataTypes().get(i),
+                  createMultiTimeSeriesPlan.getEncodings().get(i),
+                  createMultiTimeSeriesPlan.getCompressors().get(i),
+                  null,
+                  null,
+                  null,
+                  null));
+        }
+        break;
       case DELETE_TIMESERIES:
         DeleteTimeSeriesPlan deleteTimeSeriesPlan = (DeleteTimeSeriesPlan) plan;
         // cause we only has one path for one DeleteTimeSeriesPlan
@@ -122,8 +122,9 @@ public class AppendOnlyDiskSchemaManager implements IDiskSchemaManager {
     return true;
   }
 
+  // schema entries of different devices may be serialized concurrently
   @Override
-  public long serialize(DiskSchemaEntry schemaEntry) {
+  public synchronized long serialize(DiskSchemaEntry schemaEntry) {
     long beforeLoc = loc;
     try {
       loc += schemaEntry.serialize(outputStream);
@@ -61,7 +61,8 @@ public class IDTableHashmapImpl implements IDTable {
 
   /**
    * 256 hashmap for avoiding rehash performance issue and lock competition device ID ->
-   * (measurement name -> schema entry)
+   * (measurement name -> schema entry). Each hashmap is also the lock of the devices in it, so that
+   * operations on devices of different slots don't contend with each other.
    */
   private Map<IDeviceID, DeviceEntry>[] idTables;
 
@@ -87,23 +88,26 @@ public class IDTableHashmapImpl implements IDTable {
    * @param plan create aligned timeseries plan
    * @throws MetadataException if the device is not aligned, throw it
    */
-  public synchronized void createAlignedTimeseries(CreateAlignedTimeSeriesPlan plan)
-      throws MetadataException {
-    DeviceEntry deviceEntry = getDeviceEntryWithAlignedCheck(plan.getPrefixPath().toString(), true);
-
-    for (int i = 0; i < plan.getMeasurements().size(); i++) {
-      PartialPath fullPath =
-          new PartialPath(plan.getPrefixPath().toString(), plan.getMeasurements().get(i));
-      SchemaEntry schemaEntry =
-          new SchemaEntry(
-              plan.getDataTypes().get(i),
-              plan.getEncodings().get(i),
-              plan.getCompressors().get(i),
-              deviceEntry.getDeviceID(),
-              fullPath,
-              true,
-              IDiskSchemaManager);
-      deviceEntry.putSchemaEntry(plan.getMeasurements().get(i), schemaEntry);
+  public void createAlignedTimeseries(CreateAlignedTimeSeriesPlan plan) throws MetadataException {
+    IDeviceID deviceID = DeviceIDFactory.getInstance().getDeviceID(plan.getPrefixPath());
+    synchronized (getSlot(deviceID)) {
+      DeviceEntry deviceEntry =
+          getDeviceEntryWithAlignedCheck(plan.getPrefixPath().toString(), deviceID, true);
+
+      for (int i = 0; i < plan.getMeasurements().size(); i++) {
+        PartialPath fullPath =
+            new PartialPath(plan.getPrefixPath().toString(), plan.getMeasurements().get(i));
+        SchemaEntry schemaEntry =
+            new SchemaEntry(
+                plan.getDataTypes().get(i),
+                plan.getEncodings().get(i),
+                plan.getCompressors().get(i),
+                deviceEntry.getDeviceID(),
+                fullPath,
+                true,
+                IDiskSchemaManager);
+        deviceEntry.putSchemaEntry(plan.getMeasurements().get(i), schemaEntry);
+      }
     }
   }
 
@@ -113,18 +117,22 @@ public class IDTableHashmapImpl implements IDTable {
    * @param plan create timeseries plan
    * @throws MetadataException if the device is aligned, throw it
    */
-  public synchronized void createTimeseries(CreateTimeSeriesPlan plan) throws MetadataException {
-    DeviceEntry deviceEntry = getDeviceEntryWithAlignedCheck(plan.getPath().getDevice(), false);
-    SchemaEntry schemaEntry =
-        new SchemaEntry(
-            plan.getDataType(),
-            plan.getEncoding(),
-            plan.getCompressor(),
-            deviceEntry.getDeviceID(),
-            plan.getPath(),
-            false,
-            IDiskSchemaManager);
-    deviceEntry.putSchemaEntry(plan.getPath().getMeasurement(), schemaEntry);
+  public void createTimeseries(CreateTimeSeriesPlan plan) throws MetadataException {
+    String deviceName = plan.getPath().getDevice();
+    IDeviceID deviceID = DeviceIDFactory.getInstance().getDeviceID(deviceName);
+    synchronized (getSlot(deviceID)) {
+      DeviceEntry deviceEntry = getDeviceEntryWithAlignedCheck(deviceName, deviceID, false);
+      SchemaEntry schemaEntry =
+          new SchemaEntry(
+              plan.getDataType(),
+              plan.getEncoding(),
+              plan.getCompressor(),
+              deviceEntry.getDeviceID(),
+              plan.getPath(),
+              false,
+              IDiskSchemaManager);
+      deviceEntry.putSchemaEntry(plan.getPath().getMeasurement(), schemaEntry);
+    }
   }
 
   /**
@@ -134,14 +142,21 @@ public class IDTableHashmapImpl implements IDTable {
    * @return reusable device id
    * @throws MetadataException if insert plan's aligned value is inconsistent with device
    */
-  public synchronized IDeviceID getSeriesSchemas(InsertPlan plan) throws MetadataException {
+  public IDeviceID getSeriesSchemas(InsertPlan plan) throws MetadataException {
+    IDeviceID deviceID = DeviceIDFactory.getInstance().getDeviceID(plan.getDevicePath());
+    synchronized (getSlot(deviceID)) {
+      return getSeriesSchemas(plan, deviceID);
+    }
+  }
+
+  private IDeviceID getSeriesSchemas(InsertPlan plan, IDeviceID deviceID) throws MetadataException {
     PartialPath devicePath = plan.getDevicePath();
     String[] measurementList = plan.getMeasurements();
     IMeasurementMNode[] measurementMNodes = plan.getMeasurementMNodes();
 
     // 1. get device entry and check align
     DeviceEntry deviceEntry =
-        getDeviceEntryWithAlignedCheck(devicePath.toString(), plan.isAligned());
+        getDeviceEntryWithAlignedCheck(devicePath.toString(), deviceID, plan.isAligned());
 
     // 2. get schema of each measurement
     for (int i = 0; i < measurementList.length; i++) {
@@ -200,12 +215,16 @@ public class IDTableHashmapImpl implements IDTable {
    * @param measurementMNode the timeseries measurement mnode
    * @throws MetadataException if the timeseries is not exits
    */
-  public synchronized void registerTrigger(PartialPath fullPath, IMeasurementMNode measurementMNode)
+  public void registerTrigger(PartialPath fullPath, IMeasurementMNode measurementMNode)
       throws MetadataException {
     boolean isAligned = measurementMNode.getParent().isAligned();
-    DeviceEntry deviceEntry = getDeviceEntryWithAlignedCheck(fullPath.getDevice(), isAligned);
+    IDeviceID deviceID = DeviceIDFactory.getInstance().getDeviceID(fullPath.getDevice());
+    synchronized (getSlot(deviceID)) {
+      DeviceEntry deviceEntry =
+          getDeviceEntryWithAlignedCheck(fullPath.getDevice(), deviceID, isAligned);
 
-    deviceEntry.getSchemaEntry(fullPath.getMeasurement()).setUsingTrigger();
+      deviceEntry.getSchemaEntry(fullPath.getMeasurement()).setUsingTrigger();
+    }
   }
 
   /**
@@ -215,12 +234,16 @@ public class IDTableHashmapImpl implements IDTable {
    * @param measurementMNode the timeseries measurement mnode
    * @throws MetadataException if the timeseries is not exits
    */
-  public synchronized void deregisterTrigger(
-      PartialPath fullPath, IMeasurementMNode measurementMNode) throws MetadataException {
+  public void deregisterTrigger(PartialPath fullPath, IMeasurementMNode measurementMNode)
+      throws MetadataException {
     boolean isAligned = measurementMNode.getParent().isAligned();
-    DeviceEntry deviceEntry = getDeviceEntryWithAlignedCheck(fullPath.getDevice(), isAligned);
+    IDeviceID deviceID = DeviceIDFactory.getInstance().getDeviceID(fullPath.getDevice());
+    synchronized (getSlot(deviceID)) {
+      DeviceEntry deviceEntry =
+          getDeviceEntryWithAlignedCheck(fullPath.getDevice(), deviceID, isAligned);
 
-    deviceEntry.getSchemaEntry(fullPath.getMeasurement()).setUnUsingTrigger();
+      deviceEntry.getSchemaEntry(fullPath.getMeasurement()).setUnUsingTrigger();
+    }
   }
 
   /**
@@ -229,9 +252,10 @@ public class IDTableHashmapImpl implements IDTable {
    * @param timeseriesID timeseries ID of the timeseries
    * @throws MetadataException if the timeseries is not exits
    */
-  public synchronized TimeValuePair getLastCache(TimeseriesID timeseriesID)
-      throws MetadataException {
-    return getSchemaEntry(timeseriesID).getCachedLast();
+  public TimeValuePair getLastCache(TimeseriesID timeseriesID) throws MetadataException {
+    synchronized (getSlot(timeseriesID.getDeviceID())) {
+      return getSchemaEntry(timeseriesID).getCachedLast();
+    }
   }
 
   /**
@@ -243,13 +267,15 @@ public class IDTableHashmapImpl implements IDTable {
    * @param latestFlushedTime last flushed time
    * @throws MetadataException if the timeseries is not exits
    */
-  public synchronized void updateLastCache(
+  public void updateLastCache(
       TimeseriesID timeseriesID,
       TimeValuePair pair,
       boolean highPriorityUpdate,
       Long latestFlushedTime)
       throws MetadataException {
-    getSchemaEntry(timeseriesID).updateCachedLast(pair, highPriorityUpdate, latestFlushedTime);
+    synchronized (getSlot(timeseriesID.getDeviceID())) {
+      getSchemaEntry(timeseriesID).updateCachedLast(pair, highPriorityUpdate, latestFlushedTime);
+    }
   }
 
   @Override
@@ -268,10 +294,12 @@ public class IDTableHashmapImpl implements IDTable {
   @Override
   public DeviceEntry getDeviceEntry(String deviceName) {
     IDeviceID deviceID = DeviceIDFactory.getInstance().getDeviceID(deviceName);
-    int slot = calculateSlot(deviceID);
+    Map<IDeviceID, DeviceEntry> slot = getSlot(deviceID);
 
     // reuse device entry in map
-    return idTables[slot].get(deviceID);
+    synchronized (slot) {
+      return slot.get(deviceID);
+    }
   }
 
   /**
@@ -283,12 +311,16 @@ public class IDTableHashmapImpl implements IDTable {
    */
   @Override
   public IMeasurementSchema getSeriesSchema(String deviceName, String measurementName) {
-    DeviceEntry deviceEntry = getDeviceEntry(deviceName);
-    if (deviceEntry == null) {
-      return null;
+    IDeviceID deviceID = DeviceIDFactory.getInstance().getDeviceID(deviceName);
+    Map<IDeviceID, DeviceEntry> slot = getSlot(deviceID);
+    SchemaEntry schemaEntry;
+    synchronized (slot) {
+      DeviceEntry deviceEntry = slot.get(deviceID);
+      if (deviceEntry == null) {
+        return null;
+      }
+      schemaEntry = deviceEntry.getSchemaEntry(measurementName);
     }
-
-    SchemaEntry schemaEntry = deviceEntry.getSchemaEntry(measurementName);
     if (schemaEntry == null) {
       return null;
     }
@@ -305,7 +337,9 @@ public class IDTableHashmapImpl implements IDTable {
   public List<DeviceEntry> getAllDeviceEntry() {
     List<DeviceEntry> res = new ArrayList<>();
     for (int i = 0; i < NUM_OF_SLOTS; i++) {
-      res.addAll(idTables[i].values());
+      synchronized (idTables[i]) {
+        res.addAll(idTables[i].values());
+      }
     }
 
     return res;
@@ -315,8 +349,11 @@ public class IDTableHashmapImpl implements IDTable {
   public void putSchemaEntry(
       String devicePath, String measurement, SchemaEntry schemaEntry, boolean isAligned)
       throws MetadataException {
-    DeviceEntry deviceEntry = getDeviceEntryWithAlignedCheck(devicePath, isAligned);
-    deviceEntry.putSchemaEntry(measurement, schemaEntry);
+    IDeviceID deviceID = DeviceIDFactory.getInstance().getDeviceID(devicePath);
+    synchronized (getSlot(deviceID)) {
+      DeviceEntry deviceEntry = getDeviceEntryWithAlignedCheck(devicePath, deviceID, isAligned);
+      deviceEntry.putSchemaEntry(measurement, schemaEntry);
+    }
   }
 
   /**
@@ -382,23 +419,24 @@ public class IDTableHashmapImpl implements IDTable {
   }
 
   /**
-   * get device id from device path and check is aligned,
+   * get device entry of the device id and check is aligned, the caller should hold the lock of the
+   * slot
    *
    * @param deviceName device name of the time series
+   * @param deviceID device id of the device name
    * @param isAligned whether the insert plan is aligned
    * @return device entry of the timeseries
    */
-  private DeviceEntry getDeviceEntryWithAlignedCheck(String deviceName, boolean isAligned)
-      throws MetadataException {
-    IDeviceID deviceID = DeviceIDFactory.getInstance().getDeviceID(deviceName);
-    int slot = calculateSlot(deviceID);
+  private DeviceEntry getDeviceEntryWithAlignedCheck(
+      String deviceName, IDeviceID deviceID, boolean isAligned) throws MetadataException {
+    Map<IDeviceID, DeviceEntry> slot = getSlot(deviceID);
 
-    DeviceEntry deviceEntry = idTables[slot].get(deviceID);
+    DeviceEntry deviceEntry = slot.get(deviceID);
     // new device
     if (deviceEntry == null) {
       deviceEntry = new DeviceEntry(deviceID);
       deviceEntry.setAligned(isAligned);
-      idTables[slot].put(deviceID, deviceEntry);
+      slot.put(deviceID, deviceEntry);
 
       return deviceEntry;
     }
@@ -427,7 +465,17 @@ public class IDTableHashmapImpl implements IDTable {
   }
 
   /**
-   * get schema entry
+   * get the slot that this deviceID should in, which is also the lock of the device
+   *
+   * @param deviceID device id
+   * @return the hashmap of the slot
+   */
+  private Map<IDeviceID, DeviceEntry> getSlot(IDeviceID deviceID) {
+    return idTables[calculateSlot(deviceID)];
+  }
+
+  /**
+   * get schema entry, the caller should hold the lock of the slot
    *
    * @param timeseriesID the timeseries ID
    * @return schema entry of the timeseries
@@ -435,9 +483,8 @@ public class IDTableHashmapImpl implements IDTable {
    */
   private SchemaEntry getSchemaEntry(TimeseriesID timeseriesID) throws MetadataException {
     IDeviceID deviceID = timeseriesID.getDeviceID();
-    int slot = calculateSlot(deviceID);
 
-    DeviceEntry deviceEntry = idTables[slot].get(deviceID);
+    DeviceEntry deviceEntry = getSlot(deviceID).get(deviceID);
     if (deviceEntry == null) {
       throw new MetadataException(
           "get non exist timeseries's schema entry, timeseries id is: " + timeseriesID);
@@ -64,6 +64,11 @@ public class MLogReader implements AutoCloseable {
     return singleFileLogReader.next();
   }
 
+  /** skip the logs before the position, which should be the end of a log */
+  public void skip(long position) throws IOException {
+    singleFileLogReader.skip(position);
+  }
+
   @Override
   public void close() {
     singleFileLogReader.close();
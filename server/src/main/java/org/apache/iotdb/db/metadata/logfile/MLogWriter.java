@@ -32,6 +32,7 @@ import org.apache.iotdb.db.qp.physical.sys.AutoCreateDeviceMNodePlan;
 import org.apache.iotdb.db.qp.physical.sys.ChangeAliasPlan;
 import org.apache.iotdb.db.qp.physical.sys.ChangeTagOffsetPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateAlignedTimeSeriesPlan;
+import org.apache.iotdb.db.qp.physical.sys.CreateMultiTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateTemplatePlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.DeleteStorageGroupPlan;
@@ -129,6 +130,11 @@ public class MLogWriter implements AutoCloseable {
     putLog(createAlignedTimeSeriesPlan);
   }
 
+  public void createMultiTimeseries(CreateMultiTimeSeriesPlan createMultiTimeSeriesPlan)
+      throws IOException {
+    putLog(createMultiTimeSeriesPlan);
+  }
+
   public void deleteTimeseries(DeleteTimeSeriesPlan deleteTimeSeriesPlan) throws IOException {
     putLog(deleteTimeSeriesPlan);
   }
@@ -242,6 +248,11 @@ public class MLogWriter implements AutoCloseable {
     logNum = number;
   }
 
+  /** the length of the log file, which is always at the end of a log */
+  public synchronized long getLogFileLength() {
+    return logFile.length();
+  }
+
   public synchronized void force() throws IOException {
     logWriter.force();
   }
@@ -70,6 +70,24 @@ public interface IMTreeBelowSG {
       List<String> aliasList)
       throws MetadataException;
 
+  /**
+   * Create non-aligned timeseries under one device with only one traversal from storage group to
+   * the device. None of the timeseries will be created if any of them already exists.
+   *
+   * @param devicePath device path
+   * @param measurements measurements list
+   * @param dataTypes data types list
+   * @param encodings encodings list
+   * @param compressors compressor
+   */
+  List<IMeasurementMNode> createNonAlignedTimeseries(
+      PartialPath devicePath,
+      List<String> measurements,
+      List<TSDataType> dataTypes,
+      List<TSEncoding> encodings,
+      List<CompressionType> compressors)
+      throws MetadataException;
+
   /**
    * Delete path. The path should be a full path from root to leaf node
    *
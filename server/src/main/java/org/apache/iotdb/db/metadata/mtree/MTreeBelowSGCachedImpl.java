@@ -324,6 +324,79 @@ public class MTreeBelowSGCachedImpl implements IMTreeBelowSG {
     }
   }
 
+  /**
+   * Create non-aligned timeseries under one device with only one traversal from storage group to
+   * the device. None of the timeseries will be created if any of them already exists. The returned
+   * nodes are pinned.
+   *
+   * @param devicePath device path
+   * @param measurements measurements list
+   * @param dataTypes data types list
+   * @param encodings encodings list
+   * @param compressors compressor
+   */
+  @Override
+  public List<IMeasurementMNode> createNonAlignedTimeseries(
+      PartialPath devicePath,
+      List<String> measurements,
+      List<TSDataType> dataTypes,
+      List<TSEncoding> encodings,
+      List<CompressionType> compressors)
+      throws MetadataException {
+    List<IMeasurementMNode> measurementMNodeList = new ArrayList<>();
+    MetaFormatUtils.checkSchemaMeasurementNames(measurements);
+    Pair<IMNode, Template> pair = checkAndAutoCreateInternalPath(devicePath);
+    IMNode device = pair.left;
+    Template upperTemplate = pair.right;
+
+    try {
+      // synchronize check and add, thus either all or none of the timeseries are created
+      synchronized (this) {
+        for (String measurement : measurements) {
+          if (store.hasChild(device, measurement)) {
+            throw new PathAlreadyExistException(devicePath.getFullPath() + "." + measurement);
+          }
+          if (upperTemplate != null && upperTemplate.getDirectNode(measurement) != null) {
+            throw new TemplateImcompatibeException(
+                devicePath.concatNode(measurement).getFullPath(), upperTemplate.getName());
+          }
+        }
+
+        if (device.isEntity() && device.getAsEntityMNode().isAligned()) {
+          throw new AlignedTimeseriesException(
+              "Timeseries under this entity is aligned, please use createAlignedTimeseries or change entity.",
+              device.getFullPath());
+        }
+
+        IEntityMNode entityMNode;
+        if (device.isEntity()) {
+          entityMNode = device.getAsEntityMNode();
+        } else {
+          entityMNode = store.setToEntity(device);
+          if (entityMNode.isStorageGroup()) {
+            this.storageGroupMNode = entityMNode.getAsStorageGroupMNode();
+          }
+          device = entityMNode;
+        }
+
+        for (int i = 0; i < measurements.size(); i++) {
+          IMeasurementMNode measurementMNode =
+              MeasurementMNode.getMeasurementMNode(
+                  entityMNode,
+                  measurements.get(i),
+                  new MeasurementSchema(
+                      measurements.get(i), dataTypes.get(i), encodings.get(i), compressors.get(i)),
+                  null);
+          store.addChild(entityMNode, measurements.get(i), measurementMNode);
+          measurementMNodeList.add(measurementMNode);
+        }
+      }
+      return measurementMNodeList;
+    } finally {
+      unPinMNode(device);
+    }
+  }
+
   private Pair<IMNode, Template> checkAndAutoCreateInternalPath(PartialPath devicePath)
       throws MetadataException {
     String[] nodeNames = devicePath.getNodes();
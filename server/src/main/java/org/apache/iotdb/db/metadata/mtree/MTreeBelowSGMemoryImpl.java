@@ -37,6 +37,7 @@ import org.apache.iotdb.db.metadata.mnode.IStorageGroupMNode;
 import org.apache.iotdb.db.metadata.mnode.InternalMNode;
 import org.apache.iotdb.db.metadata.mnode.MeasurementMNode;
 import org.apache.iotdb.db.metadata.mnode.iterator.IMNodeIterator;
+import org.apache.iotdb.db.metadata.mtree.snapshot.MemMTreeSnapshotUtil;
 import org.apache.iotdb.db.metadata.mtree.store.MemMTreeStore;
 import org.apache.iotdb.db.metadata.mtree.traverser.collector.CollectorTraverser;
 import org.apache.iotdb.db.metadata.mtree.traverser.collector.EntityCollector;
@@ -63,6 +64,9 @@ import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -75,6 +79,7 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
@@ -129,6 +134,26 @@ public class MTreeBelowSGMemoryImpl implements IMTreeBelowSG {
     store.clear();
     storageGroupMNode = null;
   }
+
+  /**
+   * Serialize the MTree into snapshot. Modifications on the MTree are not blocked and may be partly
+   * included in the snapshot.
+   */
+  public void serializeTo(DataOutputStream outputStream) throws IOException {
+    MemMTreeSnapshotUtil.serializeTo(storageGroupMNode, outputStream);
+  }
+
+  /**
+   * Load the MTree from snapshot. This should be invoked on a newly constructed MTree.
+   *
+   * @param nodeProcessor invoked on every loaded MNode
+   */
+  public void loadSnapshot(DataInputStream inputStream, Consumer<IMNode> nodeProcessor)
+      throws IOException, MetadataException {
+    storageGroupMNode =
+        MemMTreeSnapshotUtil.deserializeFrom(inputStream, store, nodeProcessor)
+            .getAsStorageGroupMNode();
+  }
   // endregion
 
   // region Timeseries operation, including create and delete
@@ -296,6 +321,73 @@ public class MTreeBelowSGMemoryImpl implements IMTreeBelowSG {
     return measurementMNodeList;
   }
 
+  /**
+   * Create non-aligned timeseries under one device with only one traversal from storage group to
+   * the device. None of the timeseries will be created if any of them already exists.
+   *
+   * @param devicePath device path
+   * @param measurements measurements list
+   * @param dataTypes data types list
+   * @param encodings encodings list
+   * @param compressors compressor
+   */
+  @Override
+  public List<IMeasurementMNode> createNonAlignedTimeseries(
+      PartialPath devicePath,
+      List<String> measurements,
+      List<TSDataType> dataTypes,
+      List<TSEncoding> encodings,
+      List<CompressionType> compressors)
+      throws MetadataException {
+    List<IMeasurementMNode> measurementMNodeList = new ArrayList<>();
+    MetaFormatUtils.checkSchemaMeasurementNames(measurements);
+    Pair<IMNode, Template> pair = checkAndAutoCreateInternalPath(devicePath);
+    IMNode device = pair.left;
+    Template upperTemplate = pair.right;
+
+    // synchronize check and add, thus either all or none of the timeseries are created
+    synchronized (this) {
+      for (String measurement : measurements) {
+        if (device.hasChild(measurement)) {
+          throw new PathAlreadyExistException(devicePath.getFullPath() + "." + measurement);
+        }
+        if (upperTemplate != null && upperTemplate.getDirectNode(measurement) != null) {
+          throw new TemplateImcompatibeException(
+              devicePath.concatNode(measurement).getFullPath(), upperTemplate.getName());
+        }
+      }
+
+      if (device.isEntity() && device.getAsEntityMNode().isAligned()) {
+        throw new AlignedTimeseriesException(
+            "Timeseries under this entity is aligned, please use createAlignedTimeseries or change entity.",
+            device.getFullPath());
+      }
+
+      IEntityMNode entityMNode;
+      if (device.isEntity()) {
+        entityMNode = device.getAsEntityMNode();
+      } else {
+        entityMNode = store.setToEntity(device);
+        if (entityMNode.isStorageGroup()) {
+          this.storageGroupMNode = entityMNode.getAsStorageGroupMNode();
+        }
+      }
+
+      for (int i = 0; i < measurements.size(); i++) {
+        IMeasurementMNode measurementMNode =
+            MeasurementMNode.getMeasurementMNode(
+                entityMNode,
+                measurements.get(i),
+                new MeasurementSchema(
+                    measurements.get(i), dataTypes.get(i), encodings.get(i), compressors.get(i)),
+                null);
+        store.addChild(entityMNode, measurements.get(i), measurementMNode);
+        measurementMNodeList.add(measurementMNode);
+      }
+    }
+    return measurementMNodeList;
+  }
+
   private Pair<IMNode, Template> checkAndAutoCreateInternalPath(PartialPath devicePath)
       throws MetadataException {
     String[] nodeNames = devicePath.getNodes();
@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.mtree.snapshot;
+
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.metadata.mnode.EntityMNode;
+import org.apache.iotdb.db.metadata.mnode.IEntityMNode;
+import org.apache.iotdb.db.metadata.mnode.IMNode;
+import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
+import org.apache.iotdb.db.metadata.mnode.InternalMNode;
+import org.apache.iotdb.db.metadata.mnode.MeasurementMNode;
+import org.apache.iotdb.db.metadata.mtree.store.IMTreeStore;
+import org.apache.iotdb.db.metadata.template.Template;
+import org.apache.iotdb.db.metadata.template.TemplateManager;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * This class serializes the MTree of a schema region into a compact snapshot and deserializes it.
+ *
+ * <p>The MNodes are written in preorder. An internal node or entity node is written as its type,
+ * name, flags, name of the template set on it if any, number of its children and then its children.
+ * A measurement node is written as its type, name, schema, alias and tag offset. Every string is
+ * interned: it's written with a new id followed by its content at its first occurrence and only the
+ * id afterwards.
+ *
+ * <p>Serialization reads the MTree without any lock, thus the snapshot may contain part of the
+ * modifications happening meanwhile. The caller should replay the metadata log written since the
+ * serialization starts upon the deserialized MTree.
+ */
+public class MemMTreeSnapshotUtil {
+
+  private static final byte INTERNAL_MNODE_TYPE = 0;
+  private static final byte ENTITY_MNODE_TYPE = 1;
+  private static final byte MEASUREMENT_MNODE_TYPE = 2;
+
+  private static final byte ALIGNED_FLAG = 1;
+  private static final byte USE_TEMPLATE_FLAG = 1 << 1;
+  private static final byte HAS_TEMPLATE_FLAG = 1 << 2;
+
+  private MemMTreeSnapshotUtil() {}
+
+  /** Serialize the subtree of the given storage group node. */
+  public static void serializeTo(IMNode storageGroupMNode, DataOutputStream outputStream)
+      throws IOException {
+    new Serializer(outputStream).serialize(storageGroupMNode);
+  }
+
+  /**
+   * Deserialize the subtree of the storage group node into the store, whose root should be an empty
+   * storage group node.
+   *
+   * @param nodeProcessor invoked on every deserialized node after its subtree is deserialized
+   * @return the root of the store, which may be replaced by a new entityMNode
+   */
+  public static IMNode deserializeFrom(
+      DataInputStream inputStream, IMTreeStore store, Consumer<IMNode> nodeProcessor)
+      throws IOException, MetadataException {
+    return new Deserializer(inputStream, store, nodeProcessor).deserialize();
+  }
+
+  private static class Serializer {
+
+    private final DataOutputStream outputStream;
+    private final Map<String, Integer> stringIds = new HashMap<>();
+
+    private Serializer(DataOutputStream outputStream) {
+      this.outputStream = outputStream;
+    }
+
+    private void serialize(IMNode node) throws IOException {
+      if (node.isMeasurement()) {
+        serializeMeasurementMNode(node.getAsMeasurementMNode());
+        return;
+      }
+
+      outputStream.writeByte(node.isEntity() ? ENTITY_MNODE_TYPE : INTERNAL_MNODE_TYPE);
+      writeString(node.getName());
+      Template template = node.getSchemaTemplate();
+      byte flags = 0;
+      if (node.isEntity() && node.getAsEntityMNode().isAligned()) {
+        flags |= ALIGNED_FLAG;
+      }
+      if (node.isUseTemplate()) {
+        flags |= USE_TEMPLATE_FLAG;
+      }
+      if (template != null) {
+        flags |= HAS_TEMPLATE_FLAG;
+      }
+      outputStream.writeByte(flags);
+      if (template != null) {
+        writeString(template.getName());
+      }
+
+      // children may be modified concurrently, take a copy so that the count matches
+      List<IMNode> children = new ArrayList<>(node.getChildren().values());
+      ReadWriteForEncodingUtils.writeUnsignedVarInt(children.size(), outputStream);
+      for (IMNode child : children) {
+        serialize(child);
+      }
+    }
+
+    private void serializeMeasurementMNode(IMeasurementMNode node) throws IOException {
+      outputStream.writeByte(MEASUREMENT_MNODE_TYPE);
+      writeString(node.getName());
+      IMeasurementSchema schema = node.getSchema();
+      outputStream.writeByte(schema.getType().serialize());
+      outputStream.writeByte(schema.getEncodingType().serialize());
+      outputStream.writeByte(schema.getCompressor().serialize());
+      Map<String, String> props = schema.getProps();
+      if (props == null) {
+        ReadWriteForEncodingUtils.writeUnsignedVarInt(0, outputStream);
+      } else {
+        ReadWriteForEncodingUtils.writeUnsignedVarInt(props.size(), outputStream);
+        for (Map.Entry<String, String> entry : props.entrySet()) {
+          writeString(entry.getKey());
+          writeString(entry.getValue());
+        }
+      }
+      writeString(node.getAlias());
+      // offset is -1 if there is no tag or attribute
+      writeUnsignedVarLong(node.getOffset() + 1);
+    }
+
+    /** id 0 stands for null, a new id is followed by the content of the string */
+    private void writeString(String s) throws IOException {
+      if (s == null) {
+        ReadWriteForEncodingUtils.writeUnsignedVarInt(0, outputStream);
+        return;
+      }
+      Integer id = stringIds.get(s);
+      if (id != null) {
+        ReadWriteForEncodingUtils.writeUnsignedVarInt(id, outputStream);
+        return;
+      }
+      id = stringIds.size() + 1;
+      stringIds.put(s, id);
+      ReadWriteForEncodingUtils.writeUnsignedVarInt(id, outputStream);
+      ReadWriteIOUtils.writeVar(s, outputStream);
+    }
+
+    private void writeUnsignedVarLong(long value) throws IOException {
+      while ((value & ~0x7FL) != 0) {
+        outputStream.write((int) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      outputStream.write((int) value);
+    }
+  }
+
+  private static class Deserializer {
+
+    private final DataInputStream inputStream;
+    private final IMTreeStore store;
+    private final Consumer<IMNode> nodeProcessor;
+    private final List<String> strings = new ArrayList<>();
+
+    private Deserializer(
+        DataInputStream inputStream, IMTreeStore store, Consumer<IMNode> nodeProcessor) {
+      this.inputStream = inputStream;
+      this.store = store;
+      this.nodeProcessor = nodeProcessor;
+    }
+
+    private IMNode deserialize() throws IOException, MetadataException {
+      byte type = inputStream.readByte();
+      if (type == MEASUREMENT_MNODE_TYPE) {
+        throw new IOException("The root of MTree snapshot should not be a measurement node");
+      }
+      // the name of the storage group node
+      readString();
+      byte flags = inputStream.readByte();
+
+      IMNode root = store.getRoot();
+      if (type == ENTITY_MNODE_TYPE) {
+        root = store.setToEntity(root);
+        root.getAsEntityMNode().setAligned((flags & ALIGNED_FLAG) != 0);
+      }
+      deserializeTemplate(root, flags);
+      root = deserializeChildren(root);
+      nodeProcessor.accept(root);
+      return root;
+    }
+
+    /** @return the node, which may be replaced by a new entityMNode */
+    private IMNode deserializeChildren(IMNode node) throws IOException, MetadataException {
+      int childrenNum = ReadWriteForEncodingUtils.readUnsignedVarInt(inputStream);
+      for (int i = 0; i < childrenNum; i++) {
+        byte type = inputStream.readByte();
+        String name = readString();
+        if (type == MEASUREMENT_MNODE_TYPE) {
+          // the node may be captured before it's set to entity when serializing
+          if (!node.isEntity()) {
+            node = store.setToEntity(node);
+          }
+          IMeasurementMNode child = deserializeMeasurementMNode(node.getAsEntityMNode(), name);
+          store.addChild(node, name, child);
+          if (child.getAlias() != null) {
+            node.getAsEntityMNode().addAlias(child.getAlias(), child);
+          }
+          nodeProcessor.accept(child);
+        } else {
+          byte flags = inputStream.readByte();
+          IMNode child;
+          if (type == ENTITY_MNODE_TYPE) {
+            child = new EntityMNode(node, name);
+            child.getAsEntityMNode().setAligned((flags & ALIGNED_FLAG) != 0);
+          } else {
+            child = new InternalMNode(node, name);
+          }
+          deserializeTemplate(child, flags);
+          store.addChild(node, name, child);
+          child = deserializeChildren(child);
+          nodeProcessor.accept(child);
+        }
+      }
+      return node;
+    }
+
+    private IMeasurementMNode deserializeMeasurementMNode(IEntityMNode parent, String name)
+        throws IOException {
+      TSDataType dataType = TSDataType.deserialize(inputStream.readByte());
+      TSEncoding encoding = TSEncoding.deserialize(inputStream.readByte());
+      CompressionType compressor = CompressionType.deserialize(inputStream.readByte());
+      int propsSize = ReadWriteForEncodingUtils.readUnsignedVarInt(inputStream);
+      Map<String, String> props = null;
+      if (propsSize > 0) {
+        props = new HashMap<>();
+        for (int i = 0; i < propsSize; i++) {
+          props.put(readString(), readString());
+        }
+      }
+      String alias = readString();
+      long offset = readUnsignedVarLong() - 1;
+
+      IMeasurementMNode measurementMNode =
+          MeasurementMNode.getMeasurementMNode(
+              parent,
+              name,
+              new MeasurementSchema(name, dataType, encoding, compressor, props),
+              alias);
+      measurementMNode.setOffset(offset);
+      return measurementMNode;
+    }
+
+    private void deserializeTemplate(IMNode node, byte flags)
+        throws IOException, MetadataException {
+      if ((flags & HAS_TEMPLATE_FLAG) != 0) {
+        node.setSchemaTemplate(TemplateManager.getInstance().getTemplate(readString()));
+      }
+      node.setUseTemplate((flags & USE_TEMPLATE_FLAG) != 0);
+    }
+
+    private String readString() throws IOException {
+      int id = ReadWriteForEncodingUtils.readUnsignedVarInt(inputStream);
+      if (id == 0) {
+        return null;
+      }
+      if (id == strings.size() + 1) {
+        strings.add(ReadWriteIOUtils.readVarIntString(inputStream));
+      } else if (id > strings.size()) {
+        throw new IOException("Invalid string id " + id + " in MTree snapshot");
+      }
+      return strings.get(id - 1);
+    }
+
+    private long readUnsignedVarLong() throws IOException {
+      long value = 0;
+      int shift = 0;
+      int b;
+      while (((b = inputStream.readUnsignedByte()) & 0x80) != 0) {
+        value |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      }
+      return value | ((long) b << shift);
+    }
+  }
+}
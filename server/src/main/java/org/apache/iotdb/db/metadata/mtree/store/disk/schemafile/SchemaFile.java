@@ -46,16 +46,9 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This class is mainly aimed to manage space all over the file.
@@ -105,14 +98,10 @@ public class SchemaFile implements ISchemaFile {
   private ByteBuffer headerContent;
   private int lastPageIndex; // last page index of the file, boundary to grow
 
-  // work as a naive (read-only) cache for page instance
-  private final Map<Integer, ISchemaPage> pageInstCache;
-  private final ReentrantLock evictLock;
-  private final PageLocks pageLocks;
+  // buffer pool for pages except the root page, which always stays in memory
+  private final SchemaPagePool pagePool;
   private ISchemaPage rootPage;
 
-  private final Map<Integer, ISchemaPage> dirtyPages;
-
   // attributes for file
   private File pmtFile;
   private FileChannel channel;
@@ -152,10 +141,7 @@ public class SchemaFile implements ISchemaFile {
 
     channel = new RandomAccessFile(pmtFile, "rw").getChannel();
     headerContent = ByteBuffer.allocate(SchemaFile.FILE_HEADER_SIZE);
-    pageInstCache = Collections.synchronizedMap(new LinkedHashMap<>(PAGE_CACHE_SIZE, 1, true));
-    dirtyPages = new ConcurrentHashMap<>();
-    evictLock = new ReentrantLock();
-    pageLocks = new PageLocks();
+    pagePool = new SchemaPagePool(PAGE_CACHE_SIZE, new FilePageIO());
     // will be overwritten if to init
     this.dataTTL = ttl;
     this.isEntity = isEntity;
@@ -167,10 +153,7 @@ public class SchemaFile implements ISchemaFile {
     // only be called to sketch a schema file so an arbitrary file object is necessary
     channel = new RandomAccessFile(file, "rw").getChannel();
     headerContent = ByteBuffer.allocate(SchemaFile.FILE_HEADER_SIZE);
-    pageInstCache = Collections.synchronizedMap(new LinkedHashMap<>(PAGE_CACHE_SIZE, 1, true));
-    dirtyPages = new ConcurrentHashMap<>();
-    evictLock = new ReentrantLock();
-    pageLocks = new PageLocks();
+    pagePool = new SchemaPagePool(PAGE_CACHE_SIZE, new FilePageIO());
 
     if (channel.size() <= 0) {
       channel.close();
@@ -234,6 +217,15 @@ public class SchemaFile implements ISchemaFile {
 
   @Override
   public void writeMNode(IMNode node) throws MetadataException, IOException {
+    pagePool.startAccess();
+    try {
+      writeMNodeToPages(node);
+    } finally {
+      pagePool.finishAccess();
+    }
+  }
+
+  private void writeMNodeToPages(IMNode node) throws MetadataException, IOException {
     int pageIndex;
     short curSegIdx;
     ISchemaPage curPage = null;
@@ -290,7 +282,7 @@ public class SchemaFile implements ISchemaFile {
       try {
         curPage = getPageInstance(pageIndex);
 
-        dirtyPages.putIfAbsent(curPage.getPageIndex(), curPage);
+        pagePool.markDirty(curPage);
         long npAddress = curPage.write(curSegIdx, entry.getKey(), childBuffer);
 
         while (npAddress > 0) {
@@ -302,7 +294,7 @@ public class SchemaFile implements ISchemaFile {
           npAddress = curPage.write(curSegIdx, entry.getKey(), childBuffer);
         }
 
-        dirtyPages.putIfAbsent(curPage.getPageIndex(), curPage);
+        pagePool.markDirty(curPage);
 
       } catch (SchemaPageOverflowException e) {
         // there is no more next page, need allocate new page
@@ -330,8 +322,8 @@ public class SchemaFile implements ISchemaFile {
           updateParentalRecord(node.getParent(), node.getName(), curSegAddr);
         }
 
-        dirtyPages.putIfAbsent(newPage.getPageIndex(), newPage);
-        dirtyPages.putIfAbsent(curPage.getPageIndex(), curPage);
+        pagePool.markDirty(newPage);
+        pagePool.markDirty(curPage);
 
         curPage = newPage;
         pageIndex = curPage.getPageIndex();
@@ -360,7 +352,7 @@ public class SchemaFile implements ISchemaFile {
         curPage = getPageInstance(getPageIndex(actualSegAddr));
         curSegIdx = getSegIndex(actualSegAddr);
 
-        dirtyPages.putIfAbsent(curPage.getPageIndex(), curPage);
+        pagePool.markDirty(curPage);
         // if current segment has no more space for new record, it will re-allocate segment, if
         // failed, throw exception
         curPage.update(curSegIdx, entry.getKey(), childBuffer);
@@ -378,8 +370,8 @@ public class SchemaFile implements ISchemaFile {
           curPage.deleteSegment(curSegIdx);
           setNodeAddress(node, newSegAddr);
           updateParentalRecord(node.getParent(), node.getName(), newSegAddr);
-          dirtyPages.putIfAbsent(newPage.getPageIndex(), newPage);
-          dirtyPages.putIfAbsent(curPage.getPageIndex(), curPage);
+          pagePool.markDirty(newPage);
+          pagePool.markDirty(curPage);
         } else {
           // already full page segment, write updated record to another applicable segment or a
           // blank new one
@@ -395,37 +387,44 @@ public class SchemaFile implements ISchemaFile {
             if (nextSegAddr != -1) {
               ISchemaPage nextPage = getPageInstance(getPageIndex(nextSegAddr));
               nextPage.setPrevSegAddress(getSegIndex(nextSegAddr), existedSegAddr);
-              dirtyPages.putIfAbsent(nextPage.getPageIndex(), nextPage);
+              pagePool.markDirty(nextPage);
             }
 
             newPage.setNextSegAddress(getSegIndex(existedSegAddr), nextSegAddr);
             newPage.setPrevSegAddress(getSegIndex(existedSegAddr), actualSegAddr);
 
             curPage.setNextSegAddress(getSegIndex(actualSegAddr), existedSegAddr);
-            dirtyPages.putIfAbsent(newPage.getPageIndex(), newPage);
+            pagePool.markDirty(newPage);
           }
 
           ISchemaPage existedPage = getPageInstance(getPageIndex(existedSegAddr));
           existedPage.write(getSegIndex(existedSegAddr), entry.getKey(), childBuffer);
           curPage.removeRecord(getSegIndex(actualSegAddr), entry.getKey());
-          dirtyPages.putIfAbsent(curPage.getPageIndex(), curPage);
-          dirtyPages.putIfAbsent(existedPage.getPageIndex(), existedPage);
+          pagePool.markDirty(curPage);
+          pagePool.markDirty(existedPage);
         }
       }
     }
-
-    flushAllDirtyPages();
   }
 
   @Override
   public void delete(IMNode node) throws IOException, MetadataException {
-    long recSegAddr = node.getParent() == null ? ROOT_INDEX : getNodeAddress(node.getParent());
-    recSegAddr = getTargetSegmentAddress(recSegAddr, node.getName());
-    getPageInstance(getPageIndex(recSegAddr)).removeRecord(getSegIndex(recSegAddr), node.getName());
-
-    if (!node.isMeasurement()) {
-      long delSegAddr = getNodeAddress(node);
-      getPageInstance(getPageIndex(delSegAddr)).deleteSegment(getSegIndex(delSegAddr));
+    pagePool.startAccess();
+    try {
+      long recSegAddr = node.getParent() == null ? ROOT_INDEX : getNodeAddress(node.getParent());
+      recSegAddr = getTargetSegmentAddress(recSegAddr, node.getName());
+      ISchemaPage recPage = getPageInstance(getPageIndex(recSegAddr));
+      recPage.removeRecord(getSegIndex(recSegAddr), node.getName());
+      pagePool.markDirty(recPage);
+
+      if (!node.isMeasurement()) {
+        long delSegAddr = getNodeAddress(node);
+        ISchemaPage delPage = getPageInstance(getPageIndex(delSegAddr));
+        delPage.deleteSegment(getSegIndex(delSegAddr));
+        pagePool.markDirty(delPage);
+      }
+    } finally {
+      pagePool.finishAccess();
     }
   }
 
@@ -438,23 +437,28 @@ public class SchemaFile implements ISchemaFile {
               "Node [%s] has no valid segment address in schema file.", parent.getFullPath()));
     }
 
-    long actualSegAddr = getTargetSegmentAddress(getNodeAddress(parent), childName);
-    if (actualSegAddr < 0) {
-      // no target child
-      return null;
-    }
+    pagePool.startAccess();
     try {
-      return getPageInstance(getPageIndex(actualSegAddr))
-          .read(getSegIndex(actualSegAddr), childName);
-    } catch (BufferUnderflowException | BufferOverflowException e) {
-      int pIdx = getPageIndex(actualSegAddr);
-      short sIdx = getSegIndex(actualSegAddr);
-      logger.error(
-          String.format(
-              "Get child[%s] from parent[%s] failed, actualAddress:%s(%d, %d)",
-              childName, parent.getName(), actualSegAddr, pIdx, sIdx));
-      e.printStackTrace();
-      throw e;
+      long actualSegAddr = getTargetSegmentAddress(getNodeAddress(parent), childName);
+      if (actualSegAddr < 0) {
+        // no target child
+        return null;
+      }
+      try {
+        return getPageInstance(getPageIndex(actualSegAddr))
+            .read(getSegIndex(actualSegAddr), childName);
+      } catch (BufferUnderflowException | BufferOverflowException e) {
+        int pIdx = getPageIndex(actualSegAddr);
+        short sIdx = getSegIndex(actualSegAddr);
+        logger.error(
+            String.format(
+                "Get child[%s] from parent[%s] failed, actualAddress:%s(%d, %d)",
+                childName, parent.getName(), actualSegAddr, pIdx, sIdx));
+        e.printStackTrace();
+        throw e;
+      }
+    } finally {
+      pagePool.finishAccess();
     }
   }
 
@@ -467,12 +471,23 @@ public class SchemaFile implements ISchemaFile {
 
     int pageIdx = getPageIndex(getNodeAddress(parent));
     short segId = getSegIndex(getNodeAddress(parent));
-    ISchemaPage page = getPageInstance(pageIdx);
+    long firstNextSeg;
+    long firstPrevSeg;
+    Queue<IMNode> firstChildren;
+    pagePool.startAccess();
+    try {
+      ISchemaPage page = getPageInstance(pageIdx);
+      firstNextSeg = page.getNextSegAddress(segId);
+      firstPrevSeg = page.getPrevSegAddress(segId);
+      firstChildren = page.getChildren(segId);
+    } finally {
+      pagePool.finishAccess();
+    }
 
     return new Iterator<IMNode>() {
-      long nextSeg = page.getNextSegAddress(segId);
-      long prevSeg = page.getPrevSegAddress(segId);
-      final Queue<IMNode> children = page.getChildren(segId);
+      long nextSeg = firstNextSeg;
+      long prevSeg = firstPrevSeg;
+      final Queue<IMNode> children = firstChildren;
 
       @Override
       public boolean hasNext() {
@@ -482,17 +497,22 @@ public class SchemaFile implements ISchemaFile {
             return false;
           }
           try {
-            if (nextSeg >= 0) {
-              ISchemaPage newPage = getPageInstance(getPageIndex(nextSeg));
-              children.addAll(newPage.getChildren(getSegIndex(nextSeg)));
-              nextSeg = newPage.getNextSegAddress(getSegIndex(nextSeg));
-              return true;
-            }
-            if (prevSeg >= 0) {
-              ISchemaPage newPage = getPageInstance(getPageIndex(prevSeg));
-              children.addAll(newPage.getChildren(getSegIndex(prevSeg)));
-              prevSeg = newPage.getPrevSegAddress(getSegIndex(prevSeg));
-              return true;
+            pagePool.startAccess();
+            try {
+              if (nextSeg >= 0) {
+                ISchemaPage newPage = getPageInstance(getPageIndex(nextSeg));
+                children.addAll(newPage.getChildren(getSegIndex(nextSeg)));
+                nextSeg = newPage.getNextSegAddress(getSegIndex(nextSeg));
+                return true;
+              }
+              if (prevSeg >= 0) {
+                ISchemaPage newPage = getPageInstance(getPageIndex(prevSeg));
+                children.addAll(newPage.getChildren(getSegIndex(prevSeg)));
+                prevSeg = newPage.getPrevSegAddress(getSegIndex(prevSeg));
+                return true;
+              }
+            } finally {
+              pagePool.finishAccess();
             }
           } catch (IOException | MetadataException e) {
             return false;
@@ -512,9 +532,7 @@ public class SchemaFile implements ISchemaFile {
   public void close() throws IOException {
     updateHeader();
     flushPageToFile(rootPage);
-    for (Map.Entry<Integer, ISchemaPage> entry : dirtyPages.entrySet()) {
-      flushPageToFile(entry.getValue());
-    }
+    pagePool.close();
     channel.close();
   }
 
@@ -522,15 +540,12 @@ public class SchemaFile implements ISchemaFile {
   public void sync() throws IOException {
     updateHeader();
     flushPageToFile(rootPage);
-    for (Map.Entry<Integer, ISchemaPage> entry : dirtyPages.entrySet()) {
-      flushPageToFile(entry.getValue());
-    }
+    pagePool.flushDirtyPages();
   }
 
   @Override
   public void clear() throws IOException, MetadataException {
-    pageInstCache.clear();
-    dirtyPages.clear();
+    pagePool.clear();
     channel.close();
     rootPage = null;
     if (pmtFile.exists()) {
@@ -558,8 +573,13 @@ public class SchemaFile implements ISchemaFile {
                 storageGroupName == null ? "NOT SPECIFIED" : storageGroupName, lastPageIndex + 1));
     int cnt = 0;
     while (cnt <= lastPageIndex) {
-      ISchemaPage page = getPageInstance(cnt);
-      builder.append(String.format("---------------------\n%s\n", page.inspect()));
+      pagePool.startAccess();
+      try {
+        ISchemaPage page = getPageInstance(cnt);
+        builder.append(String.format("---------------------\n%s\n", page.inspect()));
+      } finally {
+        pagePool.finishAccess();
+      }
       cnt++;
     }
     return builder.toString();
@@ -604,7 +624,9 @@ public class SchemaFile implements ISchemaFile {
       dataTTL = ReadWriteIOUtils.readLong(headerContent);
       isEntity = ReadWriteIOUtils.readBool(headerContent);
       templateHash = ReadWriteIOUtils.readInt(headerContent);
-      rootPage = getPageInstance(0);
+      ByteBuffer rootBuffer = ByteBuffer.allocate(PAGE_LENGTH);
+      loadFromFile(rootBuffer, ROOT_INDEX);
+      rootPage = SchemaPage.loadPage(rootBuffer, ROOT_INDEX);
     }
   }
 
@@ -627,9 +649,6 @@ public class SchemaFile implements ISchemaFile {
       rootPage.allocNewSegment(SEG_MAX_SIZ);
 
       lastPageIndex = 0;
-
-      pageInstCache.put(rootPage.getPageIndex(), rootPage);
-      dirtyPages.putIfAbsent(rootPage.getPageIndex(), rootPage);
     }
   }
 
@@ -723,7 +742,9 @@ public class SchemaFile implements ISchemaFile {
 
   private long preAllocateSegment(short size) throws IOException, MetadataException {
     ISchemaPage page = getMinApplicablePageInMem(size);
-    return SchemaFile.getGlobalIndex(page.getPageIndex(), page.allocNewSegment(size));
+    long segAddr = SchemaFile.getGlobalIndex(page.getPageIndex(), page.allocNewSegment(size));
+    pagePool.markDirty(page);
+    return segAddr;
   }
 
   // endregion
@@ -731,32 +752,30 @@ public class SchemaFile implements ISchemaFile {
   // region Schema Page Operations
 
   /**
-   * This method checks with cached page container, LOCK and return a minimum applicable page for
-   * allocation.
+   * This method checks with root page and pages in pool, and returns a minimum applicable page for
+   * allocation, which is pinned by current thread.
    *
    * @param size size of segment
    * @return
    */
   private ISchemaPage getMinApplicablePageInMem(short size) throws IOException {
-    for (Map.Entry<Integer, ISchemaPage> entry : pageInstCache.entrySet()) {
-      if (entry.getValue().isCapableForSize(size)) {
-        return pageInstCache.get(entry.getKey());
-      }
+    if (rootPage.isCapableForSize(size)) {
+      return rootPage;
     }
-    return allocateNewPage();
+    ISchemaPage page = pagePool.getCapablePage(size);
+    return page != null ? page : allocateNewPage();
   }
 
   /**
-   * Get from cache, or load from file.<br>
-   * When to operate on page cache, need to handle concurrency control with {@link
-   * SchemaFile#addPageToCache}
+   * Get root page, or get from {@link SchemaPagePool}, which will load it from file if not
+   * resident.<br>
+   * It shall be called within an access of the pool, since the returned page is pinned until the
+   * access finishes.
    *
    * @param pageIdx target page index
    * @return an existed page
    */
   private ISchemaPage getPageInstance(int pageIdx) throws IOException, MetadataException {
-    // TODO: improve concurrent control
-    //  since now one page may be evicted after returned but before updated
     if (pageIdx > lastPageIndex) {
       throw new MetadataException(String.format("Page index %d out of range.", pageIdx));
     }
@@ -765,31 +784,7 @@ public class SchemaFile implements ISchemaFile {
       return rootPage;
     }
 
-    // TODO: improve concurrent control
-    try {
-      pageLocks.readLock(pageIdx);
-
-      if (dirtyPages.containsKey(pageIdx)) {
-        return dirtyPages.get(pageIdx);
-      }
-
-      if (pageInstCache.containsKey(pageIdx)) {
-        return pageInstCache.get(pageIdx);
-      }
-    } finally {
-      pageLocks.readUnlock(pageIdx);
-    }
-
-    try {
-      pageLocks.writeLock(pageIdx);
-
-      ByteBuffer newBuf = ByteBuffer.allocate(PAGE_LENGTH);
-
-      loadFromFile(newBuf, pageIdx);
-      return addPageToCache(pageIdx, SchemaPage.loadPage(newBuf, pageIdx));
-    } finally {
-      pageLocks.writeUnlock(pageIdx);
-    }
+    return pagePool.getPage(pageIdx);
   }
 
   private int loadFromFile(ByteBuffer dst, int pageIndex) throws IOException {
@@ -799,37 +794,7 @@ public class SchemaFile implements ISchemaFile {
 
   private synchronized ISchemaPage allocateNewPage() throws IOException {
     lastPageIndex += 1;
-    ISchemaPage newPage = SchemaPage.initPage(ByteBuffer.allocate(PAGE_LENGTH), lastPageIndex);
-    dirtyPages.putIfAbsent(newPage.getPageIndex(), newPage);
-    return addPageToCache(newPage.getPageIndex(), newPage);
-  }
-
-  private ISchemaPage addPageToCache(int pageIndex, ISchemaPage page) throws IOException {
-    pageInstCache.put(pageIndex, page);
-    // only one thread evicts and flushes pages
-    if (evictLock.tryLock()) {
-      try {
-        if (pageInstCache.size() >= PAGE_CACHE_SIZE) {
-          int removeCnt =
-              (int) (0.2 * pageInstCache.size()) > 0 ? (int) (0.2 * pageInstCache.size()) : 1;
-          List<Integer> rmvIds = new ArrayList<>(pageInstCache.keySet()).subList(0, removeCnt);
-
-          for (Integer id : rmvIds) {
-            // dirty pages only flushed from dirtyPages
-            if (pageLocks.findLock(id).writeLock().tryLock()) {
-              try {
-                pageInstCache.remove(id);
-              } finally {
-                pageLocks.findLock(id).writeLock().unlock();
-              }
-            }
-          }
-        }
-      } finally {
-        evictLock.unlock();
-      }
-    }
-    return page;
+    return pagePool.newPage(lastPageIndex);
   }
 
   // endregion
@@ -856,7 +821,7 @@ public class SchemaFile implements ISchemaFile {
     parSegAddr = getTargetSegmentAddress(parSegAddr, key);
     ISchemaPage page = getPageInstance(getPageIndex(parSegAddr));
     ((SchemaPage) page).updateRecordSegAddr(getSegIndex(parSegAddr), key, newSegAddr);
-    dirtyPages.putIfAbsent(page.getPageIndex(), page);
+    pagePool.markDirty(page);
   }
 
   static short reEstimateSegSize(int oldSize) {
@@ -940,63 +905,44 @@ public class SchemaFile implements ISchemaFile {
     channel.write(srcBuf, getPageAddress(src.getPageIndex()));
   }
 
-  private synchronized void flushAllDirtyPages() throws IOException {
-    for (ISchemaPage page : dirtyPages.values()) {
-      flushPageToFile(page);
+  @TestOnly
+  public SchemaPage getPageOnTest(int index) throws IOException, MetadataException {
+    pagePool.startAccess();
+    try {
+      return (SchemaPage) getPageInstance(index);
+    } finally {
+      pagePool.finishAccess();
     }
-    updateHeader();
-    dirtyPages.clear();
   }
 
   @TestOnly
-  public SchemaPage getPageOnTest(int index) throws IOException, MetadataException {
-    return (SchemaPage) getPageInstance(index);
+  public SchemaPagePool getPagePoolOnTest() {
+    return pagePool;
   }
 
   @TestOnly
   public long getTargetSegmentOnTest(long srcSegAddr, String key)
       throws IOException, MetadataException {
-    return getTargetSegmentAddress(srcSegAddr, key);
+    pagePool.startAccess();
+    try {
+      return getTargetSegmentAddress(srcSegAddr, key);
+    } finally {
+      pagePool.finishAccess();
+    }
   }
 
   // endregion
 
-  private class PageLocks {
-
-    /**
-     * number of reentrant read write lock. Notice that this number should be a prime number for
-     * uniform hash
-     */
-    private static final int NUM_OF_LOCKS = 1039;
-
-    /** locks array */
-    private ReentrantReadWriteLock[] locks;
-
-    protected PageLocks() {
-      locks = new ReentrantReadWriteLock[NUM_OF_LOCKS];
-      for (int i = 0; i < NUM_OF_LOCKS; i++) {
-        locks[i] = new ReentrantReadWriteLock();
-      }
-    }
-
-    public void readLock(int hash) {
-      findLock(hash).readLock().lock();
-    }
-
-    public void readUnlock(int hash) {
-      findLock(hash).readLock().unlock();
-    }
-
-    public void writeLock(int hash) {
-      findLock(hash).writeLock().lock();
-    }
+  private class FilePageIO implements SchemaPagePool.PageIO {
 
-    public void writeUnlock(int hash) {
-      findLock(hash).writeLock().unlock();
+    @Override
+    public void read(ByteBuffer dst, int pageIndex) throws IOException {
+      loadFromFile(dst, pageIndex);
     }
 
-    private ReentrantReadWriteLock findLock(int hash) {
-      return locks[hash % NUM_OF_LOCKS];
+    @Override
+    public void write(ByteBuffer src, int startIndex) throws IOException {
+      channel.write(src, getPageAddress(startIndex));
     }
   }
 }
@@ -0,0 +1,522 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.mtree.store.disk.schemafile;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.metadata.rescon.MemoryStatistics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class is the buffer pool of pages from one {@link SchemaFile}.
+ *
+ * <p>Each frame owns a direct buffer of {@link SchemaFile#PAGE_LENGTH} bytes, which is reused by
+ * the pages loaded into it and charged to {@link MemoryStatistics} once allocated. A page fetched
+ * by a thread stays pinned until the thread calls {@link #finishAccess()}, thus it will never be
+ * replaced in the middle of a schema file operation.
+ *
+ * <p>Victims are chosen by CLOCK among frames neither pinned nor dirty. Dirty frames are written
+ * back by a background task, which sorts them by page index and merges consecutive pages into one
+ * write. If no frame is available, the page is held by the fetching thread only and written through
+ * when the access finishes.
+ */
+public class SchemaPagePool {
+
+  private static final Logger logger = LoggerFactory.getLogger(SchemaPagePool.class);
+
+  // write back dirty frames in background once they exceed this ratio of the pool
+  private static final double WRITE_BACK_THRESHOLD_RATIO = 0.25;
+  // max number of pages written back within one batch
+  private static final int WRITE_BACK_BATCH_SIZE = 64;
+  // pin count of a frame which is being replaced
+  private static final int REPLACING = -1;
+
+  /** Read and write pages of the schema file, the position is specified by page index. */
+  public interface PageIO {
+
+    void read(ByteBuffer dst, int pageIndex) throws IOException;
+
+    /** Write the content of src, which may contain several consecutive pages, from startIndex. */
+    void write(ByteBuffer src, int startIndex) throws IOException;
+  }
+
+  private final PageIO pageIO;
+  private final int capacity;
+  private final int writeBackThreshold;
+
+  private final ByteBuffer[] frameBuffers;
+  private final AtomicReferenceArray<ISchemaPage> frames;
+  private final AtomicIntegerArray pinCounts;
+  private final AtomicIntegerArray refBits;
+  private final AtomicIntegerArray dirtyFlags;
+  private final AtomicInteger dirtyNum = new AtomicInteger(0);
+  // page index -> frame index
+  private final Map<Integer, Integer> pageTable = new ConcurrentHashMap<>();
+  private int clockHand = 0;
+  private int allocatedFrameNum = 0;
+
+  // frames pinned and pages out of pool held by current thread
+  private final ThreadLocal<List<Integer>> pinnedFrames = ThreadLocal.withInitial(ArrayList::new);
+  private final ThreadLocal<Map<Integer, ISchemaPage>> privatePages =
+      ThreadLocal.withInitial(HashMap::new);
+  private final ThreadLocal<Set<Integer>> dirtyPrivatePages = ThreadLocal.withInitial(HashSet::new);
+
+  // held by schema file operations in shared mode, and by write back in exclusive mode
+  private final ReentrantReadWriteLock accessLock = new ReentrantReadWriteLock();
+  // only one thread replaces frames at the same time
+  private final ReentrantLock replaceLock = new ReentrantLock();
+  private final ReentrantLock ioLock = new ReentrantLock();
+  private final AtomicBoolean writeBackScheduled = new AtomicBoolean(false);
+  // increased once the pool is cleared, to discard write back of the previous file
+  private volatile int epoch = 0;
+  private volatile boolean closed = false;
+
+  public SchemaPagePool(int capacity, PageIO pageIO) {
+    this.capacity = Math.max(capacity, 1);
+    this.writeBackThreshold = Math.max((int) (this.capacity * WRITE_BACK_THRESHOLD_RATIO), 1);
+    this.pageIO = pageIO;
+    this.frameBuffers = new ByteBuffer[this.capacity];
+    this.frames = new AtomicReferenceArray<>(this.capacity);
+    this.pinCounts = new AtomicIntegerArray(this.capacity);
+    this.refBits = new AtomicIntegerArray(this.capacity);
+    this.dirtyFlags = new AtomicIntegerArray(this.capacity);
+  }
+
+  // region Page Access
+
+  /** Must be called before fetching any page, and paired with {@link #finishAccess()}. */
+  public void startAccess() {
+    accessLock.readLock().lock();
+  }
+
+  /** Unpin all pages fetched by current thread, and write through dirty pages out of the pool. */
+  public void finishAccess() throws IOException {
+    try {
+      List<Integer> pinned = pinnedFrames.get();
+      for (int frameIndex : pinned) {
+        pinCounts.decrementAndGet(frameIndex);
+      }
+      pinned.clear();
+
+      Map<Integer, ISchemaPage> pages = privatePages.get();
+      Set<Integer> dirtyPages = dirtyPrivatePages.get();
+      try {
+        if (!dirtyPages.isEmpty()) {
+          writePrivatePages(pages, dirtyPages);
+        }
+      } finally {
+        pages.clear();
+        dirtyPages.clear();
+      }
+    } finally {
+      accessLock.readLock().unlock();
+    }
+  }
+
+  /** Get a page pinned by current thread, load it from file if not resident. */
+  public ISchemaPage getPage(int pageIndex) throws IOException {
+    ISchemaPage page = privatePages.get().get(pageIndex);
+    if (page != null) {
+      return page;
+    }
+
+    while (true) {
+      Integer frameIndex = pageTable.get(pageIndex);
+      if (frameIndex == null) {
+        page = replaceFrame(pageIndex, false);
+        if (page != null) {
+          return page;
+        }
+        // loaded by another thread concurrently
+        continue;
+      }
+
+      int pinCount = pinCounts.get(frameIndex);
+      if (pinCount == REPLACING) {
+        Thread.yield();
+        continue;
+      }
+      if (pinCounts.compareAndSet(frameIndex, pinCount, pinCount + 1)) {
+        page = frames.get(frameIndex);
+        if (page != null && page.getPageIndex() == pageIndex) {
+          refBits.set(frameIndex, 1);
+          pinnedFrames.get().add(frameIndex);
+          return page;
+        }
+        pinCounts.decrementAndGet(frameIndex);
+      }
+    }
+  }
+
+  /** Initiate a page which does not exist in file, pinned by current thread and marked dirty. */
+  public ISchemaPage newPage(int pageIndex) throws IOException {
+    ISchemaPage page = replaceFrame(pageIndex, true);
+    markDirty(page);
+    return page;
+  }
+
+  /** The page must have been fetched by current thread, and be modified within current access. */
+  public void markDirty(ISchemaPage page) {
+    int pageIndex = page.getPageIndex();
+    if (privatePages.get().get(pageIndex) == page) {
+      dirtyPrivatePages.get().add(pageIndex);
+      return;
+    }
+
+    Integer frameIndex = pageTable.get(pageIndex);
+    if (frameIndex == null || frames.get(frameIndex) != page) {
+      // not a page of the pool
+      return;
+    }
+    if (dirtyFlags.getAndSet(frameIndex, 1) == 0
+        && dirtyNum.incrementAndGet() >= writeBackThreshold) {
+      scheduleWriteBack();
+    }
+  }
+
+  /**
+   * Get a resident page with enough spare space, which will be pinned by current thread.
+   *
+   * @return null if no such page
+   */
+  public ISchemaPage getCapablePage(short size) throws IOException {
+    for (ISchemaPage page : privatePages.get().values()) {
+      if (page.isCapableForSize(size)) {
+        return page;
+      }
+    }
+    for (int i = 0; i < capacity; i++) {
+      ISchemaPage page = frames.get(i);
+      if (page != null && page.isCapableForSize(size)) {
+        page = getPage(page.getPageIndex());
+        // check again since it may be replaced before pinned
+        if (page.isCapableForSize(size)) {
+          return page;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Select a frame and put the page into it. The page is held privately by current thread if no
+   * frame is available.
+   *
+   * @return null if the page has been loaded by other thread
+   */
+  private ISchemaPage replaceFrame(int pageIndex, boolean isNew) throws IOException {
+    int frameIndex;
+    replaceLock.lock();
+    try {
+      if (pageTable.containsKey(pageIndex)) {
+        return null;
+      }
+      frameIndex = selectVictim();
+      if (frameIndex >= 0) {
+        ISchemaPage victim = frames.getAndSet(frameIndex, null);
+        if (victim != null) {
+          pageTable.remove(victim.getPageIndex(), frameIndex);
+        }
+        pageTable.put(pageIndex, frameIndex);
+      }
+    } finally {
+      replaceLock.unlock();
+    }
+
+    if (frameIndex < 0) {
+      // all frames are pinned or dirty
+      scheduleWriteBack();
+      ISchemaPage page = initPage(ByteBuffer.allocate(SchemaFile.PAGE_LENGTH), pageIndex, isNew);
+      privatePages.get().put(pageIndex, page);
+      return page;
+    }
+
+    ISchemaPage page;
+    try {
+      page = initPage(getFrameBuffer(frameIndex), pageIndex, isNew);
+    } catch (IOException | RuntimeException e) {
+      pageTable.remove(pageIndex, frameIndex);
+      pinCounts.set(frameIndex, 0);
+      throw e;
+    }
+    frames.set(frameIndex, page);
+    refBits.set(frameIndex, 1);
+    pinnedFrames.get().add(frameIndex);
+    // publish the page at last
+    pinCounts.set(frameIndex, 1);
+    return page;
+  }
+
+  /**
+   * CLOCK among frames neither pinned nor dirty, a frame with reference bit gets a second chance.
+   *
+   * @return index of the frame marked as replacing, negative if no frame is available
+   */
+  private int selectVictim() {
+    for (int i = 0; i < 2 * capacity; i++) {
+      int frameIndex = clockHand;
+      clockHand = (clockHand + 1) % capacity;
+      if (pinCounts.get(frameIndex) != 0 || dirtyFlags.get(frameIndex) != 0) {
+        continue;
+      }
+      if (frames.get(frameIndex) != null && refBits.getAndSet(frameIndex, 0) == 1) {
+        continue;
+      }
+      if (pinCounts.compareAndSet(frameIndex, 0, REPLACING)) {
+        // it may be modified and unpinned before marked as replacing
+        if (dirtyFlags.get(frameIndex) == 0) {
+          return frameIndex;
+        }
+        pinCounts.set(frameIndex, 0);
+      }
+    }
+    return -1;
+  }
+
+  private ISchemaPage initPage(ByteBuffer buffer, int pageIndex, boolean isNew) throws IOException {
+    buffer.clear();
+    if (isNew) {
+      while (buffer.remaining() >= Long.BYTES) {
+        buffer.putLong(0L);
+      }
+      while (buffer.hasRemaining()) {
+        buffer.put((byte) 0);
+      }
+      return SchemaPage.initPage(buffer, pageIndex);
+    }
+    pageIO.read(buffer, pageIndex);
+    return SchemaPage.loadPage(buffer, pageIndex);
+  }
+
+  private ByteBuffer getFrameBuffer(int frameIndex) {
+    if (frameBuffers[frameIndex] == null) {
+      synchronized (frameBuffers) {
+        if (frameBuffers[frameIndex] == null) {
+          frameBuffers[frameIndex] = ByteBuffer.allocateDirect(SchemaFile.PAGE_LENGTH);
+          allocatedFrameNum++;
+          MemoryStatistics.getInstance().requestMemory(SchemaFile.PAGE_LENGTH);
+        }
+      }
+    }
+    return frameBuffers[frameIndex];
+  }
+
+  // endregion
+
+  // region Write Back
+
+  private void scheduleWriteBack() {
+    if (closed || !writeBackScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    WriteBackExecutorHolder.EXECUTOR.submit(
+        () -> {
+          try {
+            writeBack();
+          } catch (IOException e) {
+            logger.error("Failed to write back dirty pages of schema file.", e);
+          } finally {
+            writeBackScheduled.set(false);
+          }
+        });
+  }
+
+  /** Write back all dirty frames. It shall not be called within an access. */
+  public void flushDirtyPages() throws IOException {
+    writeBack();
+  }
+
+  private void writeBack() throws IOException {
+    while (true) {
+      List<Integer> batch = new ArrayList<>();
+      ByteBuffer batchBuffer;
+      int batchEpoch;
+
+      // snapshot dirty frames exclusively, thus no page is modified halfway
+      accessLock.writeLock().lock();
+      try {
+        if (closed) {
+          return;
+        }
+        batchEpoch = epoch;
+        for (int i = 0; i < capacity; i++) {
+          if (dirtyFlags.get(i) != 0 && frames.get(i) != null) {
+            batch.add(i);
+          }
+        }
+        if (batch.isEmpty()) {
+          return;
+        }
+        batch.sort(Comparator.comparingInt(i -> frames.get(i).getPageIndex()));
+        if (batch.size() > WRITE_BACK_BATCH_SIZE) {
+          batch = new ArrayList<>(batch.subList(0, WRITE_BACK_BATCH_SIZE));
+        }
+
+        batchBuffer = ByteBuffer.allocate(batch.size() * SchemaFile.PAGE_LENGTH);
+        for (int frameIndex : batch) {
+          ISchemaPage page = frames.get(frameIndex);
+          // keep pinned until written, otherwise a stale page might be loaded after replaced
+          pinCounts.incrementAndGet(frameIndex);
+          dirtyFlags.set(frameIndex, 0);
+          dirtyNum.decrementAndGet();
+          page.syncPageBuffer();
+          page.getPageBuffer(batchBuffer);
+        }
+      } finally {
+        accessLock.writeLock().unlock();
+      }
+
+      ioLock.lock();
+      try {
+        if (batchEpoch == epoch) {
+          writeConsecutivePages(batch, batchBuffer);
+        }
+      } finally {
+        ioLock.unlock();
+        for (int frameIndex : batch) {
+          pinCounts.decrementAndGet(frameIndex);
+        }
+      }
+
+      if (batch.size() < WRITE_BACK_BATCH_SIZE) {
+        return;
+      }
+    }
+  }
+
+  /** Pages in batch are sorted by index, consecutive ones are written at once. */
+  private void writeConsecutivePages(List<Integer> batch, ByteBuffer batchBuffer)
+      throws IOException {
+    int start = 0;
+    while (start < batch.size()) {
+      int end = start + 1;
+      int startIndex = frames.get(batch.get(start)).getPageIndex();
+      while (end < batch.size()
+          && frames.get(batch.get(end)).getPageIndex() == startIndex + end - start) {
+        end++;
+      }
+      batchBuffer.limit(end * SchemaFile.PAGE_LENGTH);
+      batchBuffer.position(start * SchemaFile.PAGE_LENGTH);
+      pageIO.write(batchBuffer.slice(), startIndex);
+      start = end;
+    }
+  }
+
+  private void writePrivatePages(Map<Integer, ISchemaPage> pages, Set<Integer> dirtyPages)
+      throws IOException {
+    List<Integer> indexes = new ArrayList<>(dirtyPages);
+    indexes.sort(Integer::compare);
+    ByteBuffer buffer = ByteBuffer.allocate(SchemaFile.PAGE_LENGTH);
+    ioLock.lock();
+    try {
+      for (int pageIndex : indexes) {
+        ISchemaPage page = pages.get(pageIndex);
+        page.syncPageBuffer();
+        buffer.clear();
+        page.getPageBuffer(buffer);
+        buffer.clear();
+        pageIO.write(buffer, pageIndex);
+      }
+    } finally {
+      ioLock.unlock();
+    }
+  }
+
+  // endregion
+
+  /** Discard all pages without writing back, since the file has been cleared. */
+  public void clear() {
+    accessLock.writeLock().lock();
+    ioLock.lock();
+    try {
+      epoch++;
+      pageTable.clear();
+      for (int i = 0; i < capacity; i++) {
+        frames.set(i, null);
+        pinCounts.set(i, 0);
+        refBits.set(i, 0);
+        dirtyFlags.set(i, 0);
+      }
+      dirtyNum.set(0);
+      clockHand = 0;
+    } finally {
+      ioLock.unlock();
+      accessLock.writeLock().unlock();
+    }
+  }
+
+  /** Write back all dirty frames and release the buffers. */
+  public void close() throws IOException {
+    writeBack();
+    accessLock.writeLock().lock();
+    ioLock.lock();
+    try {
+      closed = true;
+      pageTable.clear();
+      for (int i = 0; i < capacity; i++) {
+        frames.set(i, null);
+        frameBuffers[i] = null;
+      }
+      MemoryStatistics.getInstance()
+          .releaseMemory((long) allocatedFrameNum * SchemaFile.PAGE_LENGTH);
+      allocatedFrameNum = 0;
+    } finally {
+      ioLock.unlock();
+      accessLock.writeLock().unlock();
+    }
+  }
+
+  @TestOnly
+  public int getDirtyPageNum() {
+    return dirtyNum.get();
+  }
+
+  @TestOnly
+  public boolean isResident(int pageIndex) {
+    return pageTable.containsKey(pageIndex);
+  }
+
+  private static class WriteBackExecutorHolder {
+
+    private static final ExecutorService EXECUTOR =
+        IoTDBThreadPoolFactory.newSingleThreadExecutorWithDaemon("SchemaFile-write-back");
+
+    private WriteBackExecutorHolder() {}
+  }
+}
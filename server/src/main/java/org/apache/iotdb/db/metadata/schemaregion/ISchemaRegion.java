@@ -82,6 +82,9 @@ public interface ISchemaRegion {
   void clear();
 
   void forceMlog();
+
+  /** create a snapshot of the MTree if enough schema modifications have been logged */
+  void createMTreeSnapshot();
   // endregion
 
   // region Interfaces for schema region Info query and operation
@@ -119,6 +119,14 @@ public class SchemaEngine {
     }
   }
 
+  public void createMTreeSnapshot() {
+    if (schemaRegionMap != null) {
+      for (ISchemaRegion schemaRegion : schemaRegionMap.values()) {
+        schemaRegion.createMTreeSnapshot();
+      }
+    }
+  }
+
   public void clear() {
     if (schemaRegionMap != null) {
       for (ISchemaRegion schemaRegion : schemaRegionMap.values()) {
@@ -25,6 +25,7 @@ import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.engine.trigger.executor.TriggerEngine;
 import org.apache.iotdb.db.exception.metadata.AliasAlreadyExistException;
+import org.apache.iotdb.db.exception.metadata.AlignedTimeseriesException;
 import org.apache.iotdb.db.exception.metadata.DataTypeMismatchException;
 import org.apache.iotdb.db.exception.metadata.DeleteFailedException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
@@ -33,6 +34,7 @@ import org.apache.iotdb.db.exception.metadata.PathNotExistException;
 import org.apache.iotdb.db.exception.metadata.SchemaDirCreationFailureException;
 import org.apache.iotdb.db.exception.metadata.template.DifferentTemplateException;
 import org.apache.iotdb.db.exception.metadata.template.NoTemplateOnMNodeException;
+import org.apache.iotdb.db.exception.metadata.template.TemplateImcompatibeException;
 import org.apache.iotdb.db.exception.metadata.template.TemplateIsInUseException;
 import org.apache.iotdb.db.metadata.LocalSchemaProcessor;
 import org.apache.iotdb.db.metadata.MetadataConstant;
@@ -62,6 +64,7 @@ import org.apache.iotdb.db.qp.physical.sys.AutoCreateDeviceMNodePlan;
 import org.apache.iotdb.db.qp.physical.sys.ChangeAliasPlan;
 import org.apache.iotdb.db.qp.physical.sys.ChangeTagOffsetPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateAlignedTimeSeriesPlan;
+import org.apache.iotdb.db.qp.physical.sys.CreateMultiTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.DeleteTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.SetTemplatePlan;
@@ -79,6 +82,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
@@ -88,8 +92,16 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -99,6 +111,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
@@ -142,6 +155,10 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
 
   private static final Logger logger = LoggerFactory.getLogger(SchemaRegionSchemaFileImpl.class);
 
+  // max number of timeseries auto created in one batch, which keeps the mlog entry of the batch
+  // far below mlog_buffer_size
+  private static final int AUTO_CREATE_BATCH_SIZE = 1000;
+
   protected static IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
 
   private boolean isRecovering = true;
@@ -164,6 +181,11 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
   private TagManager tagManager;
   private SchemaSyncManager syncManager = SchemaSyncManager.getInstance();
 
+  // lock for creating MTree snapshot, which should not be interleaved with clearing
+  private final Object snapshotLock = new Object();
+  // the mlog number when the latest snapshot is created
+  private int logNumOfLastSnapshot = 0;
+
   // region Interfaces and Implementation of initialization、snapshot、recover and clear
   public SchemaRegionMemoryImpl(
       PartialPath storageGroup, SchemaRegionId schemaRegionId, IStorageGroupMNode storageGroupMNode)
@@ -235,7 +257,9 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
       tagManager = new TagManager(schemaRegionDirPath);
       mtree = new MTreeBelowSGMemoryImpl(storageGroupMNode, schemaRegionId.getId());
 
-      int lineNumber = initFromLog(logFile);
+      long mlogPosition = loadMTreeSnapshot(storageGroupMNode);
+      int lineNumber = initFromLog(logFile, mlogPosition);
+      logNumOfLastSnapshot = 0;
 
       logWriter = new MLogWriter(schemaRegionDirPath, MetadataConstant.METADATA_LOG);
       logWriter.setLogNum(lineNumber);
@@ -263,17 +287,22 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
   /**
    * Init from metadata log file.
    *
-   * @return line number of the logFile
+   * @param mlogPosition position of the logFile to start replaying from, which is where the loaded
+   *     MTree snapshot is taken at
+   * @return line number of the logFile after the position
    */
   @SuppressWarnings("squid:S3776")
-  private int initFromLog(File logFile) throws IOException {
+  private int initFromLog(File logFile, long mlogPosition) throws IOException {
     long time = System.currentTimeMillis();
     // init the metadata from the operation log
     if (logFile.exists()) {
       int idx = 0;
       try (MLogReader mLogReader =
           new MLogReader(schemaRegionDirPath, MetadataConstant.METADATA_LOG); ) {
-        idx = applyMLog(mLogReader);
+        if (mlogPosition > 0) {
+          mLogReader.skip(mlogPosition);
+        }
+        idx = applyMLog(mLogReader, mlogPosition > 0);
         logger.debug(
             "spend {} ms to deserialize {} mtree from mlog.bin",
             System.currentTimeMillis() - time,
@@ -288,7 +317,11 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
     }
   }
 
-  private int applyMLog(MLogReader mLogReader) {
+  /**
+   * @param afterSnapshot if true, the logs are replayed upon a snapshot, which may already contain
+   *     some of them entirely or partly
+   */
+  private int applyMLog(MLogReader mLogReader, boolean afterSnapshot) {
     int idx = 0;
     PhysicalPlan plan;
     while (mLogReader.hasNext()) {
@@ -303,7 +336,11 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
         continue;
       }
       try {
-        operation(plan);
+        if (afterSnapshot) {
+          operationAfterSnapshot(plan);
+        } else {
+          operation(plan);
+        }
       } catch (MetadataException | IOException e) {
         logger.error("Can not operate cmd {} for err:", plan.getOperatorType(), e);
       }
@@ -312,9 +349,137 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
     return idx;
   }
 
+  /**
+   * Load the MTree from snapshot if there is one. The MTree is left empty if the snapshot fails to
+   * be loaded.
+   *
+   * @return the position of logFile the snapshot is taken at, 0 if no snapshot is loaded
+   */
+  private long loadMTreeSnapshot(IStorageGroupMNode storageGroupMNode) {
+    File snapshot = getMTreeSnapshotFile();
+    if (!config.isEnableMTreeSnapshot() || !snapshot.exists()) {
+      return 0;
+    }
+    if (config.isEnableIDTable() && !config.isEnableIDTableLogFile()) {
+      // id table is recovered from the whole mlog if it has no log file
+      return 0;
+    }
+
+    long time = System.currentTimeMillis();
+    long mlogPosition;
+    AtomicInteger measurementNum = new AtomicInteger();
+    List<IMeasurementMNode> measurementMNodesWithTag = new ArrayList<>();
+    List<IMNode> mNodesWithTemplate = new ArrayList<>();
+    try (DataInputStream inputStream =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot)))) {
+      String storageGroup = ReadWriteIOUtils.readVarIntString(inputStream);
+      mlogPosition = inputStream.readLong();
+      if (!storageGroupFullPath.equals(storageGroup) || mlogPosition > logFile.length()) {
+        logger.warn("MTree snapshot {} doesn't match mlog, recover MTree from mlog", snapshot);
+        return 0;
+      }
+      mtree.loadSnapshot(
+          inputStream,
+          node -> {
+            if (node.isMeasurement()) {
+              measurementNum.incrementAndGet();
+              if (node.getAsMeasurementMNode().getOffset() >= 0) {
+                measurementMNodesWithTag.add(node.getAsMeasurementMNode());
+              }
+            } else if (node.getSchemaTemplate() != null) {
+              mNodesWithTemplate.add(node);
+            }
+          });
+    } catch (IOException | MetadataException e) {
+      logger.warn("Failed to load MTree snapshot {}, recover MTree from mlog", snapshot, e);
+      mtree.clear();
+      mtree = new MTreeBelowSGMemoryImpl(storageGroupMNode, schemaRegionId.getId());
+      return 0;
+    }
+
+    timeseriesStatistics.addTimeseries(measurementNum.get());
+    for (IMNode node : mNodesWithTemplate) {
+      TemplateManager.getInstance()
+          .markSchemaRegion(node.getSchemaTemplate(), storageGroupFullPath, schemaRegionId);
+    }
+    for (IMeasurementMNode measurementMNode : measurementMNodesWithTag) {
+      try {
+        tagManager.recoverIndex(measurementMNode.getOffset(), measurementMNode);
+      } catch (IOException e) {
+        logger.error("Can not recover tag index of {}", measurementMNode.getFullPath(), e);
+      }
+    }
+    logger.info(
+        "spend {} ms to load {} mtree from snapshot, {} bytes of mlog.bin are skipped",
+        System.currentTimeMillis() - time,
+        storageGroupFullPath,
+        mlogPosition);
+    return mlogPosition;
+  }
+
+  /**
+   * Create a snapshot of the MTree if enough mlog has been written since the latest one. The MTree
+   * is traversed without blocking schema writes, thus the snapshot may be fuzzy, while all the mlog
+   * before the recorded position is contained since the MTree is always modified before logging.
+   * When restarting, the mlog after the position is replayed upon the snapshot, skipping the parts
+   * already in it, see {@link #operationAfterSnapshot(PhysicalPlan)}.
+   */
+  @Override
+  public void createMTreeSnapshot() {
+    if (!config.isEnableMTreeSnapshot()) {
+      return;
+    }
+    synchronized (snapshotLock) {
+      if (!initialized) {
+        return;
+      }
+      int logNum = logWriter.getLogNum();
+      if (logNum - logNumOfLastSnapshot < config.getMtreeSnapshotInterval()) {
+        return;
+      }
+
+      long time = System.currentTimeMillis();
+      File snapshot = getMTreeSnapshotFile();
+      File tmpSnapshot = SystemFileFactory.INSTANCE.getFile(snapshot.getPath() + ".tmp");
+      try {
+        logWriter.force();
+        long mlogPosition = logWriter.getLogFileLength();
+        try (FileOutputStream fileOutputStream = new FileOutputStream(tmpSnapshot);
+            DataOutputStream outputStream =
+                new DataOutputStream(new BufferedOutputStream(fileOutputStream))) {
+          ReadWriteIOUtils.writeVar(storageGroupFullPath, outputStream);
+          outputStream.writeLong(mlogPosition);
+          mtree.serializeTo(outputStream);
+          outputStream.flush();
+          fileOutputStream.getFD().sync();
+        }
+        Files.move(tmpSnapshot.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        logNumOfLastSnapshot = logNum;
+        logger.info(
+            "spend {} ms to create {} mtree snapshot of schema region {}",
+            System.currentTimeMillis() - time,
+            storageGroupFullPath,
+            schemaRegionId);
+      } catch (IOException e) {
+        logger.warn("Failed to create MTree snapshot {}", snapshot, e);
+      }
+    }
+  }
+
+  private File getMTreeSnapshotFile() {
+    return SystemFileFactory.INSTANCE.getFile(
+        schemaRegionDirPath + File.separator + MetadataConstant.MTREE_REGION_SNAPSHOT);
+  }
+
   /** function for clearing metadata components of one schema region */
   @Override
-  public synchronized void clear() {
+  public void clear() {
+    synchronized (snapshotLock) {
+      clearComponents();
+    }
+  }
+
+  private synchronized void clearComponents() {
     try {
       if (this.mNodeCache != null) {
         this.mNodeCache.invalidateAll();
@@ -347,6 +512,10 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
             (CreateAlignedTimeSeriesPlan) plan;
         createAlignedTimeSeries(createAlignedTimeSeriesPlan);
         break;
+      case CREATE_MULTI_TIMESERIES:
+        CreateMultiTimeSeriesPlan createMultiTimeSeriesPlan = (CreateMultiTimeSeriesPlan) plan;
+        createNonAlignedTimeseries(createMultiTimeSeriesPlan);
+        break;
       case DELETE_TIMESERIES:
         DeleteTimeSeriesPlan deleteTimeSeriesPlan = (DeleteTimeSeriesPlan) plan;
         // cause we only has one path for one DeleteTimeSeriesPlan
@@ -380,6 +549,157 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
         logger.error("Unrecognizable command {}", plan.getOperatorType());
     }
   }
+
+  /**
+   * Replay a plan logged after the position recorded in the loaded MTree snapshot. The snapshot is
+   * taken without blocking schema writes, so it may already contain the plan, entirely or partly,
+   * e.g., some series of a multi-series creation, a device not marked as aligned yet, or a series
+   * whose tag offset isn't set yet. The parts contained by the snapshot are skipped and the rest
+   * are redone, thus replaying the plan is idempotent.
+   */
+  private void operationAfterSnapshot(PhysicalPlan plan) throws IOException, MetadataException {
+    switch (plan.getOperatorType()) {
+      case CREATE_TIMESERIES:
+        CreateTimeSeriesPlan createTimeSeriesPlan = (CreateTimeSeriesPlan) plan;
+        if (mtree.isPathExist(createTimeSeriesPlan.getPath())) {
+          recoverTagOffset(createTimeSeriesPlan.getPath(), createTimeSeriesPlan.getTagOffset());
+        } else {
+          operation(plan);
+        }
+        break;
+      case CREATE_ALIGNED_TIMESERIES:
+        redoCreateAlignedTimeSeries((CreateAlignedTimeSeriesPlan) plan);
+        break;
+      case CREATE_MULTI_TIMESERIES:
+        redoCreateNonAlignedTimeseries((CreateMultiTimeSeriesPlan) plan);
+        break;
+      case DELETE_TIMESERIES:
+        if (mtree.isPathExist(((DeleteTimeSeriesPlan) plan).getPaths().get(0))) {
+          operation(plan);
+        }
+        break;
+      case CHANGE_TAG_OFFSET:
+        ChangeTagOffsetPlan changeTagOffsetPlan = (ChangeTagOffsetPlan) plan;
+        recoverTagOffset(changeTagOffsetPlan.getPath(), changeTagOffsetPlan.getOffset());
+        break;
+      case SET_TEMPLATE:
+        SetTemplatePlan setTemplatePlan = (SetTemplatePlan) plan;
+        PartialPath templateSetPath = new PartialPath(setTemplatePlan.getPrefixPath());
+        if (!mtree.isPathExist(templateSetPath)
+            || mtree.getNodeByPath(templateSetPath).getSchemaTemplate() == null) {
+          operation(plan);
+        }
+        break;
+      case UNSET_TEMPLATE:
+        PartialPath templateUnsetPath = new PartialPath(((UnsetTemplatePlan) plan).getPrefixPath());
+        if (mtree.isPathExist(templateUnsetPath)
+            && mtree.getNodeByPath(templateUnsetPath).getSchemaTemplate() != null) {
+          operation(plan);
+        }
+        break;
+      case ACTIVATE_TEMPLATE:
+        PartialPath activatedPath = ((ActivateTemplatePlan) plan).getPrefixPath();
+        if (!mtree.isPathExist(activatedPath)
+            || !mtree.getNodeByPath(activatedPath).isUseTemplate()) {
+          operation(plan);
+        }
+        break;
+      default:
+        // changing alias and auto creating device are idempotent
+        operation(plan);
+    }
+  }
+
+  /** Set the tag offset of a series in the snapshot and index its tags, if it isn't set yet. */
+  private void recoverTagOffset(PartialPath path, long offset) throws MetadataException {
+    if (offset != -1 && mtree.getMeasurementMNode(path).getOffset() != offset) {
+      changeOffset(path, offset);
+    }
+  }
+
+  private void redoCreateAlignedTimeSeries(CreateAlignedTimeSeriesPlan plan)
+      throws MetadataException {
+    PartialPath prefixPath = plan.getPrefixPath();
+    List<String> measurements = plan.getMeasurements();
+    List<Long> tagOffsets = plan.getTagOffsets();
+    List<Integer> absentIndexes = new ArrayList<>();
+    for (int i = 0; i < measurements.size(); i++) {
+      PartialPath path = prefixPath.concatNode(measurements.get(i));
+      if (mtree.isPathExist(path)) {
+        recoverTagOffset(path, tagOffsets.get(i));
+      } else {
+        absentIndexes.add(i);
+      }
+    }
+    if (mtree.isPathExist(prefixPath)) {
+      IMNode device = mtree.getNodeByPath(prefixPath);
+      // the device may be snapshotted after it is set to entity but before it is set to aligned,
+      // then all of its measurements belong to this plan
+      if (device.isEntity() && !device.getAsEntityMNode().isAligned()) {
+        boolean createdByThisPlan = true;
+        for (IMNode child : device.getChildren().values()) {
+          if (child.isMeasurement() && !measurements.contains(child.getName())) {
+            createdByThisPlan = false;
+            break;
+          }
+        }
+        if (createdByThisPlan) {
+          device.getAsEntityMNode().setAligned(true);
+        }
+      }
+    }
+    if (absentIndexes.isEmpty()) {
+      return;
+    }
+    if (absentIndexes.size() < measurements.size()) {
+      CreateAlignedTimeSeriesPlan absentPlan = new CreateAlignedTimeSeriesPlan();
+      absentPlan.setPrefixPath(prefixPath);
+      absentPlan.setMeasurements(selectByIndexes(measurements, absentIndexes));
+      absentPlan.setDataTypes(selectByIndexes(plan.getDataTypes(), absentIndexes));
+      absentPlan.setEncodings(selectByIndexes(plan.getEncodings(), absentIndexes));
+      absentPlan.setCompressors(selectByIndexes(plan.getCompressors(), absentIndexes));
+      absentPlan.setAliasList(selectByIndexes(plan.getAliasList(), absentIndexes));
+      absentPlan.setTagsList(selectByIndexes(plan.getTagsList(), absentIndexes));
+      absentPlan.setAttributesList(selectByIndexes(plan.getAttributesList(), absentIndexes));
+      absentPlan.setTagOffsets(selectByIndexes(tagOffsets, absentIndexes));
+      plan = absentPlan;
+    }
+    createAlignedTimeSeries(plan);
+  }
+
+  private void redoCreateNonAlignedTimeseries(CreateMultiTimeSeriesPlan plan)
+      throws MetadataException {
+    List<PartialPath> paths = plan.getPaths();
+    List<Integer> absentIndexes = new ArrayList<>();
+    for (int i = 0; i < paths.size(); i++) {
+      if (!mtree.isPathExist(paths.get(i))) {
+        absentIndexes.add(i);
+      }
+    }
+    if (absentIndexes.isEmpty()) {
+      return;
+    }
+    if (absentIndexes.size() < paths.size()) {
+      CreateMultiTimeSeriesPlan absentPlan = new CreateMultiTimeSeriesPlan();
+      absentPlan.setPaths(selectByIndexes(paths, absentIndexes));
+      absentPlan.setDataTypes(selectByIndexes(plan.getDataTypes(), absentIndexes));
+      absentPlan.setEncodings(selectByIndexes(plan.getEncodings(), absentIndexes));
+      absentPlan.setCompressors(selectByIndexes(plan.getCompressors(), absentIndexes));
+      plan = absentPlan;
+    }
+    createNonAlignedTimeseries(plan);
+  }
+
+  private static <T> List<T> selectByIndexes(List<T> list, List<Integer> indexes) {
+    if (list == null || list.isEmpty()) {
+      return list;
+    }
+    List<T> selected = new ArrayList<>(indexes.size());
+    for (int index : indexes) {
+      selected.add(list.get(index));
+    }
+    return selected;
+  }
   // endregion
 
   // region Interfaces for schema region Info query and operation
@@ -446,32 +766,35 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
       // update statistics and schemaDataTypeNumMap
       timeseriesStatistics.addTimeseries(1);
 
-      // update tag index
-      if (offset != -1 && isRecovering) {
-        // the timeseries has already been created and now system is recovering, using the tag
-        // info
-        // in tagFile to recover index directly
-        tagManager.recoverIndex(offset, leafMNode);
-      } else if (plan.getTags() != null) {
-        // tag key, tag value
-        tagManager.addIndex(plan.getTags(), leafMNode);
+      // either tags or attributes is not empty
+      if (!isRecovering
+          && ((plan.getTags() != null && !plan.getTags().isEmpty())
+              || (plan.getAttributes() != null && !plan.getAttributes().isEmpty()))) {
+        offset = tagManager.writeTagFile(plan.getTags(), plan.getAttributes());
+      }
+      // the MTree should be modified before logging
+      if (offset != -1) {
+        leafMNode.setOffset(offset);
       }
 
       // write log
       if (!isRecovering) {
-        // either tags or attributes is not empty
-        if ((plan.getTags() != null && !plan.getTags().isEmpty())
-            || (plan.getAttributes() != null && !plan.getAttributes().isEmpty())) {
-          offset = tagManager.writeTagFile(plan.getTags(), plan.getAttributes());
-        }
         plan.setTagOffset(offset);
         logWriter.createTimeseries(plan);
         if (syncManager.isEnableSync()) {
           syncManager.syncMetadataPlan(plan);
         }
       }
-      if (offset != -1) {
-        leafMNode.setOffset(offset);
+
+      // update tag index
+      if (offset != -1 && isRecovering) {
+        // the timeseries has already been created and now system is recovering, using the tag
+        // info
+        // in tagFile to recover index directly
+        tagManager.recoverIndex(offset, leafMNode);
+      } else if (plan.getTags() != null) {
+        // tag key, tag value
+        tagManager.addIndex(plan.getTags(), leafMNode);
       }
 
     } catch (IOException e) {
@@ -565,22 +888,7 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
       // update statistics and schemaDataTypeNumMap
       timeseriesStatistics.addTimeseries(plan.getMeasurements().size());
 
-      List<Long> tagOffsets = plan.getTagOffsets();
-      for (int i = 0; i < measurements.size(); i++) {
-        if (tagOffsets != null && !plan.getTagOffsets().isEmpty() && isRecovering) {
-          if (tagOffsets.get(i) != -1) {
-            tagManager.recoverIndex(plan.getTagOffsets().get(i), measurementMNodeList.get(i));
-          }
-        } else if (tagsList != null && !tagsList.isEmpty()) {
-          if (tagsList.get(i) != null) {
-            // tag key, tag value
-            tagManager.addIndex(tagsList.get(i), measurementMNodeList.get(i));
-          }
-        }
-      }
-
-      // write log
-      tagOffsets = new ArrayList<>();
+      List<Long> tagOffsets = new ArrayList<>();
       if (!isRecovering) {
         if ((tagsList != null && !tagsList.isEmpty())
             || (attributesList != null && !attributesList.isEmpty())) {
@@ -601,15 +909,34 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
           }
         }
         plan.setTagOffsets(tagOffsets);
+      }
+      // the MTree should be modified before logging
+      tagOffsets = plan.getTagOffsets();
+      for (int i = 0; i < measurements.size(); i++) {
+        if (tagOffsets.get(i) != -1) {
+          measurementMNodeList.get(i).setOffset(tagOffsets.get(i));
+        }
+      }
+
+      // write log
+      if (!isRecovering) {
         logWriter.createAlignedTimeseries(plan);
         if (syncManager.isEnableSync()) {
           syncManager.syncMetadataPlan(plan);
         }
       }
-      tagOffsets = plan.getTagOffsets();
+
+      // update tag index after the offsets are set
       for (int i = 0; i < measurements.size(); i++) {
-        if (tagOffsets.get(i) != -1) {
-          measurementMNodeList.get(i).setOffset(tagOffsets.get(i));
+        if (tagOffsets != null && !plan.getTagOffsets().isEmpty() && isRecovering) {
+          if (tagOffsets.get(i) != -1) {
+            tagManager.recoverIndex(plan.getTagOffsets().get(i), measurementMNodeList.get(i));
+          }
+        } else if (tagsList != null && !tagsList.isEmpty()) {
+          if (tagsList.get(i) != null) {
+            // tag key, tag value
+            tagManager.addIndex(tagsList.get(i), measurementMNodeList.get(i));
+          }
         }
       }
     } catch (IOException e) {
@@ -623,6 +950,72 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
     }
   }
 
+  /**
+   * Create non-aligned timeseries of one device with one traversal of the MTree and one mlog entry.
+   * This is only used for auto creation, thus alias, props, tags and attributes of the plan are
+   * ignored.
+   *
+   * @param plan CreateMultiTimeSeriesPlan whose paths all belong to the same device
+   */
+  private void createNonAlignedTimeseries(CreateMultiTimeSeriesPlan plan) throws MetadataException {
+    if (!memoryStatistics.isAllowToCreateNewSeries()) {
+      throw new MetadataException(
+          "IoTDB system load is too large to create timeseries, "
+              + "please increase MAX_HEAP_SIZE in iotdb-env.sh/bat and restart");
+    }
+
+    List<PartialPath> paths = plan.getPaths();
+    PartialPath devicePath = paths.get(0).getDevicePath();
+    List<String> measurements = new ArrayList<>(paths.size());
+    for (int i = 0; i < paths.size(); i++) {
+      SchemaUtils.checkDataTypeWithEncoding(plan.getDataTypes().get(i), plan.getEncodings().get(i));
+      measurements.add(paths.get(i).getMeasurement());
+    }
+
+    try {
+      // create time series in MTree
+      mtree.createNonAlignedTimeseries(
+          devicePath,
+          measurements,
+          plan.getDataTypes(),
+          plan.getEncodings(),
+          plan.getCompressors());
+
+      // the cached mNode may be replaced by new entityMNode in mtree
+      mNodeCache.invalidate(devicePath);
+
+      // update statistics and schemaDataTypeNumMap
+      timeseriesStatistics.addTimeseries(paths.size());
+
+      // write log
+      if (!isRecovering) {
+        logWriter.createMultiTimeseries(plan);
+        if (syncManager.isEnableSync()) {
+          syncManager.syncMetadataPlan(plan);
+        }
+      }
+    } catch (IOException e) {
+      throw new MetadataException(e);
+    }
+
+    // update id table if not in recovering or disable id table log file
+    if (config.isEnableIDTable() && (!isRecovering || !config.isEnableIDTableLogFile())) {
+      IDTable idTable = IDTableManager.getInstance().getIDTable(devicePath);
+      for (int i = 0; i < paths.size(); i++) {
+        idTable.createTimeseries(
+            new CreateTimeSeriesPlan(
+                paths.get(i),
+                plan.getDataTypes().get(i),
+                plan.getEncodings().get(i),
+                plan.getCompressors().get(i),
+                null,
+                null,
+                null,
+                null));
+      }
+    }
+  }
+
   /**
    * Delete all timeseries matching the given path pattern. If using prefix match, the path pattern
    * is used to match prefix path. All timeseries start with the matched prefix path will be
@@ -1220,8 +1613,8 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
     // no tag or attribute, we need to add a new record in log
     if (leafMNode.getOffset() < 0) {
       long offset = tagManager.writeTagFile(tagsMap, attributesMap);
-      logWriter.changeOffset(fullPath, offset);
       leafMNode.setOffset(offset);
+      logWriter.changeOffset(fullPath, offset);
       // update inverted Index map
       if (tagsMap != null && !tagsMap.isEmpty()) {
         tagManager.addIndex(tagsMap, leafMNode);
@@ -1263,8 +1656,8 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
     // no tag or attribute, we need to add a new record in log
     if (leafMNode.getOffset() < 0) {
       long offset = tagManager.writeTagFile(Collections.emptyMap(), attributesMap);
-      logWriter.changeOffset(fullPath, offset);
       leafMNode.setOffset(offset);
+      logWriter.changeOffset(fullPath, offset);
       return;
     }
 
@@ -1283,8 +1676,8 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
     // no tag or attribute, we need to add a new record in log
     if (leafMNode.getOffset() < 0) {
       long offset = tagManager.writeTagFile(tagsMap, Collections.emptyMap());
-      logWriter.changeOffset(fullPath, offset);
       leafMNode.setOffset(offset);
+      logWriter.changeOffset(fullPath, offset);
       // update inverted Index map
       tagManager.addIndex(tagsMap, leafMNode);
       return;
@@ -1394,7 +1787,12 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
       }
     }
 
-    // 2. get schema of each measurement
+    // 2. create all the absent timeseries of the device at once
+    if (!isDeviceInTemplate && config.isAutoCreateSchemaEnabled()) {
+      deviceMNode = autoCreateAbsentTimeseries(plan, deviceMNode);
+    }
+
+    // 3. get schema of each measurement
     IMeasurementMNode measurementMNode;
     for (int i = 0; i < measurementList.length; i++) {
       try {
@@ -1521,6 +1919,75 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
     return new Pair<>(deviceMNode, measurementMNode);
   }
 
+  /**
+   * Create the timeseries of the plan which are neither in the MTree nor in the template with one
+   * MTree traversal and one mlog entry per batch. Failures are left to the per-measurement auto
+   * creation, which will retry and report them for each measurement.
+   *
+   * @return the device node, which may be replaced by a new entityMNode
+   */
+  private IMNode autoCreateAbsentTimeseries(InsertPlan plan, IMNode deviceMNode)
+      throws MetadataException {
+    if (!(plan instanceof InsertRowPlan || plan instanceof InsertTabletPlan)) {
+      return deviceMNode;
+    }
+
+    String[] measurementList = plan.getMeasurements();
+    TSDataType[] dataTypeList = plan.getDataTypes();
+    Template upperTemplate = deviceMNode.getUpperTemplate();
+    Set<String> measurementSet = new HashSet<>();
+    List<String> measurements = new ArrayList<>();
+    List<TSDataType> dataTypes = new ArrayList<>();
+    for (int i = 0; i < measurementList.length; i++) {
+      String measurement = measurementList[i];
+      if (measurement == null || dataTypeList[i] == null || !measurementSet.add(measurement)) {
+        continue;
+      }
+      try {
+        if (getMeasurementMNode(deviceMNode, measurement) != null) {
+          continue;
+        }
+      } catch (MetadataException e) {
+        continue;
+      }
+      if (upperTemplate != null && upperTemplate.getSchema(measurement) != null) {
+        continue;
+      }
+      measurements.add(measurement);
+      dataTypes.add(dataTypeList[i]);
+    }
+
+    // a single absent timeseries is left to the per-measurement auto creation
+    if (measurements.size() <= 1) {
+      return deviceMNode;
+    }
+
+    PartialPath devicePath = plan.getDevicePath();
+    for (int start = 0; start < measurements.size(); start += AUTO_CREATE_BATCH_SIZE) {
+      int end = Math.min(start + AUTO_CREATE_BATCH_SIZE, measurements.size());
+      try {
+        if (plan.isAligned()) {
+          internalAlignedCreateTimeseries(
+              devicePath, measurements.subList(start, end), dataTypes.subList(start, end));
+        } else {
+          internalNonAlignedCreateTimeseries(
+              devicePath, measurements.subList(start, end), dataTypes.subList(start, end));
+        }
+      } catch (PathAlreadyExistException
+          | TemplateImcompatibeException
+          | AlignedTimeseriesException e) {
+        // some of them are created concurrently or conflict with the device, while the failures
+        // of logging are thrown
+        logger.debug(
+            "Fail to create timeseries of {} in batch, create them one by one, because {}",
+            devicePath,
+            e.getMessage());
+      }
+    }
+    // after creating timeseries, the deviceMNode has been replaced by a new entityMNode
+    return mtree.getNodeByPath(devicePath);
+  }
+
   /** get dataType of plan, in loc measurements only support InsertRowPlan and InsertTabletPlan */
   private IMeasurementMNode findMeasurementInTemplate(IMNode deviceMNode, String measurement)
       throws MetadataException {
@@ -1555,6 +2022,26 @@ public class SchemaRegionMemoryImpl implements ISchemaRegion {
         Collections.emptyMap());
   }
 
+  /** create non-aligned timeseries of one device in batch */
+  private void internalNonAlignedCreateTimeseries(
+      PartialPath devicePath, List<String> measurements, List<TSDataType> dataTypes)
+      throws MetadataException {
+    CreateMultiTimeSeriesPlan plan = new CreateMultiTimeSeriesPlan();
+    List<PartialPath> paths = new ArrayList<>(measurements.size());
+    List<TSEncoding> encodings = new ArrayList<>(measurements.size());
+    List<CompressionType> compressors = new ArrayList<>(measurements.size());
+    for (int i = 0; i < measurements.size(); i++) {
+      paths.add(devicePath.concatNode(measurements.get(i)));
+      encodings.add(getDefaultEncoding(dataTypes.get(i)));
+      compressors.add(TSFileDescriptor.getInstance().getConfig().getCompressor());
+    }
+    plan.setPaths(paths);
+    plan.setDataTypes(new ArrayList<>(dataTypes));
+    plan.setEncodings(encodings);
+    plan.setCompressors(compressors);
+    createNonAlignedTimeseries(plan);
+  }
+
   /** create aligned timeseries ignoring PathAlreadyExistException */
   private void internalAlignedCreateTimeseries(
       PartialPath prefixPath, List<String> measurements, List<TSDataType> dataTypes)
@@ -25,6 +25,7 @@ import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.engine.trigger.executor.TriggerEngine;
 import org.apache.iotdb.db.exception.metadata.AliasAlreadyExistException;
+import org.apache.iotdb.db.exception.metadata.AlignedTimeseriesException;
 import org.apache.iotdb.db.exception.metadata.DataTypeMismatchException;
 import org.apache.iotdb.db.exception.metadata.DeleteFailedException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
@@ -33,6 +34,7 @@ import org.apache.iotdb.db.exception.metadata.PathNotExistException;
 import org.apache.iotdb.db.exception.metadata.SchemaDirCreationFailureException;
 import org.apache.iotdb.db.exception.metadata.template.DifferentTemplateException;
 import org.apache.iotdb.db.exception.metadata.template.NoTemplateOnMNodeException;
+import org.apache.iotdb.db.exception.metadata.template.TemplateImcompatibeException;
 import org.apache.iotdb.db.exception.metadata.template.TemplateIsInUseException;
 import org.apache.iotdb.db.metadata.LocalSchemaProcessor;
 import org.apache.iotdb.db.metadata.MetadataConstant;
@@ -62,6 +64,7 @@ import org.apache.iotdb.db.qp.physical.sys.AutoCreateDeviceMNodePlan;
 import org.apache.iotdb.db.qp.physical.sys.ChangeAliasPlan;
 import org.apache.iotdb.db.qp.physical.sys.ChangeTagOffsetPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateAlignedTimeSeriesPlan;
+import org.apache.iotdb.db.qp.physical.sys.CreateMultiTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.DeleteTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.SetTemplatePlan;
@@ -143,6 +146,10 @@ public class SchemaRegionSchemaFileImpl implements ISchemaRegion {
 
   private static final Logger logger = LoggerFactory.getLogger(SchemaRegionSchemaFileImpl.class);
 
+  // max number of timeseries auto created in one batch, which keeps the mlog entry of the batch
+  // far below mlog_buffer_size
+  private static final int AUTO_CREATE_BATCH_SIZE = 1000;
+
   protected static IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
 
   private boolean isRecovering = true;
@@ -258,6 +265,11 @@ public class SchemaRegionSchemaFileImpl implements ISchemaRegion {
     initialized = true;
   }
 
+  @Override
+  public void createMTreeSnapshot() {
+    // the MTree is already persisted in schema file
+  }
+
   public void forceMlog() {
     if (!initialized) {
       return;
@@ -358,6 +370,10 @@ public class SchemaRegionSchemaFileImpl implements ISchemaRegion {
             (CreateAlignedTimeSeriesPlan) plan;
         createAlignedTimeSeries(createAlignedTimeSeriesPlan);
         break;
+      case CREATE_MULTI_TIMESERIES:
+        CreateMultiTimeSeriesPlan createMultiTimeSeriesPlan = (CreateMultiTimeSeriesPlan) plan;
+        createNonAlignedTimeseries(createMultiTimeSeriesPlan);
+        break;
       case DELETE_TIMESERIES:
         DeleteTimeSeriesPlan deleteTimeSeriesPlan = (DeleteTimeSeriesPlan) plan;
         // cause we only has one path for one DeleteTimeSeriesPlan
@@ -458,17 +474,6 @@ public class SchemaRegionSchemaFileImpl implements ISchemaRegion {
         // update statistics and schemaDataTypeNumMap
         timeseriesStatistics.addTimeseries(1);
 
-        // update tag index
-        if (offset != -1 && isRecovering) {
-          // the timeseries has already been created and now system is recovering, using the tag
-          // info
-          // in tagFile to recover index directly
-          tagManager.recoverIndex(offset, leafMNode);
-        } else if (plan.getTags() != null) {
-          // tag key, tag value
-          tagManager.addIndex(plan.getTags(), leafMNode);
-        }
-
         // write log
         if (!isRecovering) {
           // either tags or attributes is not empty
@@ -487,6 +492,17 @@ public class SchemaRegionSchemaFileImpl implements ISchemaRegion {
           mtree.updateMNode(leafMNode);
         }
 
+        // update tag index
+        if (offset != -1 && isRecovering) {
+          // the timeseries has already been created and now system is recovering, using the tag
+          // info
+          // in tagFile to recover index directly
+          tagManager.recoverIndex(offset, leafMNode);
+        } else if (plan.getTags() != null) {
+          // tag key, tag value
+          tagManager.addIndex(plan.getTags(), leafMNode);
+        }
+
       } finally {
         mtree.unPinMNode(leafMNode);
       }
@@ -583,22 +599,8 @@ public class SchemaRegionSchemaFileImpl implements ISchemaRegion {
         // update statistics and schemaDataTypeNumMap
         timeseriesStatistics.addTimeseries(plan.getMeasurements().size());
 
-        List<Long> tagOffsets = plan.getTagOffsets();
-        for (int i = 0; i < measurements.size(); i++) {
-          if (tagOffsets != null && !plan.getTagOffsets().isEmpty() && isRecovering) {
-            if (tagOffsets.get(i) != -1) {
-              tagManager.recoverIndex(plan.getTagOffsets().get(i), measurementMNodeList.get(i));
-            }
-          } else if (tagsList != null && !tagsList.isEmpty()) {
-            if (tagsList.get(i) != null) {
-              // tag key, tag value
-              tagManager.addIndex(tagsList.get(i), measurementMNodeList.get(i));
-            }
-          }
-        }
-
         // write log
-        tagOffsets = new ArrayList<>();
+        List<Long> tagOffsets = new ArrayList<>();
         if (!isRecovering) {
           if ((tagsList != null && !tagsList.isEmpty())
               || (attributesList != null && !attributesList.isEmpty())) {
@@ -631,6 +633,20 @@ public class SchemaRegionSchemaFileImpl implements ISchemaRegion {
             mtree.updateMNode(measurementMNodeList.get(i));
           }
         }
+
+        // update tag index after the offsets are set
+        for (int i = 0; i < measurements.size(); i++) {
+          if (tagOffsets != null && !plan.getTagOffsets().isEmpty() && isRecovering) {
+            if (tagOffsets.get(i) != -1) {
+              tagManager.recoverIndex(plan.getTagOffsets().get(i), measurementMNodeList.get(i));
+            }
+          } else if (tagsList != null && !tagsList.isEmpty()) {
+            if (tagsList.get(i) != null) {
+              // tag key, tag value
+              tagManager.addIndex(tagsList.get(i), measurementMNodeList.get(i));
+            }
+          }
+        }
       } finally {
         for (IMeasurementMNode measurementMNode : measurementMNodeList) {
           mtree.unPinMNode(measurementMNode);
@@ -647,6 +663,79 @@ public class SchemaRegionSchemaFileImpl implements ISchemaRegion {
     }
   }
 
+  /**
+   * Create non-aligned timeseries of one device with one traversal of the MTree and one mlog entry.
+   * This is only used for auto creation, thus alias, props, tags and attributes of the plan are
+   * ignored.
+   *
+   * @param plan CreateMultiTimeSeriesPlan whose paths all belong to the same device
+   */
+  private void createNonAlignedTimeseries(CreateMultiTimeSeriesPlan plan) throws MetadataException {
+    if (!memoryStatistics.isAllowToCreateNewSeries()) {
+      throw new MetadataException(
+          "IoTDB system load is too large to create timeseries, "
+              + "please increase MAX_HEAP_SIZE in iotdb-env.sh/bat and restart");
+    }
+
+    List<PartialPath> paths = plan.getPaths();
+    PartialPath devicePath = paths.get(0).getDevicePath();
+    List<String> measurements = new ArrayList<>(paths.size());
+    for (int i = 0; i < paths.size(); i++) {
+      SchemaUtils.checkDataTypeWithEncoding(plan.getDataTypes().get(i), plan.getEncodings().get(i));
+      measurements.add(paths.get(i).getMeasurement());
+    }
+
+    try {
+      // create time series in MTree
+      List<IMeasurementMNode> measurementMNodeList =
+          mtree.createNonAlignedTimeseries(
+              devicePath,
+              measurements,
+              plan.getDataTypes(),
+              plan.getEncodings(),
+              plan.getCompressors());
+
+      try {
+        // the cached mNode may be replaced by new entityMNode in mtree
+        mNodeCache.invalidate(devicePath);
+
+        // update statistics and schemaDataTypeNumMap
+        timeseriesStatistics.addTimeseries(paths.size());
+
+        // write log
+        if (!isRecovering) {
+          logWriter.createMultiTimeseries(plan);
+          if (syncManager.isEnableSync()) {
+            syncManager.syncMetadataPlan(plan);
+          }
+        }
+      } finally {
+        for (IMeasurementMNode measurementMNode : measurementMNodeList) {
+          mtree.unPinMNode(measurementMNode);
+        }
+      }
+    } catch (IOException e) {
+      throw new MetadataException(e);
+    }
+
+    // update id table if not in recovering or disable id table log file
+    if (config.isEnableIDTable() && (!isRecovering || !config.isEnableIDTableLogFile())) {
+      IDTable idTable = IDTableManager.getInstance().getIDTable(devicePath);
+      for (int i = 0; i < paths.size(); i++) {
+        idTable.createTimeseries(
+            new CreateTimeSeriesPlan(
+                paths.get(i),
+                plan.getDataTypes().get(i),
+                plan.getEncodings().get(i),
+                plan.getCompressors().get(i),
+                null,
+                null,
+                null,
+                null));
+      }
+    }
+  }
+
   /**
    * Delete all timeseries matching the given path pattern. If using prefix match, the path pattern
    * is used to match prefix path. All timeseries start with the matched prefix path will be
@@ -1457,7 +1546,12 @@ public class SchemaRegionSchemaFileImpl implements ISchemaRegion {
         }
       }
 
-      // 2. get schema of each measurement
+      // 2. create all the absent timeseries of the device at once
+      if (!isDeviceInTemplate && config.isAutoCreateSchemaEnabled()) {
+        deviceMNode = autoCreateAbsentTimeseries(plan, deviceMNode);
+      }
+
+      // 3. get schema of each measurement
       IMeasurementMNode measurementMNode;
       for (int i = 0; i < measurementList.length; i++) {
         try {
@@ -1595,6 +1689,77 @@ public class SchemaRegionSchemaFileImpl implements ISchemaRegion {
     return new Pair<>(deviceMNode, measurementMNode);
   }
 
+  /**
+   * Create the timeseries of the plan which are neither in the MTree nor in the template with one
+   * MTree traversal and one mlog entry per batch. Failures are left to the per-measurement auto
+   * creation, which will retry and report them for each measurement.
+   *
+   * @return the device node, which may be replaced by a new entityMNode
+   */
+  private IMNode autoCreateAbsentTimeseries(InsertPlan plan, IMNode deviceMNode)
+      throws MetadataException {
+    if (!(plan instanceof InsertRowPlan || plan instanceof InsertTabletPlan)) {
+      return deviceMNode;
+    }
+
+    String[] measurementList = plan.getMeasurements();
+    TSDataType[] dataTypeList = plan.getDataTypes();
+    Template upperTemplate = deviceMNode.getUpperTemplate();
+    Set<String> measurementSet = new HashSet<>();
+    List<String> measurements = new ArrayList<>();
+    List<TSDataType> dataTypes = new ArrayList<>();
+    for (int i = 0; i < measurementList.length; i++) {
+      String measurement = measurementList[i];
+      if (measurement == null || dataTypeList[i] == null || !measurementSet.add(measurement)) {
+        continue;
+      }
+      try {
+        if (getMeasurementMNode(deviceMNode, measurement) != null) {
+          continue;
+        }
+      } catch (MetadataException e) {
+        continue;
+      }
+      if (upperTemplate != null && upperTemplate.getSchema(measurement) != null) {
+        continue;
+      }
+      measurements.add(measurement);
+      dataTypes.add(dataTypeList[i]);
+    }
+
+    // a single absent timeseries is left to the per-measurement auto creation
+    if (measurements.size() <= 1) {
+      return deviceMNode;
+    }
+
+    PartialPath devicePath = plan.getDevicePath();
+    for (int start = 0; start < measurements.size(); start += AUTO_CREATE_BATCH_SIZE) {
+      int end = Math.min(start + AUTO_CREATE_BATCH_SIZE, measurements.size());
+      try {
+        if (plan.isAligned()) {
+          internalAlignedCreateTimeseries(
+              devicePath, measurements.subList(start, end), dataTypes.subList(start, end));
+        } else {
+          internalNonAlignedCreateTimeseries(
+              devicePath, measurements.subList(start, end), dataTypes.subList(start, end));
+        }
+      } catch (PathAlreadyExistException
+          | TemplateImcompatibeException
+          | AlignedTimeseriesException e) {
+        // some of them are created concurrently or conflict with the device, while the failures
+        // of logging are thrown
+        logger.debug(
+            "Fail to create timeseries of {} in batch, create them one by one, because {}",
+            devicePath,
+            e.getMessage());
+      }
+    }
+    // after creating timeseries, the deviceMNode has been replaced by a new entityMNode
+    deviceMNode = mtree.getNodeByPath(devicePath);
+    mtree.unPinMNode(deviceMNode);
+    return deviceMNode;
+  }
+
   /** get dataType of plan, in loc measurements only support InsertRowPlan and InsertTabletPlan */
   private IMeasurementMNode findMeasurementInTemplate(IMNode deviceMNode, String measurement)
       throws MetadataException {
@@ -1629,6 +1794,26 @@ public class SchemaRegionSchemaFileImpl implements ISchemaRegion {
         Collections.emptyMap());
   }
 
+  /** create non-aligned timeseries of one device in batch */
+  private void internalNonAlignedCreateTimeseries(
+      PartialPath devicePath, List<String> measurements, List<TSDataType> dataTypes)
+      throws MetadataException {
+    CreateMultiTimeSeriesPlan plan = new CreateMultiTimeSeriesPlan();
+    List<PartialPath> paths = new ArrayList<>(measurements.size());
+    List<TSEncoding> encodings = new ArrayList<>(measurements.size());
+    List<CompressionType> compressors = new ArrayList<>(measurements.size());
+    for (int i = 0; i < measurements.size(); i++) {
+      paths.add(devicePath.concatNode(measurements.get(i)));
+      encodings.add(getDefaultEncoding(dataTypes.get(i)));
+      compressors.add(TSFileDescriptor.getInstance().getConfig().getCompressor());
+    }
+    plan.setPaths(paths);
+    plan.setDataTypes(new ArrayList<>(dataTypes));
+    plan.setEncodings(encodings);
+    plan.setCompressors(compressors);
+    createNonAlignedTimeseries(plan);
+  }
+
   /** create aligned timeseries ignoring PathAlreadyExistException */
   private void internalAlignedCreateTimeseries(
       PartialPath prefixPath, List<String> measurements, List<TSDataType> dataTypes)
@@ -205,6 +205,11 @@ public class RSchemaRegion implements ISchemaRegion {
     // do nothing
   }
 
+  @Override
+  public void createMTreeSnapshot() {
+    // do nothing
+  }
+
   @Override
   public SchemaRegionId getSchemaRegionId() {
     return schemaRegionId;
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.tag;
+
+import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * TagInvertedIndex maps each tag key and value to the posting list of the ids of the timeseries
+ * having it, and each id to its measurement node. A timeseries is indexed only once no matter how
+ * many tags it has, and the values matched by a predicate are united as posting lists before any
+ * node is touched.
+ */
+public class TagInvertedIndex {
+
+  // tag key -> tag value -> ids of timeseries
+  private final Map<String, Map<String, TagPostingList>> index = new HashMap<>();
+  // id -> LeafMNode
+  private IMeasurementMNode[] nodes = new IMeasurementMNode[16];
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  public void add(String tagKey, String tagValue, int id, IMeasurementMNode measurementMNode) {
+    lock.writeLock().lock();
+    try {
+      index
+          .computeIfAbsent(tagKey, k -> new HashMap<>())
+          .computeIfAbsent(tagValue, v -> new TagPostingList())
+          .add(id);
+      bind(id, measurementMNode);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** @return whether the timeseries had the tag */
+  public boolean remove(String tagKey, String tagValue, int id) {
+    lock.writeLock().lock();
+    try {
+      Map<String, TagPostingList> value2Ids = index.get(tagKey);
+      if (value2Ids == null) {
+        return false;
+      }
+      TagPostingList ids = value2Ids.get(tagValue);
+      if (ids == null || !ids.remove(id)) {
+        return false;
+      }
+      if (ids.isEmpty()) {
+        value2Ids.remove(tagValue);
+        if (value2Ids.isEmpty()) {
+          index.remove(tagKey);
+        }
+      }
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public boolean containsKey(String tagKey) {
+    lock.readLock().lock();
+    try {
+      return index.containsKey(tagKey);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public boolean contains(String tagKey, String tagValue) {
+    lock.readLock().lock();
+    try {
+      Map<String, TagPostingList> value2Ids = index.get(tagKey);
+      return value2Ids != null && value2Ids.containsKey(tagValue);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Bind the node to an id that is already in the index, e.g. one loaded from a snapshot. */
+  public void bindNode(int id, IMeasurementMNode measurementMNode) {
+    lock.writeLock().lock();
+    try {
+      bind(id, measurementMNode);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Forget the node of an id after the timeseries is deleted. */
+  public void unbindNode(int id) {
+    lock.writeLock().lock();
+    try {
+      if (id < nodes.length) {
+        nodes[id] = null;
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @return a new posting list of the timeseries whose value of the tag key is matched, an empty
+   *     one if there is no such timeseries
+   */
+  public TagPostingList getMatchedIds(String tagKey, Predicate<String> valueMatcher) {
+    lock.readLock().lock();
+    try {
+      TagPostingList result = new TagPostingList();
+      Map<String, TagPostingList> value2Ids = index.get(tagKey);
+      if (value2Ids != null) {
+        for (Map.Entry<String, TagPostingList> entry : value2Ids.entrySet()) {
+          if (valueMatcher.test(entry.getKey())) {
+            result = result.or(entry.getValue());
+          }
+        }
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return a new posting list of the timeseries having the tag, an empty one if there is no such
+   *     timeseries
+   */
+  public TagPostingList getMatchedIds(String tagKey, String tagValue) {
+    lock.readLock().lock();
+    try {
+      TagPostingList result = new TagPostingList();
+      Map<String, TagPostingList> value2Ids = index.get(tagKey);
+      TagPostingList ids = value2Ids == null ? null : value2Ids.get(tagValue);
+      return ids == null ? result : result.or(ids);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** @return a new posting list of all the indexed timeseries */
+  public TagPostingList getAllIds() {
+    lock.readLock().lock();
+    try {
+      TagPostingList result = new TagPostingList();
+      for (Map<String, TagPostingList> value2Ids : index.values()) {
+        for (TagPostingList ids : value2Ids.values()) {
+          result = result.or(ids);
+        }
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** @return the nodes of the ids in ascending order of ids, ids without nodes are skipped */
+  public List<IMeasurementMNode> getNodes(TagPostingList ids) {
+    lock.readLock().lock();
+    try {
+      List<IMeasurementMNode> result = new ArrayList<>(ids.cardinality());
+      ids.forEach(
+          id -> {
+            if (id < nodes.length && nodes[id] != null) {
+              result.add(nodes[id]);
+            }
+          });
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Serialize the posting lists, the nodes are not serialized and should be bound again. */
+  public void serialize(DataOutputStream outputStream) throws IOException {
+    lock.readLock().lock();
+    try {
+      outputStream.writeInt(index.size());
+      for (Map.Entry<String, Map<String, TagPostingList>> keyEntry : index.entrySet()) {
+        ReadWriteIOUtils.write(keyEntry.getKey(), outputStream);
+        outputStream.writeInt(keyEntry.getValue().size());
+        for (Map.Entry<String, TagPostingList> valueEntry : keyEntry.getValue().entrySet()) {
+          ReadWriteIOUtils.write(valueEntry.getKey(), outputStream);
+          valueEntry.getValue().serialize(outputStream);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public static TagInvertedIndex deserialize(DataInputStream inputStream) throws IOException {
+    TagInvertedIndex tagInvertedIndex = new TagInvertedIndex();
+    int keyNum = inputStream.readInt();
+    for (int i = 0; i < keyNum; i++) {
+      String tagKey = ReadWriteIOUtils.readString(inputStream);
+      int valueNum = inputStream.readInt();
+      Map<String, TagPostingList> value2Ids = new HashMap<>(valueNum * 2);
+      for (int j = 0; j < valueNum; j++) {
+        value2Ids.put(
+            ReadWriteIOUtils.readString(inputStream), TagPostingList.deserialize(inputStream));
+      }
+      tagInvertedIndex.index.put(tagKey, value2Ids);
+    }
+    return tagInvertedIndex;
+  }
+
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      index.clear();
+      nodes = new IMeasurementMNode[16];
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void bind(int id, IMeasurementMNode measurementMNode) {
+    if (id >= nodes.length) {
+      nodes = Arrays.copyOf(nodes, Math.max(id + 1, nodes.length * 2));
+    }
+    nodes[id] = measurementMNode;
+  }
+}
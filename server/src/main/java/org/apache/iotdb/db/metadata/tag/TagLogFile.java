@@ -149,6 +149,10 @@ public class TagLogFile implements AutoCloseable {
     }
   }
 
+  public long getFileLength() throws IOException {
+    return fileChannel.size();
+  }
+
   @Override
   public void close() throws IOException {
     fileChannel.force(true);
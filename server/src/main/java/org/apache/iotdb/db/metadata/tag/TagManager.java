@@ -21,6 +21,7 @@ package org.apache.iotdb.db.metadata.tag;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.engine.storagegroup.DataRegion;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
@@ -38,16 +39,22 @@ import org.apache.iotdb.tsfile.utils.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.stream.Collectors.toList;
 
@@ -65,34 +72,56 @@ public class TagManager {
 
   private String sgSchemaDirPath;
   private TagLogFile tagLogFile;
-  // tag key -> tag value -> LeafMNode
-  private Map<String, Map<String, Set<IMeasurementMNode>>> tagIndex = new ConcurrentHashMap<>();
+  // tag key -> tag value -> ids of LeafMNode, the id of a LeafMNode is the index of its record in
+  // tagFile
+  private TagInvertedIndex tagIndex = new TagInvertedIndex();
+  // ids in the index loaded from snapshot, their LeafMNodes are bound when recovering
+  private TagPostingList recoveredIds;
 
   public TagManager(String sgSchemaDirPath) throws IOException {
     this.sgSchemaDirPath = sgSchemaDirPath;
     tagLogFile = new TagLogFile(sgSchemaDirPath, MetadataConstant.TAG_LOG);
+    loadIndexSnapshot();
   }
 
   public boolean recoverIndex(long offset, IMeasurementMNode measurementMNode) throws IOException {
+    int id = getTagId(offset);
+    if (recoveredIds != null) {
+      // the index has been loaded from snapshot, there is no need to read tagFile
+      if (!recoveredIds.contains(id)) {
+        return false;
+      }
+      tagIndex.bindNode(id, measurementMNode);
+      return true;
+    }
     Map<String, String> tags = tagLogFile.readTag(config.getTagAttributeTotalSize(), offset);
     if (tags == null || tags.isEmpty()) {
       return false;
     } else {
-      addIndex(tags, measurementMNode);
+      for (Map.Entry<String, String> entry : tags.entrySet()) {
+        addIndex(entry.getKey(), entry.getValue(), id, measurementMNode);
+      }
       return true;
     }
   }
 
+  /** the offset of the measurement node should have been set */
   public void addIndex(String tagKey, String tagValue, IMeasurementMNode measurementMNode) {
+    if (measurementMNode == null || measurementMNode.getOffset() < 0) {
+      return;
+    }
+    addIndex(tagKey, tagValue, getTagId(measurementMNode.getOffset()), measurementMNode);
+  }
+
+  private void addIndex(
+      String tagKey, String tagValue, int id, IMeasurementMNode measurementMNode) {
     if (tagKey == null || tagValue == null || measurementMNode == null) {
       return;
     }
-    tagIndex
-        .computeIfAbsent(tagKey, k -> new ConcurrentHashMap<>())
-        .computeIfAbsent(tagValue, v -> Collections.synchronizedSet(new HashSet<>()))
-        .add(measurementMNode);
+    tagIndex.add(tagKey, tagValue, id, measurementMNode);
   }
 
+  /** the offset of the measurement node should have been set */
   public void addIndex(Map<String, String> tagsMap, IMeasurementMNode measurementMNode) {
     if (tagsMap != null && measurementMNode != null) {
       for (Map.Entry<String, String> entry : tagsMap.entrySet()) {
@@ -102,44 +131,22 @@ public class TagManager {
   }
 
   public void removeIndex(String tagKey, String tagValue, IMeasurementMNode measurementMNode) {
-    tagIndex.get(tagKey).get(tagValue).remove(measurementMNode);
-    if (tagIndex.get(tagKey).get(tagValue).isEmpty()) {
-      tagIndex.get(tagKey).remove(tagValue);
-    }
+    tagIndex.remove(tagKey, tagValue, getTagId(measurementMNode.getOffset()));
   }
 
   public List<IMeasurementMNode> getMatchedTimeseriesInIndex(
       ShowTimeSeriesPlan plan, QueryContext context) throws MetadataException {
-    if (!tagIndex.containsKey(plan.getKey())) {
-      return Collections.emptyList();
-    }
-    Map<String, Set<IMeasurementMNode>> value2Node = tagIndex.get(plan.getKey());
-    if (value2Node.isEmpty()) {
+    String targetValue = plan.getValue();
+    TagPostingList matchedIds =
+        plan.isContains()
+            ? tagIndex.getMatchedIds(
+                plan.getKey(), tagValue -> tagValue != null && tagValue.contains(targetValue))
+            : tagIndex.getMatchedIds(plan.getKey(), targetValue);
+    if (matchedIds.isEmpty()) {
       return Collections.emptyList();
     }
 
-    List<IMeasurementMNode> allMatchedNodes = new ArrayList<>();
-    if (plan.isContains()) {
-      for (Map.Entry<String, Set<IMeasurementMNode>> entry : value2Node.entrySet()) {
-        if (entry.getKey() == null || entry.getValue() == null) {
-          continue;
-        }
-        String tagValue = entry.getKey();
-        if (tagValue.contains(plan.getValue())) {
-          allMatchedNodes.addAll(entry.getValue());
-        }
-      }
-    } else {
-      for (Map.Entry<String, Set<IMeasurementMNode>> entry : value2Node.entrySet()) {
-        if (entry.getKey() == null || entry.getValue() == null) {
-          continue;
-        }
-        String tagValue = entry.getKey();
-        if (plan.getValue().equals(tagValue)) {
-          allMatchedNodes.addAll(entry.getValue());
-        }
-      }
-    }
+    List<IMeasurementMNode> allMatchedNodes = tagIndex.getNodes(matchedIds);
 
     // if ordered by heat, we sort all the timeseries by the descending order of the last insert
     // timestamp
@@ -200,8 +207,7 @@ public class TagManager {
         tagLogFile.readTag(config.getTagAttributeTotalSize(), node.getOffset());
     if (tagMap != null) {
       for (Map.Entry<String, String> entry : tagMap.entrySet()) {
-        if (tagIndex.containsKey(entry.getKey())
-            && tagIndex.get(entry.getKey()).containsKey(entry.getValue())) {
+        if (tagIndex.contains(entry.getKey(), entry.getValue())) {
           if (logger.isDebugEnabled()) {
             logger.debug(
                 String.format(
@@ -210,13 +216,7 @@ public class TagManager {
                     entry.getValue(),
                     node.getOffset()));
           }
-          tagIndex.get(entry.getKey()).get(entry.getValue()).remove(node);
-          if (tagIndex.get(entry.getKey()).get(entry.getValue()).isEmpty()) {
-            tagIndex.get(entry.getKey()).remove(entry.getValue());
-            if (tagIndex.get(entry.getKey()).isEmpty()) {
-              tagIndex.remove(entry.getKey());
-            }
-          }
+          removeIndex(entry.getKey(), entry.getValue(), node);
         } else {
           if (logger.isDebugEnabled()) {
             logger.debug(
@@ -230,6 +230,7 @@ public class TagManager {
         }
       }
     }
+    tagIndex.unbindNode(getTagId(node.getOffset()));
   }
 
   /**
@@ -253,7 +254,7 @@ public class TagManager {
         // we should remove before key-value from inverted index map
         if (beforeValue != null && !beforeValue.equals(value)) {
 
-          if (tagIndex.containsKey(key) && tagIndex.get(key).containsKey(beforeValue)) {
+          if (tagIndex.contains(key, beforeValue)) {
             if (logger.isDebugEnabled()) {
               logger.debug(
                   String.format(
@@ -379,33 +380,21 @@ public class TagManager {
     // persist the change to disk
     tagLogFile.write(pair.left, pair.right, leafMNode.getOffset());
 
-    Map<String, Set<IMeasurementMNode>> tagVal2LeafMNodeSet;
-    Set<IMeasurementMNode> MMNodes;
     for (Map.Entry<String, String> entry : deleteTag.entrySet()) {
       String key = entry.getKey();
       String value = entry.getValue();
       // change the tag inverted index map
-      tagVal2LeafMNodeSet = tagIndex.get(key);
-      if (tagVal2LeafMNodeSet != null) {
-        MMNodes = tagVal2LeafMNodeSet.get(value);
-        if (MMNodes != null) {
-          if (logger.isDebugEnabled()) {
-            logger.debug(
-                String.format(
-                    String.format(DEBUG_MSG, "Drop" + TAG_FORMAT, leafMNode.getFullPath()),
-                    entry.getKey(),
-                    entry.getValue(),
-                    leafMNode.getOffset()));
-          }
-
-          MMNodes.remove(leafMNode);
-          if (MMNodes.isEmpty()) {
-            tagVal2LeafMNodeSet.remove(value);
-            if (tagVal2LeafMNodeSet.isEmpty()) {
-              tagIndex.remove(key);
-            }
-          }
+      if (tagIndex.contains(key, value)) {
+        if (logger.isDebugEnabled()) {
+          logger.debug(
+              String.format(
+                  String.format(DEBUG_MSG, "Drop" + TAG_FORMAT, leafMNode.getFullPath()),
+                  entry.getKey(),
+                  entry.getValue(),
+                  leafMNode.getOffset()));
         }
+
+        removeIndex(key, value, leafMNode);
       } else {
         if (logger.isDebugEnabled()) {
           logger.debug(
@@ -460,7 +449,7 @@ public class TagManager {
       String beforeValue = entry.getValue();
       String currentValue = newTagValue.get(key);
       // change the tag inverted index map
-      if (tagIndex.containsKey(key) && tagIndex.get(key).containsKey(beforeValue)) {
+      if (tagIndex.contains(key, beforeValue)) {
 
         if (logger.isDebugEnabled()) {
           logger.debug(
@@ -471,7 +460,7 @@ public class TagManager {
                   leafMNode.getOffset()));
         }
 
-        tagIndex.get(key).get(beforeValue).remove(leafMNode);
+        removeIndex(key, beforeValue, leafMNode);
       } else {
         if (logger.isDebugEnabled()) {
           logger.debug(
@@ -515,7 +504,7 @@ public class TagManager {
       // persist the change to disk
       tagLogFile.write(pair.left, pair.right, leafMNode.getOffset());
       // change the tag inverted index map
-      if (tagIndex.containsKey(oldKey) && tagIndex.get(oldKey).containsKey(value)) {
+      if (tagIndex.contains(oldKey, value)) {
 
         if (logger.isDebugEnabled()) {
           logger.debug(
@@ -526,7 +515,7 @@ public class TagManager {
                   leafMNode.getOffset()));
         }
 
-        tagIndex.get(oldKey).get(value).remove(leafMNode);
+        removeIndex(oldKey, value, leafMNode);
 
       } else {
         if (logger.isDebugEnabled()) {
@@ -564,10 +553,79 @@ public class TagManager {
   }
 
   public void clear() throws IOException {
-    this.tagIndex.clear();
     if (tagLogFile != null) {
+      long tagLogFileLength = tagLogFile.getFileLength();
       tagLogFile.close();
       tagLogFile = null;
+      saveIndexSnapshot(tagLogFileLength);
+    }
+    this.tagIndex.clear();
+    this.recoveredIds = null;
+  }
+
+  /** the records in tagFile are of the same size, so the index of the record is used as id */
+  private int getTagId(long offset) {
+    return Math.toIntExact(offset / config.getTagAttributeTotalSize());
+  }
+
+  /**
+   * Persist the index with the length of tagFile when closing, so that the index could be loaded
+   * directly instead of reading the tags of all the timeseries from tagFile when restarting.
+   */
+  private void saveIndexSnapshot(long tagLogFileLength) {
+    File schemaDir = SystemFileFactory.INSTANCE.getFile(sgSchemaDirPath);
+    if (!schemaDir.exists()) {
+      return;
+    }
+    File snapshot = getIndexSnapshotFile();
+    File tmpSnapshot = SystemFileFactory.INSTANCE.getFile(snapshot.getPath() + ".tmp");
+    try {
+      try (DataOutputStream outputStream =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpSnapshot)))) {
+        outputStream.writeInt(config.getTagAttributeTotalSize());
+        outputStream.writeLong(tagLogFileLength);
+        tagIndex.serialize(outputStream);
+      }
+      Files.move(tmpSnapshot.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      logger.warn("Failed to save tag index snapshot {}", snapshot, e);
     }
   }
+
+  /**
+   * Load the index snapshot if it matches tagFile. The snapshot is removed after loading as it
+   * becomes stale once the index is modified, and it will be saved again when closing.
+   */
+  private void loadIndexSnapshot() throws IOException {
+    File snapshot = getIndexSnapshotFile();
+    if (!snapshot.exists()) {
+      return;
+    }
+    try (DataInputStream inputStream =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot)))) {
+      int recordSize = inputStream.readInt();
+      long tagLogFileLength = inputStream.readLong();
+      if (recordSize == config.getTagAttributeTotalSize()
+          && tagLogFileLength == tagLogFile.getFileLength()) {
+        tagIndex = TagInvertedIndex.deserialize(inputStream);
+        recoveredIds = tagIndex.getAllIds();
+      } else {
+        logger.info("Tag index snapshot {} is outdated, rebuild the index from tagFile", snapshot);
+      }
+    } catch (IOException e) {
+      logger.warn("Failed to load tag index snapshot {}, rebuild it from tagFile", snapshot, e);
+      tagIndex = new TagInvertedIndex();
+      recoveredIds = null;
+    }
+    if (!snapshot.delete()) {
+      logger.warn("Failed to delete tag index snapshot {}, rebuild it from tagFile", snapshot);
+      tagIndex = new TagInvertedIndex();
+      recoveredIds = null;
+    }
+  }
+
+  private File getIndexSnapshotFile() {
+    return SystemFileFactory.INSTANCE.getFile(
+        sgSchemaDirPath + File.separator + MetadataConstant.TAG_INDEX_SNAPSHOT);
+  }
 }
@@ -0,0 +1,466 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.tag;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * TagPostingList is a compressed sorted set of non-negative int ids in the manner of roaring
+ * bitmaps. Ids are partitioned by their high 16 bits, and the low 16 bits of each partition are
+ * kept in a container, which is a sorted char array while it holds at most {@link
+ * #ARRAY_CONTAINER_MAX_SIZE} values, or a 65536-bit bitmap otherwise. So each id takes at most 2
+ * bytes, and unions are done container by container.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class TagPostingList {
+
+  static final int ARRAY_CONTAINER_MAX_SIZE = 4096;
+  private static final int BITMAP_WORDS = 1 << 10;
+  private static final byte ARRAY_CONTAINER = 0;
+  private static final byte BITMAP_CONTAINER = 1;
+
+  /** high 16 bits of the ids in each container, in ascending order */
+  private char[] keys;
+
+  private Container[] containers;
+  private int containerNum;
+
+  public TagPostingList() {
+    this(4);
+  }
+
+  private TagPostingList(int capacity) {
+    keys = new char[capacity];
+    containers = new Container[capacity];
+  }
+
+  /** @return true if the id was not in the list */
+  public boolean add(int id) {
+    checkId(id);
+    char high = (char) (id >>> 16);
+    int index = binarySearch(high);
+    if (index < 0) {
+      index = -index - 1;
+      insertContainer(index, high, new ArrayContainer());
+    }
+    Container container = containers[index];
+    int before = container.cardinality();
+    containers[index] = container.add((char) id);
+    return containers[index].cardinality() > before;
+  }
+
+  /** @return true if the id was in the list */
+  public boolean remove(int id) {
+    if (id < 0) {
+      return false;
+    }
+    int index = binarySearch((char) (id >>> 16));
+    if (index < 0) {
+      return false;
+    }
+    Container container = containers[index];
+    int before = container.cardinality();
+    containers[index] = container.remove((char) id);
+    boolean removed = containers[index].cardinality() < before;
+    if (containers[index].cardinality() == 0) {
+      removeContainer(index);
+    }
+    return removed;
+  }
+
+  public boolean contains(int id) {
+    if (id < 0) {
+      return false;
+    }
+    int index = binarySearch((char) (id >>> 16));
+    return index >= 0 && containers[index].contains((char) id);
+  }
+
+  public boolean isEmpty() {
+    return containerNum == 0;
+  }
+
+  public int cardinality() {
+    int cardinality = 0;
+    for (int i = 0; i < containerNum; i++) {
+      cardinality += containers[i].cardinality();
+    }
+    return cardinality;
+  }
+
+  /** Visit the ids in ascending order. */
+  public void forEach(IntConsumer consumer) {
+    for (int i = 0; i < containerNum; i++) {
+      containers[i].forEach(keys[i] << 16, consumer);
+    }
+  }
+
+  public int[] toArray() {
+    int[] result = new int[cardinality()];
+    int[] index = new int[1];
+    forEach(id -> result[index[0]++] = id);
+    return result;
+  }
+
+  /** @return a new list holding the ids in this or the other list */
+  public TagPostingList or(TagPostingList other) {
+    TagPostingList result = new TagPostingList(Math.max(1, containerNum + other.containerNum));
+    int i = 0;
+    int j = 0;
+    while (i < containerNum || j < other.containerNum) {
+      if (j == other.containerNum || (i < containerNum && keys[i] < other.keys[j])) {
+        result.appendContainer(keys[i], containers[i].copy());
+        i++;
+      } else if (i == containerNum || keys[i] > other.keys[j]) {
+        result.appendContainer(other.keys[j], other.containers[j].copy());
+        j++;
+      } else {
+        result.appendContainer(keys[i], containers[i].or(other.containers[j]));
+        i++;
+        j++;
+      }
+    }
+    return result;
+  }
+
+  public void serialize(DataOutputStream outputStream) throws IOException {
+    outputStream.writeInt(containerNum);
+    for (int i = 0; i < containerNum; i++) {
+      outputStream.writeChar(keys[i]);
+      containers[i].serialize(outputStream);
+    }
+  }
+
+  public static TagPostingList deserialize(DataInputStream inputStream) throws IOException {
+    int containerNum = inputStream.readInt();
+    TagPostingList postingList = new TagPostingList(Math.max(1, containerNum));
+    for (int i = 0; i < containerNum; i++) {
+      char key = inputStream.readChar();
+      byte type = inputStream.readByte();
+      Container container;
+      if (type == ARRAY_CONTAINER) {
+        container = ArrayContainer.deserialize(inputStream);
+      } else if (type == BITMAP_CONTAINER) {
+        container = BitmapContainer.deserialize(inputStream);
+      } else {
+        throw new IOException("Unknown container type " + type + " of tag posting list");
+      }
+      postingList.appendContainer(key, container);
+    }
+    return postingList;
+  }
+
+  private static void checkId(int id) {
+    if (id < 0) {
+      throw new IllegalArgumentException("Id of tag posting list should not be negative: " + id);
+    }
+  }
+
+  private int binarySearch(char key) {
+    int low = 0;
+    int high = containerNum - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (keys[mid] < key) {
+        low = mid + 1;
+      } else if (keys[mid] > key) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > keys.length) {
+      int newCapacity = Math.max(capacity, keys.length * 2);
+      keys = Arrays.copyOf(keys, newCapacity);
+      containers = Arrays.copyOf(containers, newCapacity);
+    }
+  }
+
+  private void insertContainer(int index, char key, Container container) {
+    ensureCapacity(containerNum + 1);
+    System.arraycopy(keys, index, keys, index + 1, containerNum - index);
+    System.arraycopy(containers, index, containers, index + 1, containerNum - index);
+    keys[index] = key;
+    containers[index] = container;
+    containerNum++;
+  }
+
+  private void appendContainer(char key, Container container) {
+    insertContainer(containerNum, key, container);
+  }
+
+  private void removeContainer(int index) {
+    System.arraycopy(keys, index + 1, keys, index, containerNum - index - 1);
+    System.arraycopy(containers, index + 1, containers, index, containerNum - index - 1);
+    containerNum--;
+    containers[containerNum] = null;
+  }
+
+  /** the low 16 bits of the ids sharing the same high 16 bits */
+  private abstract static class Container {
+
+    /** @return the container holding the value, may be a new one of another type */
+    abstract Container add(char value);
+
+    /** @return the container without the value, may be a new one of another type */
+    abstract Container remove(char value);
+
+    abstract boolean contains(char value);
+
+    abstract int cardinality();
+
+    abstract Container or(Container other);
+
+    abstract Container copy();
+
+    abstract void forEach(int high, IntConsumer consumer);
+
+    abstract void serialize(DataOutputStream outputStream) throws IOException;
+  }
+
+  private static class ArrayContainer extends Container {
+    private char[] values;
+    private int size;
+
+    ArrayContainer() {
+      this(new char[4], 0);
+    }
+
+    ArrayContainer(char[] values, int size) {
+      this.values = values;
+      this.size = size;
+    }
+
+    @Override
+    Container add(char value) {
+      int index = Arrays.binarySearch(values, 0, size, value);
+      if (index >= 0) {
+        return this;
+      }
+      if (size == ARRAY_CONTAINER_MAX_SIZE) {
+        return toBitmap().add(value);
+      }
+      index = -index - 1;
+      if (size == values.length) {
+        values = Arrays.copyOf(values, Math.min(ARRAY_CONTAINER_MAX_SIZE, Math.max(4, size * 2)));
+      }
+      System.arraycopy(values, index, values, index + 1, size - index);
+      values[index] = value;
+      size++;
+      return this;
+    }
+
+    @Override
+    Container remove(char value) {
+      int index = Arrays.binarySearch(values, 0, size, value);
+      if (index >= 0) {
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+      }
+      return this;
+    }
+
+    @Override
+    boolean contains(char value) {
+      return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    @Override
+    int cardinality() {
+      return size;
+    }
+
+    @Override
+    Container or(Container other) {
+      if (other instanceof BitmapContainer) {
+        return other.or(this);
+      }
+      ArrayContainer array = (ArrayContainer) other;
+      char[] result = new char[size + array.size];
+      int resultSize = 0;
+      int i = 0;
+      int j = 0;
+      while (i < size || j < array.size) {
+        if (j == array.size || (i < size && values[i] < array.values[j])) {
+          result[resultSize++] = values[i++];
+        } else if (i == size || values[i] > array.values[j]) {
+          result[resultSize++] = array.values[j++];
+        } else {
+          result[resultSize++] = values[i];
+          i++;
+          j++;
+        }
+      }
+      ArrayContainer container = new ArrayContainer(result, resultSize);
+      return resultSize > ARRAY_CONTAINER_MAX_SIZE ? container.toBitmap() : container;
+    }
+
+    @Override
+    Container copy() {
+      return new ArrayContainer(Arrays.copyOf(values, Math.max(1, size)), size);
+    }
+
+    @Override
+    void forEach(int high, IntConsumer consumer) {
+      for (int i = 0; i < size; i++) {
+        consumer.accept(high | values[i]);
+      }
+    }
+
+    @Override
+    void serialize(DataOutputStream outputStream) throws IOException {
+      outputStream.writeByte(ARRAY_CONTAINER);
+      outputStream.writeShort(size);
+      for (int i = 0; i < size; i++) {
+        outputStream.writeChar(values[i]);
+      }
+    }
+
+    static ArrayContainer deserialize(DataInputStream inputStream) throws IOException {
+      int size = inputStream.readUnsignedShort();
+      char[] values = new char[Math.max(1, size)];
+      for (int i = 0; i < size; i++) {
+        values[i] = inputStream.readChar();
+      }
+      return new ArrayContainer(values, size);
+    }
+
+    private BitmapContainer toBitmap() {
+      BitmapContainer bitmap = new BitmapContainer();
+      for (int i = 0; i < size; i++) {
+        bitmap.add(values[i]);
+      }
+      return bitmap;
+    }
+  }
+
+  private static class BitmapContainer extends Container {
+    private final long[] words;
+    private int cardinality;
+
+    BitmapContainer() {
+      this(new long[BITMAP_WORDS], 0);
+    }
+
+    BitmapContainer(long[] words, int cardinality) {
+      this.words = words;
+      this.cardinality = cardinality;
+    }
+
+    @Override
+    Container add(char value) {
+      long before = words[value >>> 6];
+      words[value >>> 6] = before | (1L << value);
+      if (before != words[value >>> 6]) {
+        cardinality++;
+      }
+      return this;
+    }
+
+    @Override
+    Container remove(char value) {
+      long before = words[value >>> 6];
+      words[value >>> 6] = before & ~(1L << value);
+      if (before != words[value >>> 6]) {
+        cardinality--;
+        if (cardinality <= ARRAY_CONTAINER_MAX_SIZE) {
+          return toArray();
+        }
+      }
+      return this;
+    }
+
+    @Override
+    boolean contains(char value) {
+      return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    @Override
+    int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    Container or(Container other) {
+      long[] result = Arrays.copyOf(words, BITMAP_WORDS);
+      if (other instanceof ArrayContainer) {
+        BitmapContainer container = new BitmapContainer(result, cardinality);
+        other.forEach(0, value -> container.add((char) value));
+        return container;
+      }
+      long[] otherWords = ((BitmapContainer) other).words;
+      int resultCardinality = 0;
+      for (int i = 0; i < BITMAP_WORDS; i++) {
+        result[i] |= otherWords[i];
+        resultCardinality += Long.bitCount(result[i]);
+      }
+      return new BitmapContainer(result, resultCardinality);
+    }
+
+    @Override
+    Container copy() {
+      return new BitmapContainer(Arrays.copyOf(words, BITMAP_WORDS), cardinality);
+    }
+
+    @Override
+    void forEach(int high, IntConsumer consumer) {
+      for (int i = 0; i < BITMAP_WORDS; i++) {
+        long word = words[i];
+        while (word != 0) {
+          consumer.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+    }
+
+    @Override
+    void serialize(DataOutputStream outputStream) throws IOException {
+      outputStream.writeByte(BITMAP_CONTAINER);
+      for (long word : words) {
+        outputStream.writeLong(word);
+      }
+    }
+
+    static BitmapContainer deserialize(DataInputStream inputStream) throws IOException {
+      long[] words = new long[BITMAP_WORDS];
+      int cardinality = 0;
+      for (int i = 0; i < BITMAP_WORDS; i++) {
+        words[i] = inputStream.readLong();
+        cardinality += Long.bitCount(words[i]);
+      }
+      return new BitmapContainer(words, cardinality);
+    }
+
+    private ArrayContainer toArray() {
+      char[] values = new char[Math.max(1, cardinality)];
+      int[] size = new int[1];
+      forEach(0, value -> values[size[0]++] = (char) value);
+      return new ArrayContainer(values, size[0]);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.aggregation;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+
+/**
+ * Accumulator computes one aggregation function over whole columns instead of point by point. It
+ * keeps the state of the current aggregation window only, so the caller should invoke {@link
+ * #reset()} before moving to the next window.
+ */
+public interface Accumulator {
+
+  /**
+   * Column should be like: | Time | Value |. All the rows of the input columns must belong to the
+   * current aggregation window, the caller is responsible for slicing the input.
+   */
+  void addInput(Column[] column);
+
+  /**
+   * For aggregation function like COUNT, SUM, partialResult should be single column. But for AVG,
+   * FIRST_VALUE and LAST_VALUE, partialResult should be two columns. Each row of the columns is one
+   * partial result.
+   */
+  void addIntermediate(Column[] partialResult);
+
+  /** Update the result using the statistics of a file, chunk or page. */
+  void addStatistics(Statistics statistics);
+
+  /**
+   * Write the partial result of current window to the given column builders, the number of builders
+   * should be equal to the length of {@link #getIntermediateType()}.
+   */
+  void outputIntermediate(ColumnBuilder[] columnBuilders);
+
+  /** Write the final result of current window to the given column builder. */
+  void outputFinal(ColumnBuilder columnBuilder);
+
+  void reset();
+
+  /**
+   * Whether the accumulator has already got the final result of current window. If true, the
+   * remaining data in the window needn't to be consumed by this accumulator.
+   */
+  boolean hasFinalResult();
+
+  TSDataType[] getIntermediateType();
+
+  TSDataType getFinalType();
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.aggregation;
+
+import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.AggregationStep;
+import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.InputLocation;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Aggregator binds an {@link Accumulator} with its {@link AggregationStep} and the location of its
+ * input columns, it's the unit of calculation used by aggregation operators.
+ */
+public class Aggregator {
+
+  private final Accumulator accumulator;
+  // In some intermediate result input, inputLocation[] should include two columns
+  private final List<InputLocation[]> inputLocationList;
+  private final AggregationStep step;
+
+  // Used for SeriesAggregateScanOperator, the input is always the value column of the raw TsBlock
+  public Aggregator(Accumulator accumulator, AggregationStep step) {
+    this(
+        accumulator,
+        step,
+        Collections.singletonList(new InputLocation[] {new InputLocation(0, 0)}));
+  }
+
+  public Aggregator(
+      Accumulator accumulator, AggregationStep step, List<InputLocation[]> inputLocationList) {
+    this.accumulator = accumulator;
+    this.step = step;
+    this.inputLocationList = inputLocationList;
+  }
+
+  // Used for SeriesAggregateScanOperator
+  public void processTsBlock(TsBlock tsBlock) {
+    checkArgument(
+        step.isInputRaw(), "Step in SeriesAggregateScanOperator can only process raw input");
+    for (InputLocation[] inputLocations : inputLocationList) {
+      checkArgument(
+          inputLocations[0].getTsBlockIndex() == 0,
+          "SeriesAggregateScanOperator can only process one tsBlock input.");
+      Column[] timeValueColumn = new Column[2];
+      timeValueColumn[0] = tsBlock.getTimeColumn();
+      timeValueColumn[1] = tsBlock.getColumn(inputLocations[0].getValueColumnIndex());
+      accumulator.addInput(timeValueColumn);
+    }
+  }
+
+  /**
+   * Used for AggregateOperator. The element of tsBlocks can be null, which means the corresponding
+   * input has no data in current window.
+   */
+  public void processTsBlocks(TsBlock[] tsBlocks) {
+    for (InputLocation[] inputLocations : inputLocationList) {
+      if (step.isInputRaw()) {
+        TsBlock rawTsBlock = tsBlocks[inputLocations[0].getTsBlockIndex()];
+        if (rawTsBlock == null || rawTsBlock.isEmpty()) {
+          continue;
+        }
+        Column[] timeValueColumn = new Column[2];
+        timeValueColumn[0] = rawTsBlock.getTimeColumn();
+        timeValueColumn[1] = rawTsBlock.getColumn(inputLocations[0].getValueColumnIndex());
+        accumulator.addInput(timeValueColumn);
+      } else {
+        Column[] columns = new Column[inputLocations.length];
+        boolean hasInput = true;
+        for (int i = 0; i < inputLocations.length; i++) {
+          TsBlock partialTsBlock = tsBlocks[inputLocations[i].getTsBlockIndex()];
+          if (partialTsBlock == null || partialTsBlock.isEmpty()) {
+            hasInput = false;
+            break;
+          }
+          columns[i] = partialTsBlock.getColumn(inputLocations[i].getValueColumnIndex());
+        }
+        if (hasInput) {
+          accumulator.addIntermediate(columns);
+        }
+      }
+    }
+  }
+
+  public void processStatistics(Statistics statistics) {
+    checkArgument(
+        step.isInputRaw(), "Step in SeriesAggregateScanOperator can only process raw input");
+    accumulator.addStatistics(statistics);
+  }
+
+  public void outputResult(ColumnBuilder[] columnBuilders) {
+    if (step.isOutputPartial()) {
+      accumulator.outputIntermediate(columnBuilders);
+    } else {
+      accumulator.outputFinal(columnBuilders[0]);
+    }
+  }
+
+  public TSDataType[] getOutputType() {
+    if (step.isOutputPartial()) {
+      return accumulator.getIntermediateType();
+    } else {
+      return new TSDataType[] {accumulator.getFinalType()};
+    }
+  }
+
+  public AggregationStep getStep() {
+    return step;
+  }
+
+  public void reset() {
+    accumulator.reset();
+  }
+
+  public boolean hasFinalResult() {
+    return accumulator.hasFinalResult();
+  }
+}
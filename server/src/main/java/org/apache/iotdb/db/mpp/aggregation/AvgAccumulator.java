@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.aggregation;
+
+import org.apache.iotdb.tsfile.exception.filter.StatisticsClassException;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.IntegerStatistics;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class AvgAccumulator implements Accumulator {
+
+  private final TSDataType seriesDataType;
+  private long countValue;
+  private double sumValue;
+
+  public AvgAccumulator(TSDataType seriesDataType) {
+    this.seriesDataType = seriesDataType;
+  }
+
+  // Column should be like: | Time | Value |
+  @Override
+  public void addInput(Column[] column) {
+    switch (seriesDataType) {
+      case INT32:
+        addIntInput(column[1]);
+        break;
+      case INT64:
+        addLongInput(column[1]);
+        break;
+      case FLOAT:
+        addFloatInput(column[1]);
+        break;
+      case DOUBLE:
+        addDoubleInput(column[1]);
+        break;
+      case TEXT:
+      case BOOLEAN:
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Unsupported data type in aggregation AVG : %s", seriesDataType));
+    }
+  }
+
+  // partialResult should be like: | partialCountValue1 | partialSumValue1 |
+  @Override
+  public void addIntermediate(Column[] partialResult) {
+    checkArgument(partialResult.length == 2, "partialResult of Avg should be 2");
+    for (int i = 0; i < partialResult[0].getPositionCount(); i++) {
+      if (partialResult[0].isNull(i)) {
+        continue;
+      }
+      countValue += partialResult[0].getLong(i);
+      sumValue += partialResult[1].getDouble(i);
+    }
+  }
+
+  @Override
+  public void addStatistics(Statistics statistics) {
+    if (statistics == null || statistics.getCount() == 0) {
+      return;
+    }
+    if (statistics.getType() == TSDataType.BOOLEAN || statistics.getType() == TSDataType.TEXT) {
+      throw new StatisticsClassException(
+          String.format("%s statistics does not support: avg", statistics.getType()));
+    }
+    countValue += statistics.getCount();
+    if (statistics instanceof IntegerStatistics) {
+      sumValue += statistics.getSumLongValue();
+    } else {
+      sumValue += statistics.getSumDoubleValue();
+    }
+  }
+
+  @Override
+  public void outputIntermediate(ColumnBuilder[] columnBuilders) {
+    checkArgument(columnBuilders.length == 2, "partialResult of Avg should be 2");
+    if (countValue == 0) {
+      columnBuilders[0].appendNull();
+      columnBuilders[1].appendNull();
+    } else {
+      columnBuilders[0].writeLong(countValue);
+      columnBuilders[1].writeDouble(sumValue);
+    }
+  }
+
+  @Override
+  public void outputFinal(ColumnBuilder columnBuilder) {
+    if (countValue == 0) {
+      columnBuilder.appendNull();
+    } else {
+      columnBuilder.writeDouble(sumValue / countValue);
+    }
+  }
+
+  @Override
+  public void reset() {
+    this.countValue = 0;
+    this.sumValue = 0.0;
+  }
+
+  @Override
+  public boolean hasFinalResult() {
+    return false;
+  }
+
+  @Override
+  public TSDataType[] getIntermediateType() {
+    return new TSDataType[] {TSDataType.INT64, TSDataType.DOUBLE};
+  }
+
+  @Override
+  public TSDataType getFinalType() {
+    return TSDataType.DOUBLE;
+  }
+
+  private void addIntInput(Column column) {
+    for (int i = 0; i < column.getPositionCount(); i++) {
+      if (!column.isNull(i)) {
+        countValue++;
+        sumValue += column.getInt(i);
+      }
+    }
+  }
+
+  private void addLongInput(Column column) {
+    for (int i = 0; i < column.getPositionCount(); i++) {
+      if (!column.isNull(i)) {
+        countValue++;
+        sumValue += column.getLong(i);
+      }
+    }
+  }
+
+  private void addFloatInput(Column column) {
+    for (int i = 0; i < column.getPositionCount(); i++) {
+      if (!column.isNull(i)) {
+        countValue++;
+        sumValue += column.getFloat(i);
+      }
+    }
+  }
+
+  private void addDoubleInput(Column column) {
+    for (int i = 0; i < column.getPositionCount(); i++) {
+      if (!column.isNull(i)) {
+        countValue++;
+        sumValue += column.getDouble(i);
+      }
+    }
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.aggregation;
+
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * EXTREME returns the value with the largest absolute value, the positive one is preferred if there
+ * are two of them.
+ */
+public class ExtremeAccumulator implements Accumulator {
+
+  private final TSDataType seriesDataType;
+  private final TsPrimitiveType extremeResult;
+  private boolean initResult;
+
+  public ExtremeAccumulator(TSDataType seriesDataType) {
+    this.seriesDataType = seriesDataType;
+    this.extremeResult = TsPrimitiveType.getByType(seriesDataType);
+  }
+
+  // Column should be like: | Time | Value |
+  @Override
+  public void addInput(Column[] column) {
+    addColumn(column[1]);
+  }
+
+  // partialResult should be like: | partialExtremeValue |
+  @Override
+  public void addIntermediate(Column[] partialResult) {
+    checkArgument(partialResult.length == 1, "partialResult of Extreme should be 1");
+    addColumn(partialResult[0]);
+  }
+
+  @Override
+  public void addStatistics(Statistics statistics) {
+    if (statistics == null || statistics.getCount() == 0) {
+      return;
+    }
+    switch (seriesDataType) {
+      case INT32:
+        updateIntResult((int) statistics.getMaxValue());
+        updateIntResult((int) statistics.getMinValue());
+        break;
+      case INT64:
+        updateLongResult((long) statistics.getMaxValue());
+        updateLongResult((long) statistics.getMinValue());
+        break;
+      case FLOAT:
+        updateFloatResult((float) statistics.getMaxValue());
+        updateFloatResult((float) statistics.getMinValue());
+        break;
+      case DOUBLE:
+        updateDoubleResult((double) statistics.getMaxValue());
+        updateDoubleResult((double) statistics.getMinValue());
+        break;
+      case TEXT:
+      case BOOLEAN:
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Unsupported data type in aggregation EXTREME : %s", seriesDataType));
+    }
+  }
+
+  @Override
+  public void outputIntermediate(ColumnBuilder[] columnBuilders) {
+    checkArgument(columnBuilders.length == 1, "partialResult of Extreme should be 1");
+    outputFinal(columnBuilders[0]);
+  }
+
+  @Override
+  public void outputFinal(ColumnBuilder columnBuilder) {
+    if (!initResult) {
+      columnBuilder.appendNull();
+    } else {
+      columnBuilder.writeTsPrimitiveType(extremeResult);
+    }
+  }
+
+  @Override
+  public void reset() {
+    initResult = false;
+  }
+
+  @Override
+  public boolean hasFinalResult() {
+    return false;
+  }
+
+  @Override
+  public TSDataType[] getIntermediateType() {
+    return new TSDataType[] {seriesDataType};
+  }
+
+  @Override
+  public TSDataType getFinalType() {
+    return seriesDataType;
+  }
+
+  private void addColumn(Column column) {
+    int positionCount = column.getPositionCount();
+    switch (seriesDataType) {
+      case INT32:
+        for (int i = 0; i < positionCount; i++) {
+          if (!column.isNull(i)) {
+            updateIntResult(column.getInt(i));
+          }
+        }
+        break;
+      case INT64:
+        for (int i = 0; i < positionCount; i++) {
+          if (!column.isNull(i)) {
+            updateLongResult(column.getLong(i));
+          }
+        }
+        break;
+      case FLOAT:
+        for (int i = 0; i < positionCount; i++) {
+          if (!column.isNull(i)) {
+            updateFloatResult(column.getFloat(i));
+          }
+        }
+        break;
+      case DOUBLE:
+        for (int i = 0; i < positionCount; i++) {
+          if (!column.isNull(i)) {
+            updateDoubleResult(column.getDouble(i));
+          }
+        }
+        break;
+      case TEXT:
+      case BOOLEAN:
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Unsupported data type in aggregation EXTREME : %s", seriesDataType));
+    }
+  }
+
+  private void updateIntResult(int extVal) {
+    int absExtVal = Math.abs(extVal);
+    int candidateResult = extremeResult.getInt();
+    int absCandidateResult = Math.abs(candidateResult);
+    if (!initResult
+        || absExtVal > absCandidateResult
+        || (absExtVal == absCandidateResult && extVal > candidateResult)) {
+      initResult = true;
+      extremeResult.setInt(extVal);
+    }
+  }
+
+  private void updateLongResult(long extVal) {
+    long absExtVal = Math.abs(extVal);
+    long candidateResult = extremeResult.getLong();
+    long absCandidateResult = Math.abs(candidateResult);
+    if (!initResult
+        || absExtVal > absCandidateResult
+        || (absExtVal == absCandidateResult && extVal > candidateResult)) {
+      initResult = true;
+      extremeResult.setLong(extVal);
+    }
+  }
+
+  private void updateFloatResult(float extVal) {
+    float absExtVal = Math.abs(extVal);
+    float candidateResult = extremeResult.getFloat();
+    float absCandidateResult = Math.abs(candidateResult);
+    if (!initResult
+        || absExtVal > absCandidateResult
+        || (absExtVal == absCandidateResult && extVal > candidateResult)) {
+      initResult = true;
+      extremeResult.setFloat(extVal);
+    }
+  }
+
+  private void updateDoubleResult(double extVal) {
+    double absExtVal = Math.abs(extVal);
+    double candidateResult = extremeResult.getDouble();
+    double absCandidateResult = Math.abs(candidateResult);
+    if (!initResult
+        || absExtVal > absCandidateResult
+        || (absExtVal == absCandidateResult && extVal > candidateResult)) {
+      initResult = true;
+      extremeResult.setDouble(extVal);
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.aggregation;
+
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class LastValueAccumulator implements Accumulator {
+
+  private final TSDataType seriesDataType;
+  // whether the input data is in time ascending order
+  private final boolean ascending;
+  private final TsPrimitiveType lastValue;
+  private long maxTime = Long.MIN_VALUE;
+  private boolean hasCandidateResult;
+
+  public LastValueAccumulator(TSDataType seriesDataType, boolean ascending) {
+    this.seriesDataType = seriesDataType;
+    this.ascending = ascending;
+    this.lastValue = TsPrimitiveType.getByType(seriesDataType);
+  }
+
+  // Column should be like: | Time | Value |
+  @Override
+  public void addInput(Column[] column) {
+    Column timeColumn = column[0];
+    Column valueColumn = column[1];
+    int positionCount = timeColumn.getPositionCount();
+    if (!ascending) {
+      // the first not null point is the one with the maximum time
+      for (int i = 0; i < positionCount; i++) {
+        if (!valueColumn.isNull(i)) {
+          updateLastValue(valueColumn, i, timeColumn.getLong(i));
+          return;
+        }
+      }
+    } else {
+      for (int i = positionCount - 1; i >= 0; i--) {
+        if (!valueColumn.isNull(i)) {
+          updateLastValue(valueColumn, i, timeColumn.getLong(i));
+          return;
+        }
+      }
+    }
+  }
+
+  // partialResult should be like: | LastValue | MaxTime |
+  @Override
+  public void addIntermediate(Column[] partialResult) {
+    checkArgument(partialResult.length == 2, "partialResult of LastValue should be 2");
+    for (int i = 0; i < partialResult[0].getPositionCount(); i++) {
+      if (!partialResult[0].isNull(i)) {
+        updateLastValue(partialResult[0], i, partialResult[1].getLong(i));
+      }
+    }
+  }
+
+  @Override
+  public void addStatistics(Statistics statistics) {
+    if (statistics == null || statistics.getCount() == 0) {
+      return;
+    }
+    long time = statistics.getEndTime();
+    if (hasCandidateResult && time <= maxTime) {
+      return;
+    }
+    hasCandidateResult = true;
+    maxTime = time;
+    Object value = statistics.getLastValue();
+    switch (seriesDataType) {
+      case INT32:
+        lastValue.setInt((int) value);
+        break;
+      case INT64:
+        lastValue.setLong((long) value);
+        break;
+      case FLOAT:
+        lastValue.setFloat((float) value);
+        break;
+      case DOUBLE:
+        lastValue.setDouble((double) value);
+        break;
+      case TEXT:
+        lastValue.setBinary((Binary) value);
+        break;
+      case BOOLEAN:
+        lastValue.setBoolean((boolean) value);
+        break;
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Unsupported data type in aggregation LAST_VALUE : %s", seriesDataType));
+    }
+  }
+
+  @Override
+  public void outputIntermediate(ColumnBuilder[] columnBuilders) {
+    checkArgument(columnBuilders.length == 2, "partialResult of LastValue should be 2");
+    if (!hasCandidateResult) {
+      columnBuilders[0].appendNull();
+      columnBuilders[1].appendNull();
+    } else {
+      columnBuilders[0].writeTsPrimitiveType(lastValue);
+      columnBuilders[1].writeLong(maxTime);
+    }
+  }
+
+  @Override
+  public void outputFinal(ColumnBuilder columnBuilder) {
+    if (!hasCandidateResult) {
+      columnBuilder.appendNull();
+    } else {
+      columnBuilder.writeTsPrimitiveType(lastValue);
+    }
+  }
+
+  @Override
+  public void reset() {
+    hasCandidateResult = false;
+    maxTime = Long.MIN_VALUE;
+  }
+
+  @Override
+  public boolean hasFinalResult() {
+    // in descending order, the first point found must be the final result
+    return !ascending && hasCandidateResult;
+  }
+
+  @Override
+  public TSDataType[] getIntermediateType() {
+    return new TSDataType[] {seriesDataType, TSDataType.INT64};
+  }
+
+  @Override
+  public TSDataType getFinalType() {
+    return seriesDataType;
+  }
+
+  private void updateLastValue(Column valueColumn, int position, long time) {
+    if (hasCandidateResult && time <= maxTime) {
+      return;
+    }
+    hasCandidateResult = true;
+    maxTime = time;
+    switch (seriesDataType) {
+      case INT32:
+        lastValue.setInt(valueColumn.getInt(position));
+        break;
+      case INT64:
+        lastValue.setLong(valueColumn.getLong(position));
+        break;
+      case FLOAT:
+        lastValue.setFloat(valueColumn.getFloat(position));
+        break;
+      case DOUBLE:
+        lastValue.setDouble(valueColumn.getDouble(position));
+        break;
+      case TEXT:
+        lastValue.setBinary(valueColumn.getBinary(position));
+        break;
+      case BOOLEAN:
+        lastValue.setBoolean(valueColumn.getBoolean(position));
+        break;
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Unsupported data type in aggregation LAST_VALUE : %s", seriesDataType));
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.aggregation;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class MaxTimeAccumulator implements Accumulator {
+
+  // whether the input data is in time ascending order
+  private final boolean ascending;
+  private long maxTime = Long.MIN_VALUE;
+  private boolean hasCandidateResult;
+
+  public MaxTimeAccumulator(boolean ascending) {
+    this.ascending = ascending;
+  }
+
+  // Column should be like: | Time | Value |
+  @Override
+  public void addInput(Column[] column) {
+    Column timeColumn = column[0];
+    Column valueColumn = column[1];
+    int positionCount = timeColumn.getPositionCount();
+    if (!ascending) {
+      for (int i = 0; i < positionCount; i++) {
+        if (!valueColumn.isNull(i)) {
+          updateMaxTime(timeColumn.getLong(i));
+          return;
+        }
+      }
+    } else {
+      for (int i = positionCount - 1; i >= 0; i--) {
+        if (!valueColumn.isNull(i)) {
+          updateMaxTime(timeColumn.getLong(i));
+          return;
+        }
+      }
+    }
+  }
+
+  // partialResult should be like: | partialMaxTimeValue |
+  @Override
+  public void addIntermediate(Column[] partialResult) {
+    checkArgument(partialResult.length == 1, "partialResult of MaxTime should be 1");
+    for (int i = 0; i < partialResult[0].getPositionCount(); i++) {
+      if (!partialResult[0].isNull(i)) {
+        updateMaxTime(partialResult[0].getLong(i));
+      }
+    }
+  }
+
+  @Override
+  public void addStatistics(Statistics statistics) {
+    if (statistics == null || statistics.getCount() == 0) {
+      return;
+    }
+    updateMaxTime(statistics.getEndTime());
+  }
+
+  @Override
+  public void outputIntermediate(ColumnBuilder[] columnBuilders) {
+    checkArgument(columnBuilders.length == 1, "partialResult of MaxTime should be 1");
+    outputFinal(columnBuilders[0]);
+  }
+
+  @Override
+  public void outputFinal(ColumnBuilder columnBuilder) {
+    if (!hasCandidateResult) {
+      columnBuilder.appendNull();
+    } else {
+      columnBuilder.writeLong(maxTime);
+    }
+  }
+
+  @Override
+  public void reset() {
+    hasCandidateResult = false;
+    maxTime = Long.MIN_VALUE;
+  }
+
+  @Override
+  public boolean hasFinalResult() {
+    return !ascending && hasCandidateResult;
+  }
+
+  @Override
+  public TSDataType[] getIntermediateType() {
+    return new TSDataType[] {TSDataType.INT64};
+  }
+
+  @Override
+  public TSDataType getFinalType() {
+    return TSDataType.INT64;
+  }
+
+  private void updateMaxTime(long time) {
+    if (!hasCandidateResult || time > maxTime) {
+      hasCandidateResult = true;
+      maxTime = time;
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.aggregation;
+
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class MaxValueAccumulator implements Accumulator {
+
+  private final TSDataType seriesDataType;
+  private final TsPrimitiveType maxResult;
+  private boolean initResult;
+
+  public MaxValueAccumulator(TSDataType seriesDataType) {
+    this.seriesDataType = seriesDataType;
+    this.maxResult = TsPrimitiveType.getByType(seriesDataType);
+  }
+
+  // Column should be like: | Time | Value |
+  @Override
+  public void addInput(Column[] column) {
+    addColumn(column[1]);
+  }
+
+  // partialResult should be like: | partialMaxValue |
+  @Override
+  public void addIntermediate(Column[] partialResult) {
+    checkArgument(partialResult.length == 1, "partialResult of MaxValue should be 1");
+    addColumn(partialResult[0]);
+  }
+
+  @Override
+  public void addStatistics(Statistics statistics) {
+    if (statistics == null || statistics.getCount() == 0) {
+      return;
+    }
+    switch (seriesDataType) {
+      case INT32:
+        updateIntResult((int) statistics.getMaxValue());
+        break;
+      case INT64:
+        updateLongResult((long) statistics.getMaxValue());
+        break;
+      case FLOAT:
+        updateFloatResult((float) statistics.getMaxValue());
+        break;
+      case DOUBLE:
+        updateDoubleResult((double) statistics.getMaxValue());
+        break;
+      case TEXT:
+      case BOOLEAN:
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Unsupported data type in aggregation MAX_VALUE : %s", seriesDataType));
+    }
+  }
+
+  @Override
+  public void outputIntermediate(ColumnBuilder[] columnBuilders) {
+    checkArgument(columnBuilders.length == 1, "partialResult of MaxValue should be 1");
+    outputFinal(columnBuilders[0]);
+  }
+
+  @Override
+  public void outputFinal(ColumnBuilder columnBuilder) {
+    if (!initResult) {
+      columnBuilder.appendNull();
+    } else {
+      columnBuilder.writeTsPrimitiveType(maxResult);
+    }
+  }
+
+  @Override
+  public void reset() {
+    initResult = false;
+  }
+
+  @Override
+  public boolean hasFinalResult() {
+    return false;
+  }
+
+  @Override
+  public TSDataType[] getIntermediateType() {
+    return new TSDataType[] {seriesDataType};
+  }
+
+  @Override
+  public TSDataType getFinalType() {
+    return seriesDataType;
+  }
+
+  private void addColumn(Column column) {
+    int positionCount = column.getPositionCount();
+    switch (seriesDataType) {
+      case INT32:
+        for (int i = 0; i < positionCount; i++) {
+          if (!column.isNull(i)) {
+            updateIntResult(column.getInt(i));
+          }
+        }
+        break;
+      case INT64:
+        for (int i = 0; i < positionCount; i++) {
+          if (!column.isNull(i)) {
+            updateLongResult(column.getLong(i));
+          }
+        }
+        break;
+      case FLOAT:
+        for (int i = 0; i < positionCount; i++) {
+          if (!column.isNull(i)) {
+            updateFloatResult(column.getFloat(i));
+          }
+        }
+        break;
+      case DOUBLE:
+        for (int i = 0; i < positionCount; i++) {
+          if (!column.isNull(i)) {
+            updateDoubleResult(column.getDouble(i));
+          }
+        }
+        break;
+      case TEXT:
+      case BOOLEAN:
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Unsupported data type in aggregation MAX_VALUE : %s", seriesDataType));
+    }
+  }
+
+  private void updateIntResult(int maxVal) {
+    if (!initResult || maxVal > maxResult.getInt()) {
+      initResult = true;
+      maxResult.setInt(maxVal);
+    }
+  }
+
+  private void updateLongResult(long maxVal) {
+    if (!initResult || maxVal > maxResult.getLong()) {
+      initResult = true;
+      maxResult.setLong(maxVal);
+    }
+  }
+
+  private void updateFloatResult(float maxVal) {
+    if (!initResult || maxVal > maxResult.getFloat()) {
+      initResult = true;
+      maxResult.setFloat(maxVal);
+    }
+  }
+
+  private void updateDoubleResult(double maxVal) {
+    if (!initResult || maxVal > maxResult.getDouble()) {
+      initResult = true;
+      maxResult.setDouble(maxVal);
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.aggregation;
+
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class MinValueAccumulator implements Accumulator {
+
+  private final TSDataType seriesDataType;
+  private final TsPrimitiveType minResult;
+  private boolean initResult;
+
+  public MinValueAccumulator(TSDataType seriesDataType) {
+    this.seriesDataType = seriesDataType;
+    this.minResult = TsPrimitiveType.getByType(seriesDataType);
+  }
+
+  // Column should be like: | Time | Value |
+  @Override
+  public void addInput(Column[] column) {
+    addColumn(column[1]);
+  }
+
+  // partialResult should be like: | partialMinValue |
+  @Override
+  public void addIntermediate(Column[] partialResult) {
+    checkArgument(partialResult.length == 1, "partialResult of MinValue should be 1");
+    addColumn(partialResult[0]);
+  }
+
+  @Override
+  public void addStatistics(Statistics statistics) {
+    if (statistics == null || statistics.getCount() == 0) {
+      return;
+    }
+    switch (seriesDataType) {
+      case INT32:
+        updateIntResult((int) statistics.getMinValue());
+        break;
+      case INT64:
+        updateLongResult((long) statistics.getMinValue());
+        break;
+      case FLOAT:
+        updateFloatResult((float) statistics.getMinValue());
+        break;
+      case DOUBLE:
+        updateDoubleResult((double) statistics.getMinValue());
+        break;
+      case TEXT:
+      case BOOLEAN:
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Unsupported data type in aggregation MIN_VALUE : %s", seriesDataType));
+    }
+  }
+
+  @Override
+  public void outputIntermediate(ColumnBuilder[] columnBuilders) {
+    checkArgument(columnBuilders.length == 1, "partialResult of MinValue should be 1");
+    outputFinal(columnBuilders[0]);
+  }
+
+  @Override
+  public void outputFinal(ColumnBuilder columnBuilder) {
+    if (!initResult) {
+      columnBuilder.appendNull();
+    } else {
+      columnBuilder.writeTsPrimitiveType(minResult);
+    }
+  }
+
+  @Override
+  public void reset() {
+    initResult = false;
+  }
+
+  @Override
+  public boolean hasFinalResult() {
+    return false;
+  }
+
+  @Override
+  public TSDataType[] getIntermediateType() {
+    return new TSDataType[] {seriesDataType};
+  }
+
+  @Override
+  public TSDataType getFinalType() {
+    return seriesDataType;
+  }
+
+  private void addColumn(Column column) {
+    int positionCount = column.getPositionCount();
+    switch (seriesDataType) {
+      case INT32:
+        for (int i = 0; i < positionCount; i++) {
+          if (!column.isNull(i)) {
+            updateIntResult(column.getInt(i));
+          }
+        }
+        break;
+      case INT64:
+        for (int i = 0; i < positionCount; i++) {
+          if (!column.isNull(i)) {
+            updateLongResult(column.getLong(i));
+          }
+        }
+        break;
+      case FLOAT:
+        for (int i = 0; i < positionCount; i++) {
+          if (!column.isNull(i)) {
+            updateFloatResult(column.getFloat(i));
+          }
+        }
+        break;
+      case DOUBLE:
+        for (int i = 0; i < positionCount; i++) {
+          if (!column.isNull(i)) {
+            updateDoubleResult(column.getDouble(i));
+          }
+        }
+        break;
+      case TEXT:
+      case BOOLEAN:
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Unsupported data type in aggregation MIN_VALUE : %s", seriesDataType));
+    }
+  }
+
+  private void updateIntResult(int minVal) {
+    if (!initResult || minVal < minResult.getInt()) {
+      initResult = true;
+      minResult.setInt(minVal);
+    }
+  }
+
+  private void updateLongResult(long minVal) {
+    if (!initResult || minVal < minResult.getLong()) {
+      initResult = true;
+      minResult.setLong(minVal);
+    }
+  }
+
+  private void updateFloatResult(float minVal) {
+    if (!initResult || minVal < minResult.getFloat()) {
+      initResult = true;
+      minResult.setFloat(minVal);
+    }
+  }
+
+  private void updateDoubleResult(double minVal) {
+    if (!initResult || minVal < minResult.getDouble()) {
+      initResult = true;
+      minResult.setDouble(minVal);
+    }
+  }
+}
@@ -35,7 +35,11 @@ import org.apache.iotdb.db.mpp.sql.analyze.Analyzer;
 import org.apache.iotdb.db.mpp.sql.analyze.IPartitionFetcher;
 import org.apache.iotdb.db.mpp.sql.analyze.ISchemaFetcher;
 import org.apache.iotdb.db.mpp.sql.analyze.QueryType;
+import org.apache.iotdb.db.mpp.sql.optimization.AggregationPushDown;
+import org.apache.iotdb.db.mpp.sql.optimization.LimitOffsetPushDown;
 import org.apache.iotdb.db.mpp.sql.optimization.PlanOptimizer;
+import org.apache.iotdb.db.mpp.sql.optimization.PredicatePushDown;
+import org.apache.iotdb.db.mpp.sql.optimization.RemoveRedundantFilterNull;
 import org.apache.iotdb.db.mpp.sql.planner.DistributionPlanner;
 import org.apache.iotdb.db.mpp.sql.planner.LogicalPlanner;
 import org.apache.iotdb.db.mpp.sql.planner.plan.DistributedQueryPlan;
@@ -51,7 +55,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
@@ -106,7 +110,14 @@ public class QueryExecution implements IQueryExecution {
     this.executor = executor;
     this.scheduledExecutor = scheduledExecutor;
     this.context = context;
-    this.planOptimizers = new ArrayList<>();
+    // the order matters: the filters are pushed down before checking whether the input of
+    // aggregation is raw data, and the limit is pushed down after the redundant nodes are removed
+    this.planOptimizers =
+        Arrays.asList(
+            new PredicatePushDown(),
+            new RemoveRedundantFilterNull(),
+            new AggregationPushDown(),
+            new LimitOffsetPushDown());
     this.analysis = analyze(statement, context, partitionFetcher, schemaFetcher);
     this.stateMachine = new QueryStateMachine(context.getQueryId(), executor);
     this.partitionFetcher = partitionFetcher;
@@ -18,40 +18,246 @@
  */
 package org.apache.iotdb.db.mpp.operator.process;
 
+import org.apache.iotdb.db.mpp.aggregation.Aggregator;
+import org.apache.iotdb.db.mpp.operator.Operator;
 import org.apache.iotdb.db.mpp.operator.OperatorContext;
+import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.GroupByTimeParameter;
+import org.apache.iotdb.db.utils.timerangeiterator.ITimeRangeIterator;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumnBuilder;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.apache.iotdb.db.mpp.operator.AggregationUtil.initTimeRangeIterator;
+
+/**
+ * AggregateOperator can process the situation: aggregation of intermediate aggregate result, it
+ * will output one tsBlock contain many results on aggregation time intervals. One intermediate
+ * tsBlock input will only contain the result of one time interval exactly. It can also process the
+ * raw data input, in which case the input tsBlocks should be sorted by time.
+ *
+ * <p>Different from the legacy point-by-point aggregation, each input tsBlock is sliced by the
+ * current time window and the whole columns of the slice are passed to the {@link Aggregator}s.
+ * When the time windows overlap, i.e., the sliding step is less than the interval, a row may belong
+ * to several windows, so the input tsBlocks are kept until the start of a later window passes them.
+ */
 public class AggregateOperator implements ProcessOperator {
 
+  private final OperatorContext operatorContext;
+  private final List<Aggregator> aggregators;
+  private final List<Operator> children;
+
+  private final int inputOperatorsCount;
+  private final boolean ascending;
+
+  // tsBlocks of each child which may contain rows of current or later time windows
+  private final List<List<TsBlock>> inputTsBlocks;
+  // number of the tsBlocks of each child that have been processed in current time window
+  private final int[] processedTsBlockNum;
+  // whether all the data of each child in current time window has been consumed
+  private final boolean[] inputConsumed;
+  private final boolean[] noMoreTsBlocks;
+
+  private final ITimeRangeIterator timeRangeIterator;
+  // current interval of aggregation window [curStartTime, curEndTime), null means the result of
+  // previous window has been returned and the next window should be prepared
+  private TimeRange curTimeRange;
+
+  private final TsBlockBuilder tsBlockBuilder;
+  private boolean finished = false;
+
+  public AggregateOperator(
+      OperatorContext operatorContext,
+      List<Aggregator> aggregators,
+      List<Operator> children,
+      boolean ascending,
+      GroupByTimeParameter groupByTimeParameter) {
+    checkArgument(
+        children != null && children.size() > 0,
+        "child size of AggregateOperator should be larger than 0");
+    this.operatorContext = operatorContext;
+    this.aggregators = aggregators;
+    this.children = children;
+    this.inputOperatorsCount = children.size();
+    this.ascending = ascending;
+    this.inputTsBlocks = new ArrayList<>(inputOperatorsCount);
+    for (int i = 0; i < inputOperatorsCount; i++) {
+      inputTsBlocks.add(new ArrayList<>());
+    }
+    this.processedTsBlockNum = new int[inputOperatorsCount];
+    this.inputConsumed = new boolean[inputOperatorsCount];
+    this.noMoreTsBlocks = new boolean[inputOperatorsCount];
+    // the final results are output by the real time windows, which may overlap
+    this.timeRangeIterator =
+        initTimeRangeIterator(
+            groupByTimeParameter,
+            ascending,
+            !aggregators.isEmpty() && aggregators.get(0).getStep().isOutputPartial());
+
+    List<TSDataType> dataTypes = new ArrayList<>();
+    for (Aggregator aggregator : aggregators) {
+      dataTypes.addAll(Arrays.asList(aggregator.getOutputType()));
+    }
+    this.tsBlockBuilder = new TsBlockBuilder(dataTypes);
+  }
+
   @Override
   public OperatorContext getOperatorContext() {
-    return null;
+    return operatorContext;
   }
 
   @Override
   public ListenableFuture<Void> isBlocked() {
-    return ProcessOperator.super.isBlocked();
+    for (int i = 0; i < inputOperatorsCount; i++) {
+      if (!inputConsumed[i]
+          && !noMoreTsBlocks[i]
+          && processedTsBlockNum[i] == inputTsBlocks.get(i).size()) {
+        ListenableFuture<Void> blocked = children.get(i).isBlocked();
+        if (!blocked.isDone()) {
+          return blocked;
+        }
+      }
+    }
+    return NOT_BLOCKED;
   }
 
   @Override
   public TsBlock next() {
-    return null;
+    if (curTimeRange == null && !hasNext()) {
+      return null;
+    }
+
+    for (int i = 0; i < inputOperatorsCount; i++) {
+      List<TsBlock> tsBlocks = inputTsBlocks.get(i);
+      while (!inputConsumed[i]) {
+        if (processedTsBlockNum[i] == tsBlocks.size()) {
+          if (noMoreTsBlocks[i] || !children.get(i).hasNext()) {
+            noMoreTsBlocks[i] = true;
+            inputConsumed[i] = true;
+            break;
+          }
+          TsBlock tsBlock = children.get(i).next();
+          // child is not ready, try to consume it again in the next invoking
+          if (tsBlock == null) {
+            return null;
+          }
+          tsBlocks.add(tsBlock);
+        }
+        calcFromTsBlock(i);
+      }
+    }
+
+    TsBlock resultTsBlock = buildResultTsBlock();
+    curTimeRange = null;
+    return resultTsBlock;
+  }
+
+  /**
+   * Consume the rows of the next unprocessed tsBlock of the child which belong to current time
+   * window. The tsBlock is kept for the later windows, only the rows before current window are
+   * dropped, as the later windows start after current window.
+   */
+  private void calcFromTsBlock(int childIndex) {
+    List<TsBlock> tsBlocks = inputTsBlocks.get(childIndex);
+    int tsBlockIndex = processedTsBlockNum[childIndex]++;
+    TsBlock tsBlock = tsBlocks.get(tsBlockIndex);
+    int positionCount = tsBlock.getPositionCount();
+
+    // skip points that cannot be calculated
+    int startIndex = 0;
+    while (startIndex < positionCount && isBeforeCurTimeRange(tsBlock.getTimeByIndex(startIndex))) {
+      startIndex++;
+    }
+    int endIndex = startIndex;
+    while (endIndex < positionCount && !isAfterCurTimeRange(tsBlock.getTimeByIndex(endIndex))) {
+      endIndex++;
+    }
+
+    if (endIndex > startIndex) {
+      TsBlock[] inputs = new TsBlock[inputOperatorsCount];
+      inputs[childIndex] = tsBlock.getRegion(startIndex, endIndex - startIndex);
+      for (Aggregator aggregator : aggregators) {
+        aggregator.processTsBlocks(inputs);
+      }
+    }
+
+    // the remaining points belong to the next windows, so current window of this child is done
+    if (endIndex < positionCount) {
+      inputConsumed[childIndex] = true;
+    }
+
+    // only the first tsBlock can have rows before current window, as the previous ones are dropped
+    if (tsBlockIndex == 0 && startIndex > 0) {
+      if (startIndex == positionCount) {
+        tsBlocks.remove(0);
+        processedTsBlockNum[childIndex]--;
+      } else {
+        tsBlocks.set(0, tsBlock.getRegion(startIndex, positionCount - startIndex));
+      }
+    }
+  }
+
+  private boolean isBeforeCurTimeRange(long time) {
+    return ascending ? time < curTimeRange.getMin() : time >= curTimeRange.getMax();
+  }
+
+  private boolean isAfterCurTimeRange(long time) {
+    return ascending ? time >= curTimeRange.getMax() : time < curTimeRange.getMin();
+  }
+
+  private TsBlock buildResultTsBlock() {
+    tsBlockBuilder.reset();
+    TimeColumnBuilder timeColumnBuilder = tsBlockBuilder.getTimeColumnBuilder();
+    // Use start time of current time range as time column
+    timeColumnBuilder.writeLong(curTimeRange.getMin());
+    ColumnBuilder[] columnBuilders = tsBlockBuilder.getValueColumnBuilders();
+    int columnIndex = 0;
+    for (Aggregator aggregator : aggregators) {
+      ColumnBuilder[] columnBuilder = new ColumnBuilder[aggregator.getOutputType().length];
+      System.arraycopy(columnBuilders, columnIndex, columnBuilder, 0, columnBuilder.length);
+      aggregator.outputResult(columnBuilder);
+      columnIndex += columnBuilder.length;
+    }
+    tsBlockBuilder.declarePosition();
+    return tsBlockBuilder.build();
   }
 
   @Override
   public boolean hasNext() {
-    return false;
+    if (curTimeRange != null) {
+      return true;
+    }
+    if (!timeRangeIterator.hasNextTimeRange()) {
+      return false;
+    }
+    curTimeRange = timeRangeIterator.nextTimeRange();
+    // clear previous aggregation result
+    for (Aggregator aggregator : aggregators) {
+      aggregator.reset();
+    }
+    Arrays.fill(inputConsumed, false);
+    Arrays.fill(processedTsBlockNum, 0);
+    return true;
   }
 
   @Override
   public void close() throws Exception {
-    ProcessOperator.super.close();
+    for (Operator child : children) {
+      child.close();
+    }
   }
 
   @Override
   public boolean isFinished() {
-    return false;
+    return finished || (finished = !hasNext());
   }
 }
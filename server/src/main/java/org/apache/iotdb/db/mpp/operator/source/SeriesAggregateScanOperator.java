@@ -19,22 +19,16 @@
 package org.apache.iotdb.db.mpp.operator.source;
 
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
-import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.mpp.aggregation.Aggregator;
 import org.apache.iotdb.db.mpp.operator.OperatorContext;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNodeId;
 import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.GroupByTimeParameter;
-import org.apache.iotdb.db.query.aggregation.AggregateResult;
-import org.apache.iotdb.db.query.aggregation.AggregationType;
-import org.apache.iotdb.db.query.factory.AggregateResultFactory;
-import org.apache.iotdb.db.utils.SchemaUtils;
 import org.apache.iotdb.db.utils.timerangeiterator.ITimeRangeIterator;
-import org.apache.iotdb.db.utils.timerangeiterator.SingleTimeWindowIterator;
-import org.apache.iotdb.db.utils.timerangeiterator.TimeRangeIteratorFactory;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
-import org.apache.iotdb.tsfile.read.common.block.TsBlock.TsBlockSingleColumnIterator;
 import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
 import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
 import org.apache.iotdb.tsfile.read.common.block.column.TimeColumnBuilder;
@@ -44,9 +38,11 @@ import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+
+import static org.apache.iotdb.db.mpp.operator.AggregationUtil.initTimeRangeIterator;
 
 /**
  * This operator is responsible to do the aggregation calculation for one series based on global
@@ -62,15 +58,14 @@ public class SeriesAggregateScanOperator implements DataSourceOperator {
   private final PlanNodeId sourceId;
   private final SeriesScanUtil seriesScanUtil;
   private final boolean ascending;
-  private List<AggregateResult> aggregateResultList;
+  private final List<Aggregator> aggregators;
 
   private ITimeRangeIterator timeRangeIterator;
   // current interval of aggregation window [curStartTime, curEndTime)
   private TimeRange curTimeRange;
 
-  private TsBlockSingleColumnIterator preCachedData;
-  // used for resetting the preCachedData to the last read index
-  private int lastReadIndex;
+  // remaining raw data which hasn't been consumed by previous time windows
+  private TsBlock preCachedData;
 
   private TsBlockBuilder tsBlockBuilder;
   private TsBlock resultTsBlock;
@@ -82,7 +77,7 @@ public class SeriesAggregateScanOperator implements DataSourceOperator {
       PartialPath seriesPath,
       Set<String> allSensors,
       OperatorContext context,
-      List<AggregationType> aggregateFuncList,
+      List<Aggregator> aggregators,
       Filter timeFilter,
       boolean ascending,
       GroupByTimeParameter groupByTimeParameter) {
@@ -98,43 +93,14 @@ public class SeriesAggregateScanOperator implements DataSourceOperator {
             timeFilter,
             null,
             ascending);
-    aggregateResultList = new ArrayList<>(aggregateFuncList.size());
-    for (AggregationType aggregationType : aggregateFuncList) {
-      aggregateResultList.add(
-          AggregateResultFactory.getAggrResultByType(
-              aggregationType,
-              seriesPath.getSeriesType(),
-              seriesScanUtil.getOrderUtils().getAscending()));
-    }
-    tsBlockBuilder =
-        new TsBlockBuilder(
-            aggregateFuncList.stream()
-                .map(
-                    functionType ->
-                        SchemaUtils.getSeriesTypeByPath(seriesPath, functionType.name()))
-                .collect(Collectors.toList()));
-    this.timeRangeIterator = initTimeRangeIterator(groupByTimeParameter);
-  }
-
-  /**
-   * If groupByTimeParameter is null, which means it's an aggregation query without down sampling.
-   * Aggregation query has only one time window and the result set of it does not contain a
-   * timestamp, so it doesn't matter what the time range returns.
-   */
-  public ITimeRangeIterator initTimeRangeIterator(GroupByTimeParameter groupByTimeParameter) {
-    if (groupByTimeParameter == null) {
-      return new SingleTimeWindowIterator(0, Long.MAX_VALUE);
-    } else {
-      return TimeRangeIteratorFactory.getTimeRangeIterator(
-          groupByTimeParameter.getStartTime(),
-          groupByTimeParameter.getEndTime(),
-          groupByTimeParameter.getInterval(),
-          groupByTimeParameter.getSlidingStep(),
-          ascending,
-          groupByTimeParameter.isIntervalByMonth(),
-          groupByTimeParameter.isSlidingStepByMonth(),
-          groupByTimeParameter.getInterval() > groupByTimeParameter.getSlidingStep());
+    this.aggregators = aggregators;
+    List<TSDataType> dataTypes = new ArrayList<>();
+    for (Aggregator aggregator : aggregators) {
+      dataTypes.addAll(Arrays.asList(aggregator.getOutputType()));
     }
+    tsBlockBuilder = new TsBlockBuilder(dataTypes);
+    // the data of overlapped windows is not kept, so always output the pre-aggregation windows
+    this.timeRangeIterator = initTimeRangeIterator(groupByTimeParameter, ascending, true);
   }
 
   @Override
@@ -169,8 +135,8 @@ public class SeriesAggregateScanOperator implements DataSourceOperator {
       curTimeRange = timeRangeIterator.nextTimeRange();
 
       // 1. Clear previous aggregation result
-      for (AggregateResult result : aggregateResultList) {
-        result.reset();
+      for (Aggregator aggregator : aggregators) {
+        aggregator.reset();
       }
 
       // 2. Calculate aggregation result based on current time window
@@ -194,20 +160,24 @@ public class SeriesAggregateScanOperator implements DataSourceOperator {
       // read from file first
       while (seriesScanUtil.hasNextFile()) {
         Statistics fileStatistics = seriesScanUtil.currentFileStatistics();
-        if (fileStatistics.getStartTime() >= curTimeRange.getMax()) {
-          if (ascending) {
-            updateResultTsBlockUsingAggregateResult();
-            return true;
-          } else {
-            seriesScanUtil.skipCurrentFile();
-            continue;
-          }
+        // There is no more eligible points in current time range
+        if (isAfterTimeRange(fileStatistics, curTimeRange)) {
+          updateResultTsBlockUsingAggregateResult();
+          return true;
+        }
+        // all the points of current file have been passed by current time range
+        if (isBeforeTimeRange(fileStatistics, curTimeRange)) {
+          seriesScanUtil.skipCurrentFile();
+          continue;
         }
         // calc from fileMetaData
-        if (canUseCurrentFileStatistics()
-            && curTimeRange.contains(fileStatistics.getStartTime(), fileStatistics.getEndTime())) {
+        if (canUseCurrentFileStatistics() && containedByTimeRange(fileStatistics, curTimeRange)) {
           calcFromStatistics(fileStatistics);
           seriesScanUtil.skipCurrentFile();
+          if (isEndCalc()) {
+            updateResultTsBlockUsingAggregateResult();
+            return true;
+          }
           continue;
         }
 
@@ -226,14 +196,17 @@ public class SeriesAggregateScanOperator implements DataSourceOperator {
   }
 
   private void updateResultTsBlockUsingAggregateResult() {
-    // TODO AVG
     tsBlockBuilder.reset();
     TimeColumnBuilder timeColumnBuilder = tsBlockBuilder.getTimeColumnBuilder();
     // Use start time of current time range as time column
     timeColumnBuilder.writeLong(curTimeRange.getMin());
     ColumnBuilder[] columnBuilders = tsBlockBuilder.getValueColumnBuilders();
-    for (int i = 0; i < aggregateResultList.size(); i++) {
-      columnBuilders[i].writeObject(aggregateResultList.get(i).getResult());
+    int columnIndex = 0;
+    for (Aggregator aggregator : aggregators) {
+      ColumnBuilder[] columnBuilder = new ColumnBuilder[aggregator.getOutputType().length];
+      System.arraycopy(columnBuilders, columnIndex, columnBuilder, 0, columnBuilder.length);
+      aggregator.outputResult(columnBuilder);
+      columnIndex += columnBuilder.length;
     }
     tsBlockBuilder.declarePosition();
     resultTsBlock = tsBlockBuilder.build();
@@ -248,7 +221,7 @@ public class SeriesAggregateScanOperator implements DataSourceOperator {
 
   @Override
   public boolean isFinished() {
-    return finished || (finished = hasNext());
+    return finished || (finished = !hasNext());
   }
 
   @Override
@@ -262,85 +235,88 @@ public class SeriesAggregateScanOperator implements DataSourceOperator {
   }
 
   /** @return if already get the result */
-  private boolean calcFromCacheData(TimeRange curTimeRange) throws IOException {
-    calcFromBatch(preCachedData, curTimeRange);
+  private boolean calcFromCacheData(TimeRange curTimeRange) {
+    TsBlock cachedData = preCachedData;
+    preCachedData = null;
+    calcFromRawData(cachedData, curTimeRange);
     // The result is calculated from the cache
-    return (preCachedData != null
-            && (ascending
-                ? preCachedData.getEndTime() >= curTimeRange.getMax()
-                : preCachedData.getStartTime() < curTimeRange.getMin()))
-        || isEndCalc();
+    return preCachedData != null || isEndCalc();
   }
 
-  @SuppressWarnings("squid:S3776")
-  private void calcFromBatch(TsBlockSingleColumnIterator blockIterator, TimeRange curTimeRange)
-      throws IOException {
-    // check if the batchData does not contain points in current interval
-    if (!satisfied(blockIterator, curTimeRange)) {
+  /**
+   * Consume the rows of tsBlock which belong to current time window. Rows before current window are
+   * skipped and rows after current window are cached in preCachedData for the next windows.
+   */
+  private void calcFromRawData(TsBlock tsBlock, TimeRange curTimeRange) {
+    if (tsBlock == null || tsBlock.isEmpty()) {
       return;
     }
+    int positionCount = tsBlock.getPositionCount();
+    // skip points that cannot be calculated
+    int startIndex = 0;
+    while (startIndex < positionCount
+        && isBeforeTimeRange(tsBlock.getTimeByIndex(startIndex), curTimeRange)) {
+      startIndex++;
+    }
+    int endIndex = startIndex;
+    while (endIndex < positionCount
+        && !isAfterTimeRange(tsBlock.getTimeByIndex(endIndex), curTimeRange)) {
+      endIndex++;
+    }
 
-    for (AggregateResult result : aggregateResultList) {
-      // current agg method has been calculated
-      if (result.hasFinalResult()) {
-        continue;
-      }
-      // lazy reset batch data for calculation
-      blockIterator.setRowIndex(lastReadIndex);
-      // skip points that cannot be calculated
-      skipOutOfTimeRangePoints(blockIterator, curTimeRange);
-
-      if (blockIterator.hasNext()) {
-        result.updateResultFromPageData(
-            blockIterator, curTimeRange.getMin(), curTimeRange.getMax());
+    if (endIndex > startIndex) {
+      TsBlock dataInTimeRange = tsBlock.getRegion(startIndex, endIndex - startIndex);
+      for (Aggregator aggregator : aggregators) {
+        // current agg method has been calculated
+        if (aggregator.hasFinalResult()) {
+          continue;
+        }
+        aggregator.processTsBlock(dataInTimeRange);
       }
     }
 
-    // reset the last position to current Index
-    lastReadIndex = blockIterator.getRowIndex();
-
     // can calc for next interval
-    if (blockIterator.hasNext()) {
-      preCachedData = blockIterator;
+    if (endIndex < positionCount) {
+      preCachedData = tsBlock.getRegion(endIndex, positionCount - endIndex);
     }
   }
 
-  // skip points that cannot be calculated
-  private void skipOutOfTimeRangePoints(
-      TsBlockSingleColumnIterator tsBlockIterator, TimeRange curTimeRange) {
-    if (ascending) {
-      while (tsBlockIterator.hasNext() && tsBlockIterator.currentTime() < curTimeRange.getMin()) {
-        tsBlockIterator.next();
-      }
-    } else {
-      while (tsBlockIterator.hasNext() && tsBlockIterator.currentTime() >= curTimeRange.getMax()) {
-        tsBlockIterator.next();
-      }
-    }
+  /** whether the point has been passed by current time window in the scan order */
+  private boolean isBeforeTimeRange(long time, TimeRange curTimeRange) {
+    return ascending ? time < curTimeRange.getMin() : time >= curTimeRange.getMax();
   }
 
-  private boolean satisfied(TsBlockSingleColumnIterator tsBlockIterator, TimeRange timeRange) {
-    if (tsBlockIterator == null || !tsBlockIterator.hasNext()) {
-      return false;
-    }
+  /** whether the point belongs to the time windows after current one in the scan order */
+  private boolean isAfterTimeRange(long time, TimeRange curTimeRange) {
+    return ascending ? time >= curTimeRange.getMax() : time < curTimeRange.getMin();
+  }
 
-    if (ascending
-        && (tsBlockIterator.getEndTime() < timeRange.getMin()
-            || tsBlockIterator.currentTime() >= timeRange.getMax())) {
-      return false;
-    }
-    if (!ascending
-        && (tsBlockIterator.getStartTime() >= timeRange.getMax()
-            || tsBlockIterator.currentTime() < timeRange.getMin())) {
-      preCachedData = tsBlockIterator;
-      return false;
-    }
-    return true;
+  /** whether all the points of the statistics have been passed by current time window */
+  private boolean isBeforeTimeRange(Statistics statistics, TimeRange curTimeRange) {
+    return ascending
+        ? statistics.getEndTime() < curTimeRange.getMin()
+        : statistics.getStartTime() >= curTimeRange.getMax();
+  }
+
+  /** whether all the points of the statistics belong to the time windows after current one */
+  private boolean isAfterTimeRange(Statistics statistics, TimeRange curTimeRange) {
+    return ascending
+        ? statistics.getStartTime() >= curTimeRange.getMax()
+        : statistics.getEndTime() < curTimeRange.getMin();
+  }
+
+  /**
+   * Current time window is [curStartTime, curEndTime), so the end time of the statistics must be
+   * less than curEndTime.
+   */
+  private boolean containedByTimeRange(Statistics statistics, TimeRange curTimeRange) {
+    return statistics.getStartTime() >= curTimeRange.getMin()
+        && statistics.getEndTime() < curTimeRange.getMax();
   }
 
   private boolean isEndCalc() {
-    for (AggregateResult result : aggregateResultList) {
-      if (!result.hasFinalResult()) {
+    for (Aggregator aggregator : aggregators) {
+      if (!aggregator.hasFinalResult()) {
         return false;
       }
     }
@@ -354,17 +330,16 @@ public class SeriesAggregateScanOperator implements DataSourceOperator {
       // must be non overlapped page
       if (pageStatistics != null) {
         // There is no more eligible points in current time range
-        if (pageStatistics.getStartTime() >= curTimeRange.getMax()) {
-          if (ascending) {
-            return true;
-          } else {
-            seriesScanUtil.skipCurrentPage();
-            continue;
-          }
+        if (isAfterTimeRange(pageStatistics, curTimeRange)) {
+          return true;
+        }
+        // all the points of current page have been passed by current time range
+        if (isBeforeTimeRange(pageStatistics, curTimeRange)) {
+          seriesScanUtil.skipCurrentPage();
+          continue;
         }
         // can use pageHeader
-        if (canUseCurrentPageStatistics()
-            && curTimeRange.contains(pageStatistics.getStartTime(), pageStatistics.getEndTime())) {
+        if (canUseCurrentPageStatistics() && containedByTimeRange(pageStatistics, curTimeRange)) {
           calcFromStatistics(pageStatistics);
           seriesScanUtil.skipCurrentPage();
           if (isEndCalc()) {
@@ -375,30 +350,16 @@ public class SeriesAggregateScanOperator implements DataSourceOperator {
       }
 
       // calc from page data
-      TsBlockSingleColumnIterator tsBlockIterator =
-          seriesScanUtil.nextPage().getTsBlockSingleColumnIterator();
-      if (tsBlockIterator == null || !tsBlockIterator.hasNext()) {
+      TsBlock tsBlock = seriesScanUtil.nextPage();
+      if (tsBlock == null || tsBlock.isEmpty()) {
         continue;
       }
 
-      // reset the last position to current Index
-      lastReadIndex = tsBlockIterator.getRowIndex();
-
-      // stop calc and cached current batchData
-      if (ascending && tsBlockIterator.currentTime() >= curTimeRange.getMax()) {
-        preCachedData = tsBlockIterator;
-        return true;
-      }
-
-      // calc from batch data
-      calcFromBatch(tsBlockIterator, curTimeRange);
+      // calc from raw data, points after current time window are cached in preCachedData
+      calcFromRawData(tsBlock, curTimeRange);
 
       // judge whether the calculation finished
-      if (isEndCalc()
-          || (tsBlockIterator.hasNext()
-              && (ascending
-                  ? tsBlockIterator.currentTime() >= curTimeRange.getMax()
-                  : tsBlockIterator.currentTime() < curTimeRange.getMin()))) {
+      if (isEndCalc() || preCachedData != null) {
         return true;
       }
     }
@@ -408,19 +369,22 @@ public class SeriesAggregateScanOperator implements DataSourceOperator {
   private boolean readAndCalcFromChunk(TimeRange curTimeRange) throws IOException {
     while (seriesScanUtil.hasNextChunk()) {
       Statistics chunkStatistics = seriesScanUtil.currentChunkStatistics();
-      if (chunkStatistics.getStartTime() >= curTimeRange.getMax()) {
-        if (ascending) {
-          return true;
-        } else {
-          seriesScanUtil.skipCurrentChunk();
-          continue;
-        }
+      // There is no more eligible points in current time range
+      if (isAfterTimeRange(chunkStatistics, curTimeRange)) {
+        return true;
+      }
+      // all the points of current chunk have been passed by current time range
+      if (isBeforeTimeRange(chunkStatistics, curTimeRange)) {
+        seriesScanUtil.skipCurrentChunk();
+        continue;
       }
       // calc from chunkMetaData
-      if (canUseCurrentChunkStatistics()
-          && curTimeRange.contains(chunkStatistics.getStartTime(), chunkStatistics.getEndTime())) {
+      if (canUseCurrentChunkStatistics() && containedByTimeRange(chunkStatistics, curTimeRange)) {
         calcFromStatistics(chunkStatistics);
         seriesScanUtil.skipCurrentChunk();
+        if (isEndCalc()) {
+          return true;
+        }
         continue;
       }
       // read page
@@ -432,15 +396,11 @@ public class SeriesAggregateScanOperator implements DataSourceOperator {
   }
 
   private void calcFromStatistics(Statistics statistics) {
-    try {
-      for (AggregateResult result : aggregateResultList) {
-        if (result.hasFinalResult()) {
-          continue;
-        }
-        result.updateResultFromStatistics(statistics);
+    for (Aggregator aggregator : aggregators) {
+      if (aggregator.hasFinalResult()) {
+        continue;
       }
-    } catch (QueryProcessException e) {
-      throw new RuntimeException("Error while updating result using statistics", e);
+      aggregator.processStatistics(statistics);
     }
   }
 
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.sql.optimization;
+
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.AggregateNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesAggregateScanNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesScanNode;
+import org.apache.iotdb.db.mpp.sql.statement.component.OrderBy;
+import org.apache.iotdb.db.query.aggregation.AggregationType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replace the {@link AggregateNode} over raw series scans with {@link SeriesAggregateScanNode}s, so
+ * that the aggregation is calculated where the data is read, and the statistics of file, chunk and
+ * page can be used instead of the raw data.
+ *
+ * <p>It only happens when the input of the AggregateNode is made up of the series scans without
+ * value filter or row limit, i.e. all the rows of the aggregated series in the time range are
+ * aggregated.
+ */
+public class AggregationPushDown extends RuleBasedOptimizer {
+
+  @Override
+  public PlanNode visitRowBasedSeriesAggregate(AggregateNode node, MPPQueryContext context) {
+    AggregateNode aggregateNode = (AggregateNode) defaultRewrite(node, context);
+    PlanNode child = aggregateNode.getChildren().get(0);
+
+    Map<String, SeriesScanNode> pathToSeriesScanNode = new HashMap<>();
+    if (!collectRawSeriesScanNodes(child, pathToSeriesScanNode)) {
+      return aggregateNode;
+    }
+
+    // keep the order of output columns the same as the AggregateNode
+    List<PlanNode> seriesAggregateScanNodes = new ArrayList<>();
+    for (Map.Entry<PartialPath, Set<AggregationType>> entry :
+        aggregateNode.getAggregateFuncMap().entrySet()) {
+      SeriesScanNode seriesScanNode = pathToSeriesScanNode.get(entry.getKey().getFullPath());
+      if (seriesScanNode == null) {
+        return aggregateNode;
+      }
+      seriesAggregateScanNodes.add(
+          new SeriesAggregateScanNode(
+              context.getQueryId().genPlanNodeId(),
+              seriesScanNode.getSeriesPath(),
+              seriesScanNode.getAllSensors(),
+              new ArrayList<>(entry.getValue()),
+              seriesScanNode.getScanOrder(),
+              seriesScanNode.getTimeFilter(),
+              aggregateNode.getGroupByTimeParameter()));
+    }
+
+    if (seriesAggregateScanNodes.size() == 1) {
+      return seriesAggregateScanNodes.get(0);
+    }
+    OrderBy mergeOrder =
+        child instanceof TimeJoinNode
+            ? ((TimeJoinNode) child).getMergeOrder()
+            : ((SeriesScanNode) child).getScanOrder();
+    return new TimeJoinNode(
+        context.getQueryId().genPlanNodeId(), mergeOrder, seriesAggregateScanNodes);
+  }
+
+  /**
+   * Collect the series scans whose output makes up the output of the node.
+   *
+   * @return false if the output of the node is not only made up of the series scans which read all
+   *     the data in the time range
+   */
+  private boolean collectRawSeriesScanNodes(
+      PlanNode node, Map<String, SeriesScanNode> pathToSeriesScanNode) {
+    if (node instanceof SeriesScanNode) {
+      SeriesScanNode seriesScanNode = (SeriesScanNode) node;
+      if (seriesScanNode.getValueFilter() != null
+          || seriesScanNode.getLimit() > 0
+          || seriesScanNode.getOffset() > 0) {
+        return false;
+      }
+      pathToSeriesScanNode.put(seriesScanNode.getSeriesPath().getFullPath(), seriesScanNode);
+      return true;
+    } else if (node instanceof TimeJoinNode) {
+      for (PlanNode child : node.getChildren()) {
+        if (!collectRawSeriesScanNodes(child, pathToSeriesScanNode)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.sql.optimization;
+
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.LimitNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.OffsetNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesScanNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Push the row limit of {@link LimitNode} down to the {@link SeriesScanNode}s, so that each series
+ * scan stops after producing the rows which may be returned.
+ *
+ * <p>The limit is pushed through {@link OffsetNode} by adding the offset to it, and through {@link
+ * TimeJoinNode} without change, because each row of the time join consumes at most one row of every
+ * child. It stops at any other node, e.g. FilterNode, since the rows discarded by the filter are
+ * unknown in advance. The LimitNode and OffsetNode are always reserved, the limit of series scan is
+ * only used to reduce the data read. The series scans are copied with the new limit, and the nodes
+ * above them are rebuilt, so the input plan is never modified.
+ */
+public class LimitOffsetPushDown extends RuleBasedOptimizer {
+
+  @Override
+  public PlanNode visitLimit(LimitNode node, MPPQueryContext context) {
+    LimitNode limitNode = (LimitNode) defaultRewrite(node, context);
+    return replaceChildren(
+        limitNode,
+        Collections.singletonList(pushDownLimit(limitNode.getChild(), limitNode.getLimit())));
+  }
+
+  /**
+   * Push the limit down to the subtree of the node. The plan nodes may be shared with other plans,
+   * so the nodes on the way to a changed {@link SeriesScanNode} are copied rather than modified.
+   */
+  private PlanNode pushDownLimit(PlanNode node, long limit) {
+    long childLimit;
+    if (node instanceof OffsetNode) {
+      childLimit = limit + ((OffsetNode) node).getOffset();
+    } else if (node instanceof LimitNode) {
+      childLimit = Math.min(limit, ((LimitNode) node).getLimit());
+    } else if (node instanceof TimeJoinNode) {
+      childLimit = limit;
+    } else if (node instanceof SeriesScanNode) {
+      SeriesScanNode seriesScanNode = (SeriesScanNode) node;
+      // the row limit of series scan is an int, a larger limit makes no sense
+      int newLimit = (int) Math.min(limit, Integer.MAX_VALUE);
+      if (seriesScanNode.getLimit() > 0 && newLimit >= seriesScanNode.getLimit()) {
+        return node;
+      }
+      // the copy keeps the offset of the series scan
+      SeriesScanNode limitedNode = (SeriesScanNode) seriesScanNode.clone();
+      limitedNode.setLimit(newLimit);
+      return limitedNode;
+    } else {
+      return node;
+    }
+    List<PlanNode> rewrittenChildren = new ArrayList<>(node.getChildren().size());
+    for (PlanNode child : node.getChildren()) {
+      rewrittenChildren.add(pushDownLimit(child, childLimit));
+    }
+    return replaceChildren(node, rewrittenChildren);
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.sql.optimization;
+
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.FilterNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesScanNode;
+import org.apache.iotdb.tsfile.read.expression.IBinaryExpression;
+import org.apache.iotdb.tsfile.read.expression.IExpression;
+import org.apache.iotdb.tsfile.read.expression.impl.BinaryExpression;
+import org.apache.iotdb.tsfile.read.expression.impl.GlobalTimeExpression;
+import org.apache.iotdb.tsfile.read.expression.impl.SingleSeriesExpression;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Push the predicate of {@link FilterNode} down to the {@link SeriesScanNode}s under it, so that
+ * the data which can not pass the predicate is dropped while reading.
+ *
+ * <p>Only the conjuncts of the predicate are pushed down. A global time filter is pushed down to
+ * every series scanned under the FilterNode, because it is applied to the timestamp of each row. A
+ * filter on one series is pushed down only when that series is the only one scanned, otherwise the
+ * rows which contain other series would be changed. The FilterNode is removed once its whole
+ * predicate is pushed down and it does not project the output columns of its child.
+ */
+public class PredicatePushDown extends RuleBasedOptimizer {
+
+  @Override
+  public PlanNode visitFilter(FilterNode node, MPPQueryContext context) {
+    FilterNode filterNode = (FilterNode) defaultRewrite(node, context);
+    PlanNode child = filterNode.getChild();
+    IExpression predicate = filterNode.getPredicate();
+    IExpression remainingPredicate = pushDown(predicate, child);
+    if (remainingPredicate == predicate) {
+      return filterNode;
+    }
+    if (remainingPredicate == null
+        && filterNode.getOutputColumnNames().equals(child.getOutputColumnNames())) {
+      return child;
+    }
+    // the pushed down conjuncts are kept if the FilterNode has to be reserved for projection
+    return new FilterNode(
+        filterNode.getPlanNodeId(),
+        child,
+        remainingPredicate == null ? predicate : remainingPredicate,
+        filterNode.getOutputColumnNames());
+  }
+
+  /**
+   * Push down the predicate to the series scans of the node.
+   *
+   * @return the part of the predicate which can not be pushed down, null if the whole predicate is
+   *     pushed down
+   */
+  private IExpression pushDown(IExpression predicate, PlanNode node) {
+    switch (predicate.getType()) {
+      case GLOBAL_TIME:
+        List<SeriesScanNode> seriesScanNodes = new ArrayList<>();
+        if (!collectSeriesScanNodes(node, seriesScanNodes)) {
+          return predicate;
+        }
+        Filter timeFilter = ((GlobalTimeExpression) predicate).getFilter();
+        seriesScanNodes.forEach(seriesScanNode -> addTimeFilter(seriesScanNode, timeFilter));
+        return null;
+      case SERIES:
+        SingleSeriesExpression seriesExpression = (SingleSeriesExpression) predicate;
+        if (!(node instanceof SeriesScanNode)
+            || !((SeriesScanNode) node)
+                .getSeriesPath()
+                .getFullPath()
+                .equals(seriesExpression.getSeriesPath().getFullPath())) {
+          return predicate;
+        }
+        addValueFilter((SeriesScanNode) node, seriesExpression.getFilter());
+        return null;
+      case AND:
+        IExpression left = ((IBinaryExpression) predicate).getLeft();
+        IExpression right = ((IBinaryExpression) predicate).getRight();
+        IExpression remainingLeft = pushDown(left, node);
+        IExpression remainingRight = pushDown(right, node);
+        if (remainingLeft == null) {
+          return remainingRight;
+        } else if (remainingRight == null) {
+          return remainingLeft;
+        } else if (remainingLeft == left && remainingRight == right) {
+          return predicate;
+        }
+        return BinaryExpression.and(remainingLeft, remainingRight);
+      default:
+        return predicate;
+    }
+  }
+
+  /**
+   * Collect the series scans whose output makes up the output of the node.
+   *
+   * @return false if the output of the node is not only made up of raw series scans
+   */
+  private boolean collectSeriesScanNodes(PlanNode node, List<SeriesScanNode> seriesScanNodes) {
+    if (node instanceof SeriesScanNode) {
+      seriesScanNodes.add((SeriesScanNode) node);
+      return true;
+    } else if (node instanceof TimeJoinNode) {
+      for (PlanNode child : node.getChildren()) {
+        if (!collectSeriesScanNodes(child, seriesScanNodes)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  // there is at most one not null between timeFilter and valueFilter of a series scan, the time
+  // filter is merged into the value filter if the latter exists
+  private void addTimeFilter(SeriesScanNode seriesScanNode, Filter timeFilter) {
+    if (seriesScanNode.getValueFilter() != null) {
+      seriesScanNode.setValueFilter(FilterFactory.and(seriesScanNode.getValueFilter(), timeFilter));
+    } else if (seriesScanNode.getTimeFilter() != null) {
+      seriesScanNode.setTimeFilter(FilterFactory.and(seriesScanNode.getTimeFilter(), timeFilter));
+    } else {
+      seriesScanNode.setTimeFilter(timeFilter);
+    }
+  }
+
+  private void addValueFilter(SeriesScanNode seriesScanNode, Filter filter) {
+    Filter valueFilter =
+        seriesScanNode.getValueFilter() == null
+            ? filter
+            : FilterFactory.and(seriesScanNode.getValueFilter(), filter);
+    if (seriesScanNode.getTimeFilter() != null) {
+      valueFilter = FilterFactory.and(valueFilter, seriesScanNode.getTimeFilter());
+      seriesScanNode.setTimeFilter(null);
+    }
+    seriesScanNode.setValueFilter(valueFilter);
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.sql.optimization;
+
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.FilterNullNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesScanNode;
+import org.apache.iotdb.db.mpp.sql.statement.component.FilterNullPolicy;
+
+/**
+ * Remove the {@link FilterNullNode} which can not discard any row of its child, e.g. the child is a
+ * raw series scan, whose only value column is never null.
+ */
+public class RemoveRedundantFilterNull extends RuleBasedOptimizer {
+
+  @Override
+  public PlanNode visitFilterNull(FilterNullNode node, MPPQueryContext context) {
+    FilterNullNode filterNullNode = (FilterNullNode) defaultRewrite(node, context);
+    PlanNode child = filterNullNode.getChildren().get(0);
+    return isRedundant(filterNullNode, child) ? child : filterNullNode;
+  }
+
+  private boolean isRedundant(FilterNullNode filterNullNode, PlanNode child) {
+    FilterNullPolicy policy = filterNullNode.getDiscardPolicy();
+    if (policy == FilterNullPolicy.NO_FILTER || child instanceof SeriesScanNode) {
+      return true;
+    }
+    if (child instanceof FilterNullNode) {
+      // the same rows have already been discarded by the child
+      FilterNullNode childFilterNullNode = (FilterNullNode) child;
+      return policy == childFilterNullNode.getDiscardPolicy()
+          && filterNullNode
+              .getFilterNullColumns()
+              .equals(childFilterNullNode.getFilterNullColumns());
+    }
+    // each row of time join has at least one not null value, which comes from the child the
+    // timestamp belongs to. So no row will be discarded if all the columns should be null.
+    return policy == FilterNullPolicy.ALL_NULL
+        && filterNullNode.getFilterNullColumns().isEmpty()
+        && isRawTimeJoin(child);
+  }
+
+  private boolean isRawTimeJoin(PlanNode node) {
+    if (!(node instanceof TimeJoinNode)) {
+      return false;
+    }
+    for (PlanNode child : node.getChildren()) {
+      if (!(child instanceof SeriesScanNode) && !isRawTimeJoin(child)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
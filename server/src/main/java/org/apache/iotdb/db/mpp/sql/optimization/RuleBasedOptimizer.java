@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.sql.optimization;
+
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.SimplePlanNodeRewriter;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TimeJoinNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class of the optimizers which apply one rewrite rule on the logical plan. The plan is
+ * rewritten bottom-up, and a node is only rebuilt when at least one of its children is replaced by
+ * the rule, so the nodes which are not affected by the rule keep untouched.
+ */
+public abstract class RuleBasedOptimizer extends SimplePlanNodeRewriter<MPPQueryContext>
+    implements PlanOptimizer {
+
+  @Override
+  public PlanNode optimize(PlanNode plan, MPPQueryContext context) {
+    return rewrite(plan, context);
+  }
+
+  @Override
+  public PlanNode defaultRewrite(PlanNode node, MPPQueryContext context) {
+    List<PlanNode> rewrittenChildren = new ArrayList<>(node.getChildren().size());
+    for (PlanNode child : node.getChildren()) {
+      rewrittenChildren.add(rewrite(child, context));
+    }
+    return replaceChildren(node, rewrittenChildren);
+  }
+
+  /**
+   * Rebuild the node with the rewritten children, the node itself is returned if none of its
+   * children is replaced.
+   */
+  protected PlanNode replaceChildren(PlanNode node, List<PlanNode> rewrittenChildren) {
+    List<PlanNode> children = node.getChildren();
+    boolean changed = false;
+    for (int i = 0; i < children.size(); i++) {
+      changed |= rewrittenChildren.get(i) != children.get(i);
+    }
+    if (!changed) {
+      return node;
+    }
+    PlanNode rewrittenNode = node.cloneWithChildren(rewrittenChildren);
+    if (rewrittenNode instanceof TimeJoinNode) {
+      // the output columns of time join are decided by its children
+      ((TimeJoinNode) rewrittenNode).initOutputColumns();
+    }
+    return rewrittenNode;
+  }
+}
@@ -23,6 +23,8 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.storagegroup.DataRegion;
 import org.apache.iotdb.db.metadata.path.PartialPath;
 import org.apache.iotdb.db.metadata.schemaregion.ISchemaRegion;
+import org.apache.iotdb.db.mpp.aggregation.AccumulatorFactory;
+import org.apache.iotdb.db.mpp.aggregation.Aggregator;
 import org.apache.iotdb.db.mpp.buffer.DataBlockManager;
 import org.apache.iotdb.db.mpp.buffer.DataBlockService;
 import org.apache.iotdb.db.mpp.buffer.ISinkHandle;
@@ -35,6 +37,7 @@ import org.apache.iotdb.db.mpp.execution.SchemaDriver;
 import org.apache.iotdb.db.mpp.execution.SchemaDriverContext;
 import org.apache.iotdb.db.mpp.operator.Operator;
 import org.apache.iotdb.db.mpp.operator.OperatorContext;
+import org.apache.iotdb.db.mpp.operator.process.AggregateOperator;
 import org.apache.iotdb.db.mpp.operator.process.LimitOperator;
 import org.apache.iotdb.db.mpp.operator.process.TimeJoinOperator;
 import org.apache.iotdb.db.mpp.operator.process.merge.ColumnMerger;
@@ -67,13 +70,19 @@ import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TimeJoinNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.sink.FragmentSinkNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesAggregateScanNode;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesScanNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.AggregationStep;
+import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.InputLocation;
 import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.OutputColumn;
 import org.apache.iotdb.db.mpp.sql.statement.component.OrderBy;
+import org.apache.iotdb.db.query.aggregation.AggregationType;
 import org.apache.iotdb.tsfile.read.expression.IExpression;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -159,6 +168,16 @@ public class LocalExecutionPlanner {
       context.addSourceOperator(seriesScanOperator);
       context.addPath(seriesPath);
 
+      // the limit pushed down from upstream, no more rows are needed by the upstream operators
+      if (node.getLimit() > 0) {
+        return new LimitOperator(
+            context.instanceContext.addOperatorContext(
+                context.getNextOperatorId(),
+                node.getPlanNodeId(),
+                LimitOperator.class.getSimpleName()),
+            node.getLimit(),
+            seriesScanOperator);
+      }
       return seriesScanOperator;
     }
 
@@ -226,13 +245,21 @@ public class LocalExecutionPlanner {
               node.getPlanNodeId(),
               SeriesAggregateScanNode.class.getSimpleName());
 
+      List<Aggregator> aggregators = new ArrayList<>();
+      for (AggregationType aggregationType : node.getAggregateFuncList()) {
+        aggregators.add(
+            new Aggregator(
+                AccumulatorFactory.createAccumulator(
+                    aggregationType, seriesPath.getSeriesType(), ascending),
+                AggregationStep.SINGLE));
+      }
       SeriesAggregateScanOperator aggregateScanOperator =
           new SeriesAggregateScanOperator(
               node.getPlanNodeId(),
               seriesPath,
               node.getAllSensors(),
               operatorContext,
-              node.getAggregateFuncList(),
+              aggregators,
               node.getTimeFilter(),
               ascending,
               node.getGroupByTimeParameter());
@@ -292,7 +319,48 @@ public class LocalExecutionPlanner {
     @Override
     public Operator visitRowBasedSeriesAggregate(
         AggregateNode node, LocalExecutionPlanContext context) {
-      return super.visitRowBasedSeriesAggregate(node, context);
+      PlanNode child = node.getChildren().get(0);
+      Operator childOperator = child.accept(this, context);
+      OperatorContext operatorContext =
+          context.instanceContext.addOperatorContext(
+              context.getNextOperatorId(),
+              node.getPlanNodeId(),
+              AggregateOperator.class.getSimpleName());
+      boolean ascending = isAscending(child);
+      // find the value column of each aggregated series in the output of child
+      List<String> inputColumnNames = child.getOutputColumnNames();
+      List<Aggregator> aggregators = new ArrayList<>();
+      for (Map.Entry<PartialPath, Set<AggregationType>> entry :
+          node.getAggregateFuncMap().entrySet()) {
+        PartialPath path = entry.getKey();
+        int valueColumnIndex = inputColumnNames.indexOf(path.getFullPath());
+        checkArgument(
+            valueColumnIndex >= 0, "Input of series %s is not found in child", path.getFullPath());
+        for (AggregationType aggregationType : entry.getValue()) {
+          aggregators.add(
+              new Aggregator(
+                  AccumulatorFactory.createAccumulator(
+                      aggregationType, path.getSeriesType(), ascending),
+                  AggregationStep.SINGLE,
+                  Collections.singletonList(
+                      new InputLocation[] {new InputLocation(0, valueColumnIndex)})));
+        }
+      }
+      return new AggregateOperator(
+          operatorContext,
+          aggregators,
+          Collections.singletonList(childOperator),
+          ascending,
+          node.getGroupByTimeParameter());
+    }
+
+    private boolean isAscending(PlanNode node) {
+      if (node instanceof TimeJoinNode) {
+        return ((TimeJoinNode) node).getMergeOrder() != OrderBy.TIMESTAMP_DESC;
+      } else if (node instanceof SeriesScanNode) {
+        return ((SeriesScanNode) node).getScanOrder() != OrderBy.TIMESTAMP_DESC;
+      }
+      return true;
     }
 
     @Override
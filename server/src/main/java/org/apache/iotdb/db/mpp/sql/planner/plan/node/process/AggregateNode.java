@@ -28,7 +28,6 @@ import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanVisitor;
 import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.Aggregation;
 import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.GroupByTimeParameter;
 import org.apache.iotdb.db.query.aggregation.AggregationType;
-import org.apache.iotdb.tsfile.exception.NotImplementedException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 
@@ -94,6 +93,14 @@ public class AggregateNode extends ProcessNode {
     }
   }
 
+  public Map<PartialPath, Set<AggregationType>> getAggregateFuncMap() {
+    return aggregateFuncMap;
+  }
+
+  public GroupByTimeParameter getGroupByTimeParameter() {
+    return groupByTimeParameter;
+  }
+
   @Override
   public List<PlanNode> getChildren() {
     return ImmutableList.of(child);
@@ -106,7 +113,7 @@ public class AggregateNode extends ProcessNode {
 
   @Override
   public PlanNode clone() {
-    throw new NotImplementedException("Clone of AggregateNode is not implemented");
+    return new AggregateNode(getPlanNodeId(), null, aggregateFuncMap, groupByTimeParameter);
   }
 
   @Override
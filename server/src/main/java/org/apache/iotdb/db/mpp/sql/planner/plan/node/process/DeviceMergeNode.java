@@ -30,6 +30,8 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 
+import org.apache.commons.lang.Validate;
+
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -87,6 +89,38 @@ public class DeviceMergeNode extends ProcessNode {
     return new DeviceMergeNode(getPlanNodeId(), mergeOrder);
   }
 
+  @Override
+  public PlanNode cloneWithChildren(List<PlanNode> children) {
+    if (children == null) {
+      return clone();
+    }
+    Validate.isTrue(
+        children.size() == this.children.size(),
+        String.format(
+            "Child count is not correct for DeviceMergeNode. Expected: %d, Value: %d",
+            this.children.size(), children.size()));
+    // keep the device of each child, the i-th new child replaces the i-th old child
+    DeviceMergeNode node = (DeviceMergeNode) clone();
+    for (int i = 0; i < children.size(); i++) {
+      String deviceName = getDeviceName(this.children.get(i));
+      if (deviceName == null) {
+        node.addChild(children.get(i));
+      } else {
+        node.addChildDeviceNode(deviceName, children.get(i));
+      }
+    }
+    return node;
+  }
+
+  private String getDeviceName(PlanNode childNode) {
+    for (Map.Entry<String, PlanNode> entry : childDeviceNodeMap.entrySet()) {
+      if (entry.getValue() == childNode) {
+        return entry.getKey();
+      }
+    }
+    return null;
+  }
+
   @Override
   public int allowedChildCount() {
     return CHILD_COUNT_NO_LIMIT;
@@ -74,7 +74,9 @@ public class FilterNode extends ProcessNode {
 
   @Override
   public PlanNode clone() {
-    return new FilterNode(getPlanNodeId(), predicate);
+    FilterNode filterNode = new FilterNode(getPlanNodeId(), predicate);
+    filterNode.columnHeaders = this.columnHeaders;
+    return filterNode;
   }
 
   @Override
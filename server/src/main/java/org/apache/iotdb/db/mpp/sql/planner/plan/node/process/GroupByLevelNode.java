@@ -26,7 +26,6 @@ import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNodeType;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanVisitor;
 import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.OutputColumn;
 import org.apache.iotdb.db.query.aggregation.AggregationType;
-import org.apache.iotdb.tsfile.exception.NotImplementedException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
@@ -114,7 +113,12 @@ public class GroupByLevelNode extends ProcessNode {
 
   @Override
   public PlanNode clone() {
-    throw new NotImplementedException("Clone of GroupByLevelNode is not implemented");
+    GroupByLevelNode node =
+        new GroupByLevelNode(
+            getPlanNodeId(), null, groupByLevels, aggregateFuncList, outputColumns);
+    node.groupedPathMap = this.groupedPathMap;
+    node.outputColumnHeaders = this.outputColumnHeaders;
+    return node;
   }
 
   @Override
@@ -86,8 +86,9 @@ public class TimeJoinNode extends ProcessNode {
   public PlanNode clone() {
     // TODO: (xingtanzjr)
     TimeJoinNode node = new TimeJoinNode(getPlanNodeId(), this.mergeOrder);
-    node.outputColumnHeaders = this.outputColumnHeaders;
-    node.outputColumns = this.outputColumns;
+    node.outputColumnHeaders = new ArrayList<>(this.outputColumnHeaders);
+    node.outputColumns = new ArrayList<>(this.outputColumns);
+    node.filterNullParameter = this.filterNullParameter;
     return node;
   }
 
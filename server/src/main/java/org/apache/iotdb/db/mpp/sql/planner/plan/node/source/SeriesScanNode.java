@@ -156,6 +156,11 @@ public class SeriesScanNode extends SourceNode {
         new SeriesScanNode(getPlanNodeId(), getSeriesPath(), this.regionReplicaSet);
     seriesScanNode.allSensors = this.allSensors;
     seriesScanNode.outputColumnHeader = this.outputColumnHeader;
+    seriesScanNode.scanOrder = this.scanOrder;
+    seriesScanNode.timeFilter = this.timeFilter;
+    seriesScanNode.valueFilter = this.valueFilter;
+    seriesScanNode.limit = this.limit;
+    seriesScanNode.offset = this.offset;
     return seriesScanNode;
   }
 
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Off-heap counterpart of the primitive arrays pooled by {@link PrimitiveArrayManager}. Memory is
+ * allocated from the OS in large direct slabs, and each slab is cut into blocks which can hold
+ * {@link PrimitiveArrayManager#ARRAY_SIZE} elements of one size. A block is identified by a long
+ * address (slab index in the high 32 bits, byte offset in the low 32 bits), so the users only keep
+ * primitive longs on heap and the data in the blocks is never scanned by GC.
+ *
+ * <p>Released blocks are kept in a free list of their size and reused, the slabs are never returned
+ * to the OS. Blocks that are still held by an owner when it becomes unreachable, e.g., a TVList
+ * referenced by a query when its memtable was released, are reclaimed through a phantom reference.
+ */
+public class OffHeapArrayPool {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapArrayPool.class);
+
+  private static final int SLAB_SIZE_IN_BYTE = 4 * 1024 * 1024;
+
+  /** element size in byte -> allocator of the blocks of this element size */
+  private final SizeClass[] sizeClasses = new SizeClass[Long.BYTES + 1];
+
+  /** slab index -> slab, replaced by a larger copy when a new slab is allocated */
+  private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+
+  private final ReferenceQueue<Object> referenceQueue = new ReferenceQueue<>();
+
+  /** keep the phantom references reachable until they are enqueued */
+  private final Set<BlockListReference> references = ConcurrentHashMap.newKeySet();
+
+  private final int arraySize;
+
+  public OffHeapArrayPool(int arraySize) {
+    this.arraySize = arraySize;
+    for (int elementSize : new int[] {Byte.BYTES, Integer.BYTES, Long.BYTES}) {
+      sizeClasses[elementSize] = new SizeClass(elementSize * arraySize);
+    }
+  }
+
+  /**
+   * Get or allocate a block which can hold arraySize elements of the given size.
+   *
+   * @param elementSize 1, 4 or 8
+   * @return address of the block
+   */
+  public long allocate(int elementSize) {
+    reclaimUnreachableBlocks();
+    SizeClass sizeClass = sizeClasses[elementSize];
+    synchronized (sizeClass) {
+      if (sizeClass.freeCount > 0) {
+        return sizeClass.freeBlocks[--sizeClass.freeCount];
+      }
+      if (sizeClass.carvingSlab < 0 || sizeClass.carvingOffset == sizeClass.carvingLimit) {
+        int blocksPerSlab = Math.max(SLAB_SIZE_IN_BYTE / sizeClass.blockSize, 1);
+        sizeClass.carvingSlab = allocateSlab(blocksPerSlab * sizeClass.blockSize);
+        sizeClass.carvingOffset = 0;
+        sizeClass.carvingLimit = blocksPerSlab * sizeClass.blockSize;
+      }
+      long address = ((long) sizeClass.carvingSlab << 32) | sizeClass.carvingOffset;
+      sizeClass.carvingOffset += sizeClass.blockSize;
+      return address;
+    }
+  }
+
+  /** Bring back a block allocated by {@link #allocate(int)} with the same element size. */
+  public void release(long address, int elementSize) {
+    SizeClass sizeClass = sizeClasses[elementSize];
+    synchronized (sizeClass) {
+      if (sizeClass.freeCount == sizeClass.freeBlocks.length) {
+        sizeClass.freeBlocks = Arrays.copyOf(sizeClass.freeBlocks, sizeClass.freeCount * 2);
+      }
+      sizeClass.freeBlocks[sizeClass.freeCount++] = address;
+    }
+  }
+
+  private synchronized int allocateSlab(int size) {
+    ByteBuffer slab = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+    ByteBuffer[] newSlabs = Arrays.copyOf(slabs, slabs.length + 1);
+    newSlabs[slabs.length] = slab;
+    slabs = newSlabs;
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("Allocate off-heap slab {} of {} bytes", newSlabs.length - 1, size);
+    }
+    return newSlabs.length - 1;
+  }
+
+  /**
+   * Release the remaining blocks of the list when the owner is garbage collected. The list must not
+   * reference the owner, otherwise the owner will never be unreachable.
+   */
+  public void register(Object owner, BlockList blockList) {
+    references.add(new BlockListReference(owner, blockList, referenceQueue));
+  }
+
+  private void reclaimUnreachableBlocks() {
+    BlockListReference reference;
+    while ((reference = (BlockListReference) referenceQueue.poll()) != null) {
+      references.remove(reference);
+      reference.blockList.releaseAll();
+    }
+  }
+
+  public long getLong(long address, int index) {
+    return slabs[(int) (address >>> 32)].getLong((int) address + (index << 3));
+  }
+
+  public void putLong(long address, int index, long value) {
+    slabs[(int) (address >>> 32)].putLong((int) address + (index << 3), value);
+  }
+
+  public int getInt(long address, int index) {
+    return slabs[(int) (address >>> 32)].getInt((int) address + (index << 2));
+  }
+
+  public void putInt(long address, int index, int value) {
+    slabs[(int) (address >>> 32)].putInt((int) address + (index << 2), value);
+  }
+
+  public byte getByte(long address, int index) {
+    return slabs[(int) (address >>> 32)].get((int) address + index);
+  }
+
+  public void putByte(long address, int index, byte value) {
+    slabs[(int) (address >>> 32)].put((int) address + index, value);
+  }
+
+  public int getArraySize() {
+    return arraySize;
+  }
+
+  /** @return total size of the slabs allocated from the OS */
+  public long getAllocatedSize() {
+    long size = 0;
+    for (ByteBuffer slab : slabs) {
+      size += slab.capacity();
+    }
+    return size;
+  }
+
+  /** @return number of the blocks of the given element size in the free list */
+  public int getFreeBlockNumber(int elementSize) {
+    SizeClass sizeClass = sizeClasses[elementSize];
+    synchronized (sizeClass) {
+      return sizeClass.freeCount;
+    }
+  }
+
+  private static class SizeClass {
+
+    private final int blockSize;
+
+    private long[] freeBlocks = new long[1024];
+    private int freeCount = 0;
+
+    /** the slab which new blocks are cut from, -1 if there is none */
+    private int carvingSlab = -1;
+
+    private int carvingOffset;
+    private int carvingLimit;
+
+    private SizeClass(int blockSize) {
+      this.blockSize = blockSize;
+    }
+  }
+
+  /** An ordered list of blocks of the same element size, e.g., the time column of a TVList. */
+  public static class BlockList {
+
+    private final OffHeapArrayPool pool;
+    private final int elementSize;
+
+    private long[] addresses = new long[16];
+    private int size = 0;
+
+    public BlockList(OffHeapArrayPool pool, int elementSize) {
+      this.pool = pool;
+      this.elementSize = elementSize;
+    }
+
+    /** Allocate a new block and append it to the end of the list. */
+    public void expand() {
+      if (size == addresses.length) {
+        addresses = Arrays.copyOf(addresses, size * 2);
+      }
+      addresses[size++] = pool.allocate(elementSize);
+    }
+
+    public long get(int index) {
+      return addresses[index];
+    }
+
+    public int size() {
+      return size;
+    }
+
+    public void releaseLast() {
+      pool.release(addresses[--size], elementSize);
+    }
+
+    public void releaseAll() {
+      while (size > 0) {
+        releaseLast();
+      }
+    }
+  }
+
+  private static class BlockListReference extends PhantomReference<Object> {
+
+    private final BlockList blockList;
+
+    private BlockListReference(
+        Object owner, BlockList blockList, ReferenceQueue<Object> referenceQueue) {
+      super(owner, referenceQueue);
+      this.blockList = blockList;
+    }
+  }
+}
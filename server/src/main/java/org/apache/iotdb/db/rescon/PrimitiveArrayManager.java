@@ -74,6 +74,9 @@ public class PrimitiveArrayManager {
 
   private static final AtomicLong TOTAL_ALLOCATION_REQUEST_COUNT = new AtomicLong(0);
 
+  /** blocks of off-heap TVLists, the slabs are kept until the JVM exits */
+  private static final OffHeapArrayPool OFF_HEAP_ARRAY_POOL = new OffHeapArrayPool(ARRAY_SIZE);
+
   static {
     init();
   }
@@ -270,6 +273,11 @@ public class PrimitiveArrayManager {
     init();
   }
 
+  /** Get the pool of the off-heap blocks, which is used instead of arrays by off-heap TVLists. */
+  public static OffHeapArrayPool getOffHeapArrayPool() {
+    return OFF_HEAP_ARRAY_POOL;
+  }
+
   /**
    * Get primitive data lists according to data type and size, only for TVList's sorting
    *
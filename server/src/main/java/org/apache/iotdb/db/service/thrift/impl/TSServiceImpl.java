@@ -28,6 +28,7 @@ import org.apache.iotdb.db.auth.authorizer.IAuthorizer;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.OperationType;
+import org.apache.iotdb.db.engine.compaction.CompactionThroughputController;
 import org.apache.iotdb.db.engine.selectinto.InsertTabletPlansIterator;
 import org.apache.iotdb.db.exception.QueryInBatchStatementException;
 import org.apache.iotdb.db.exception.StorageEngineException;
@@ -231,6 +232,7 @@ public class TSServiceImpl implements TSIEventHandler {
       } finally {
         addOperationLatency(Operation.EXECUTE_QUERY, queryStartTime);
         long costTime = System.currentTimeMillis() - queryStartTime;
+        CompactionThroughputController.getInstance().recordQueryCost(costTime);
         if (costTime >= CONFIG.getSlowQueryThreshold()) {
           SLOW_SQL_LOGGER.info("Cost: {} ms, sql is {}", costTime, statement);
         }
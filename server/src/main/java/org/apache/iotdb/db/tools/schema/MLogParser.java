@@ -29,6 +29,7 @@ import org.apache.iotdb.db.qp.physical.sys.ChangeAliasPlan;
 import org.apache.iotdb.db.qp.physical.sys.ChangeTagOffsetPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateAlignedTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateContinuousQueryPlan;
+import org.apache.iotdb.db.qp.physical.sys.CreateMultiTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateTemplatePlan;
 import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
 import org.apache.iotdb.db.qp.physical.sys.DropContinuousQueryPlan;
@@ -175,6 +176,22 @@ public class MLogParser {
           case CREATE_ALIGNED_TIMESERIES:
             mLogTxtWriter.createAlignedTimeseries((CreateAlignedTimeSeriesPlan) plan);
             break;
+          case CREATE_MULTI_TIMESERIES:
+            CreateMultiTimeSeriesPlan multiPlan = (CreateMultiTimeSeriesPlan) plan;
+            for (int i = 0; i < multiPlan.getPaths().size(); i++) {
+              mLogTxtWriter.createTimeseries(
+                  new CreateTimeSeriesPlan(
+                      multiPlan.getPaths().get(i),
+                      multiPlan.getDataTypes().get(i),
+                      multiPlan.getEncodings().get(i),
+                      multiPlan.getCompressors().get(i),
+                      null,
+                      null,
+                      null,
+                      null),
+                  -1);
+            }
+            break;
           case DELETE_TIMESERIES:
             for (PartialPath partialPath : plan.getPaths()) {
               mLogTxtWriter.deleteTimeseries(partialPath.getFullPath());
@@ -0,0 +1,496 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils.datastructure;
+
+import org.apache.iotdb.db.rescon.OffHeapArrayPool;
+import org.apache.iotdb.db.rescon.OffHeapArrayPool.BlockList;
+import org.apache.iotdb.db.rescon.PrimitiveArrayManager;
+import org.apache.iotdb.db.utils.MathUtils;
+import org.apache.iotdb.db.wal.buffer.IWALByteBufferView;
+import org.apache.iotdb.db.wal.utils.WALWriteUtils;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TimeValuePair;
+import org.apache.iotdb.tsfile.utils.BitMap;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
+
+import static org.apache.iotdb.db.rescon.PrimitiveArrayManager.ARRAY_SIZE;
+
+/**
+ * TVList of a fixed length data type whose timestamps and values are stored in off-heap blocks of
+ * {@link OffHeapArrayPool} instead of pooled primitive arrays, so that the data of memtables is not
+ * scanned by GC. Values are kept as raw bits, i.e., the bits of a float or double, which makes the
+ * sorting the same for all data types. The flush encodes directly from the blocks through the get
+ * methods. The buffers of the merges in sorting are also blocks of the pool, which are released
+ * after the sorting.
+ */
+public class OffHeapTVList extends TVList {
+
+  private static final OffHeapArrayPool POOL = PrimitiveArrayManager.getOffHeapArrayPool();
+
+  private final TSDataType dataType;
+
+  /** size of a value in byte, 8 for INT64 and DOUBLE, 4 for INT32 and FLOAT, 1 for BOOLEAN */
+  private final int valueSize;
+
+  private final BlockList timeBlocks;
+  private final BlockList valueBlocks;
+
+  private final BlockList sortedTimeBlocks;
+  private final BlockList sortedValueBlocks;
+
+  private long pivotValue;
+
+  OffHeapTVList(TSDataType dataType) {
+    super();
+    this.dataType = dataType;
+    this.valueSize = getValueSize(dataType);
+    this.timeBlocks = new BlockList(POOL, Long.BYTES);
+    this.valueBlocks = new BlockList(POOL, valueSize);
+    this.sortedTimeBlocks = new BlockList(POOL, Long.BYTES);
+    this.sortedValueBlocks = new BlockList(POOL, valueSize);
+    POOL.register(this, timeBlocks);
+    POOL.register(this, valueBlocks);
+    POOL.register(this, sortedTimeBlocks);
+    POOL.register(this, sortedValueBlocks);
+  }
+
+  public static boolean isSupported(TSDataType dataType) {
+    switch (dataType) {
+      case BOOLEAN:
+      case INT32:
+      case INT64:
+      case FLOAT:
+      case DOUBLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static int getValueSize(TSDataType dataType) {
+    switch (dataType) {
+      case BOOLEAN:
+        return Byte.BYTES;
+      case INT32:
+      case FLOAT:
+        return Integer.BYTES;
+      case INT64:
+      case DOUBLE:
+        return Long.BYTES;
+      default:
+        throw new UnSupportedDataTypeException(dataType.name());
+    }
+  }
+
+  @Override
+  public long getTime(int index) {
+    if (index >= rowCount) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    return POOL.getLong(timeBlocks.get(index / ARRAY_SIZE), index % ARRAY_SIZE);
+  }
+
+  private long getRawValue(int index) {
+    return getRawValue(valueBlocks, index);
+  }
+
+  private long getRawValue(BlockList values, int index) {
+    long address = values.get(index / ARRAY_SIZE);
+    int elementIndex = index % ARRAY_SIZE;
+    switch (valueSize) {
+      case Long.BYTES:
+        return POOL.getLong(address, elementIndex);
+      case Integer.BYTES:
+        return POOL.getInt(address, elementIndex);
+      default:
+        return POOL.getByte(address, elementIndex);
+    }
+  }
+
+  private void setRaw(int index, long timestamp, long rawValue) {
+    if (index >= rowCount) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    setRaw(timeBlocks, valueBlocks, index, timestamp, rawValue);
+  }
+
+  private void setRaw(BlockList times, BlockList values, int index, long timestamp, long rawValue) {
+    int arrayIndex = index / ARRAY_SIZE;
+    int elementIndex = index % ARRAY_SIZE;
+    POOL.putLong(times.get(arrayIndex), elementIndex, timestamp);
+    long address = values.get(arrayIndex);
+    switch (valueSize) {
+      case Long.BYTES:
+        POOL.putLong(address, elementIndex, rawValue);
+        break;
+      case Integer.BYTES:
+        POOL.putInt(address, elementIndex, (int) rawValue);
+        break;
+      default:
+        POOL.putByte(address, elementIndex, (byte) rawValue);
+        break;
+    }
+  }
+
+  private void putRawValue(long timestamp, long rawValue) {
+    checkExpansion();
+    minTime = Math.min(minTime, timestamp);
+    rowCount++;
+    setRaw(rowCount - 1, timestamp, rawValue);
+    if (sorted && rowCount > 1 && timestamp < getTime(rowCount - 2)) {
+      sorted = false;
+    }
+  }
+
+  private void checkDataType(TSDataType expected) {
+    if (dataType != expected) {
+      throw new UnsupportedOperationException(ERR_DATATYPE_NOT_CONSISTENT);
+    }
+  }
+
+  @Override
+  public void putLong(long time, long value) {
+    checkDataType(TSDataType.INT64);
+    putRawValue(time, value);
+  }
+
+  @Override
+  public void putInt(long time, int value) {
+    checkDataType(TSDataType.INT32);
+    putRawValue(time, value);
+  }
+
+  @Override
+  public void putFloat(long time, float value) {
+    checkDataType(TSDataType.FLOAT);
+    putRawValue(time, Float.floatToRawIntBits(value));
+  }
+
+  @Override
+  public void putDouble(long time, double value) {
+    checkDataType(TSDataType.DOUBLE);
+    putRawValue(time, Double.doubleToRawLongBits(value));
+  }
+
+  @Override
+  public void putBoolean(long time, boolean value) {
+    checkDataType(TSDataType.BOOLEAN);
+    putRawValue(time, value ? 1 : 0);
+  }
+
+  @Override
+  public void putLongs(long[] time, long[] value, BitMap bitMap, int start, int end) {
+    checkDataType(TSDataType.INT64);
+    for (int i = start; i < end; i++) {
+      if (bitMap == null || !bitMap.isMarked(i)) {
+        putRawValue(time[i], value[i]);
+      }
+    }
+  }
+
+  @Override
+  public void putInts(long[] time, int[] value, BitMap bitMap, int start, int end) {
+    checkDataType(TSDataType.INT32);
+    for (int i = start; i < end; i++) {
+      if (bitMap == null || !bitMap.isMarked(i)) {
+        putRawValue(time[i], value[i]);
+      }
+    }
+  }
+
+  @Override
+  public void putFloats(long[] time, float[] value, BitMap bitMap, int start, int end) {
+    checkDataType(TSDataType.FLOAT);
+    for (int i = start; i < end; i++) {
+      if (bitMap == null || !bitMap.isMarked(i)) {
+        putRawValue(time[i], Float.floatToRawIntBits(value[i]));
+      }
+    }
+  }
+
+  @Override
+  public void putDoubles(long[] time, double[] value, BitMap bitMap, int start, int end) {
+    checkDataType(TSDataType.DOUBLE);
+    for (int i = start; i < end; i++) {
+      if (bitMap == null || !bitMap.isMarked(i)) {
+        putRawValue(time[i], Double.doubleToRawLongBits(value[i]));
+      }
+    }
+  }
+
+  @Override
+  public void putBooleans(long[] time, boolean[] value, BitMap bitMap, int start, int end) {
+    checkDataType(TSDataType.BOOLEAN);
+    for (int i = start; i < end; i++) {
+      if (bitMap == null || !bitMap.isMarked(i)) {
+        putRawValue(time[i], value[i] ? 1 : 0);
+      }
+    }
+  }
+
+  @Override
+  public long getLong(int index) {
+    checkDataType(TSDataType.INT64);
+    return getRawValueChecked(index);
+  }
+
+  @Override
+  public int getInt(int index) {
+    checkDataType(TSDataType.INT32);
+    return (int) getRawValueChecked(index);
+  }
+
+  @Override
+  public float getFloat(int index) {
+    checkDataType(TSDataType.FLOAT);
+    return Float.intBitsToFloat((int) getRawValueChecked(index));
+  }
+
+  @Override
+  public double getDouble(int index) {
+    checkDataType(TSDataType.DOUBLE);
+    return Double.longBitsToDouble(getRawValueChecked(index));
+  }
+
+  @Override
+  public boolean getBoolean(int index) {
+    checkDataType(TSDataType.BOOLEAN);
+    return getRawValueChecked(index) != 0;
+  }
+
+  private long getRawValueChecked(int index) {
+    if (index >= rowCount) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    return getRawValue(index);
+  }
+
+  @Override
+  public OffHeapTVList clone() {
+    OffHeapTVList cloneList = new OffHeapTVList(dataType);
+    for (int i = 0; i < timeBlocks.size(); i++) {
+      cloneList.timeBlocks.expand();
+      cloneList.valueBlocks.expand();
+    }
+    cloneList.rowCount = rowCount;
+    for (int i = 0; i < rowCount; i++) {
+      cloneList.setRaw(i, getTime(i), getRawValue(i));
+    }
+    cloneList.sorted = sorted;
+    cloneList.minTime = minTime;
+    return cloneList;
+  }
+
+  @Override
+  public void sort() {
+    try {
+      while (sortedTimeBlocks.size() < timeBlocks.size()) {
+        sortedTimeBlocks.expand();
+        sortedValueBlocks.expand();
+      }
+      sort(0, rowCount);
+    } finally {
+      clearSortedValue();
+      clearSortedTime();
+    }
+    sorted = true;
+  }
+
+  @Override
+  public int delete(long lowerBound, long upperBound) {
+    int deletedNumber = super.delete(lowerBound, upperBound);
+    // release the blocks that are empty after the deletion
+    int newArrayNum = rowCount / ARRAY_SIZE;
+    if (rowCount % ARRAY_SIZE != 0) {
+      newArrayNum++;
+    }
+    while (timeBlocks.size() > newArrayNum) {
+      releaseLastTimeArray();
+      releaseLastValueArray();
+    }
+    return deletedNumber;
+  }
+
+  @Override
+  protected void checkExpansion() {
+    if ((rowCount % ARRAY_SIZE) == 0) {
+      expandValues();
+      timeBlocks.expand();
+    }
+  }
+
+  @Override
+  protected void expandValues() {
+    valueBlocks.expand();
+  }
+
+  @Override
+  protected void releaseLastTimeArray() {
+    timeBlocks.releaseLast();
+  }
+
+  @Override
+  protected void releaseLastValueArray() {
+    valueBlocks.releaseLast();
+  }
+
+  @Override
+  protected void clearTime() {
+    timeBlocks.releaseAll();
+  }
+
+  @Override
+  void clearValue() {
+    valueBlocks.releaseAll();
+  }
+
+  @Override
+  protected void clearSortedTime() {
+    sortedTimeBlocks.releaseAll();
+  }
+
+  @Override
+  void clearSortedValue() {
+    sortedValueBlocks.releaseAll();
+  }
+
+  @Override
+  protected void setFromSorted(int src, int dest) {
+    setRaw(
+        dest,
+        POOL.getLong(sortedTimeBlocks.get(src / ARRAY_SIZE), src % ARRAY_SIZE),
+        getRawValue(sortedValueBlocks, src));
+  }
+
+  @Override
+  protected void set(int src, int dest) {
+    setRaw(dest, getTime(src), getRawValue(src));
+  }
+
+  @Override
+  protected void setToSorted(int src, int dest) {
+    setRaw(sortedTimeBlocks, sortedValueBlocks, dest, getTime(src), getRawValue(src));
+  }
+
+  @Override
+  protected void reverseRange(int lo, int hi) {
+    hi--;
+    while (lo < hi) {
+      long loT = getTime(lo);
+      long loV = getRawValue(lo);
+      long hiT = getTime(hi);
+      long hiV = getRawValue(hi);
+      setRaw(lo++, hiT, hiV);
+      setRaw(hi--, loT, loV);
+    }
+  }
+
+  @Override
+  protected void saveAsPivot(int pos) {
+    pivotTime = getTime(pos);
+    pivotValue = getRawValue(pos);
+  }
+
+  @Override
+  protected void setPivotTo(int pos) {
+    setRaw(pos, pivotTime, pivotValue);
+  }
+
+  @Override
+  public TimeValuePair getTimeValuePair(int index) {
+    return new TimeValuePair(getTime(index), getPrimitiveValue(index));
+  }
+
+  @Override
+  protected TimeValuePair getTimeValuePair(
+      int index, long time, Integer floatPrecision, TSEncoding encoding) {
+    boolean round = encoding == TSEncoding.RLE || encoding == TSEncoding.TS_2DIFF;
+    if (dataType == TSDataType.FLOAT && round) {
+      float value = getFloat(index);
+      if (!Float.isNaN(value)) {
+        value = MathUtils.roundWithGivenPrecision(value, floatPrecision);
+      }
+      return new TimeValuePair(time, TsPrimitiveType.getByType(dataType, value));
+    } else if (dataType == TSDataType.DOUBLE && round) {
+      double value = getDouble(index);
+      if (!Double.isNaN(value)) {
+        value = MathUtils.roundWithGivenPrecision(value, floatPrecision);
+      }
+      return new TimeValuePair(time, TsPrimitiveType.getByType(dataType, value));
+    }
+    return new TimeValuePair(time, getPrimitiveValue(index));
+  }
+
+  private TsPrimitiveType getPrimitiveValue(int index) {
+    switch (dataType) {
+      case BOOLEAN:
+        return TsPrimitiveType.getByType(dataType, getBoolean(index));
+      case INT32:
+        return TsPrimitiveType.getByType(dataType, getInt(index));
+      case INT64:
+        return TsPrimitiveType.getByType(dataType, getLong(index));
+      case FLOAT:
+        return TsPrimitiveType.getByType(dataType, getFloat(index));
+      case DOUBLE:
+        return TsPrimitiveType.getByType(dataType, getDouble(index));
+      default:
+        throw new UnSupportedDataTypeException(dataType.name());
+    }
+  }
+
+  @Override
+  public TSDataType getDataType() {
+    return dataType;
+  }
+
+  /** The same format as the on-heap TVList of the data type, so it is deserialized as that. */
+  @Override
+  public int serializedSize() {
+    return Byte.BYTES + Integer.BYTES + rowCount * (Long.BYTES + valueSize);
+  }
+
+  @Override
+  public void serializeToWAL(IWALByteBufferView buffer) {
+    WALWriteUtils.write(dataType, buffer);
+    buffer.putInt(rowCount);
+    for (int rowIdx = 0; rowIdx < rowCount; ++rowIdx) {
+      buffer.putLong(getTime(rowIdx));
+      switch (dataType) {
+        case BOOLEAN:
+          WALWriteUtils.write(getBoolean(rowIdx), buffer);
+          break;
+        case INT32:
+          buffer.putInt(getInt(rowIdx));
+          break;
+        case INT64:
+          buffer.putLong(getLong(rowIdx));
+          break;
+        case FLOAT:
+          buffer.putFloat(getFloat(rowIdx));
+          break;
+        case DOUBLE:
+        default:
+          buffer.putDouble(getDouble(rowIdx));
+          break;
+      }
+    }
+  }
+}
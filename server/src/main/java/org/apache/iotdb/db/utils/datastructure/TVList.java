@@ -20,6 +20,7 @@
 package org.apache.iotdb.db.utils.datastructure;
 
 import org.apache.iotdb.commons.utils.TestOnly;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.rescon.PrimitiveArrayManager;
 import org.apache.iotdb.db.wal.buffer.WALEntryValue;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -68,6 +69,10 @@ public abstract class TVList implements WALEntryValue {
   }
 
   public static TVList newList(TSDataType dataType) {
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableOffHeapTVList()
+        && OffHeapTVList.isSupported(dataType)) {
+      return new OffHeapTVList(dataType);
+    }
     switch (dataType) {
       case TEXT:
         return new BinaryTVList();
@@ -151,6 +151,23 @@ public class SingleFileLogReader implements ILogReader {
     idx = 0;
   }
 
+  /**
+   * Skip the logs before the position, which should be the end of a log batch, e.g., the length of
+   * the log file at some time.
+   */
+  public void skip(long position) throws IOException {
+    long skipped = 0;
+    while (skipped < position) {
+      long skippedBytes = logStream.skip(position - skipped);
+      if (skippedBytes <= 0) {
+        throw new EOFException(
+            String.format("Cannot skip to %d of %s, it's shorter", position, filepath));
+      }
+      skipped += skippedBytes;
+    }
+    unbrokenLogsSize = position;
+  }
+
   public boolean isFileCorrupted() {
     return fileCorrupted;
   }
@@ -0,0 +1,518 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.wal.buffer;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.utils.MmapUtil;
+import org.apache.iotdb.db.wal.exception.WALNodeClosedException;
+import org.apache.iotdb.db.wal.utils.WALMode;
+import org.apache.iotdb.db.wal.utils.listener.WALFlushListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This buffer lets writers serialize WALEntries concurrently instead of funneling them through one
+ * serialize thread. Each writer serializes its WALEntry into a thread-local staging buffer, then
+ * reserves space in the working segment with an atomic cursor and copies the bytes there. The
+ * writer whose reservation crosses the end of the segment seals it, hands it to syncBufferThread
+ * and swaps in a free segment, so no lock is held when writing or switching segments.
+ * syncBufferThread waits until all reserved bytes of a sealed segment have been published, then
+ * writes and fsyncs it. Both waits spin for a short while, then park until woken by the sealer or
+ * the last publisher.
+ */
+public class ConcurrentWALBuffer extends AbstractWALBuffer {
+  private static final Logger logger = LoggerFactory.getLogger(ConcurrentWALBuffer.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private static final int SEGMENT_NUM = 4;
+  private static final int SEGMENT_SIZE = config.getWalBufferSize() / SEGMENT_NUM;
+  /** reserving this size makes sure the segment is sealed by the reserver or someone else */
+  private static final long SEAL_RESERVE_SIZE = SEGMENT_SIZE + 1L;
+  /** times of spinning before parking when waiting for other threads */
+  private static final int MAX_SPIN_TIMES = 64;
+  /** max time the fsync thread parks when the working segment is empty */
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  /** staging buffers grown for a big entry are dropped after use, so threads keep small buffers */
+  private static final ThreadLocal<GrowableByteBufferView> stagingBuffers =
+      ThreadLocal.withInitial(
+          () ->
+              new GrowableByteBufferView(
+                  config.getWalBufferEntrySize(), config.getWalBufferEntrySize()));
+
+  /** whether close method is called */
+  private volatile boolean isClosed = false;
+  /** segments which are neither working nor waiting to be synced */
+  private final BlockingQueue<Segment> freeSegments = new ArrayBlockingQueue<>(SEGMENT_NUM);
+  /** segment receiving writes */
+  private volatile Segment workingSegment;
+  /** lock and condition for writers waiting for the working segment to be switched */
+  private final Lock switchLock = new ReentrantLock();
+
+  private final Condition segmentSwitchedCondition = switchLock.newCondition();
+  /** single thread to seal the working segment periodically so that each batch gets its fsync */
+  private final ExecutorService fsyncThread;
+  /** thread running FsyncTask, writers unpark it when a batch starts or becomes full */
+  private volatile Thread fsyncTaskThread;
+  /** single thread to sync sealed segments to disk in sealing order */
+  private final ExecutorService syncBufferThread;
+
+  public ConcurrentWALBuffer(String identifier, String logDirectory) throws FileNotFoundException {
+    super(identifier, logDirectory);
+    allocateSegments();
+    fsyncThread =
+        IoTDBThreadPoolFactory.newSingleThreadExecutor(
+            ThreadName.WAL_SERIALIZE.getName() + "(node-" + identifier + ")");
+    syncBufferThread =
+        IoTDBThreadPoolFactory.newSingleThreadExecutor(
+            ThreadName.WAL_SYNC.getName() + "(node-" + identifier + ")");
+    fsyncThread.submit(new FsyncTask());
+  }
+
+  private void allocateSegments() {
+    try {
+      workingSegment = new Segment(ByteBuffer.allocateDirect(SEGMENT_SIZE));
+      for (int i = 1; i < SEGMENT_NUM; i++) {
+        freeSegments.add(new Segment(ByteBuffer.allocateDirect(SEGMENT_SIZE)));
+      }
+    } catch (OutOfMemoryError e) {
+      logger.error("Fail to allocate wal node-{}'s buffer because out of memory.", identifier, e);
+      close();
+      throw e;
+    }
+  }
+
+  @Override
+  public void write(WALEntry walEntry) {
+    if (isClosed) {
+      logger.error(
+          "Fail to write WALEntry into wal node-{} because this node is closed.", identifier);
+      walEntry.getWalFlushListener().fail(new WALNodeClosedException(identifier));
+      return;
+    }
+    if (walEntry.isSignal()) {
+      handleSignalEntry((SignalWALEntry) walEntry);
+      return;
+    }
+
+    // serialize in the writer's own thread, so writers of one node don't wait for each other
+    GrowableByteBufferView stagingBuffer = stagingBuffers.get();
+    try {
+      walEntry.serialize(stagingBuffer);
+    } catch (Exception e) {
+      logger.error(
+          "Fail to serialize WALEntry to wal node-{}'s buffer, discard it.", identifier, e);
+      walEntry.getWalFlushListener().fail(e);
+      stagingBuffer.reset();
+      return;
+    }
+    ByteBuffer bytes = stagingBuffer.getBuffer();
+    bytes.flip();
+    try {
+      if (bytes.remaining() > SEGMENT_SIZE) {
+        writeHugeEntry(bytes, walEntry.getWalFlushListener());
+      } else {
+        writeEntry(bytes, walEntry.getWalFlushListener());
+      }
+    } finally {
+      stagingBuffer.reset();
+    }
+  }
+
+  private void writeEntry(ByteBuffer bytes, WALFlushListener walFlushListener) {
+    int size = bytes.remaining();
+    while (true) {
+      Segment segment = workingSegment;
+      long offset = segment.cursor.getAndAdd(size);
+      if (offset + size <= SEGMENT_SIZE) {
+        segment.publish((int) offset, bytes, walFlushListener);
+        return;
+      }
+      // only the writer crossing the end of this segment gets an offset not after the end
+      if (offset <= SEGMENT_SIZE) {
+        sealSegment(segment, (int) offset);
+      } else {
+        awaitSegmentSwitched(segment);
+      }
+    }
+  }
+
+  /** Huge entry cannot fit any segment, so it's attached to the end of current segment. */
+  private void writeHugeEntry(ByteBuffer bytes, WALFlushListener walFlushListener) {
+    while (true) {
+      Segment segment = workingSegment;
+      long offset = segment.cursor.getAndAdd(SEAL_RESERVE_SIZE);
+      if (offset <= SEGMENT_SIZE) {
+        ByteBuffer hugeEntry = ByteBuffer.allocate(bytes.remaining());
+        hugeEntry.put(bytes);
+        segment.hugeEntry = hugeEntry;
+        segment.listeners.add(walFlushListener);
+        sealSegment(segment, (int) offset);
+        return;
+      }
+      awaitSegmentSwitched(segment);
+    }
+  }
+
+  private void handleSignalEntry(SignalWALEntry signalWALEntry) {
+    if (signalWALEntry.getSignalType() == SignalWALEntry.SignalType.ROLL_WAL_LOG_WRITER_SIGNAL) {
+      sealWorkingSegment(signalWALEntry.getWalFlushListener(), false);
+    }
+  }
+
+  /**
+   * Seal current working segment no matter whether it's full.
+   *
+   * @param rollWALFileWriterListener not null if the log writer should be rolled after syncing
+   * @param onlyIfNotEmpty skip sealing when nothing has been written into the segment
+   */
+  private void sealWorkingSegment(
+      WALFlushListener rollWALFileWriterListener, boolean onlyIfNotEmpty) {
+    while (true) {
+      Segment segment = workingSegment;
+      if (onlyIfNotEmpty && segment.cursor.get() == 0) {
+        return;
+      }
+      long offset = segment.cursor.getAndAdd(SEAL_RESERVE_SIZE);
+      if (offset <= SEGMENT_SIZE) {
+        segment.rollWALFileWriterListener = rollWALFileWriterListener;
+        sealSegment(segment, (int) offset);
+        return;
+      }
+      if (onlyIfNotEmpty) {
+        // sealed by others
+        return;
+      }
+      awaitSegmentSwitched(segment);
+    }
+  }
+
+  /** Notice: only called by the thread whose reservation crosses the end of this segment. */
+  private void sealSegment(Segment segment, int sealedSize) {
+    segment.sealedSize = sealedSize;
+    syncBufferThread.submit(new SyncSegmentTask(segment));
+    // writers are waiting for the switch, so keep waiting for a free segment even if interrupted
+    boolean interrupted = false;
+    Segment nextSegment = null;
+    while (nextSegment == null) {
+      try {
+        nextSegment = freeSegments.take();
+      } catch (InterruptedException e) {
+        logger.warn("Interrupted when waiting for available working segment.");
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    nextSegment.reset();
+    workingSegment = nextSegment;
+    switchLock.lock();
+    try {
+      segmentSwitchedCondition.signalAll();
+    } finally {
+      switchLock.unlock();
+    }
+  }
+
+  private void awaitSegmentSwitched(Segment segment) {
+    // the switch is usually quick, unless all the other segments are waiting to be synced
+    for (int i = 0; i < MAX_SPIN_TIMES; i++) {
+      if (workingSegment != segment) {
+        return;
+      }
+      Thread.yield();
+    }
+    switchLock.lock();
+    try {
+      while (workingSegment == segment) {
+        segmentSwitchedCondition.awaitUninterruptibly();
+      }
+    } finally {
+      switchLock.unlock();
+    }
+  }
+
+  private void unparkFsyncTask() {
+    Thread thread = fsyncTaskThread;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  // region Task of fsyncThread
+  /**
+   * This task seals the working segment after a write batch is collected, which decides the latency
+   * of SYNC and GROUP_COMMIT writers just like the serialize task of {@link WALBuffer}.
+   */
+  private class FsyncTask implements Runnable {
+    @Override
+    public void run() {
+      fsyncTaskThread = Thread.currentThread();
+      while (!isClosed) {
+        Segment segment = workingSegment;
+        if (segment.entryNum.get() == 0) {
+          LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+          continue;
+        }
+        awaitBatch(segment);
+        if (workingSegment == segment) {
+          sealWorkingSegment(null, true);
+        }
+      }
+    }
+
+    private void awaitBatch(Segment segment) {
+      long deadline;
+      int maxBatchSize;
+      if (config.getWalMode() == WALMode.GROUP_COMMIT) {
+        deadline =
+            System.nanoTime()
+                + TimeUnit.MICROSECONDS.toNanos(config.getWalGroupCommitMaxWaitInUs());
+        maxBatchSize = config.getWalGroupCommitMaxBatchSize();
+      } else {
+        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getFsyncWalDelayInMs());
+        maxBatchSize = Integer.MAX_VALUE;
+      }
+      long remaining = deadline - System.nanoTime();
+      while (remaining > 0
+          && segment.entryNum.get() < maxBatchSize
+          && workingSegment == segment
+          && !isClosed) {
+        LockSupport.parkNanos(this, remaining);
+        remaining = deadline - System.nanoTime();
+      }
+    }
+  }
+  // endregion
+
+  // region Task of syncBufferThread
+  /** This task syncs one sealed segment to disk and fsyncs it. */
+  private class SyncSegmentTask implements Runnable {
+    private final Segment segment;
+
+    private SyncSegmentTask(Segment segment) {
+      this.segment = segment;
+    }
+
+    @Override
+    public void run() {
+      try {
+        syncSegment();
+      } finally {
+        freeSegments.add(segment);
+      }
+    }
+
+    private void syncSegment() {
+      segment.awaitPublished();
+
+      // flush buffer to os and force os cache to the storage device
+      try {
+        ByteBuffer buffer = segment.buffer;
+        buffer.clear();
+        buffer.position(segment.sealedSize);
+        currentWALFileWriter.write(buffer);
+        if (segment.hugeEntry != null) {
+          currentWALFileWriter.write(segment.hugeEntry);
+        }
+        currentWALFileWriter.force();
+        // notify all waiting listeners
+        for (WALFlushListener fsyncListener : segment.listeners) {
+          fsyncListener.succeed();
+        }
+      } catch (Exception e) {
+        logger.error(
+            "Fail to sync wal node-{}'s buffer, change system mode to read-only.", identifier, e);
+        for (WALFlushListener fsyncListener : segment.listeners) {
+          fsyncListener.fail(e);
+        }
+        config.setReadOnly(true);
+      }
+
+      // try to roll log writer
+      WALFlushListener rollWALFileWriterListener = segment.rollWALFileWriterListener;
+      try {
+        if (rollWALFileWriterListener != null
+            || currentWALFileWriter.size() >= config.getWalFileSizeThresholdInByte()) {
+          rollLogWriter();
+          if (rollWALFileWriterListener != null) {
+            rollWALFileWriterListener.succeed();
+          }
+        }
+      } catch (IOException e) {
+        logger.error(
+            "Fail to roll wal node-{}'s log writer, change system mode to read-only.",
+            identifier,
+            e);
+        if (rollWALFileWriterListener != null) {
+          rollWALFileWriterListener.fail(e);
+        }
+        config.setReadOnly(true);
+      }
+    }
+  }
+  // endregion
+
+  /** Fixed size piece of the wal buffer, writers reserve bytes of it by moving the cursor. */
+  private class Segment {
+    private final ByteBuffer buffer;
+    /** next offset to reserve, may exceed SEGMENT_SIZE once the segment is sealed */
+    private final AtomicLong cursor = new AtomicLong();
+    /** number of bytes copied into buffer by writers */
+    private final AtomicInteger publishedBytes = new AtomicInteger();
+    /** number of WALEntries reserved in this segment */
+    private final AtomicInteger entryNum = new AtomicInteger();
+
+    private final Queue<WALFlushListener> listeners = new ConcurrentLinkedQueue<>();
+    /** valid size of buffer, only set by the sealer */
+    private volatile int sealedSize = -1;
+    /** syncBufferThread parked in {@link #awaitPublished()}, unparked by the last publisher */
+    private volatile Thread publishWaiter;
+
+    private volatile ByteBuffer hugeEntry;
+    private volatile WALFlushListener rollWALFileWriterListener;
+
+    private Segment(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    private void publish(int offset, ByteBuffer bytes, WALFlushListener walFlushListener) {
+      int num = entryNum.incrementAndGet();
+      ByteBuffer target = buffer.duplicate();
+      target.position(offset);
+      int size = bytes.remaining();
+      target.put(bytes);
+      // listener must be visible before its bytes are published
+      listeners.add(walFlushListener);
+      int published = publishedBytes.addAndGet(size);
+      // sealedSize is not set until the segment is sealed
+      int sealed = sealedSize;
+      if (sealed >= 0 && published >= sealed) {
+        Thread waiter = publishWaiter;
+        if (waiter != null) {
+          LockSupport.unpark(waiter);
+        }
+      }
+      if (num == 1
+          || (config.getWalMode() == WALMode.GROUP_COMMIT
+              && num == config.getWalGroupCommitMaxBatchSize())) {
+        unparkFsyncTask();
+      }
+    }
+
+    /** Wait until writers finish copying all reserved bytes before the sealed size. */
+    private void awaitPublished() {
+      for (int i = 0; i < MAX_SPIN_TIMES; i++) {
+        if (publishedBytes.get() >= sealedSize) {
+          return;
+        }
+        Thread.yield();
+      }
+      // publishWaiter is set before checking again, so the last publisher either sees it or
+      // publishes before the check
+      publishWaiter = Thread.currentThread();
+      while (publishedBytes.get() < sealedSize) {
+        LockSupport.park(this);
+      }
+      publishWaiter = null;
+    }
+
+    /** Notice: only called by the sealer before this segment becomes working again. */
+    private void reset() {
+      buffer.clear();
+      listeners.clear();
+      publishedBytes.set(0);
+      entryNum.set(0);
+      sealedSize = -1;
+      publishWaiter = null;
+      hugeEntry = null;
+      rollWALFileWriterListener = null;
+      cursor.set(0);
+    }
+  }
+
+  @Override
+  public void close() {
+    isClosed = true;
+    // seal the last batch, then wait for all sync tasks finished and release all resources
+    if (workingSegment != null && fsyncThread != null) {
+      sealWorkingSegment(null, true);
+    }
+    if (fsyncThread != null) {
+      unparkFsyncTask();
+      shutdownThread(fsyncThread, ThreadName.WAL_SERIALIZE);
+    }
+    if (syncBufferThread != null) {
+      shutdownThread(syncBufferThread, ThreadName.WAL_SYNC);
+    }
+
+    if (currentWALFileWriter != null) {
+      try {
+        currentWALFileWriter.close();
+      } catch (IOException e) {
+        logger.error("Fail to close wal node-{}'s log writer.", identifier, e);
+      }
+    }
+
+    if (workingSegment != null) {
+      MmapUtil.clean((MappedByteBuffer) workingSegment.buffer);
+    }
+    for (Segment segment : freeSegments) {
+      MmapUtil.clean((MappedByteBuffer) segment.buffer);
+    }
+  }
+
+  private void shutdownThread(ExecutorService thread, ThreadName threadName) {
+    thread.shutdown();
+    try {
+      if (!thread.awaitTermination(30, TimeUnit.SECONDS)) {
+        logger.warn("Waiting thread {} to be terminated is timeout", threadName.getName());
+      }
+    } catch (InterruptedException e) {
+      logger.warn("Thread {} still doesn't exit after 30s", threadName.getName());
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public boolean isAllWALEntriesConsumed() {
+    return workingSegment.cursor.get() == 0 && freeSegments.size() == SEGMENT_NUM - 1;
+  }
+}
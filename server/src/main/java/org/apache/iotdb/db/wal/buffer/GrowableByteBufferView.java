@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.wal.buffer;
+
+import java.nio.ByteBuffer;
+
+/** Heap buffer view which grows when it's full, used to serialize a WALEntry before copying it. */
+class GrowableByteBufferView implements IWALByteBufferView {
+  private final int initialCapacity;
+  /** buffers bigger than this are dropped by {@link #reset()} */
+  private final int maxRetainedCapacity;
+
+  private ByteBuffer buffer;
+
+  GrowableByteBufferView(int initialCapacity, int maxRetainedCapacity) {
+    this.initialCapacity = initialCapacity;
+    this.maxRetainedCapacity = maxRetainedCapacity;
+    this.buffer = ByteBuffer.allocate(initialCapacity);
+  }
+
+  /** @return the underlying buffer, whose position is the number of bytes written */
+  ByteBuffer getBuffer() {
+    return buffer;
+  }
+
+  void reset() {
+    if (buffer.capacity() > maxRetainedCapacity) {
+      buffer = ByteBuffer.allocate(initialCapacity);
+    } else {
+      buffer.clear();
+    }
+  }
+
+  private void ensureEnoughSpace(int bytesNum) {
+    if (buffer.remaining() < bytesNum) {
+      int newCapacity = Math.max(buffer.capacity() * 2, buffer.position() + bytesNum);
+      ByteBuffer newBuffer = ByteBuffer.allocate(newCapacity);
+      buffer.flip();
+      newBuffer.put(buffer);
+      buffer = newBuffer;
+    }
+  }
+
+  @Override
+  public void put(byte b) {
+    ensureEnoughSpace(Byte.BYTES);
+    buffer.put(b);
+  }
+
+  @Override
+  public void put(byte[] src) {
+    ensureEnoughSpace(src.length);
+    buffer.put(src);
+  }
+
+  @Override
+  public void putChar(char value) {
+    ensureEnoughSpace(Character.BYTES);
+    buffer.putChar(value);
+  }
+
+  @Override
+  public void putShort(short value) {
+    ensureEnoughSpace(Short.BYTES);
+    buffer.putShort(value);
+  }
+
+  @Override
+  public void putInt(int value) {
+    ensureEnoughSpace(Integer.BYTES);
+    buffer.putInt(value);
+  }
+
+  @Override
+  public void putLong(long value) {
+    ensureEnoughSpace(Long.BYTES);
+    buffer.putLong(value);
+  }
+
+  @Override
+  public void putFloat(float value) {
+    ensureEnoughSpace(Float.BYTES);
+    buffer.putFloat(value);
+  }
+
+  @Override
+  public void putDouble(double value) {
+    ensureEnoughSpace(Double.BYTES);
+    buffer.putDouble(value);
+  }
+}
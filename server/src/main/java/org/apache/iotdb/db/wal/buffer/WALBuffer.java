@@ -24,6 +24,7 @@ import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.utils.MmapUtil;
 import org.apache.iotdb.db.wal.exception.WALNodeClosedException;
+import org.apache.iotdb.db.wal.utils.WALMode;
 import org.apache.iotdb.db.wal.utils.listener.WALFlushListener;
 
 import org.slf4j.Logger;
@@ -138,8 +139,10 @@ public class WALBuffer extends AbstractWALBuffer {
     /** In order to control memory usage of blocking queue, get 1 and then serialize 1 */
     private void serialize() {
       // try to get first WALEntry with blocking interface
+      long firstEntryTime = System.nanoTime();
       try {
         WALEntry firstWALEntry = walEntries.take();
+        firstEntryTime = System.nanoTime();
         boolean returnFlag = handleWALEntry(firstWALEntry);
         if (returnFlag) {
           return;
@@ -150,24 +153,31 @@ public class WALBuffer extends AbstractWALBuffer {
         Thread.currentThread().interrupt();
       }
 
-      // for better fsync performance, sleep a while to enlarge write batch
-      long fsyncDelay = config.getFsyncWalDelayInMs();
-      if (fsyncDelay > 0) {
-        try {
-          Thread.sleep(fsyncDelay);
-        } catch (InterruptedException e) {
-          logger.warn("Interrupted when sleeping a while to enlarge wal write batch.");
-          Thread.currentThread().interrupt();
-        }
-      }
-
-      // try to get more WALEntries with non-blocking interface to enlarge write batch
-      while (walEntries.peek() != null && batchSize < QUEUE_CAPACITY) {
-        WALEntry walEntry = walEntries.poll();
-        boolean returnFlag = handleWALEntry(walEntry);
+      if (config.getWalMode() == WALMode.GROUP_COMMIT) {
+        boolean returnFlag = collectGroupCommitBatch(firstEntryTime);
         if (returnFlag) {
           return;
         }
+      } else {
+        // for better fsync performance, sleep a while to enlarge write batch
+        long fsyncDelay = config.getFsyncWalDelayInMs();
+        if (fsyncDelay > 0) {
+          try {
+            Thread.sleep(fsyncDelay);
+          } catch (InterruptedException e) {
+            logger.warn("Interrupted when sleeping a while to enlarge wal write batch.");
+            Thread.currentThread().interrupt();
+          }
+        }
+
+        // try to get more WALEntries with non-blocking interface to enlarge write batch
+        while (walEntries.peek() != null && batchSize < QUEUE_CAPACITY) {
+          WALEntry walEntry = walEntries.poll();
+          boolean returnFlag = handleWALEntry(walEntry);
+          if (returnFlag) {
+            return;
+          }
+        }
       }
 
       // call fsync at last and set fsyncListeners
@@ -176,6 +186,41 @@ public class WALBuffer extends AbstractWALBuffer {
       }
     }
 
+    /**
+     * Keep taking WALEntries until the batch reaches wal_group_commit_max_batch_size or
+     * wal_group_commit_max_wait_in_us has passed since the first one, so that all writers of this
+     * batch are released by one fsync.
+     *
+     * @return true if fsyncWorkingBuffer has been called, which means this serialization task
+     *     should be ended.
+     */
+    private boolean collectGroupCommitBatch(long firstEntryTime) {
+      long deadline =
+          firstEntryTime + TimeUnit.MICROSECONDS.toNanos(config.getWalGroupCommitMaxWaitInUs());
+      int maxBatchSize = config.getWalGroupCommitMaxBatchSize();
+      while (batchSize < maxBatchSize) {
+        WALEntry walEntry;
+        try {
+          long remaining = deadline - System.nanoTime();
+          // after the deadline, only drain the entries already in the queue
+          walEntry =
+              remaining > 0 ? walEntries.poll(remaining, TimeUnit.NANOSECONDS) : walEntries.poll();
+        } catch (InterruptedException e) {
+          logger.warn("Interrupted when waiting for more WALEntries to group commit.");
+          Thread.currentThread().interrupt();
+          return false;
+        }
+        if (walEntry == null) {
+          return false;
+        }
+        boolean returnFlag = handleWALEntry(walEntry);
+        if (returnFlag) {
+          return true;
+        }
+      }
+      return false;
+    }
+
     /**
      * @return true if fsyncWorkingBuffer has been called, which means this serialization task
      *     should be ended.
@@ -375,6 +420,10 @@ public class WALBuffer extends AbstractWALBuffer {
       if (forceFlag) {
         try {
           currentWALFileWriter.force();
+          // notify all waiting listeners
+          for (WALFlushListener fsyncListener : fsyncListeners) {
+            fsyncListener.succeed();
+          }
         } catch (IOException e) {
           logger.error(
               "Fail to fsync wal node-{}'s log writer, change system mode to read-only.",
@@ -385,10 +434,6 @@ public class WALBuffer extends AbstractWALBuffer {
           }
           config.setReadOnly(true);
         }
-        // notify all waiting listeners
-        for (WALFlushListener fsyncListener : fsyncListeners) {
-          fsyncListener.succeed();
-        }
       }
 
       // try to roll log writer
@@ -31,11 +31,19 @@ import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
 import org.apache.iotdb.db.utils.SerializedSize;
-import org.apache.iotdb.db.wal.utils.WALMode;
 import org.apache.iotdb.db.wal.utils.listener.WALFlushListener;
+import org.apache.iotdb.tsfile.compress.ICompressor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
@@ -43,10 +51,13 @@ import java.util.Objects;
  * value(physical plan or memTable snapshot).
  */
 public class WALEntry implements SerializedSize {
+  private static final Logger logger = LoggerFactory.getLogger(WALEntry.class);
   private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
 
   /** wal entry type 1 byte, memTable id 4 bytes */
   private static final int FIXED_SERIALIZED_SIZE = Byte.BYTES + Integer.BYTES;
+  /** compression type 1 byte, uncompressed size 4 bytes, compressed size 4 bytes */
+  private static final int COMPRESSION_HEADER_SIZE = Byte.BYTES + Integer.BYTES * 2;
 
   /** type of value */
   private final WALEntryType type;
@@ -64,7 +75,7 @@ public class WALEntry implements SerializedSize {
   private final WALFlushListener walFlushListener;
 
   public WALEntry(int memTableId, WALEntryValue value) {
-    this(memTableId, value, config.getWalMode() == WALMode.SYNC);
+    this(memTableId, value, config.getWalMode().isSync());
     if (value instanceof InsertTabletPlan) {
       tabletInfo = new TabletInfo(0, ((InsertTabletPlan) value).getRowCount());
     } else if (value instanceof InsertTabletNode) {
@@ -73,12 +84,12 @@ public class WALEntry implements SerializedSize {
   }
 
   public WALEntry(int memTableId, InsertTabletPlan value, int tabletStart, int tabletEnd) {
-    this(memTableId, value, config.getWalMode() == WALMode.SYNC);
+    this(memTableId, value, config.getWalMode().isSync());
     tabletInfo = new TabletInfo(tabletStart, tabletEnd);
   }
 
   public WALEntry(int memTableId, InsertTabletNode value, int tabletStart, int tabletEnd) {
-    this(memTableId, value, config.getWalMode() == WALMode.SYNC);
+    this(memTableId, value, config.getWalMode().isSync());
     tabletInfo = new TabletInfo(tabletStart, tabletEnd);
   }
 
@@ -116,16 +127,17 @@ public class WALEntry implements SerializedSize {
   }
 
   public void serialize(IWALByteBufferView buffer) {
+    if ((type == WALEntryType.INSERT_TABLET_PLAN || type == WALEntryType.INSERT_TABLET_NODE)
+        && config.getWalTabletCompressor() != CompressionType.UNCOMPRESSED) {
+      serializeCompressedTablet(buffer, config.getWalTabletCompressor());
+      return;
+    }
     buffer.put(type.getCode());
     buffer.putInt(memTableId);
     switch (type) {
       case INSERT_TABLET_PLAN:
-        ((InsertTabletPlan) value)
-            .serializeToWAL(buffer, tabletInfo.tabletStart, tabletInfo.tabletEnd);
-        break;
       case INSERT_TABLET_NODE:
-        ((InsertTabletNode) value)
-            .serializeToWAL(buffer, tabletInfo.tabletStart, tabletInfo.tabletEnd);
+        serializeTablet(buffer);
         break;
       case INSERT_ROW_PLAN:
       case INSERT_ROW_NODE:
@@ -136,6 +148,66 @@ public class WALEntry implements SerializedSize {
     }
   }
 
+  private void serializeTablet(IWALByteBufferView buffer) {
+    if (type == WALEntryType.INSERT_TABLET_PLAN) {
+      ((InsertTabletPlan) value)
+          .serializeToWAL(buffer, tabletInfo.tabletStart, tabletInfo.tabletEnd);
+    } else {
+      ((InsertTabletNode) value)
+          .serializeToWAL(buffer, tabletInfo.tabletStart, tabletInfo.tabletEnd);
+    }
+  }
+
+  /**
+   * Serialize the tablet into a heap buffer first and compress it as a whole, the compressed entry
+   * is: compressed type 1 byte, memTable id 4 bytes, compression type 1 byte, uncompressed size 4
+   * bytes, compressed size 4 bytes, compressed bytes. Fall back to the plain entry when the
+   * compressed one isn't smaller.
+   */
+  private void serializeCompressedTablet(
+      IWALByteBufferView buffer, CompressionType compressionType) {
+    GrowableByteBufferView tabletBuffer =
+        new GrowableByteBufferView(value.serializedSize(), Integer.MAX_VALUE);
+    serializeTablet(tabletBuffer);
+    ByteBuffer uncompressed = tabletBuffer.getBuffer();
+    int uncompressedSize = uncompressed.position();
+    byte[] compressed = null;
+    try {
+      compressed =
+          ICompressor.getCompressor(compressionType)
+              .compress(uncompressed.array(), uncompressed.arrayOffset(), uncompressedSize);
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Fail to compress wal entry with {}, write it uncompressed.", compressionType, e);
+    }
+
+    if (compressed != null && compressed.length + COMPRESSION_HEADER_SIZE < uncompressedSize) {
+      buffer.put(
+          type == WALEntryType.INSERT_TABLET_PLAN
+              ? WALEntryType.COMPRESSED_INSERT_TABLET_PLAN.getCode()
+              : WALEntryType.COMPRESSED_INSERT_TABLET_NODE.getCode());
+      buffer.putInt(memTableId);
+      buffer.put(compressionType.serialize());
+      buffer.putInt(uncompressedSize);
+      buffer.putInt(compressed.length);
+      buffer.put(compressed);
+    } else {
+      buffer.put(type.getCode());
+      buffer.putInt(memTableId);
+      buffer.put(Arrays.copyOf(uncompressed.array(), uncompressedSize));
+    }
+  }
+
+  private static DataInputStream uncompressTablet(DataInputStream stream) throws IOException {
+    CompressionType compressionType = CompressionType.deserialize(stream.readByte());
+    int uncompressedSize = stream.readInt();
+    byte[] compressed = new byte[stream.readInt()];
+    stream.readFully(compressed);
+    byte[] uncompressed = new byte[uncompressedSize];
+    IUnCompressor.getUnCompressor(compressionType)
+        .uncompress(compressed, 0, compressed.length, uncompressed, 0);
+    return new DataInputStream(new ByteArrayInputStream(uncompressed));
+  }
+
   public static WALEntry deserialize(DataInputStream stream)
       throws IllegalPathException, IOException {
     byte typeNum = stream.readByte();
@@ -165,6 +237,14 @@ public class WALEntry implements SerializedSize {
       case INSERT_TABLET_NODE:
         value = (InsertTabletNode) PlanNodeType.deserialize(stream);
         break;
+      case COMPRESSED_INSERT_TABLET_PLAN:
+        value = (InsertTabletPlan) PhysicalPlan.Factory.create(uncompressTablet(stream));
+        type = WALEntryType.INSERT_TABLET_PLAN;
+        break;
+      case COMPRESSED_INSERT_TABLET_NODE:
+        value = (InsertTabletNode) PlanNodeType.deserialize(uncompressTablet(stream));
+        type = WALEntryType.INSERT_TABLET_NODE;
+        break;
     }
     return new WALEntry(type, memTableId, value);
   }
@@ -32,6 +32,10 @@ public enum WALEntryType {
   INSERT_ROW_NODE((byte) 4),
   /** {@link org.apache.iotdb.db.mpp.sql.planner.plan.node.write.InsertTabletNode} */
   INSERT_TABLET_NODE((byte) 5),
+  /** {@link #INSERT_TABLET_PLAN} whose serialized plan is compressed, only used in .wal files */
+  COMPRESSED_INSERT_TABLET_PLAN((byte) 6),
+  /** {@link #INSERT_TABLET_NODE} whose serialized node is compressed, only used in .wal files */
+  COMPRESSED_INSERT_TABLET_NODE((byte) 7),
   ;
 
   private final byte code;
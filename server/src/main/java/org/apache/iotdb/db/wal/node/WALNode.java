@@ -34,6 +34,7 @@ import org.apache.iotdb.db.mpp.sql.planner.plan.node.write.InsertTabletNode;
 import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
+import org.apache.iotdb.db.wal.buffer.ConcurrentWALBuffer;
 import org.apache.iotdb.db.wal.buffer.IWALBuffer;
 import org.apache.iotdb.db.wal.buffer.SignalWALEntry;
 import org.apache.iotdb.db.wal.buffer.WALBuffer;
@@ -91,7 +92,10 @@ public class WALNode implements IWALNode {
     if (!logDirFile.exists() && logDirFile.mkdirs()) {
       logger.info("create folder {} for wal node-{}.", logDirectory, identifier);
     }
-    this.buffer = new WALBuffer(identifier, logDirectory);
+    this.buffer =
+        config.isEnableWALConcurrentSerialization()
+            ? new ConcurrentWALBuffer(identifier, logDirectory)
+            : new WALBuffer(identifier, logDirectory);
     this.checkpointManager = new CheckpointManager(identifier, logDirectory);
   }
 
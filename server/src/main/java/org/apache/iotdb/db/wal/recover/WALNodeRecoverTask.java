@@ -29,16 +29,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /** This task is responsible for the recovery of one wal node. */
 public class WALNodeRecoverTask implements Runnable {
   private static final Logger logger = LoggerFactory.getLogger(WALNodeRecoverTask.class);
   private static final WALRecoverManager walRecoverManger = WALRecoverManager.getInstance();
+  /** max number of logs decoded at a time, which bounds the memory of logs waiting for redo */
+  private static final int DECODE_BATCH_SIZE = 1_000;
 
   /** this directory store one wal node's .wal and .checkpoint files */
   private final File logDirectory;
@@ -61,6 +69,11 @@ public class WALNodeRecoverTask implements Runnable {
     try {
       recoverInfoFromCheckpoints();
       recoverTsFiles();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      for (UnsealedTsFileRecoverPerformer recoverPerformer : memTableId2RecoverPerformer.values()) {
+        recoverPerformer.getRecoverListener().fail(e);
+      }
     } catch (Exception e) {
       for (UnsealedTsFileRecoverPerformer recoverPerformer : memTableId2RecoverPerformer.values()) {
         recoverPerformer.getRecoverListener().fail(e);
@@ -88,20 +101,21 @@ public class WALNodeRecoverTask implements Runnable {
     // parse memTables information
     memTableId2Info = CheckpointRecoverUtils.recoverMemTableInfo(logDirectory);
     memTableId2RecoverPerformer = new HashMap<>();
-    // update firstValidVersionId and get recover performer from WALRecoverManager
+    // get recover performer from WALRecoverManager and update firstValidVersionId, memTables
+    // without recover performer have nothing to redo, so .wal files only containing them and
+    // flushed memTables can be skipped without deserializing
     for (MemTableInfo memTableInfo : memTableId2Info.values()) {
-      firstValidVersionId = Math.min(firstValidVersionId, memTableInfo.getFirstFileVersionId());
-
       File tsFile = new File(memTableInfo.getTsFilePath());
       UnsealedTsFileRecoverPerformer recoverPerformer =
           walRecoverManger.removeRecoverPerformer(tsFile.getAbsolutePath());
       if (recoverPerformer != null) {
         memTableId2RecoverPerformer.put(memTableInfo.getMemTableId(), recoverPerformer);
+        firstValidVersionId = Math.min(firstValidVersionId, memTableInfo.getFirstFileVersionId());
       }
     }
   }
 
-  private void recoverTsFiles() {
+  private void recoverTsFiles() throws InterruptedException, ExecutionException {
     if (memTableId2RecoverPerformer.isEmpty()) {
       return;
     }
@@ -116,33 +130,20 @@ public class WALNodeRecoverTask implements Runnable {
     // find all valid .wal files
     File[] walFiles =
         logDirectory.listFiles(
-            (dir, name) -> WALWriter.parseVersionId(name) >= firstValidVersionId);
+            (dir, name) ->
+                WALWriter.walFilenameFilter(dir, name)
+                    && WALWriter.parseVersionId(name) >= firstValidVersionId);
     if (walFiles == null) {
-      return;
+      walFiles = new File[0];
     }
     Arrays.sort(
         walFiles, Comparator.comparingInt(file -> WALWriter.parseVersionId(file.getName())));
-    // read .wal files and redo logs
+    walRecoverManger.addWALFilesToReplay(walFiles.length);
+    // read .wal files and redo logs, a broken .wal file only skips the rest of its own logs
+    ExecutorService replayThreadPool = walRecoverManger.getReplayThreadPool();
     for (File walFile : walFiles) {
-      try (WALReader walReader = new WALReader(walFile)) {
-        while (walReader.hasNext()) {
-          WALEntry walEntry = walReader.next();
-          if (!memTableId2Info.containsKey(walEntry.getMemTableId())) {
-            continue;
-          }
-
-          UnsealedTsFileRecoverPerformer recoverPerformer =
-              memTableId2RecoverPerformer.get(walEntry.getMemTableId());
-          if (recoverPerformer != null) {
-            recoverPerformer.redoLog(walEntry);
-          } else {
-            logger.warn(
-                "Fail to find TsFile recover performer for wal entry in TsFile {}", walFile);
-          }
-        }
-      } catch (Exception e) {
-        logger.warn("Fail to read wal logs from {}, skip them", walFile, e);
-      }
+      replayWALFile(walFile, replayThreadPool);
+      walRecoverManger.reportWALFileReplayed();
     }
     // end recovering all recover performers
     for (UnsealedTsFileRecoverPerformer recoverPerformer : memTableId2RecoverPerformer.values()) {
@@ -154,4 +155,96 @@ public class WALNodeRecoverTask implements Runnable {
       }
     }
   }
+
+  /**
+   * Decode logs of the .wal file in batches and redo them. The next batch is decoded while redoing
+   * logs of current one, so at most two batches of logs are held in memory whatever the size of the
+   * file is. When the file fails to be read or redone, the rest of its logs are skipped.
+   */
+  private void replayWALFile(File walFile, ExecutorService replayThreadPool)
+      throws InterruptedException {
+    try (WALReader walReader = new WALReader(walFile)) {
+      Future<Map<Integer, List<WALEntry>>> nextBatchDecoded =
+          replayThreadPool.submit(() -> decodeWALEntries(walReader));
+      try {
+        Map<Integer, List<WALEntry>> memTableId2WALEntries;
+        while ((memTableId2WALEntries = nextBatchDecoded.get()) != null) {
+          nextBatchDecoded = replayThreadPool.submit(() -> decodeWALEntries(walReader));
+          redoLogs(memTableId2WALEntries, replayThreadPool);
+        }
+      } finally {
+        // the reader can't be closed until the batch being decoded is done
+        try {
+          nextBatchDecoded.get();
+        } catch (ExecutionException e) {
+          // the rest of this file is skipped anyway
+        }
+      }
+    } catch (IOException | ExecutionException e) {
+      logger.warn("Fail to replay wal logs from {}, skip the rest of them", walFile, e);
+    }
+  }
+
+  /**
+   * Read at most {@link #DECODE_BATCH_SIZE} logs and group them by memTable id, logs of each
+   * memTable keep in order. Return null when there are no more logs in the file.
+   */
+  private Map<Integer, List<WALEntry>> decodeWALEntries(WALReader walReader) {
+    if (!walReader.hasNext()) {
+      return null;
+    }
+    Map<Integer, List<WALEntry>> memTableId2WALEntries = new HashMap<>();
+    for (int i = 0; i < DECODE_BATCH_SIZE && walReader.hasNext(); i++) {
+      WALEntry walEntry = walReader.next();
+      if (!memTableId2Info.containsKey(walEntry.getMemTableId())) {
+        continue;
+      }
+      memTableId2WALEntries
+          .computeIfAbsent(walEntry.getMemTableId(), k -> new ArrayList<>())
+          .add(walEntry);
+    }
+    return memTableId2WALEntries;
+  }
+
+  /**
+   * Redo logs of different memTables concurrently and wait until all of them are done, so logs of
+   * next batch won't be redone before logs of this one, even if some of them fail.
+   */
+  private void redoLogs(
+      Map<Integer, List<WALEntry>> memTableId2WALEntries, ExecutorService replayThreadPool)
+      throws InterruptedException, ExecutionException {
+    List<Future<?>> futures = new ArrayList<>();
+    for (Map.Entry<Integer, List<WALEntry>> entry : memTableId2WALEntries.entrySet()) {
+      UnsealedTsFileRecoverPerformer recoverPerformer =
+          memTableId2RecoverPerformer.get(entry.getKey());
+      if (recoverPerformer == null) {
+        logger.warn(
+            "Fail to find TsFile recover performer for wal entry of memTable {}", entry.getKey());
+        continue;
+      }
+      List<WALEntry> walEntries = entry.getValue();
+      futures.add(
+          replayThreadPool.submit(
+              () -> {
+                for (WALEntry walEntry : walEntries) {
+                  recoverPerformer.redoLog(walEntry);
+                }
+              }));
+    }
+    ExecutionException failure = null;
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
 }
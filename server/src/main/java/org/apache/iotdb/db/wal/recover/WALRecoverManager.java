@@ -51,6 +51,12 @@ public class WALRecoverManager {
   private volatile CountDownLatch allDataRegionScannedLatch;
   /** threads to recover wal nodes */
   private ExecutorService recoverThreadPool;
+  /** threads shared by all wal nodes to decode .wal files and redo logs of different memTables */
+  private ExecutorService replayThreadPool;
+  /** number of .wal files all wal nodes need to replay */
+  private int walFileNumToReplay = 0;
+  /** number of .wal files have been replayed */
+  private int replayedWALFileNum = 0;
   /** stores all UnsealedTsFileRecoverPerformer submitted by virtual storage group processors */
   private final Map<String, UnsealedTsFileRecoverPerformer> absolutePath2RecoverPerformer =
       new ConcurrentHashMap<>();
@@ -137,6 +143,43 @@ public class WALRecoverManager {
     logger.info("Successfully recover all wal nodes.");
   }
 
+  /** Get the thread pool to decode .wal files and redo logs, which never waits for itself. */
+  synchronized ExecutorService getReplayThreadPool() {
+    if (replayThreadPool == null) {
+      replayThreadPool =
+          IoTDBThreadPoolFactory.newFixedThreadPool(
+              config.getWalRecoverThreadNum(), ThreadName.WAL_RECOVER.getName() + "-Replay");
+    }
+    return replayThreadPool;
+  }
+
+  synchronized void addWALFilesToReplay(int walFileNum) {
+    walFileNumToReplay += walFileNum;
+  }
+
+  /** Log the progress each time another 10 percent of known .wal files have been replayed. */
+  synchronized void reportWALFileReplayed() {
+    int prevPercent = replayedWALFileNum * 100 / walFileNumToReplay;
+    replayedWALFileNum++;
+    int percent = replayedWALFileNum * 100 / walFileNumToReplay;
+    if (percent / 10 > prevPercent / 10) {
+      logger.info(
+          "WAL recovery progress: {}/{} .wal files have been replayed.",
+          replayedWALFileNum,
+          walFileNumToReplay);
+    }
+  }
+
+  @TestOnly
+  synchronized int getWALFileNumToReplay() {
+    return walFileNumToReplay;
+  }
+
+  @TestOnly
+  synchronized int getReplayedWALFileNum() {
+    return replayedWALFileNum;
+  }
+
   public WALRecoverListener addRecoverPerformer(UnsealedTsFileRecoverPerformer recoverPerformer) {
     absolutePath2RecoverPerformer.put(recoverPerformer.getTsFileAbsolutePath(), recoverPerformer);
     return recoverPerformer.getRecoverListener();
@@ -155,12 +198,18 @@ public class WALRecoverManager {
   }
 
   @TestOnly
-  public void clear() {
+  public synchronized void clear() {
     absolutePath2RecoverPerformer.clear();
     if (recoverThreadPool != null) {
       recoverThreadPool.shutdown();
       recoverThreadPool = null;
     }
+    if (replayThreadPool != null) {
+      replayThreadPool.shutdown();
+      replayThreadPool = null;
+    }
+    walFileNumToReplay = 0;
+    replayedWALFileNum = 0;
   }
 
   public static WALRecoverManager getInstance() {
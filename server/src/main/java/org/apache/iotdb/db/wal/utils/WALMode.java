@@ -27,9 +27,19 @@ public enum WALMode {
    * successfully
    */
   SYNC,
+  /**
+   * submit wal synchronously like SYNC, but the wal flush thread waits at most
+   * wal_group_commit_max_wait_in_us for more writes, so that one fsync covers the whole batch
+   */
+  GROUP_COMMIT,
   /**
    * submit wal asynchronously, write request will return immediately no matter its wal is flushed
    * to the disk successfully
    */
-  ASYNC,
+  ASYNC;
+
+  /** @return true if write requests should wait until their wal is flushed to the disk */
+  public boolean isSync() {
+    return this == SYNC || this == GROUP_COMMIT;
+  }
 }
@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.conf;
 
 import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -74,4 +75,17 @@ public class IoTDBDescriptorTest {
     URL confURL = desc.getPropsUrl();
     Assert.assertEquals(confURL.toString(), path.toString());
   }
+
+  @Test
+  public void testParseWalTabletCompressor() {
+    Assert.assertEquals(CompressionType.LZ4, IoTDBDescriptor.parseWalTabletCompressor(" LZ4 "));
+    Assert.assertEquals(CompressionType.ZSTD, IoTDBDescriptor.parseWalTabletCompressor("ZSTD"));
+    // LZO and the lossy compressors have no ICompressor
+    Assert.assertEquals(
+        CompressionType.UNCOMPRESSED, IoTDBDescriptor.parseWalTabletCompressor("LZO"));
+    Assert.assertEquals(
+        CompressionType.UNCOMPRESSED, IoTDBDescriptor.parseWalTabletCompressor("PLA"));
+    Assert.assertEquals(
+        CompressionType.UNCOMPRESSED, IoTDBDescriptor.parseWalTabletCompressor("UNKNOWN"));
+  }
 }
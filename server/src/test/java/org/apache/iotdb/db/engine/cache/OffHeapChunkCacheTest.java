@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.file.metadata.statistics.LongStatistics;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+public class OffHeapChunkCacheTest {
+
+  private static final String FILE_PATH =
+      String.join(File.separator, "data", "sequence", "root.sg", "0", "0", "1-1-0-0.tsfile");
+
+  @Test
+  public void testPutAndRemove() {
+    OffHeapChunkCache cache = new OffHeapChunkCache(4096, 1024);
+    Chunk chunk = createChunk(100, (byte) 1);
+    cache.put(createChunkMetadata(0), chunk);
+    Assert.assertEquals(1, cache.size());
+
+    Assert.assertNull(cache.remove(createChunkMetadata(1000)));
+    Chunk promoted = cache.remove(createChunkMetadata(0));
+    Assert.assertNotNull(promoted);
+    Assert.assertEquals(chunk.getHeader(), promoted.getHeader());
+    Assert.assertEquals(chunk.getData(), promoted.getData());
+    Assert.assertFalse(promoted.getData().isDirect());
+    // a chunk moved back to heap is no longer kept
+    Assert.assertNull(cache.remove(createChunkMetadata(0)));
+    Assert.assertEquals(0, cache.size());
+    Assert.assertEquals(1.0 / 3, cache.hitRate(), 0.0001);
+  }
+
+  @Test
+  public void testSlabRecycle() {
+    // 4 slabs, each of them holds 2 chunks
+    OffHeapChunkCache cache = new OffHeapChunkCache(4096, 1024);
+    for (int i = 0; i < 8; i++) {
+      cache.put(createChunkMetadata(i), createChunk(500, (byte) i));
+    }
+    Assert.assertEquals(8, cache.size());
+
+    // the oldest slab is reused
+    cache.put(createChunkMetadata(8), createChunk(500, (byte) 8));
+    Assert.assertEquals(7, cache.size());
+    Assert.assertNull(cache.remove(createChunkMetadata(0)));
+    Assert.assertNull(cache.remove(createChunkMetadata(1)));
+    for (int i = 2; i < 9; i++) {
+      Chunk chunk = cache.remove(createChunkMetadata(i));
+      Assert.assertNotNull(chunk);
+      Assert.assertEquals(createChunk(500, (byte) i).getData(), chunk.getData());
+    }
+
+    // a chunk larger than a slab is not kept
+    cache.put(createChunkMetadata(9), createChunk(2000, (byte) 9));
+    Assert.assertNull(cache.remove(createChunkMetadata(9)));
+  }
+
+  @Test
+  public void testRewriteAfterPromotion() {
+    OffHeapChunkCache cache = new OffHeapChunkCache(2048, 1024);
+    cache.put(createChunkMetadata(0), createChunk(600, (byte) 0));
+    Chunk chunk = cache.remove(createChunkMetadata(0));
+    // evicted from heap again, now in the second slab
+    cache.put(createChunkMetadata(0), chunk);
+    // reusing the first slab must not drop the entry in the second slab
+    cache.put(createChunkMetadata(1), createChunk(600, (byte) 1));
+    Assert.assertEquals(2, cache.size());
+    Assert.assertEquals(chunk.getData(), cache.remove(createChunkMetadata(0)).getData());
+
+    cache.invalidate(createChunkMetadata(1));
+    Assert.assertNull(cache.remove(createChunkMetadata(1)));
+
+    cache.put(createChunkMetadata(2), createChunk(600, (byte) 2));
+    cache.clear();
+    Assert.assertEquals(0, cache.size());
+    Assert.assertNull(cache.remove(createChunkMetadata(2)));
+  }
+
+  private ChunkMetadata createChunkMetadata(long offset) {
+    ChunkMetadata chunkMetadata =
+        new ChunkMetadata("s1", TSDataType.INT64, offset, new LongStatistics());
+    chunkMetadata.setFilePath(FILE_PATH);
+    return chunkMetadata;
+  }
+
+  private Chunk createChunk(int size, byte value) {
+    byte[] data = new byte[size];
+    for (int i = 0; i < size; i++) {
+      data[i] = (byte) (value + i);
+    }
+    ChunkHeader header =
+        new ChunkHeader("s1", size, TSDataType.INT64, CompressionType.SNAPPY, TSEncoding.RLE, 1);
+    return new Chunk(header, ByteBuffer.wrap(data), null, null);
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache.TimeSeriesMetadataCacheKey;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+public class TimeSeriesMetadataCacheTest {
+
+  private static final String DEVICE = "root.sg1.d1";
+  // more than the initial capacity of the per-file index
+  private static final int MEASUREMENT_NUM = 20;
+
+  private final TimeSeriesMetadataCache cache = TimeSeriesMetadataCache.getInstance();
+  private final TsFileResource[] resources = new TsFileResource[2];
+
+  @Before
+  public void setUp() throws IOException, WriteProcessException {
+    for (int i = 0; i < resources.length; i++) {
+      File file = new File(TestConstant.getTestTsFilePath("root.sg1", 0, 0, i));
+      if (!file.getParentFile().exists()) {
+        Assert.assertTrue(file.getParentFile().mkdirs());
+      }
+      resources[i] = new TsFileResource(file);
+      try (TsFileWriter writer = new TsFileWriter(file)) {
+        for (int j = 0; j < MEASUREMENT_NUM; j++) {
+          writer.registerTimeseries(
+              new Path(DEVICE),
+              new MeasurementSchema(
+                  "s" + j, TSDataType.INT64, TSEncoding.PLAIN, CompressionType.UNCOMPRESSED));
+        }
+        for (long time = 0; time < 10; time++) {
+          TSRecord record = new TSRecord(time, DEVICE);
+          for (int j = 0; j < MEASUREMENT_NUM; j++) {
+            record.addTuple(DataPoint.getDataPoint(TSDataType.INT64, "s" + j, "" + time * i));
+          }
+          writer.write(record);
+        }
+      }
+    }
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    cache.clear();
+    BloomFilterCache.getInstance().clear();
+    FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+    for (TsFileResource resource : resources) {
+      resource.remove();
+    }
+  }
+
+  @Test
+  public void testGetAndRemoveFile() throws IOException {
+    Set<String> allSensors = new HashSet<>();
+    for (int j = 0; j < MEASUREMENT_NUM; j++) {
+      allSensors.add("s" + j);
+    }
+    for (TsFileResource resource : resources) {
+      TimeseriesMetadata metadata =
+          cache.get(
+              new TimeSeriesMetadataCacheKey(resource.getTsFilePath(), DEVICE, "s0"),
+              allSensors,
+              false,
+              false);
+      Assert.assertNotNull(metadata);
+      Assert.assertEquals("s0", metadata.getMeasurementId());
+      Assert.assertEquals(10, metadata.getStatistics().getCount());
+      // all the sensors of the query are cached together
+      Assert.assertEquals(MEASUREMENT_NUM, cache.getCachedEntryNum(resource.getTsFilePath()));
+    }
+    // served from the cache
+    TimeseriesMetadata metadata =
+        cache.get(
+            new TimeSeriesMetadataCacheKey(resources[1].getTsFilePath(), DEVICE, "s2"),
+            allSensors,
+            false,
+            false);
+    Assert.assertEquals("s2", metadata.getMeasurementId());
+    Assert.assertEquals(9L, metadata.getStatistics().getMaxValue());
+    Assert.assertNull(
+        cache.get(
+            new TimeSeriesMetadataCacheKey(resources[1].getTsFilePath(), DEVICE, "s100"),
+            allSensors,
+            false,
+            false));
+
+    cache.remove(new TimeSeriesMetadataCacheKey(resources[0].getTsFilePath(), DEVICE, "s1"));
+    Assert.assertEquals(MEASUREMENT_NUM - 1, cache.getCachedEntryNum(resources[0].getTsFilePath()));
+
+    // invalidate a whole file without touching the others
+    cache.remove(resources[0].getTsFilePath());
+    Assert.assertEquals(0, cache.getCachedEntryNum(resources[0].getTsFilePath()));
+    Assert.assertEquals(MEASUREMENT_NUM, cache.getCachedEntryNum(resources[1].getTsFilePath()));
+  }
+
+  @Test
+  public void testInternedIdsReleased() throws IOException {
+    Set<String> allSensors = new HashSet<>();
+    allSensors.add("s0");
+    // neither a miss of an unknown file nor a bloom filter reject interns anything
+    Assert.assertNull(
+        cache.get(
+            new TimeSeriesMetadataCacheKey(resources[0].getTsFilePath(), "root.sg1.d2", "s0"),
+            allSensors,
+            false,
+            false));
+    Assert.assertEquals(0, cache.getInternedIdNum());
+
+    for (TsFileResource resource : resources) {
+      Assert.assertNotNull(
+          cache.get(
+              new TimeSeriesMetadataCacheKey(resource.getTsFilePath(), DEVICE, "s0"),
+              allSensors,
+              false,
+              false));
+    }
+    // 2 files, 1 device and 1 measurement
+    Assert.assertEquals(4, cache.getInternedIdNum());
+    Assert.assertTrue(cache.getInternedSize() > 0);
+
+    cache.remove(resources[0].getTsFilePath());
+    Assert.assertEquals(0, cache.getCachedEntryNum(resources[0].getTsFilePath()));
+    Assert.assertEquals(3, cache.getInternedIdNum());
+
+    cache.remove(new TimeSeriesMetadataCacheKey(resources[1].getTsFilePath(), DEVICE, "s0"));
+    Assert.assertTrue(cache.isEmpty());
+    Assert.assertEquals(0, cache.getInternedIdNum());
+    Assert.assertEquals(0, cache.getInternedSize());
+  }
+}
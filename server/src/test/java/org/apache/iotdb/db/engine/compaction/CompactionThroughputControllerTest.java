@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+public class CompactionThroughputControllerTest {
+  private final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private final CompactionThroughputController controller =
+      CompactionThroughputController.getInstance();
+
+  private boolean originEnableAdaptiveThroughput;
+  private int originWriteThroughput;
+
+  @Before
+  public void setUp() {
+    originEnableAdaptiveThroughput = config.isEnableCompactionAdaptiveThroughput();
+    originWriteThroughput = config.getCompactionWriteThroughputMbPerSec();
+    config.setEnableCompactionAdaptiveThroughput(true);
+    controller.reset();
+  }
+
+  @After
+  public void tearDown() {
+    controller.reset();
+    config.setEnableCompactionAdaptiveThroughput(originEnableAdaptiveThroughput);
+    config.setCompactionWriteThroughputMbPerSec(originWriteThroughput);
+  }
+
+  @Test
+  public void testLowerWhenLatencyRises() {
+    // establish the long-term latency
+    controller.recordQueryCost(10);
+    controller.adjust();
+    Assert.assertEquals(1.0, controller.getThroughputFactor(), 0.0);
+
+    controller.recordQueryCost(100);
+    controller.adjust();
+    Assert.assertEquals(0.5, controller.getThroughputFactor(), 0.0);
+    controller.recordFlushCost(10);
+    controller.recordQueryCost(10_000);
+    controller.adjust();
+    Assert.assertEquals(
+        CompactionThroughputController.MIN_FACTOR, controller.getThroughputFactor(), 0.0);
+    controller.recordQueryCost(100_000);
+    controller.adjust();
+    Assert.assertEquals(
+        CompactionThroughputController.MIN_FACTOR, controller.getThroughputFactor(), 0.0);
+
+    // recover gradually when there is no pressure
+    controller.adjust();
+    Assert.assertEquals(0.5, controller.getThroughputFactor(), 0.0);
+    controller.adjust();
+    controller.adjust();
+    Assert.assertEquals(1.0, controller.getThroughputFactor(), 0.0);
+  }
+
+  @Test
+  public void testRaiseWhenUnseqFilesGrow() {
+    for (int i = 1; i <= 10; i++) {
+      controller.updateUnseqFileNum("root.sg-0-0", i);
+      controller.adjust();
+    }
+    Assert.assertEquals(
+        CompactionThroughputController.MAX_FACTOR, controller.getThroughputFactor(), 0.0);
+
+    // latency rising takes precedence over unseq files growing
+    controller.recordFlushCost(10);
+    controller.updateUnseqFileNum("root.sg-0-0", 11);
+    controller.adjust();
+    controller.recordFlushCost(100);
+    controller.updateUnseqFileNum("root.sg-0-0", 20);
+    controller.adjust();
+    Assert.assertEquals(
+        CompactionThroughputController.MAX_FACTOR / 2, controller.getThroughputFactor(), 0.0);
+
+    config.setEnableCompactionAdaptiveThroughput(false);
+    Assert.assertEquals(1.0, controller.getThroughputFactor(), 0.0);
+  }
+
+  @Test
+  public void testRateLimiterOfEachDataDir() {
+    config.setCompactionWriteThroughputMbPerSec(16);
+    CompactionRateLimiter rateLimiter = new CompactionRateLimiter();
+    File dataDir = new File(config.getDataDirs()[0]);
+    RateLimiter limiter =
+        rateLimiter.getWriteRateLimiter(new File(dataDir, "sequence/root.sg/0/0/1-1-0-0.tsfile"));
+    Assert.assertSame(
+        limiter,
+        rateLimiter.getWriteRateLimiter(
+            new File(dataDir, "unsequence/root.sg/0/0/2-2-0-0.tsfile")));
+    // files out of data dirs share another budget
+    Assert.assertNotSame(
+        limiter, rateLimiter.getWriteRateLimiter(new File("other/root.sg/0/0/1-1-0-0.tsfile")));
+    Assert.assertEquals(16 * 1024 * 1024, limiter.getRate(), 0.0);
+
+    for (int i = 1; i <= 10; i++) {
+      controller.updateUnseqFileNum("root.sg-0-0", i);
+      controller.adjust();
+    }
+    limiter =
+        rateLimiter.getWriteRateLimiter(new File(dataDir, "sequence/root.sg/0/0/1-1-0-0.tsfile"));
+    Assert.assertEquals(
+        16 * 1024 * 1024 * CompactionThroughputController.MAX_FACTOR, limiter.getRate(), 0.0);
+
+    // reading is not limited by default
+    Assert.assertEquals(
+        Double.MAX_VALUE,
+        rateLimiter
+            .getReadRateLimiter(new File(dataDir, "sequence/root.sg/0/0/1-1-0-0.tsfile"))
+            .getRate(),
+        0.0);
+  }
+}
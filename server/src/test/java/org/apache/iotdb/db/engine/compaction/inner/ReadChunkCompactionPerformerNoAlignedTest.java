@@ -23,6 +23,7 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.cache.ChunkCache;
 import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
+import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
 import org.apache.iotdb.db.engine.compaction.performer.impl.ReadChunkCompactionPerformer;
 import org.apache.iotdb.db.engine.compaction.utils.CompactionCheckerUtils;
 import org.apache.iotdb.db.engine.compaction.utils.CompactionConfigRestorer;
@@ -34,12 +35,17 @@ import org.apache.iotdb.db.metadata.path.MeasurementPath;
 import org.apache.iotdb.db.metadata.path.PartialPath;
 import org.apache.iotdb.db.service.IoTDB;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.TimeValuePair;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
 import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.writer.RestorableTsFileIOWriter;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
@@ -48,12 +54,14 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 /**
@@ -915,4 +923,151 @@ public class ReadChunkCompactionPerformerNoAlignedTest {
           .setChunkPointNumLowerBoundInCompaction(originChunkPointNumLowerBound);
     }
   }
+
+  /**
+   * Compact series in sub tasks, the target file should be the same as that of serial compaction
+   * and the time range of each device should be updated.
+   */
+  @Test
+  public void testConcurrentSeriesCompaction() throws Exception {
+    long originTargetChunkPointNum =
+        IoTDBDescriptor.getInstance().getConfig().getTargetChunkPointNum();
+    IoTDBDescriptor.getInstance().getConfig().setTargetChunkPointNum(1000L);
+    CompactionTaskManager.getInstance().start();
+    try {
+      List<TsFileResource> sourceFiles = new ArrayList();
+      int fileNum = 6;
+      long pointStep = 300L;
+      for (int i = 0; i < fileNum; ++i) {
+        List<List<Long>> chunkPagePointsNum = new ArrayList<>();
+        List<Long> pagePointsNum = new ArrayList<>();
+        pagePointsNum.add((i + 1L) * pointStep);
+        chunkPagePointsNum.add(pagePointsNum);
+        TsFileResource resource =
+            new TsFileResource(new File(SEQ_DIRS, String.format("%d-%d-0-0.tsfile", i + 1, i + 1)));
+        sourceFiles.add(resource);
+        CompactionFileGeneratorUtils.writeTsFile(
+            fullPathSet, chunkPagePointsNum, i * 1500L, resource);
+      }
+      Map<PartialPath, List<TimeValuePair>> originData =
+          CompactionCheckerUtils.getDataByQuery(paths, schemaList, sourceFiles, new ArrayList<>());
+      TsFileResource targetResource = new TsFileResource(new File(SEQ_DIRS, "1-1-1-0.tsfile"));
+      new ReadChunkCompactionPerformer(sourceFiles, targetResource).perform();
+
+      Map<PartialPath, List<TimeValuePair>> compactedData =
+          CompactionCheckerUtils.getDataByQuery(
+              paths, schemaList, Collections.singletonList(targetResource), new ArrayList<>());
+      CompactionCheckerUtils.validDataByValueList(originData, compactedData);
+      for (PartialPath device : devicePath) {
+        Assert.assertEquals(
+            sourceFiles.get(0).getStartTime(device.getFullPath()),
+            targetResource.getStartTime(device.getFullPath()));
+        Assert.assertEquals(
+            sourceFiles.get(fileNum - 1).getEndTime(device.getFullPath()),
+            targetResource.getEndTime(device.getFullPath()));
+      }
+    } finally {
+      CompactionTaskManager.getInstance().stop();
+      IoTDBDescriptor.getInstance().getConfig().setTargetChunkPointNum(originTargetChunkPointNum);
+    }
+  }
+
+  /**
+   * Generate middle chunks of a series using AUTO encoding, the values of them are selected
+   * different encodings, so the pages can't be appended to the cached chunk and they should be
+   * deserialized into points instead.
+   */
+  @Test
+  public void testMergeAutoEncodedChunks() throws Exception {
+    long originTargetChunkSize = IoTDBDescriptor.getInstance().getConfig().getTargetChunkSize();
+    long originTargetChunkPointNum =
+        IoTDBDescriptor.getInstance().getConfig().getTargetChunkPointNum();
+    long originChunkSizeLowerBound =
+        IoTDBDescriptor.getInstance().getConfig().getChunkSizeLowerBoundInCompaction();
+    long originChunkPointNumLowerBound =
+        IoTDBDescriptor.getInstance().getConfig().getChunkPointNumLowerBoundInCompaction();
+    IoTDBDescriptor.getInstance().getConfig().setTargetChunkSize(1024 * 1024);
+    IoTDBDescriptor.getInstance().getConfig().setTargetChunkPointNum(100_000L);
+    IoTDBDescriptor.getInstance().getConfig().setChunkSizeLowerBoundInCompaction(1L);
+    IoTDBDescriptor.getInstance().getConfig().setChunkPointNumLowerBoundInCompaction(1L);
+    try {
+      MeasurementSchema autoSchema =
+          new MeasurementSchema("auto", TSDataType.INT64, TSEncoding.AUTO, CompressionType.SNAPPY);
+      IoTDB.schemaProcessor.createTimeseries(
+          devicePath[0].concatNode(autoSchema.getMeasurementId()),
+          autoSchema.getType(),
+          autoSchema.getEncodingType(),
+          autoSchema.getCompressor(),
+          Collections.emptyMap());
+      MeasurementPath autoPath =
+          new MeasurementPath(devicePath[0].concatNode(autoSchema.getMeasurementId()), autoSchema);
+
+      List<TsFileResource> sourceFiles = new ArrayList<>();
+      Random random = new Random(0);
+      int fileNum = 4;
+      int pointNum = 500;
+      for (int i = 0; i < fileNum; ++i) {
+        TsFileResource resource =
+            new TsFileResource(new File(SEQ_DIRS, String.format("%d-%d-0-0.tsfile", i + 1, i + 1)));
+        sourceFiles.add(resource);
+        RestorableTsFileIOWriter writer = new RestorableTsFileIOWriter(resource.getTsFile());
+        writer.startChunkGroup(devicePath[0].getFullPath());
+        ChunkWriterImpl chunkWriter = new ChunkWriterImpl(autoSchema);
+        for (int j = 0; j < pointNum; j++) {
+          long time = (long) i * pointNum + j;
+          // constant values and random values are encoded differently
+          chunkWriter.write(time, i % 2 == 0 ? 1L : random.nextLong());
+          resource.updateStartTime(devicePath[0].getFullPath(), time);
+          resource.updateEndTime(devicePath[0].getFullPath(), time);
+        }
+        chunkWriter.writeToFileWriter(writer);
+        writer.endChunkGroup();
+        resource.serialize();
+        writer.endFile();
+        resource.close();
+      }
+      Set<TSEncoding> sourceEncodings = new HashSet<>();
+      for (TsFileResource resource : sourceFiles) {
+        sourceEncodings.addAll(getChunkEncodings(resource, autoPath));
+      }
+      Assert.assertTrue(sourceEncodings.size() > 1);
+      Assert.assertFalse(sourceEncodings.contains(TSEncoding.AUTO));
+
+      List<PartialPath> autoPaths = Collections.singletonList(autoPath);
+      List<IMeasurementSchema> autoSchemas = Collections.singletonList(autoSchema);
+      Map<PartialPath, List<TimeValuePair>> originData =
+          CompactionCheckerUtils.getDataByQuery(
+              autoPaths, autoSchemas, sourceFiles, new ArrayList<>());
+      TsFileResource targetResource = new TsFileResource(new File(SEQ_DIRS, "1-1-1-0.tsfile"));
+      new ReadChunkCompactionPerformer(sourceFiles, targetResource).perform();
+
+      Assert.assertFalse(getChunkEncodings(targetResource, autoPath).contains(TSEncoding.AUTO));
+      Map<PartialPath, List<TimeValuePair>> compactedData =
+          CompactionCheckerUtils.getDataByQuery(
+              autoPaths, autoSchemas, Collections.singletonList(targetResource), new ArrayList<>());
+      Assert.assertEquals(fileNum * pointNum, compactedData.get(autoPath).size());
+      CompactionCheckerUtils.validDataByValueList(originData, compactedData);
+    } finally {
+      IoTDBDescriptor.getInstance().getConfig().setTargetChunkSize(originTargetChunkSize);
+      IoTDBDescriptor.getInstance().getConfig().setTargetChunkPointNum(originTargetChunkPointNum);
+      IoTDBDescriptor.getInstance()
+          .getConfig()
+          .setChunkSizeLowerBoundInCompaction(originChunkSizeLowerBound);
+      IoTDBDescriptor.getInstance()
+          .getConfig()
+          .setChunkPointNumLowerBoundInCompaction(originChunkPointNumLowerBound);
+    }
+  }
+
+  private List<TSEncoding> getChunkEncodings(TsFileResource resource, PartialPath path)
+      throws IOException {
+    List<TSEncoding> encodings = new ArrayList<>();
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(resource.getTsFilePath())) {
+      for (ChunkMetadata chunkMetadata :
+          reader.getChunkMetadataList(new Path(path.getDevice(), path.getMeasurement()))) {
+        encodings.add(reader.readChunkHeader(chunkMetadata).getEncodingType());
+      }
+    }
+    return encodings;
+  }
 }
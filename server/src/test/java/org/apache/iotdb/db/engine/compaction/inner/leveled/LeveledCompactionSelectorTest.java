@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.inner.leveled;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.cross.rewrite.TimeWindowCrossSpaceCompactionSelector;
+import org.apache.iotdb.db.engine.compaction.utils.CompactionConfigRestorer;
+import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LeveledCompactionSelectorTest {
+  private static final long WINDOW = 1000L;
+  private final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private final TsFileManager tsFileManager = new TsFileManager("root.sg", "0", "/");
+  private final LeveledCompactionSelector selector =
+      new LeveledCompactionSelector("root.sg", "0", 0, tsFileManager, true);
+  private long version = 0;
+
+  @Before
+  public void setUp() {
+    config.setCompactionTimeWindowInMs(WINDOW);
+    config.setLeveledCompactionFanout(4);
+    config.setTargetCompactionFileSize(1000L);
+  }
+
+  @After
+  public void tearDown() {
+    new CompactionConfigRestorer().restoreCompactionConfig();
+  }
+
+  @Test
+  public void testSelectByFanout() {
+    List<TsFileResource> resources = new ArrayList<>();
+    for (int i = 0; i < 9; i++) {
+      resources.add(createResource(0, i * 10L, 10));
+    }
+    List<List<TsFileResource>> tasks = selector.selectInnerSpaceTask(resources);
+    Assert.assertEquals(2, tasks.size());
+    Assert.assertEquals(resources.subList(0, 4), tasks.get(0));
+    Assert.assertEquals(resources.subList(4, 8), tasks.get(1));
+  }
+
+  @Test
+  public void testNotSelectAcrossWindowsAndLevels() {
+    List<TsFileResource> resources = new ArrayList<>();
+    // window 0 holds 3 files of level 0, which is below the fanout
+    for (int i = 0; i < 3; i++) {
+      resources.add(createResource(0, i * 10L, 10));
+    }
+    // window 1 holds 2 files of level 1 followed by 4 files of level 0
+    resources.add(createResource(1, WINDOW, 10));
+    resources.add(createResource(1, WINDOW + 10, 10));
+    for (int i = 0; i < 4; i++) {
+      resources.add(createResource(0, WINDOW + 20 + i * 10L, 10));
+    }
+    List<List<TsFileResource>> tasks = selector.selectInnerSpaceTask(resources);
+    Assert.assertEquals(1, tasks.size());
+    Assert.assertEquals(resources.subList(5, 9), tasks.get(0));
+  }
+
+  @Test
+  public void testSelectBySizeAndSkipLargeFiles() {
+    List<TsFileResource> resources = new ArrayList<>();
+    resources.add(createResource(1, 0, 600));
+    resources.add(createResource(1, 10, 600));
+    // a file reaching the target size is never compacted again and breaks the run
+    resources.add(createResource(1, 20, 1000));
+    resources.add(createResource(1, 30, 600));
+    resources.add(createResource(0, 40, 10));
+    resources.add(createResource(0, 50, 10));
+    resources.add(createResource(0, 60, 10));
+    resources.add(createResource(0, 70, 10));
+    List<List<TsFileResource>> tasks = selector.selectInnerSpaceTask(resources);
+    Assert.assertEquals(2, tasks.size());
+    // lower levels are compacted first
+    Assert.assertEquals(resources.subList(4, 8), tasks.get(0));
+    Assert.assertEquals(resources.subList(0, 2), tasks.get(1));
+  }
+
+  @Test
+  public void testSkipUnclosedFiles() {
+    List<TsFileResource> resources = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      resources.add(createResource(0, i * 10L, 10));
+    }
+    resources.get(2).setStatus(TsFileResourceStatus.COMPACTION_CANDIDATE);
+    List<List<TsFileResource>> tasks = selector.selectInnerSpaceTask(resources);
+    Assert.assertTrue(tasks.isEmpty());
+  }
+
+  @Test
+  public void testCrossSelectFirstWindow() {
+    List<TsFileResource> resources = new ArrayList<>();
+    resources.add(createResource(0, 10, 10));
+    resources.add(createResource(0, 500, 10));
+    resources.add(createResource(0, WINDOW + 10, 10));
+    // files after another window are not offered even if they are in the first window
+    resources.add(createResource(0, 20, 10));
+    List<TsFileResource> selected =
+        TimeWindowCrossSpaceCompactionSelector.selectFirstWindow(resources, WINDOW);
+    Assert.assertEquals(resources.subList(0, 2), selected);
+  }
+
+  private TsFileResource createResource(int level, long startTime, long size) {
+    TsFileResource resource =
+        new FakedTsFileResource(
+            new File(String.format("%d-%d-%d-0.tsfile", startTime, ++version, level)), size);
+    resource.updateStartTime("root.sg.d1", startTime);
+    resource.updateEndTime("root.sg.d1", startTime + 5);
+    resource.setStatus(TsFileResourceStatus.CLOSED);
+    return resource;
+  }
+
+  private static class FakedTsFileResource extends TsFileResource {
+    private final long tsFileSize;
+
+    private FakedTsFileResource(File tsFile, long tsFileSize) {
+      super(tsFile);
+      this.tsFileSize = tsFileSize;
+    }
+
+    @Override
+    public long getTsFileSize() {
+      return tsFileSize;
+    }
+  }
+}
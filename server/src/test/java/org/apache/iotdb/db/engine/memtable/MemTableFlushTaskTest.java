@@ -18,10 +18,13 @@
  */
 package org.apache.iotdb.db.engine.memtable;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.MetadataManagerHelper;
 import org.apache.iotdb.db.engine.flush.MemTableFlushTask;
 import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.rescon.SystemInfo;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -33,6 +36,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.Assert.assertEquals;
@@ -158,4 +162,51 @@ public class MemTableFlushTaskTest {
     assertEquals(TSDataType.BOOLEAN, chunkMetaData.getDataType());
     assertEquals(endTime - startTime + 1, chunkMetaData.getNumOfPoints());
   }
+
+  @Test
+  public void testParallelFlushMemTable()
+      throws ExecutionException, InterruptedException, IllegalPathException {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    boolean prevEnableParallelFlush = config.isEnableParallelFlush();
+    int prevParallelFlushWorkerNum = config.getParallelFlushWorkerNum();
+    int prevIoTaskQueueSize = config.getIoTaskQueueSizeForFlushing();
+    boolean prevEnableMemControl = config.isEnableMemControl();
+    config.setEnableParallelFlush(true);
+    config.setParallelFlushWorkerNum(4);
+    // the in-flight chunks are only limited by the io task queue size with mem control on, when
+    // the encoding is faster than io
+    config.setEnableMemControl(true);
+    SystemInfo.getInstance().setEncodingFasterThanIo(true);
+    config.setIoTaskQueueSizeForFlushing(2);
+    try {
+      int deviceNum = 5;
+      int measurementNum = 20;
+      for (int i = 0; i < deviceNum; i++) {
+        for (int j = 0; j < measurementNum; j++) {
+          MemTableTestUtils.produceData(
+              memTable, startTime, endTime, "d" + i, "s" + j, MemTableTestUtils.dataType0);
+        }
+      }
+      MemTableFlushTask memTableFlushTask = new MemTableFlushTask(memTable, writer, storageGroup);
+      memTableFlushTask.syncFlushMemTable();
+      writer.makeMetadataVisible();
+
+      for (int i = 0; i < deviceNum; i++) {
+        for (int j = 0; j < measurementNum; j++) {
+          List<ChunkMetadata> chunkMetadataList =
+              writer.getVisibleMetadataList("d" + i, "s" + j, MemTableTestUtils.dataType0);
+          assertEquals(1, chunkMetadataList.size());
+          ChunkMetadata chunkMetaData = chunkMetadataList.get(0);
+          assertEquals(startTime, chunkMetaData.getStartTime());
+          assertEquals(endTime, chunkMetaData.getEndTime());
+          assertEquals(endTime - startTime + 1, chunkMetaData.getNumOfPoints());
+        }
+      }
+    } finally {
+      config.setEnableParallelFlush(prevEnableParallelFlush);
+      config.setParallelFlushWorkerNum(prevParallelFlushWorkerNum);
+      config.setIoTaskQueueSizeForFlushing(prevIoTaskQueueSize);
+      config.setEnableMemControl(prevEnableMemControl);
+    }
+  }
 }
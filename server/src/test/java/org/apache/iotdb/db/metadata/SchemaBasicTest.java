@@ -2166,6 +2166,80 @@ public abstract class SchemaBasicTest {
     }
   }
 
+  @Test
+  public void testAutoCreateTimeseriesInBatch() throws Exception {
+    LocalSchemaProcessor schemaProcessor = IoTDB.schemaProcessor;
+    schemaProcessor.setStorageGroup(new PartialPath("root.laptop"));
+    schemaProcessor.createTimeseries(
+        new PartialPath("root.laptop.d1.s0"),
+        TSDataType.INT32,
+        TSEncoding.RLE,
+        compressionType,
+        Collections.emptyMap());
+
+    // more measurements than one batch, with an existing one and a duplicated one
+    int measurementNum = 1500;
+    String[] measurements = new String[measurementNum + 1];
+    TSDataType[] dataTypes = new TSDataType[measurementNum + 1];
+    String[] columns = new String[measurementNum + 1];
+    for (int i = 0; i < measurementNum; i++) {
+      measurements[i] = "s" + i;
+      dataTypes[i] = i % 2 == 0 ? TSDataType.INT32 : TSDataType.DOUBLE;
+      columns[i] = "1";
+    }
+    measurements[measurementNum] = "s1";
+    dataTypes[measurementNum] = TSDataType.DOUBLE;
+    columns[measurementNum] = "1";
+
+    InsertRowPlan insertRowPlan =
+        new InsertRowPlan(new PartialPath("root.laptop.d1"), 1L, measurements, dataTypes, columns);
+    insertRowPlan.setMeasurementMNodes(
+        new IMeasurementMNode[insertRowPlan.getMeasurements().length]);
+    schemaProcessor.getSeriesSchemasAndReadLockDevice(insertRowPlan);
+
+    assertEquals(0, insertRowPlan.getFailedMeasurementNumber());
+    for (int i = 0; i <= measurementNum; i++) {
+      assertNotNull(insertRowPlan.getMeasurementMNodes()[i]);
+      assertEquals(dataTypes[i], insertRowPlan.getMeasurementMNodes()[i].getSchema().getType());
+    }
+    assertEquals(
+        measurementNum,
+        schemaProcessor.getAllTimeseriesCount(new PartialPath("root.laptop.d1.**")));
+
+    insertRowPlan =
+        new InsertRowPlan(
+            new PartialPath("root.laptop.d2"),
+            1L,
+            new String[] {"s1", "s2", "s3"},
+            new TSDataType[] {TSDataType.INT32, TSDataType.INT64, TSDataType.FLOAT},
+            new String[] {"1", "1", "1"},
+            true);
+    insertRowPlan.setMeasurementMNodes(
+        new IMeasurementMNode[insertRowPlan.getMeasurements().length]);
+    schemaProcessor.getSeriesSchemasAndReadLockDevice(insertRowPlan);
+    assertEquals(0, insertRowPlan.getFailedMeasurementNumber());
+    assertTrue(
+        schemaProcessor
+            .getDeviceNode(new PartialPath("root.laptop.d2"))
+            .getAsEntityMNode()
+            .isAligned());
+
+    EnvironmentUtils.restartDaemon();
+
+    assertEquals(
+        measurementNum,
+        schemaProcessor.getAllTimeseriesCount(new PartialPath("root.laptop.d1.**")));
+    assertEquals(
+        TSDataType.DOUBLE,
+        schemaProcessor.getSeriesType(new PartialPath("root.laptop.d1.s" + (measurementNum - 1))));
+    assertEquals(3, schemaProcessor.getAllTimeseriesCount(new PartialPath("root.laptop.d2.**")));
+    assertTrue(
+        schemaProcessor
+            .getDeviceNode(new PartialPath("root.laptop.d2"))
+            .getAsEntityMNode()
+            .isAligned());
+  }
+
   @Test
   public void testCreateTimeseriesAndInsertWithAlignedData() {
     LocalSchemaProcessor schemaProcessor = IoTDB.schemaProcessor;
@@ -2624,6 +2698,61 @@ public abstract class SchemaBasicTest {
     assertEquals("newValue", resultTag.get("description"));
   }
 
+  @Test
+  public void testTagIndexRecoveryFromSnapshot() throws Exception {
+    LocalSchemaProcessor schemaProcessor = IoTDB.schemaProcessor;
+    String[] paths = {"root.sg.d1.s1", "root.sg.d1.s2", "root.sg.d2.s1", "root.sg.d2.s2"};
+    String[] sites = {"a", "b", "a", "ab"};
+    for (int i = 0; i < paths.length; i++) {
+      Map<String, String> tags = new HashMap<>();
+      tags.put("site", sites[i]);
+      tags.put("line", Integer.toString(i % 2));
+      schemaProcessor.createTimeseries(
+          new CreateTimeSeriesPlan(
+              new PartialPath(paths[i]),
+              TSDataType.INT32,
+              TSEncoding.RLE,
+              compressionType,
+              null,
+              tags,
+              null,
+              null));
+    }
+
+    // the index is saved when closing and loaded when restarting
+    EnvironmentUtils.restartDaemon();
+    assertEquals(
+        Arrays.asList("root.sg.d1.s1", "root.sg.d2.s1"),
+        showTimeseriesByTag(schemaProcessor, "site", "a", false));
+    assertEquals(
+        Arrays.asList("root.sg.d1.s1", "root.sg.d2.s1", "root.sg.d2.s2"),
+        showTimeseriesByTag(schemaProcessor, "site", "a", true));
+
+    // modify the loaded index and restart again
+    schemaProcessor.deleteTimeseries(new PartialPath("root.sg.d1.s1"));
+    schemaProcessor.dropTagsOrAttributes(
+        Collections.singleton("line"), new PartialPath("root.sg.d2.s1"));
+    EnvironmentUtils.restartDaemon();
+    assertEquals(
+        Collections.singletonList("root.sg.d2.s1"),
+        showTimeseriesByTag(schemaProcessor, "site", "a", false));
+    assertEquals(Collections.emptyList(), showTimeseriesByTag(schemaProcessor, "line", "0", false));
+    assertEquals(
+        Arrays.asList("root.sg.d1.s2", "root.sg.d2.s2"),
+        showTimeseriesByTag(schemaProcessor, "line", "1", false));
+  }
+
+  private List<String> showTimeseriesByTag(
+      LocalSchemaProcessor schemaProcessor, String tagKey, String tagValue, boolean isContains)
+      throws MetadataException {
+    ShowTimeSeriesPlan showTimeSeriesPlan =
+        new ShowTimeSeriesPlan(
+            new PartialPath("root.**"), isContains, tagKey, tagValue, 0, 0, false);
+    return schemaProcessor.showTimeseries(showTimeSeriesPlan, new QueryContext()).stream()
+        .map(ShowResult::getName)
+        .collect(Collectors.toList());
+  }
+
   @Test
   public void testTagCreationViaMLogPlanDuringMetadataSync() throws Exception {
     LocalSchemaProcessor schemaProcessor = IoTDB.schemaProcessor;
@@ -26,6 +26,8 @@ import org.apache.iotdb.db.exception.metadata.DataTypeMismatchException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.metadata.LocalSchemaProcessor;
+import org.apache.iotdb.db.metadata.idtable.entry.DiskSchemaEntry;
+import org.apache.iotdb.db.metadata.idtable.entry.TimeseriesID;
 import org.apache.iotdb.db.metadata.lastCache.container.ILastCacheContainer;
 import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
 import org.apache.iotdb.db.metadata.path.PartialPath;
@@ -48,8 +50,17 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -660,4 +671,81 @@ public class IDTableTest {
       fail("throw exception");
     }
   }
+
+  @Test
+  public void testConcurrentInsertOfDifferentDevices() throws Exception {
+    LocalSchemaProcessor schemaProcessor = IoTDB.schemaProcessor;
+    int threadNum = 8;
+    int deviceNum = 64;
+    int rowNum = 100;
+    int measurementNum = 10;
+    String[] measurements = new String[measurementNum];
+    TSDataType[] dataTypes = new TSDataType[measurementNum];
+    for (int i = 0; i < measurementNum; i++) {
+      measurements[i] = "s" + i;
+      dataTypes[i] = TSDataType.INT64;
+    }
+    schemaProcessor.setStorageGroup(new PartialPath("root.laptop"));
+    IDTable idTable = IDTableManager.getInstance().getIDTable(new PartialPath("root.laptop"));
+
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < threadNum; i++) {
+        int threadIndex = i;
+        futures.add(
+            pool.submit(
+                () -> {
+                  for (int d = threadIndex; d < deviceNum; d += threadNum) {
+                    PartialPath device = new PartialPath("root.laptop.d" + d);
+                    for (long time = 1; time <= rowNum; time++) {
+                      String[] values = new String[measurementNum];
+                      Arrays.fill(values, Long.toString(time));
+                      InsertRowPlan insertRowPlan =
+                          new InsertRowPlan(
+                              device, time, measurements.clone(), dataTypes.clone(), values, false);
+                      insertRowPlan.setMeasurementMNodes(new IMeasurementMNode[measurementNum]);
+                      // the timeseries is auto created by the first insertion
+                      idTable.getSeriesSchemas(insertRowPlan);
+                      idTable.updateLastCache(
+                          new TimeseriesID(device.concatNode("s1")),
+                          new TimeValuePair(time, new TsPrimitiveType.TsLong(time)),
+                          false,
+                          Long.MIN_VALUE);
+                    }
+                  }
+                  return null;
+                }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdownNow();
+      pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    assertEquals(deviceNum, idTable.getAllDeviceEntry().size());
+    for (int d = 0; d < deviceNum; d++) {
+      TimeValuePair last =
+          idTable.getLastCache(new TimeseriesID(new PartialPath("root.laptop.d" + d + ".s1")));
+      assertEquals(rowNum, last.getTimestamp());
+      assertEquals(new TsPrimitiveType.TsLong(rowNum), last.getValue());
+    }
+
+    // the id table log file is written concurrently without interleaving
+    Collection<DiskSchemaEntry> diskSchemaEntries =
+        ((AppendOnlyDiskSchemaManager) ((IDTableHashmapImpl) idTable).getIDiskSchemaManager())
+            .getAllSchemaEntry();
+    assertEquals(deviceNum * measurementNum, diskSchemaEntries.size());
+    Set<String> seriesKeys = new HashSet<>();
+    for (DiskSchemaEntry diskSchemaEntry : diskSchemaEntries) {
+      seriesKeys.add(diskSchemaEntry.seriesKey);
+    }
+    for (int d = 0; d < deviceNum; d++) {
+      for (String measurement : measurements) {
+        assertTrue(seriesKeys.contains("root.laptop.d" + d + "." + measurement));
+      }
+    }
+  }
 }
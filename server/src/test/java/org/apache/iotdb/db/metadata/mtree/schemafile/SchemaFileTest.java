@@ -395,6 +395,63 @@ public class SchemaFileTest {
     sf.close();
   }
 
+  @Test
+  public void testPagesBeyondPagePool() throws MetadataException, IOException {
+    int pageCacheSize = SchemaFile.PAGE_CACHE_SIZE;
+    SchemaFile.PAGE_CACHE_SIZE = 4;
+    try {
+      IMNode sgNode = new StorageGroupMNode(null, "sgRoot", 11111111L);
+      for (int i = 0; i < 200; i++) {
+        IMNode aDevice = new EntityMNode(sgNode, "dev_" + i);
+        sgNode.addChild(aDevice);
+        for (int j = 0; j < 50; j++) {
+          addMeasurementChild(aDevice, String.format("m_%d_%d", i, j));
+        }
+      }
+
+      ISchemaFile sf = SchemaFile.initSchemaFile(sgNode.getName(), TEST_SCHEMA_REGION_ID);
+      ICachedMNodeContainer.getCachedMNodeContainer(sgNode).setSegmentAddress(0L);
+      try {
+        Iterator<IMNode> orderedTree = getTreeBFT(sgNode);
+        while (orderedTree.hasNext()) {
+          IMNode node = orderedTree.next();
+          if (!node.isMeasurement()) {
+            sf.writeMNode(node);
+          }
+        }
+
+        // pages replaced by others shall be reloaded with all modifications
+        for (int i = 199; i >= 0; i--) {
+          IMNode device = sgNode.getChild("dev_" + i);
+          Assert.assertEquals(
+              "m_" + i + "_7alias",
+              sf.getChildNode(device, "m_" + i + "_7").getAsMeasurementMNode().getAlias());
+          Iterator<IMNode> children = sf.getChildren(device);
+          int cnt = 0;
+          while (children.hasNext()) {
+            children.next();
+            cnt++;
+          }
+          Assert.assertEquals(50, cnt);
+        }
+      } finally {
+        sf.close();
+      }
+
+      sf = SchemaFile.loadSchemaFile("sgRoot", TEST_SCHEMA_REGION_ID);
+      try {
+        for (int i = 0; i < 200; i += 17) {
+          Assert.assertNotNull(sf.getChildNode(sgNode.getChild("dev_" + i), "m_" + i + "_49"));
+        }
+        Assert.assertEquals(0, ((SchemaFile) sf).getPagePoolOnTest().getDirtyPageNum());
+      } finally {
+        sf.close();
+      }
+    } finally {
+      SchemaFile.PAGE_CACHE_SIZE = pageCacheSize;
+    }
+  }
+
   @Test
   public void testUpdateOnFullPageSegment() throws MetadataException, IOException {
     ISchemaFile sf = SchemaFile.initSchemaFile("root.sg", TEST_SCHEMA_REGION_ID);
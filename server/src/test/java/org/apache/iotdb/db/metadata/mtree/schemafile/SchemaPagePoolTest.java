@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.mtree.schemafile;
+
+import org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.ISchemaPage;
+import org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.SchemaFile;
+import org.apache.iotdb.db.metadata.mtree.store.disk.schemafile.SchemaPagePool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SchemaPagePoolTest {
+
+  @Test
+  public void testWriteBackInPageOrder() throws IOException {
+    MemoryPageIO pageIO = new MemoryPageIO();
+    SchemaPagePool pool = new SchemaPagePool(64, pageIO);
+
+    pool.startAccess();
+    try {
+      for (int i : new int[] {5, 1, 2, 8, 3, 6}) {
+        pool.newPage(i);
+      }
+    } finally {
+      pool.finishAccess();
+    }
+    Assert.assertEquals(6, pool.getDirtyPageNum());
+
+    pool.flushDirtyPages();
+    Assert.assertEquals(0, pool.getDirtyPageNum());
+    // consecutive pages are written at once
+    Assert.assertEquals(3, pageIO.writes.size());
+    Assert.assertArrayEquals(new int[] {1, 3}, pageIO.writes.get(0));
+    Assert.assertArrayEquals(new int[] {5, 2}, pageIO.writes.get(1));
+    Assert.assertArrayEquals(new int[] {8, 1}, pageIO.writes.get(2));
+    pool.close();
+  }
+
+  @Test
+  public void testReplacement() throws IOException {
+    MemoryPageIO pageIO = new MemoryPageIO();
+    SchemaPagePool pool = new SchemaPagePool(4, pageIO);
+
+    for (int i = 0; i < 8; i++) {
+      pool.startAccess();
+      try {
+        ISchemaPage page = pool.newPage(i);
+        page.allocNewSegment((short) (100 * (i + 1)));
+      } catch (Exception e) {
+        Assert.fail(e.getMessage());
+      } finally {
+        pool.finishAccess();
+      }
+      pool.flushDirtyPages();
+    }
+    // only the latest pages are resident
+    Assert.assertFalse(pool.isResident(0));
+    Assert.assertTrue(pool.isResident(7));
+
+    pool.startAccess();
+    try {
+      for (int i = 0; i < 8; i++) {
+        ISchemaPage page = pool.getPage(i);
+        Assert.assertEquals(i, page.getPageIndex());
+        Assert.assertEquals(100 * (i + 1), page.getSegmentSize((short) 0));
+      }
+      // all frames are pinned, the page is held by current thread only
+      ISchemaPage page = pool.getPage(3);
+      page.allocNewSegment((short) 50);
+      pool.markDirty(page);
+    } catch (Exception e) {
+      Assert.fail(e.getMessage());
+    } finally {
+      pool.finishAccess();
+    }
+
+    pool.startAccess();
+    try {
+      Assert.assertEquals(50, pool.getPage(3).getSegmentSize((short) 1));
+    } catch (Exception e) {
+      Assert.fail(e.getMessage());
+    } finally {
+      pool.finishAccess();
+    }
+    pool.close();
+  }
+
+  private static class MemoryPageIO implements SchemaPagePool.PageIO {
+
+    private final Map<Integer, byte[]> pages = new HashMap<>();
+    // start index and number of pages of each write
+    private final List<int[]> writes = new ArrayList<>();
+
+    @Override
+    public void read(ByteBuffer dst, int pageIndex) {
+      byte[] content = pages.get(pageIndex);
+      if (content != null) {
+        dst.put(content);
+      }
+    }
+
+    @Override
+    public void write(ByteBuffer src, int startIndex) {
+      int pageNum = src.remaining() / SchemaFile.PAGE_LENGTH;
+      for (int i = 0; i < pageNum; i++) {
+        byte[] content = new byte[SchemaFile.PAGE_LENGTH];
+        src.get(content);
+        pages.put(startIndex + i, content);
+      }
+      writes.add(new int[] {startIndex, pageNum});
+    }
+  }
+}
@@ -0,0 +1,378 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.mtree.snapshot;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.metadata.LocalSchemaProcessor;
+import org.apache.iotdb.db.metadata.MetadataConstant;
+import org.apache.iotdb.db.metadata.mnode.IMNode;
+import org.apache.iotdb.db.metadata.mnode.IMeasurementMNode;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.metadata.schemaregion.ISchemaRegion;
+import org.apache.iotdb.db.metadata.schemaregion.SchemaEngine;
+import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.qp.physical.sys.ActivateTemplatePlan;
+import org.apache.iotdb.db.qp.physical.sys.CreateAlignedTimeSeriesPlan;
+import org.apache.iotdb.db.qp.physical.sys.CreateTemplatePlan;
+import org.apache.iotdb.db.qp.physical.sys.CreateTimeSeriesPlan;
+import org.apache.iotdb.db.qp.physical.sys.SetTemplatePlan;
+import org.apache.iotdb.db.qp.physical.sys.ShowTimeSeriesPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.dataset.ShowTimeSeriesResult;
+import org.apache.iotdb.db.service.IoTDB;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class MemMTreeSnapshotTest {
+
+  private final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private boolean isEnableMTreeSnapshot;
+  private int mtreeSnapshotInterval;
+
+  @Before
+  public void setUp() {
+    isEnableMTreeSnapshot = config.isEnableMTreeSnapshot();
+    mtreeSnapshotInterval = config.getMtreeSnapshotInterval();
+    config.setEnableMTreeSnapshot(true);
+    config.setMtreeSnapshotInterval(1);
+    EnvironmentUtils.envSetUp();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+    config.setEnableMTreeSnapshot(isEnableMTreeSnapshot);
+    config.setMtreeSnapshotInterval(mtreeSnapshotInterval);
+  }
+
+  @Test
+  public void testRestartFromSnapshot() throws Exception {
+    LocalSchemaProcessor schemaProcessor = IoTDB.schemaProcessor;
+    schemaProcessor.setStorageGroup(new PartialPath("root.sg"));
+    schemaProcessor.createTimeseries(
+        new CreateTimeSeriesPlan(
+            new PartialPath("root.sg.d1.s1"),
+            TSDataType.INT32,
+            TSEncoding.RLE,
+            CompressionType.SNAPPY,
+            Collections.singletonMap("max_point_number", "3"),
+            Collections.singletonMap("unit", "cel"),
+            Collections.singletonMap("desc", "temperature"),
+            "temperature"));
+    schemaProcessor.createTimeseries(
+        new PartialPath("root.sg.d1.s2"),
+        TSDataType.TEXT,
+        TSEncoding.PLAIN,
+        CompressionType.GZIP,
+        Collections.emptyMap());
+    schemaProcessor.createAlignedTimeSeries(
+        new PartialPath("root.sg.d2"),
+        Arrays.asList("s1", "s2"),
+        Arrays.asList(TSDataType.INT64, TSDataType.DOUBLE),
+        Arrays.asList(TSEncoding.RLE, TSEncoding.GORILLA),
+        Arrays.asList(CompressionType.SNAPPY, CompressionType.SNAPPY));
+    schemaProcessor.createSchemaTemplate(getCreateTemplatePlan());
+    schemaProcessor.setSchemaTemplate(new SetTemplatePlan("template1", "root.sg.t"));
+    schemaProcessor.setUsingSchemaTemplate(
+        new ActivateTemplatePlan(new PartialPath("root.sg.t.d1")));
+
+    for (ISchemaRegion schemaRegion : SchemaEngine.getInstance().getAllSchemaRegions()) {
+      schemaRegion.createMTreeSnapshot();
+    }
+
+    // modifications after the snapshot are recovered from mlog
+    schemaProcessor.createTimeseries(
+        new PartialPath("root.sg.d3.s1"),
+        TSDataType.FLOAT,
+        TSEncoding.GORILLA,
+        CompressionType.SNAPPY,
+        Collections.emptyMap());
+    schemaProcessor.deleteTimeseries(new PartialPath("root.sg.d1.s2"));
+
+    EnvironmentUtils.restartDaemon();
+
+    File snapshot =
+        new File(
+            config.getSchemaDir()
+                + File.separator
+                + "root.sg"
+                + File.separator
+                + "0"
+                + File.separator
+                + MetadataConstant.MTREE_REGION_SNAPSHOT);
+    Assert.assertTrue(snapshot.exists());
+
+    Assert.assertEquals(6, schemaProcessor.getAllTimeseriesCount(new PartialPath("root.**")));
+    Assert.assertFalse(schemaProcessor.isPathExist(new PartialPath("root.sg.d1.s2")));
+    Assert.assertTrue(schemaProcessor.isPathExist(new PartialPath("root.sg.d3.s1")));
+
+    Assert.assertEquals(
+        "temperature",
+        schemaProcessor.getMeasurementMNode(new PartialPath("root.sg.d1.s1")).getAlias());
+    Assert.assertEquals(
+        TSDataType.INT32,
+        schemaProcessor.getSeriesSchema(new PartialPath("root.sg.d1.temperature")).getType());
+    Assert.assertEquals(
+        "3",
+        schemaProcessor
+            .getSeriesSchema(new PartialPath("root.sg.d1.s1"))
+            .getProps()
+            .get("max_point_number"));
+
+    List<ShowTimeSeriesResult> results =
+        schemaProcessor.showTimeseries(
+            new ShowTimeSeriesPlan(new PartialPath("root.**"), false, "unit", "cel", 0, 0, false),
+            new QueryContext());
+    Assert.assertEquals(1, results.size());
+    Assert.assertEquals("root.sg.d1.s1", results.get(0).getName());
+    Assert.assertEquals("temperature", results.get(0).getAttribute().get("desc"));
+
+    Assert.assertTrue(
+        schemaProcessor
+            .getDeviceNode(new PartialPath("root.sg.d2"))
+            .getAsEntityMNode()
+            .isAligned());
+    Assert.assertEquals(
+        TSEncoding.GORILLA,
+        schemaProcessor.getSeriesSchema(new PartialPath("root.sg.d2.s2")).getEncodingType());
+
+    IMNode templateDevice = schemaProcessor.getDeviceNode(new PartialPath("root.sg.t.d1"));
+    Assert.assertTrue(templateDevice.isUseTemplate());
+    Assert.assertEquals("template1", templateDevice.getParent().getSchemaTemplate().getName());
+    Assert.assertTrue(schemaProcessor.isPathExist(new PartialPath("root.sg.t.d1.s1")));
+  }
+
+  @Test
+  public void testSnapshotWithConcurrentWriters() throws Exception {
+    LocalSchemaProcessor schemaProcessor = IoTDB.schemaProcessor;
+    schemaProcessor.setStorageGroup(new PartialPath("root.sg"));
+
+    int threadNum = 4;
+    int deviceNum = 50;
+    AtomicReference<Exception> exception = new AtomicReference<>();
+    List<Thread> writers = new ArrayList<>();
+    for (int t = 0; t < threadNum; t++) {
+      String prefix = "root.sg.t" + t;
+      Thread writer =
+          new Thread(
+              () -> {
+                try {
+                  for (int i = 0; i < deviceNum; i++) {
+                    schemaProcessor.createAlignedTimeSeries(
+                        new PartialPath(prefix + ".a" + i),
+                        Arrays.asList("s1", "s2", "s3"),
+                        Arrays.asList(TSDataType.INT64, TSDataType.DOUBLE, TSDataType.TEXT),
+                        Arrays.asList(TSEncoding.RLE, TSEncoding.GORILLA, TSEncoding.PLAIN),
+                        Arrays.asList(
+                            CompressionType.SNAPPY,
+                            CompressionType.SNAPPY,
+                            CompressionType.SNAPPY));
+                    schemaProcessor.createTimeseries(
+                        new CreateTimeSeriesPlan(
+                            new PartialPath(prefix + ".n" + i + ".s1"),
+                            TSDataType.INT32,
+                            TSEncoding.RLE,
+                            CompressionType.SNAPPY,
+                            null,
+                            Collections.singletonMap("unit", "cel"),
+                            null,
+                            null));
+                    // auto create several non-aligned timeseries at once
+                    InsertRowPlan insertRowPlan =
+                        new InsertRowPlan(
+                            new PartialPath(prefix + ".m" + i),
+                            1L,
+                            new String[] {"s1", "s2", "s3"},
+                            new TSDataType[] {TSDataType.INT32, TSDataType.INT64, TSDataType.FLOAT},
+                            new String[] {"1", "1", "1"});
+                    insertRowPlan.setMeasurementMNodes(new IMeasurementMNode[3]);
+                    schemaProcessor.getSeriesSchemasAndReadLockDevice(insertRowPlan);
+                  }
+                } catch (Exception e) {
+                  exception.set(e);
+                }
+              });
+      writers.add(writer);
+      writer.start();
+    }
+
+    List<ISchemaRegion> schemaRegions =
+        new ArrayList<>(SchemaEngine.getInstance().getAllSchemaRegions());
+    while (writers.stream().anyMatch(Thread::isAlive)) {
+      for (ISchemaRegion schemaRegion : schemaRegions) {
+        schemaRegion.createMTreeSnapshot();
+      }
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    Assert.assertNull(exception.get());
+
+    EnvironmentUtils.restartDaemon();
+
+    Assert.assertEquals(
+        threadNum * deviceNum * 7,
+        schemaProcessor.getAllTimeseriesCount(new PartialPath("root.**")));
+    for (int t = 0; t < threadNum; t++) {
+      for (int i = 0; i < deviceNum; i++) {
+        Assert.assertTrue(
+            schemaProcessor
+                .getDeviceNode(new PartialPath("root.sg.t" + t + ".a" + i))
+                .getAsEntityMNode()
+                .isAligned());
+        Assert.assertFalse(
+            schemaProcessor
+                .getDeviceNode(new PartialPath("root.sg.t" + t + ".m" + i))
+                .getAsEntityMNode()
+                .isAligned());
+      }
+    }
+    List<ShowTimeSeriesResult> results =
+        schemaProcessor.showTimeseries(
+            new ShowTimeSeriesPlan(new PartialPath("root.**"), false, "unit", "cel", 0, 0, false),
+            new QueryContext());
+    Assert.assertEquals(threadNum * deviceNum, results.size());
+  }
+
+  /**
+   * Simulate a fuzzy snapshot, which is taken after the MTree is partly modified by the plans
+   * logged after its recorded position. Replaying them should complete the MTree instead of
+   * failing.
+   */
+  @Test
+  public void testReplayPlansPartlyInSnapshot() throws Exception {
+    LocalSchemaProcessor schemaProcessor = IoTDB.schemaProcessor;
+    schemaProcessor.setStorageGroup(new PartialPath("root.sg"));
+    schemaProcessor.createTimeseries(
+        new PartialPath("root.sg.d0.s1"),
+        TSDataType.INT32,
+        TSEncoding.RLE,
+        CompressionType.SNAPPY,
+        Collections.emptyMap());
+    ISchemaRegion schemaRegion = SchemaEngine.getInstance().getAllSchemaRegions().iterator().next();
+    schemaRegion.forceMlog();
+    File schemaRegionDir =
+        new File(config.getSchemaDir() + File.separator + "root.sg" + File.separator + "0");
+    long mlogPosition = new File(schemaRegionDir, MetadataConstant.METADATA_LOG).length();
+
+    // the plans logged after the position
+    schemaProcessor.createAlignedTimeSeries(
+        new CreateAlignedTimeSeriesPlan(
+            new PartialPath("root.sg.a"),
+            Arrays.asList("s1", "s2", "s3"),
+            Arrays.asList(TSDataType.INT64, TSDataType.DOUBLE, TSDataType.TEXT),
+            Arrays.asList(TSEncoding.RLE, TSEncoding.GORILLA, TSEncoding.PLAIN),
+            Arrays.asList(CompressionType.SNAPPY, CompressionType.SNAPPY, CompressionType.SNAPPY),
+            null,
+            Arrays.asList(
+                Collections.singletonMap("unit", "cel"),
+                Collections.singletonMap("unit", "cel"),
+                Collections.singletonMap("unit", "cel")),
+            null));
+    schemaProcessor.createTimeseries(
+        new CreateTimeSeriesPlan(
+            new PartialPath("root.sg.n.s1"),
+            TSDataType.INT32,
+            TSEncoding.RLE,
+            CompressionType.SNAPPY,
+            null,
+            Collections.singletonMap("unit", "cel"),
+            null,
+            null));
+    InsertRowPlan insertRowPlan =
+        new InsertRowPlan(
+            new PartialPath("root.sg.m"),
+            1L,
+            new String[] {"s1", "s2", "s3"},
+            new TSDataType[] {TSDataType.INT32, TSDataType.INT64, TSDataType.FLOAT},
+            new String[] {"1", "1", "1"});
+    insertRowPlan.setMeasurementMNodes(new IMeasurementMNode[3]);
+    schemaProcessor.getSeriesSchemasAndReadLockDevice(insertRowPlan);
+
+    // roll the MTree back to states that a concurrent snapshot may see
+    IMNode alignedDevice = schemaProcessor.getDeviceNode(new PartialPath("root.sg.a"));
+    alignedDevice.deleteChild("s2");
+    alignedDevice.deleteChild("s3");
+    alignedDevice.getAsEntityMNode().setAligned(false);
+    schemaProcessor.getMeasurementMNode(new PartialPath("root.sg.n.s1")).setOffset(-1);
+    schemaProcessor.getDeviceNode(new PartialPath("root.sg.m")).deleteChild("s3");
+    schemaRegion.createMTreeSnapshot();
+    File snapshot = new File(schemaRegionDir, MetadataConstant.MTREE_REGION_SNAPSHOT);
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    ReadWriteIOUtils.writeVar("root.sg", header);
+    try (RandomAccessFile snapshotFile = new RandomAccessFile(snapshot, "rw")) {
+      snapshotFile.seek(header.size());
+      snapshotFile.writeLong(mlogPosition);
+    }
+
+    EnvironmentUtils.restartDaemon();
+
+    Assert.assertEquals(8, schemaProcessor.getAllTimeseriesCount(new PartialPath("root.**")));
+    Assert.assertTrue(
+        schemaProcessor.getDeviceNode(new PartialPath("root.sg.a")).getAsEntityMNode().isAligned());
+    Assert.assertEquals(
+        TSEncoding.PLAIN,
+        schemaProcessor.getSeriesSchema(new PartialPath("root.sg.a.s3")).getEncodingType());
+    Assert.assertTrue(schemaProcessor.isPathExist(new PartialPath("root.sg.m.s3")));
+    List<ShowTimeSeriesResult> results =
+        schemaProcessor.showTimeseries(
+            new ShowTimeSeriesPlan(new PartialPath("root.**"), false, "unit", "cel", 0, 0, false),
+            new QueryContext());
+    Assert.assertEquals(4, results.size());
+  }
+
+  private CreateTemplatePlan getCreateTemplatePlan() {
+    List<List<String>> measurementList = new ArrayList<>();
+    measurementList.add(Collections.singletonList("s1"));
+    measurementList.add(Collections.singletonList("s2"));
+
+    List<List<TSDataType>> dataTypeList = new ArrayList<>();
+    dataTypeList.add(Collections.singletonList(TSDataType.INT64));
+    dataTypeList.add(Collections.singletonList(TSDataType.BOOLEAN));
+
+    List<List<TSEncoding>> encodingList = new ArrayList<>();
+    encodingList.add(Collections.singletonList(TSEncoding.RLE));
+    encodingList.add(Collections.singletonList(TSEncoding.PLAIN));
+
+    List<List<CompressionType>> compressionTypes = new ArrayList<>();
+    compressionTypes.add(Collections.singletonList(CompressionType.SNAPPY));
+    compressionTypes.add(Collections.singletonList(CompressionType.SNAPPY));
+
+    return new CreateTemplatePlan(
+        "template1", measurementList, dataTypeList, encodingList, compressionTypes);
+  }
+}
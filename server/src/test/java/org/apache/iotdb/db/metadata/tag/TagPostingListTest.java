@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.metadata.tag;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class TagPostingListTest {
+
+  @Test
+  public void testAddAndRemove() {
+    TagPostingList postingList = new TagPostingList();
+    TreeSet<Integer> expected = new TreeSet<>();
+    Random random = new Random(1);
+    for (int i = 0; i < 20000; i++) {
+      // dense ids in the first container and sparse ids in the others
+      int id = i % 2 == 0 ? random.nextInt(1 << 16) : random.nextInt(1 << 22);
+      Assert.assertEquals(expected.add(id), postingList.add(id));
+    }
+    assertEquals(expected, postingList);
+
+    for (int i = 0; i < 30000; i++) {
+      int id = random.nextInt(1 << 22);
+      Assert.assertEquals(expected.remove(id), postingList.remove(id));
+    }
+    assertEquals(expected, postingList);
+
+    for (int id : expected) {
+      Assert.assertTrue(postingList.remove(id));
+    }
+    Assert.assertTrue(postingList.isEmpty());
+    Assert.assertFalse(postingList.contains(0));
+  }
+
+  @Test
+  public void testOr() {
+    Random random = new Random(2);
+    TagPostingList left = new TagPostingList();
+    TagPostingList right = new TagPostingList();
+    TreeSet<Integer> leftSet = new TreeSet<>();
+    TreeSet<Integer> rightSet = new TreeSet<>();
+    for (int i = 0; i < 50000; i++) {
+      int id = random.nextInt(1 << 18);
+      left.add(id);
+      leftSet.add(id);
+    }
+    for (int i = 0; i < 3000; i++) {
+      int id = random.nextInt(1 << 19);
+      right.add(id);
+      rightSet.add(id);
+    }
+
+    TreeSet<Integer> union = new TreeSet<>(leftSet);
+    union.addAll(rightSet);
+    assertEquals(union, left.or(right));
+    assertEquals(union, right.or(left));
+
+    // the operands are not changed
+    assertEquals(leftSet, left);
+    assertEquals(rightSet, right);
+  }
+
+  @Test
+  public void testSerialize() throws IOException {
+    TagPostingList postingList = new TagPostingList();
+    TreeSet<Integer> expected = new TreeSet<>();
+    for (int i = 0; i < 10000; i++) {
+      postingList.add(i);
+      expected.add(i);
+      postingList.add(i * 97 + (1 << 20));
+      expected.add(i * 97 + (1 << 20));
+    }
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    postingList.serialize(new DataOutputStream(byteArrayOutputStream));
+    TagPostingList deserialized =
+        TagPostingList.deserialize(
+            new DataInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray())));
+    assertEquals(expected, deserialized);
+  }
+
+  private void assertEquals(TreeSet<Integer> expected, TagPostingList actual) {
+    Assert.assertEquals(expected.size(), actual.cardinality());
+    Assert.assertArrayEquals(
+        expected.stream().mapToInt(Integer::intValue).toArray(), actual.toArray());
+    for (int id : expected) {
+      Assert.assertTrue(actual.contains(id));
+    }
+  }
+}
@@ -0,0 +1,337 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.operator;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.metadata.path.MeasurementPath;
+import org.apache.iotdb.db.mpp.aggregation.AccumulatorFactory;
+import org.apache.iotdb.db.mpp.aggregation.Aggregator;
+import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
+import org.apache.iotdb.db.mpp.common.PlanFragmentId;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.execution.FragmentInstanceContext;
+import org.apache.iotdb.db.mpp.execution.FragmentInstanceStateMachine;
+import org.apache.iotdb.db.mpp.operator.process.AggregateOperator;
+import org.apache.iotdb.db.mpp.operator.process.TimeJoinOperator;
+import org.apache.iotdb.db.mpp.operator.process.merge.SingleColumnMerger;
+import org.apache.iotdb.db.mpp.operator.source.SeriesAggregateScanOperator;
+import org.apache.iotdb.db.mpp.operator.source.SeriesScanOperator;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.AggregationStep;
+import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.GroupByTimeParameter;
+import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.InputLocation;
+import org.apache.iotdb.db.mpp.sql.statement.component.OrderBy;
+import org.apache.iotdb.db.query.aggregation.AggregationType;
+import org.apache.iotdb.db.query.reader.series.SeriesReaderTestUtil;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import static org.apache.iotdb.db.mpp.execution.FragmentInstanceContext.createFragmentInstanceContext;
+import static org.junit.Assert.assertEquals;
+
+public class AggregateOperatorTest {
+
+  private static final String AGGREGATE_OPERATOR_TEST_SG = "root.AggregateOperatorTest";
+  private final List<String> deviceIds = new ArrayList<>();
+  private final List<MeasurementSchema> measurementSchemas = new ArrayList<>();
+
+  private final List<TsFileResource> seqResources = new ArrayList<>();
+  private final List<TsFileResource> unSeqResources = new ArrayList<>();
+  private ExecutorService instanceNotificationExecutor;
+
+  @Before
+  public void setUp() throws MetadataException, IOException, WriteProcessException {
+    SeriesReaderTestUtil.setUp(
+        measurementSchemas, deviceIds, seqResources, unSeqResources, AGGREGATE_OPERATOR_TEST_SG);
+    this.instanceNotificationExecutor =
+        IoTDBThreadPoolFactory.newFixedThreadPool(1, "test-instance-notification");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    SeriesReaderTestUtil.tearDown(seqResources, unSeqResources);
+    instanceNotificationExecutor.shutdown();
+  }
+
+  /** Aggregate the raw data of sensor0 and sensor1 output by TimeJoinOperator. */
+  @Test
+  public void testAggregateRawDataWithoutGroupBy() throws IllegalPathException {
+    List<Aggregator> aggregators = new ArrayList<>();
+    aggregators.add(createRawAggregator(AggregationType.COUNT, 0));
+    aggregators.add(createRawAggregator(AggregationType.SUM, 0));
+    aggregators.add(createRawAggregator(AggregationType.MAX_VALUE, 1));
+    aggregators.add(createRawAggregator(AggregationType.MIN_VALUE, 1));
+    AggregateOperator aggregateOperator = initRawDataAggregateOperator(aggregators, null);
+    int count = 0;
+    while (aggregateOperator.hasNext()) {
+      TsBlock resultTsBlock = aggregateOperator.next();
+      assertEquals(500, resultTsBlock.getColumn(0).getLong(0));
+      assertEquals(6524750.0, resultTsBlock.getColumn(1).getDouble(0), 0.0001);
+      assertEquals(20199, resultTsBlock.getColumn(2).getInt(0));
+      assertEquals(260, resultTsBlock.getColumn(3).getInt(0));
+      count++;
+    }
+    assertEquals(1, count);
+  }
+
+  @Test
+  public void testAggregateRawDataWithGroupBy() throws IllegalPathException {
+    int[] firstValue = new int[] {20000, 20100, 10200, 10300};
+    int[] lastValue = new int[] {20099, 20199, 299, 399};
+    List<Aggregator> aggregators = new ArrayList<>();
+    aggregators.add(createRawAggregator(AggregationType.COUNT, 0));
+    aggregators.add(createRawAggregator(AggregationType.FIRST_VALUE, 0));
+    aggregators.add(createRawAggregator(AggregationType.LAST_VALUE, 1));
+    GroupByTimeParameter groupByTimeParameter = new GroupByTimeParameter(0, 400, 100, 100, true);
+    AggregateOperator aggregateOperator =
+        initRawDataAggregateOperator(aggregators, groupByTimeParameter);
+    int count = 0;
+    while (aggregateOperator.hasNext()) {
+      TsBlock resultTsBlock = aggregateOperator.next();
+      assertEquals(100 * count, resultTsBlock.getTimeColumn().getLong(0));
+      assertEquals(100, resultTsBlock.getColumn(0).getLong(0));
+      assertEquals(firstValue[count], resultTsBlock.getColumn(1).getInt(0));
+      assertEquals(lastValue[count], resultTsBlock.getColumn(2).getInt(0));
+      count++;
+    }
+    assertEquals(4, count);
+  }
+
+  /** The time windows overlap, so each row belongs to two windows. */
+  @Test
+  public void testAggregateRawDataWithOverlappedSlidingStep() throws IllegalPathException {
+    List<Aggregator> aggregators = new ArrayList<>();
+    aggregators.add(createRawAggregator(AggregationType.COUNT, 0));
+    aggregators.add(createRawAggregator(AggregationType.MIN_TIME, 0));
+    aggregators.add(createRawAggregator(AggregationType.MAX_TIME, 1));
+    GroupByTimeParameter groupByTimeParameter = new GroupByTimeParameter(0, 400, 100, 50, true);
+    AggregateOperator aggregateOperator =
+        initRawDataAggregateOperator(aggregators, groupByTimeParameter);
+    int count = 0;
+    while (aggregateOperator.hasNext()) {
+      TsBlock resultTsBlock = aggregateOperator.next();
+      long startTime = 50L * count;
+      long endTime = Math.min(startTime + 100, 400);
+      assertEquals(startTime, resultTsBlock.getTimeColumn().getLong(0));
+      assertEquals(endTime - startTime, resultTsBlock.getColumn(0).getLong(0));
+      assertEquals(startTime, resultTsBlock.getColumn(1).getLong(0));
+      assertEquals(endTime - 1, resultTsBlock.getColumn(2).getLong(0));
+      count++;
+    }
+    assertEquals(8, count);
+  }
+
+  /** Merge the partial results of sensor0 and sensor1 output by SeriesAggregateScanOperator. */
+  @Test
+  public void testAggregatePartialResultWithGroupBy() throws IllegalPathException {
+    double[] avg = new double[] {20049.5, 20149.5, 6249.5, 8349.5};
+    GroupByTimeParameter groupByTimeParameter = new GroupByTimeParameter(0, 400, 100, 100, true);
+    List<Aggregator> aggregators = new ArrayList<>();
+    aggregators.add(
+        new Aggregator(
+            AccumulatorFactory.createAccumulator(AggregationType.COUNT, TSDataType.INT32, true),
+            AggregationStep.FINAL,
+            Arrays.asList(
+                new InputLocation[] {new InputLocation(0, 0)},
+                new InputLocation[] {new InputLocation(1, 0)})));
+    aggregators.add(
+        new Aggregator(
+            AccumulatorFactory.createAccumulator(AggregationType.AVG, TSDataType.INT32, true),
+            AggregationStep.FINAL,
+            Arrays.asList(
+                new InputLocation[] {new InputLocation(0, 1), new InputLocation(0, 2)},
+                new InputLocation[] {new InputLocation(1, 1), new InputLocation(1, 2)})));
+    AggregateOperator aggregateOperator =
+        initPartialResultAggregateOperator(aggregators, groupByTimeParameter);
+    int count = 0;
+    while (aggregateOperator.hasNext()) {
+      TsBlock resultTsBlock = aggregateOperator.next();
+      assertEquals(100 * count, resultTsBlock.getTimeColumn().getLong(0));
+      assertEquals(200, resultTsBlock.getColumn(0).getLong(0));
+      assertEquals(avg[count], resultTsBlock.getColumn(1).getDouble(0), 0.0001);
+      count++;
+    }
+    assertEquals(4, count);
+  }
+
+  /**
+   * Merge the pre-aggregation windows output by SeriesAggregateScanOperator into overlapped ones.
+   */
+  @Test
+  public void testAggregatePartialResultWithOverlappedSlidingStep() throws IllegalPathException {
+    GroupByTimeParameter groupByTimeParameter = new GroupByTimeParameter(0, 400, 100, 50, true);
+    List<Aggregator> aggregators = new ArrayList<>();
+    aggregators.add(
+        new Aggregator(
+            AccumulatorFactory.createAccumulator(AggregationType.COUNT, TSDataType.INT32, true),
+            AggregationStep.FINAL,
+            Arrays.asList(
+                new InputLocation[] {new InputLocation(0, 0)},
+                new InputLocation[] {new InputLocation(1, 0)})));
+    AggregateOperator aggregateOperator =
+        initPartialResultAggregateOperator(aggregators, groupByTimeParameter);
+    int count = 0;
+    while (aggregateOperator.hasNext()) {
+      TsBlock resultTsBlock = aggregateOperator.next();
+      long startTime = 50L * count;
+      long endTime = Math.min(startTime + 100, 400);
+      assertEquals(startTime, resultTsBlock.getTimeColumn().getLong(0));
+      assertEquals(2 * (endTime - startTime), resultTsBlock.getColumn(0).getLong(0));
+      count++;
+    }
+    assertEquals(8, count);
+  }
+
+  private Aggregator createRawAggregator(AggregationType aggregationType, int valueColumnIndex) {
+    return new Aggregator(
+        AccumulatorFactory.createAccumulator(aggregationType, TSDataType.INT32, true),
+        AggregationStep.SINGLE,
+        Collections.singletonList(new InputLocation[] {new InputLocation(0, valueColumnIndex)}));
+  }
+
+  private AggregateOperator initRawDataAggregateOperator(
+      List<Aggregator> aggregators, GroupByTimeParameter groupByTimeParameter)
+      throws IllegalPathException {
+    FragmentInstanceContext fragmentInstanceContext = initFragmentInstanceContext();
+    PlanNodeId planNodeId1 = new PlanNodeId("1");
+    fragmentInstanceContext.addOperatorContext(
+        1, planNodeId1, SeriesScanOperator.class.getSimpleName());
+    PlanNodeId planNodeId2 = new PlanNodeId("2");
+    fragmentInstanceContext.addOperatorContext(
+        2, planNodeId2, SeriesScanOperator.class.getSimpleName());
+    fragmentInstanceContext.addOperatorContext(
+        3, new PlanNodeId("3"), TimeJoinOperator.class.getSimpleName());
+    fragmentInstanceContext.addOperatorContext(
+        4, new PlanNodeId("4"), AggregateOperator.class.getSimpleName());
+
+    Set<String> allSensors = new HashSet<>(Arrays.asList("sensor0", "sensor1"));
+    List<Operator> children = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      MeasurementPath measurementPath =
+          new MeasurementPath(AGGREGATE_OPERATOR_TEST_SG + ".device0.sensor" + i, TSDataType.INT32);
+      SeriesScanOperator seriesScanOperator =
+          new SeriesScanOperator(
+              i == 0 ? planNodeId1 : planNodeId2,
+              measurementPath,
+              allSensors,
+              TSDataType.INT32,
+              fragmentInstanceContext.getOperatorContexts().get(i),
+              null,
+              null,
+              true);
+      seriesScanOperator.initQueryDataSource(new QueryDataSource(seqResources, unSeqResources));
+      children.add(seriesScanOperator);
+    }
+
+    TimeJoinOperator timeJoinOperator =
+        new TimeJoinOperator(
+            fragmentInstanceContext.getOperatorContexts().get(2),
+            children,
+            OrderBy.TIMESTAMP_ASC,
+            Arrays.asList(TSDataType.INT32, TSDataType.INT32),
+            Arrays.asList(
+                new SingleColumnMerger(new InputLocation(0, 0), OrderBy.TIMESTAMP_ASC),
+                new SingleColumnMerger(new InputLocation(1, 0), OrderBy.TIMESTAMP_ASC)));
+
+    return new AggregateOperator(
+        fragmentInstanceContext.getOperatorContexts().get(3),
+        aggregators,
+        Collections.singletonList(timeJoinOperator),
+        true,
+        groupByTimeParameter);
+  }
+
+  private AggregateOperator initPartialResultAggregateOperator(
+      List<Aggregator> aggregators, GroupByTimeParameter groupByTimeParameter)
+      throws IllegalPathException {
+    FragmentInstanceContext fragmentInstanceContext = initFragmentInstanceContext();
+    PlanNodeId planNodeId1 = new PlanNodeId("1");
+    fragmentInstanceContext.addOperatorContext(
+        1, planNodeId1, SeriesAggregateScanOperator.class.getSimpleName());
+    PlanNodeId planNodeId2 = new PlanNodeId("2");
+    fragmentInstanceContext.addOperatorContext(
+        2, planNodeId2, SeriesAggregateScanOperator.class.getSimpleName());
+    fragmentInstanceContext.addOperatorContext(
+        3, new PlanNodeId("3"), AggregateOperator.class.getSimpleName());
+
+    Set<String> allSensors = new HashSet<>(Arrays.asList("sensor0", "sensor1"));
+    List<Operator> children = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      MeasurementPath measurementPath =
+          new MeasurementPath(AGGREGATE_OPERATOR_TEST_SG + ".device0.sensor" + i, TSDataType.INT32);
+      List<Aggregator> partialAggregators = new ArrayList<>();
+      partialAggregators.add(
+          new Aggregator(
+              AccumulatorFactory.createAccumulator(AggregationType.COUNT, TSDataType.INT32, true),
+              AggregationStep.PARTIAL));
+      partialAggregators.add(
+          new Aggregator(
+              AccumulatorFactory.createAccumulator(AggregationType.AVG, TSDataType.INT32, true),
+              AggregationStep.PARTIAL));
+      SeriesAggregateScanOperator seriesAggregateScanOperator =
+          new SeriesAggregateScanOperator(
+              i == 0 ? planNodeId1 : planNodeId2,
+              measurementPath,
+              allSensors,
+              fragmentInstanceContext.getOperatorContexts().get(i),
+              partialAggregators,
+              null,
+              true,
+              groupByTimeParameter);
+      seriesAggregateScanOperator.initQueryDataSource(
+          new QueryDataSource(seqResources, unSeqResources));
+      children.add(seriesAggregateScanOperator);
+    }
+
+    return new AggregateOperator(
+        fragmentInstanceContext.getOperatorContexts().get(2),
+        aggregators,
+        children,
+        true,
+        groupByTimeParameter);
+  }
+
+  private FragmentInstanceContext initFragmentInstanceContext() {
+    QueryId queryId = new QueryId("stub_query");
+    FragmentInstanceId instanceId =
+        new FragmentInstanceId(new PlanFragmentId(queryId, 0), "stub-instance");
+    FragmentInstanceStateMachine stateMachine =
+        new FragmentInstanceStateMachine(instanceId, instanceNotificationExecutor);
+    return createFragmentInstanceContext(instanceId, stateMachine);
+  }
+}
@@ -24,6 +24,8 @@ import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.metadata.path.MeasurementPath;
+import org.apache.iotdb.db.mpp.aggregation.AccumulatorFactory;
+import org.apache.iotdb.db.mpp.aggregation.Aggregator;
 import org.apache.iotdb.db.mpp.common.FragmentInstanceId;
 import org.apache.iotdb.db.mpp.common.PlanFragmentId;
 import org.apache.iotdb.db.mpp.common.QueryId;
@@ -33,6 +35,7 @@ import org.apache.iotdb.db.mpp.execution.FragmentInstanceStateMachine;
 import org.apache.iotdb.db.mpp.operator.source.SeriesAggregateScanOperator;
 import org.apache.iotdb.db.mpp.operator.source.SeriesScanOperator;
 import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.AggregationStep;
 import org.apache.iotdb.db.mpp.sql.planner.plan.parameter.GroupByTimeParameter;
 import org.apache.iotdb.db.query.aggregation.AggregationType;
 import org.apache.iotdb.db.query.reader.series.SeriesReaderTestUtil;
@@ -213,7 +216,7 @@ public class SeriesAggregateScanOperatorTest {
 
   @Test
   public void testGroupByWithoutGlobalTimeFilter() throws IllegalPathException {
-    int[] result = new int[] {100, 100, 100, 100};
+    int[] result = new int[] {100, 100, 100, 99};
     GroupByTimeParameter groupByTimeParameter = new GroupByTimeParameter(0, 399, 100, 100, true);
     SeriesAggregateScanOperator seriesAggregateScanOperator =
         initSeriesAggregateScanOperator(
@@ -254,7 +257,7 @@ public class SeriesAggregateScanOperatorTest {
     int[][] result =
         new int[][] {
           {20000, 20100, 10200, 10300},
-          {20099, 20199, 299, 399},
+          {20099, 20199, 299, 398},
           {20099, 20199, 10259, 10379},
           {20000, 20100, 260, 380}
         };
@@ -279,9 +282,31 @@ public class SeriesAggregateScanOperatorTest {
     assertEquals(4, count);
   }
 
+  @Test
+  public void testGroupByWithSkippedData() throws IllegalPathException {
+    int[][] result = new int[][] {{100, 100}, {10200, 10300}, {299, 399}};
+    List<AggregationType> aggregationTypes = new ArrayList<>();
+    aggregationTypes.add(AggregationType.COUNT);
+    aggregationTypes.add(AggregationType.FIRST_VALUE);
+    aggregationTypes.add(AggregationType.LAST_VALUE);
+    GroupByTimeParameter groupByTimeParameter = new GroupByTimeParameter(200, 400, 100, 100, true);
+    SeriesAggregateScanOperator seriesAggregateScanOperator =
+        initSeriesAggregateScanOperator(aggregationTypes, null, true, groupByTimeParameter);
+    int count = 0;
+    while (seriesAggregateScanOperator.hasNext()) {
+      TsBlock resultTsBlock = seriesAggregateScanOperator.next();
+      assertEquals(200 + 100 * count, resultTsBlock.getTimeColumn().getLong(0));
+      assertEquals(result[0][count], resultTsBlock.getColumn(0).getLong(0));
+      assertEquals(result[1][count], resultTsBlock.getColumn(1).getInt(0));
+      assertEquals(result[2][count], resultTsBlock.getColumn(2).getInt(0));
+      count++;
+    }
+    assertEquals(2, count);
+  }
+
   @Test
   public void testGroupBySlidingTimeWindow() throws IllegalPathException {
-    int[] result = new int[] {50, 50, 50, 50, 50, 50, 50, 50};
+    int[] result = new int[] {50, 50, 50, 50, 50, 50, 50, 49};
     GroupByTimeParameter groupByTimeParameter = new GroupByTimeParameter(0, 399, 100, 50, true);
     SeriesAggregateScanOperator seriesAggregateScanOperator =
         initSeriesAggregateScanOperator(
@@ -367,13 +392,20 @@ public class SeriesAggregateScanOperatorTest {
     fragmentInstanceContext.addOperatorContext(
         1, planNodeId, SeriesScanOperator.class.getSimpleName());
 
+    List<Aggregator> aggregators = new ArrayList<>();
+    for (AggregationType aggregationType : aggregateFuncList) {
+      aggregators.add(
+          new Aggregator(
+              AccumulatorFactory.createAccumulator(aggregationType, TSDataType.INT32, ascending),
+              AggregationStep.SINGLE));
+    }
     SeriesAggregateScanOperator seriesAggregateScanOperator =
         new SeriesAggregateScanOperator(
             planNodeId,
             measurementPath,
             allSensors,
             fragmentInstanceContext.getOperatorContexts().get(0),
-            aggregateFuncList,
+            aggregators,
             timeFilter,
             ascending,
             groupByTimeParameter);
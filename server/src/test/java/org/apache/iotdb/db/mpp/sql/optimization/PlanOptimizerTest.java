@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.mpp.sql.optimization;
+
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.metadata.path.MeasurementPath;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.mpp.common.MPPQueryContext;
+import org.apache.iotdb.db.mpp.common.QueryId;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.PlanNodeId;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.AggregateNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.FilterNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.FilterNullNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.LimitNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.OffsetNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.process.TimeJoinNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesAggregateScanNode;
+import org.apache.iotdb.db.mpp.sql.planner.plan.node.source.SeriesScanNode;
+import org.apache.iotdb.db.mpp.sql.statement.component.FilterNullPolicy;
+import org.apache.iotdb.db.mpp.sql.statement.component.OrderBy;
+import org.apache.iotdb.db.query.aggregation.AggregationType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.expression.IExpression;
+import org.apache.iotdb.tsfile.read.expression.impl.BinaryExpression;
+import org.apache.iotdb.tsfile.read.expression.impl.GlobalTimeExpression;
+import org.apache.iotdb.tsfile.read.expression.impl.SingleSeriesExpression;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.ValueFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+
+import org.apache.commons.compress.utils.Sets;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PlanOptimizerTest {
+
+  private MPPQueryContext context;
+  private MeasurementPath s1;
+  private MeasurementPath s2;
+
+  @Before
+  public void setUp() throws IllegalPathException {
+    context = new MPPQueryContext(new QueryId("test_query"));
+    s1 = new MeasurementPath("root.sg.d1.s1", TSDataType.INT32);
+    s2 = new MeasurementPath("root.sg.d1.s2", TSDataType.INT32);
+  }
+
+  @Test
+  public void testTimeFilterPushDown() {
+    TimeJoinNode timeJoinNode = timeJoin(scan(s1), scan(s2));
+    Filter timeFilter = TimeFilter.gt(100);
+    FilterNode filterNode =
+        new FilterNode(
+            new PlanNodeId("filter"),
+            timeJoinNode,
+            new GlobalTimeExpression(timeFilter),
+            timeJoinNode.getOutputColumnNames());
+    LimitNode limitNode = new LimitNode(new PlanNodeId("limit"), filterNode, 10);
+
+    PlanNode result = new PredicatePushDown().optimize(limitNode, context);
+
+    // the FilterNode is removed since its predicate is pushed down
+    assertSame(limitNode.getPlanNodeId(), result.getPlanNodeId());
+    PlanNode child = result.getChildren().get(0);
+    assertTrue(child instanceof TimeJoinNode);
+    for (PlanNode scan : child.getChildren()) {
+      assertEquals(timeFilter, ((SeriesScanNode) scan).getTimeFilter());
+      assertNull(((SeriesScanNode) scan).getValueFilter());
+    }
+    assertEquals(timeJoinNode.getOutputColumnNames(), result.getOutputColumnNames());
+  }
+
+  @Test
+  public void testValueFilterPushDown() {
+    SeriesScanNode scanNode = scan(s1);
+    Filter valueFilter = ValueFilter.gt(10);
+    Filter timeFilter = TimeFilter.gt(100);
+    IExpression predicate =
+        BinaryExpression.and(
+            new SingleSeriesExpression(s1, valueFilter), new GlobalTimeExpression(timeFilter));
+    FilterNode filterNode =
+        new FilterNode(
+            new PlanNodeId("filter"), scanNode, predicate, scanNode.getOutputColumnNames());
+
+    PlanNode result = new PredicatePushDown().optimize(filterNode, context);
+
+    // the time filter is merged into the value filter
+    assertSame(scanNode, result);
+    assertNull(scanNode.getTimeFilter());
+    assertEquals(FilterFactory.and(valueFilter, timeFilter), scanNode.getValueFilter());
+  }
+
+  @Test
+  public void testPartialPredicatePushDown() {
+    TimeJoinNode timeJoinNode = timeJoin(scan(s1), scan(s2));
+    IExpression seriesExpression = new SingleSeriesExpression(s1, ValueFilter.gt(10));
+    Filter timeFilter = TimeFilter.lt(1000);
+    FilterNode filterNode =
+        new FilterNode(
+            new PlanNodeId("filter"),
+            timeJoinNode,
+            BinaryExpression.and(seriesExpression, new GlobalTimeExpression(timeFilter)),
+            Collections.singletonList(s2.getFullPath()));
+
+    PlanNode result = new PredicatePushDown().optimize(filterNode, context);
+
+    // the filter on one of the joined series can not be pushed down
+    assertTrue(result instanceof FilterNode);
+    assertEquals(seriesExpression, ((FilterNode) result).getPredicate());
+    assertEquals(Collections.singletonList(s2.getFullPath()), result.getOutputColumnNames());
+    for (PlanNode scan : timeJoinNode.getChildren()) {
+      assertEquals(timeFilter, ((SeriesScanNode) scan).getTimeFilter());
+      assertNull(((SeriesScanNode) scan).getValueFilter());
+    }
+  }
+
+  @Test
+  public void testLimitOffsetPushDown() {
+    SeriesScanNode scan1 = scan(s1);
+    SeriesScanNode scan2 = scan(s2);
+    OffsetNode offsetNode = new OffsetNode(new PlanNodeId("offset"), timeJoin(scan1, scan2), 20);
+    LimitNode limitNode = new LimitNode(new PlanNodeId("limit"), offsetNode, 10);
+
+    PlanNode result = new LimitOffsetPushDown().optimize(limitNode, context);
+
+    assertTrue(result instanceof LimitNode);
+    PlanNode resultTimeJoin = result.getChildren().get(0).getChildren().get(0);
+    for (PlanNode scan : resultTimeJoin.getChildren()) {
+      assertEquals(30, ((SeriesScanNode) scan).getLimit());
+    }
+    // the input plan is not modified
+    assertEquals(0, scan1.getLimit());
+    assertEquals(0, scan2.getLimit());
+    assertSame(offsetNode, limitNode.getChild());
+
+    // the limit can not be pushed through the FilterNode
+    SeriesScanNode scan3 = scan(s1);
+    FilterNode filterNode =
+        new FilterNode(
+            new PlanNodeId("filter"),
+            scan3,
+            new SingleSeriesExpression(s1, ValueFilter.gt(10)),
+            scan3.getOutputColumnNames());
+    new LimitOffsetPushDown()
+        .optimize(new LimitNode(new PlanNodeId("limit"), filterNode, 10), context);
+    assertEquals(0, scan3.getLimit());
+  }
+
+  @Test
+  public void testRemoveRedundantFilterNull() {
+    SeriesScanNode scanNode = scan(s1);
+    PlanNode result =
+        new RemoveRedundantFilterNull()
+            .optimize(filterNull(scanNode, FilterNullPolicy.CONTAINS_NULL), context);
+    assertSame(scanNode, result);
+
+    TimeJoinNode timeJoinNode = timeJoin(scan(s1), scan(s2));
+    result =
+        new RemoveRedundantFilterNull()
+            .optimize(filterNull(timeJoinNode, FilterNullPolicy.ALL_NULL), context);
+    assertSame(timeJoinNode, result);
+
+    // rows containing null may be produced by time join
+    FilterNullNode filterNullNode = filterNull(timeJoinNode, FilterNullPolicy.CONTAINS_NULL);
+    result = new RemoveRedundantFilterNull().optimize(filterNullNode, context);
+    assertSame(filterNullNode, result);
+
+    // the duplicated FilterNullNode is removed
+    result =
+        new RemoveRedundantFilterNull()
+            .optimize(filterNull(filterNullNode, FilterNullPolicy.CONTAINS_NULL), context);
+    assertSame(filterNullNode, result);
+  }
+
+  @Test
+  public void testAggregationPushDown() {
+    SeriesScanNode scan1 = scan(s1);
+    Filter timeFilter = TimeFilter.gt(100);
+    scan1.setTimeFilter(timeFilter);
+    Map<PartialPath, Set<AggregationType>> aggregateFuncMap = new LinkedHashMap<>();
+    aggregateFuncMap.put(s1, Sets.newHashSet(AggregationType.COUNT));
+    aggregateFuncMap.put(s2, Sets.newHashSet(AggregationType.SUM, AggregationType.MAX_VALUE));
+    AggregateNode aggregateNode =
+        new AggregateNode(
+            new PlanNodeId("aggregate"), timeJoin(scan1, scan(s2)), aggregateFuncMap, null);
+
+    PlanNode result = new AggregationPushDown().optimize(aggregateNode, context);
+
+    assertTrue(result instanceof TimeJoinNode);
+    assertEquals(aggregateNode.getOutputColumnNames(), result.getOutputColumnNames());
+    List<PlanNode> children = result.getChildren();
+    assertEquals(2, children.size());
+    SeriesAggregateScanNode aggregateScan1 = (SeriesAggregateScanNode) children.get(0);
+    assertEquals(timeFilter, aggregateScan1.getTimeFilter());
+    assertEquals(OrderBy.TIMESTAMP_ASC, aggregateScan1.getScanOrder());
+
+    // aggregation on the filtered data can not be calculated by series
+    SeriesScanNode scan3 = scan(s1);
+    scan3.setValueFilter(ValueFilter.gt(10));
+    Map<PartialPath, Set<AggregationType>> countFuncMap = new LinkedHashMap<>();
+    countFuncMap.put(s1, Sets.newHashSet(AggregationType.COUNT));
+    aggregateNode = new AggregateNode(new PlanNodeId("aggregate"), scan3, countFuncMap, null);
+    assertSame(aggregateNode, new AggregationPushDown().optimize(aggregateNode, context));
+  }
+
+  private SeriesScanNode scan(MeasurementPath path) {
+    return new SeriesScanNode(
+        context.getQueryId().genPlanNodeId(),
+        path,
+        Sets.newHashSet(s1.getMeasurement(), s2.getMeasurement()),
+        OrderBy.TIMESTAMP_ASC);
+  }
+
+  private TimeJoinNode timeJoin(PlanNode... children) {
+    return new TimeJoinNode(
+        context.getQueryId().genPlanNodeId(),
+        OrderBy.TIMESTAMP_ASC,
+        new ArrayList<>(Arrays.asList(children)));
+  }
+
+  private FilterNullNode filterNull(PlanNode child, FilterNullPolicy policy) {
+    return new FilterNullNode(
+        context.getQueryId().genPlanNodeId(), child, policy, new ArrayList<>());
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils.datastructure;
+
+import org.apache.iotdb.db.rescon.OffHeapArrayPool;
+import org.apache.iotdb.db.rescon.PrimitiveArrayManager;
+import org.apache.iotdb.db.wal.utils.WALByteBufferForTest;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.TimeValuePair;
+import org.apache.iotdb.tsfile.utils.BitMap;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType.TsDouble;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class OffHeapTVListTest {
+
+  @Test
+  public void testLongTVList() {
+    OffHeapTVList tvList = new OffHeapTVList(TSDataType.INT64);
+    for (long i = 1000; i >= 0; i--) {
+      tvList.putLong(i, i);
+    }
+    Assert.assertFalse(tvList.isSorted());
+    tvList.sort();
+    for (int i = 0; i < tvList.rowCount; i++) {
+      Assert.assertEquals(i, tvList.getLong(i));
+      Assert.assertEquals(i, tvList.getTime(i));
+    }
+  }
+
+  @Test
+  public void testIntTVList() {
+    OffHeapTVList tvList = new OffHeapTVList(TSDataType.INT32);
+    for (int i = 0; i < 1000; i++) {
+      tvList.putInt(i, -i);
+    }
+    tvList.sort();
+    for (int i = 0; i < tvList.rowCount; i++) {
+      Assert.assertEquals(-i, tvList.getInt(i));
+      Assert.assertEquals(i, tvList.getTime(i));
+    }
+  }
+
+  @Test
+  public void testDoubleTVList() {
+    Random random = new Random();
+    OffHeapTVList tvList = new OffHeapTVList(TSDataType.DOUBLE);
+    List<TimeValuePair> inputs = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      long time = random.nextInt(10000);
+      double value = random.nextDouble();
+      tvList.putDouble(time, value);
+      inputs.add(new TimeValuePair(time, new TsDouble(value)));
+    }
+    tvList.sort();
+    inputs.sort(TimeValuePair::compareTo);
+    for (int i = 0; i < tvList.rowCount; i++) {
+      Assert.assertEquals(inputs.get(i).getTimestamp(), tvList.getTime(i));
+      Assert.assertEquals(inputs.get(i).getValue().getDouble(), tvList.getDouble(i), 0);
+    }
+  }
+
+  @Test
+  public void testFloatAndBooleanTVList() {
+    OffHeapTVList floatList = new OffHeapTVList(TSDataType.FLOAT);
+    OffHeapTVList booleanList = new OffHeapTVList(TSDataType.BOOLEAN);
+    for (int i = 500; i >= 0; i--) {
+      floatList.putFloat(i, i + 0.5f);
+      booleanList.putBoolean(i, i % 2 == 0);
+    }
+    floatList.sort();
+    booleanList.sort();
+    for (int i = 0; i <= 500; i++) {
+      Assert.assertEquals(i + 0.5f, floatList.getFloat(i), 0);
+      Assert.assertEquals(i % 2 == 0, booleanList.getBoolean(i));
+      Assert.assertEquals(i, booleanList.getTime(i));
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testDataTypeNotConsistent() {
+    OffHeapTVList tvList = new OffHeapTVList(TSDataType.INT64);
+    tvList.putDouble(1, 1.0);
+  }
+
+  @Test
+  public void testPutLongsWithBitMap() {
+    OffHeapTVList tvList = new OffHeapTVList(TSDataType.INT64);
+    long[] times = new long[1001];
+    long[] values = new long[1001];
+    BitMap bitMap = new BitMap(1001);
+    for (int i = 0; i < 1001; i++) {
+      times[i] = 1000 - i;
+      values[i] = 1000 - i;
+      if (i % 100 == 0) {
+        bitMap.mark(i);
+      }
+    }
+    tvList.putLongs(times, values, bitMap, 0, 1001);
+    Assert.assertEquals(990, tvList.rowCount);
+    tvList.sort();
+    long expected = 1;
+    for (int i = 0; i < tvList.rowCount; i++) {
+      if (expected % 100 == 0) {
+        expected++;
+      }
+      Assert.assertEquals(expected, tvList.getTime(i));
+      Assert.assertEquals(expected, tvList.getLong(i));
+      expected++;
+    }
+  }
+
+  @Test
+  public void testDeleteAndClone() {
+    OffHeapTVList tvList = new OffHeapTVList(TSDataType.INT64);
+    for (long i = 0; i < 1000; i++) {
+      tvList.putLong(i, i);
+    }
+    Assert.assertEquals(500, tvList.delete(500, 999));
+    Assert.assertEquals(500, tvList.rowCount);
+    OffHeapTVList cloneList = tvList.clone();
+    tvList.clear();
+    Assert.assertEquals(500, cloneList.rowCount);
+    for (int i = 0; i < cloneList.rowCount; i++) {
+      Assert.assertEquals(i, cloneList.getTime(i));
+      Assert.assertEquals(i, cloneList.getLong(i));
+    }
+  }
+
+  @Test
+  public void testClearReleaseBlocks() {
+    OffHeapArrayPool pool = PrimitiveArrayManager.getOffHeapArrayPool();
+    OffHeapTVList tvList = new OffHeapTVList(TSDataType.INT32);
+    int blockNum = 10;
+    for (int i = 0; i < pool.getArraySize() * blockNum; i++) {
+      tvList.putInt(i, i);
+    }
+    int freeTimeBlocks = pool.getFreeBlockNumber(Long.BYTES);
+    int freeValueBlocks = pool.getFreeBlockNumber(Integer.BYTES);
+    tvList.clear();
+    Assert.assertEquals(freeTimeBlocks + blockNum, pool.getFreeBlockNumber(Long.BYTES));
+    Assert.assertEquals(freeValueBlocks + blockNum, pool.getFreeBlockNumber(Integer.BYTES));
+  }
+
+  @Test
+  public void testSortReleaseBlocks() {
+    OffHeapArrayPool pool = PrimitiveArrayManager.getOffHeapArrayPool();
+    OffHeapTVList tvList = new OffHeapTVList(TSDataType.DOUBLE);
+    for (int i = pool.getArraySize() * 3; i > 0; i--) {
+      tvList.putDouble(i, i);
+    }
+    int freeBlocks = pool.getFreeBlockNumber(Long.BYTES);
+    tvList.sort();
+    // the 6 blocks borrowed by the sorting are back in the pool, more may be reclaimed from the
+    // lists of the other tests
+    Assert.assertTrue(pool.getFreeBlockNumber(Long.BYTES) >= Math.max(freeBlocks, 6));
+    for (int i = 0; i < tvList.rowCount; i++) {
+      Assert.assertEquals(i + 1, tvList.getTime(i));
+      Assert.assertEquals(i + 1, tvList.getDouble(i), 0);
+    }
+  }
+
+  @Test
+  public void testSerializeToWAL() throws IOException {
+    OffHeapTVList tvList = new OffHeapTVList(TSDataType.DOUBLE);
+    for (int i = 0; i < 100; i++) {
+      tvList.putDouble(i, i * 1.5);
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(tvList.serializedSize());
+    tvList.serializeToWAL(new WALByteBufferForTest(buffer));
+    Assert.assertEquals(0, buffer.remaining());
+
+    DataInputStream stream =
+        new DataInputStream(new ByteArrayInputStream(buffer.array(), 0, buffer.position()));
+    TVList deserialized = TVList.deserialize(stream);
+    Assert.assertEquals(TSDataType.DOUBLE, deserialized.getDataType());
+    Assert.assertEquals(100, deserialized.rowCount());
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals(i, deserialized.getTime(i));
+      Assert.assertEquals(i * 1.5, deserialized.getDouble(i), 0);
+    }
+  }
+}
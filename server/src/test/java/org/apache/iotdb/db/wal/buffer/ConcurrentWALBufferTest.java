@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.wal.buffer;
+
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.wal.io.WALReader;
+import org.apache.iotdb.db.wal.io.WALWriter;
+import org.apache.iotdb.db.wal.utils.WALMode;
+import org.apache.iotdb.db.wal.utils.listener.WALFlushListener;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConcurrentWALBufferTest extends WALBufferCommonTest {
+  private WALMode prevMode;
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.cleanDir(logDirectory);
+    prevMode = config.getWalMode();
+    super.setUp();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    super.tearDown();
+    config.setWalMode(prevMode);
+    EnvironmentUtils.cleanDir(logDirectory);
+  }
+
+  @Override
+  protected IWALBuffer createWALBuffer() throws Exception {
+    return new ConcurrentWALBuffer(identifier, logDirectory);
+  }
+
+  @Test
+  public void testSyncWriteAndRoll() throws Exception {
+    walBuffer.close();
+    config.setWalMode(WALMode.SYNC);
+    walBuffer = createWALBuffer();
+    List<InsertRowPlan> expectedInsertRowPlans = new ArrayList<>();
+    for (int i = 0; i < 10; ++i) {
+      InsertRowPlan insertRowPlan = getInsertRowPlan(i);
+      expectedInsertRowPlans.add(insertRowPlan);
+      WALEntry walEntry = new WALEntry(0, insertRowPlan);
+      walBuffer.write(walEntry);
+      // the write is visible in .wal file once its listener succeeds
+      assertEquals(WALFlushListener.Status.SUCCESS, walEntry.getWalFlushListener().waitForResult());
+      if (i == 4) {
+        SignalWALEntry rollSignal =
+            new SignalWALEntry(SignalWALEntry.SignalType.ROLL_WAL_LOG_WRITER_SIGNAL, true);
+        walBuffer.write(rollSignal);
+        assertEquals(
+            WALFlushListener.Status.SUCCESS, rollSignal.getWalFlushListener().waitForResult());
+        assertEquals(1, walBuffer.getCurrentWALFileVersion());
+      }
+    }
+    assertEquals(expectedInsertRowPlans, readInsertRowPlans());
+  }
+
+  private List<InsertRowPlan> readInsertRowPlans() throws Exception {
+    File[] walFiles = new File(logDirectory).listFiles(WALWriter::walFilenameFilter);
+    List<InsertRowPlan> insertRowPlans = new ArrayList<>();
+    if (walFiles != null) {
+      // there are only two files, so sorting by name keeps the version order
+      Arrays.sort(walFiles);
+      for (File walFile : walFiles) {
+        try (WALReader walReader = new WALReader(walFile)) {
+          while (walReader.hasNext()) {
+            insertRowPlans.add((InsertRowPlan) walReader.next().getValue());
+          }
+        }
+      }
+    }
+    return insertRowPlans;
+  }
+
+  private InsertRowPlan getInsertRowPlan(long time) throws IllegalPathException {
+    return new InsertRowPlan(
+        new PartialPath(devicePath),
+        time,
+        new String[] {"s1", "s2"},
+        new TSDataType[] {TSDataType.INT64, TSDataType.TEXT},
+        new String[] {String.valueOf(time), "hh" + time});
+  }
+}
@@ -55,7 +55,11 @@ public abstract class WALBufferCommonTest {
 
   @Before
   public void setUp() throws Exception {
-    walBuffer = new WALBuffer(identifier, logDirectory);
+    walBuffer = createWALBuffer();
+  }
+
+  protected IWALBuffer createWALBuffer() throws Exception {
+    return new WALBuffer(identifier, logDirectory);
   }
 
   @After
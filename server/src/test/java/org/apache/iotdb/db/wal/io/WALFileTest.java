@@ -18,6 +18,8 @@
  */
 package org.apache.iotdb.db.wal.io;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.metadata.path.PartialPath;
@@ -27,6 +29,7 @@ import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
 import org.apache.iotdb.db.wal.buffer.WALEntry;
 import org.apache.iotdb.db.wal.buffer.WALEntryType;
 import org.apache.iotdb.db.wal.utils.WALByteBufferForTest;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.BitMap;
@@ -43,8 +46,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class WALFileTest {
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
   private final File walFile = new File(TestConstant.BASE_OUTPUT_PATH.concat("_0.wal"));
   private final String devicePath = "root.test_sg.test_d";
 
@@ -141,6 +146,77 @@ public class WALFileTest {
     assertEquals(expectedWALEntries, actualWALEntries);
   }
 
+  @Test
+  public void testReadCompressedFile() throws IOException, IllegalPathException {
+    CompressionType prevCompressor = config.getWalTabletCompressor();
+    config.setWalTabletCompressor(CompressionType.LZ4);
+    try {
+      int fakeMemTableId = 1;
+      List<WALEntry> expectedWALEntries = new ArrayList<>();
+      expectedWALEntries.add(new WALEntry(fakeMemTableId, getInsertRowPlan(devicePath)));
+      expectedWALEntries.add(new WALEntry(fakeMemTableId, getInsertTabletPlan(devicePath)));
+      expectedWALEntries.add(new WALEntry(fakeMemTableId, getInsertTabletPlan(devicePath, 1000)));
+      expectedWALEntries.add(new WALEntry(fakeMemTableId, getDeletePlan(devicePath)));
+      int size = 0;
+      for (WALEntry walEntry : expectedWALEntries) {
+        size += walEntry.serializedSize();
+      }
+      WALByteBufferForTest buffer = new WALByteBufferForTest(ByteBuffer.allocate(size));
+      for (WALEntry walEntry : expectedWALEntries) {
+        walEntry.serialize(buffer);
+      }
+      // the big tablet is compressed, so the entries take less space than plain ones
+      assertTrue(buffer.getBuffer().position() < size * 3 / 4);
+      try (ILogWriter walWriter = new WALWriter(walFile)) {
+        walWriter.write(buffer.getBuffer());
+      }
+      List<WALEntry> actualWALEntries = new ArrayList<>();
+      try (WALReader walReader = new WALReader(walFile)) {
+        while (walReader.hasNext()) {
+          actualWALEntries.add(walReader.next());
+        }
+      }
+      assertEquals(expectedWALEntries, actualWALEntries);
+      assertEquals(WALEntryType.INSERT_TABLET_PLAN, actualWALEntries.get(2).getType());
+    } finally {
+      config.setWalTabletCompressor(prevCompressor);
+    }
+  }
+
+  @Test
+  public void testReadFileWithUnsupportedCompressor() throws IOException, IllegalPathException {
+    CompressionType prevCompressor = config.getWalTabletCompressor();
+    config.setWalTabletCompressor(CompressionType.LZO);
+    try {
+      int fakeMemTableId = 1;
+      List<WALEntry> expectedWALEntries = new ArrayList<>();
+      expectedWALEntries.add(new WALEntry(fakeMemTableId, getInsertTabletPlan(devicePath, 1000)));
+      expectedWALEntries.add(new WALEntry(fakeMemTableId, getDeletePlan(devicePath)));
+      int size = 0;
+      for (WALEntry walEntry : expectedWALEntries) {
+        size += walEntry.serializedSize();
+      }
+      WALByteBufferForTest buffer = new WALByteBufferForTest(ByteBuffer.allocate(size));
+      for (WALEntry walEntry : expectedWALEntries) {
+        walEntry.serialize(buffer);
+      }
+      // the tablet can't be compressed, so it is written as a plain entry
+      assertEquals(size, buffer.getBuffer().position());
+      try (ILogWriter walWriter = new WALWriter(walFile)) {
+        walWriter.write(buffer.getBuffer());
+      }
+      List<WALEntry> actualWALEntries = new ArrayList<>();
+      try (WALReader walReader = new WALReader(walFile)) {
+        while (walReader.hasNext()) {
+          actualWALEntries.add(walReader.next());
+        }
+      }
+      assertEquals(expectedWALEntries, actualWALEntries);
+    } finally {
+      config.setWalTabletCompressor(prevCompressor);
+    }
+  }
+
   public static InsertRowPlan getInsertRowPlan(String devicePath) throws IllegalPathException {
     long time = 110L;
     TSDataType[] dataTypes =
@@ -171,7 +247,15 @@ public class WALFileTest {
 
   public static InsertTabletPlan getInsertTabletPlan(String devicePath)
       throws IllegalPathException {
-    long[] times = new long[] {110L, 111L, 112L, 113L};
+    return getInsertTabletPlan(devicePath, 4);
+  }
+
+  private static InsertTabletPlan getInsertTabletPlan(String devicePath, int rowCount)
+      throws IllegalPathException {
+    long[] times = new long[rowCount];
+    for (int r = 0; r < rowCount; r++) {
+      times[r] = 110L + r;
+    }
     List<Integer> dataTypes = new ArrayList<>();
     dataTypes.add(TSDataType.DOUBLE.ordinal());
     dataTypes.add(TSDataType.FLOAT.ordinal());
@@ -181,14 +265,14 @@ public class WALFileTest {
     dataTypes.add(TSDataType.TEXT.ordinal());
 
     Object[] columns = new Object[6];
-    columns[0] = new double[4];
-    columns[1] = new float[4];
-    columns[2] = new long[4];
-    columns[3] = new int[4];
-    columns[4] = new boolean[4];
-    columns[5] = new Binary[4];
-
-    for (int r = 0; r < 4; r++) {
+    columns[0] = new double[rowCount];
+    columns[1] = new float[rowCount];
+    columns[2] = new long[rowCount];
+    columns[3] = new int[rowCount];
+    columns[4] = new boolean[rowCount];
+    columns[5] = new Binary[rowCount];
+
+    for (int r = 0; r < rowCount; r++) {
       ((double[]) columns[0])[r] = 1.0 + r;
       ((float[]) columns[1])[r] = 2 + r;
       ((long[]) columns[2])[r] = 10000 + r;
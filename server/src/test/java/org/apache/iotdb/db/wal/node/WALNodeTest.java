@@ -137,6 +137,48 @@ public class WALNodeTest {
     }
   }
 
+  @Test
+  public void testGroupCommitConcurrentWrite() throws Exception {
+    walNode.close();
+    config.setWalMode(WALMode.GROUP_COMMIT);
+    walNode = new WALNode(identifier, logDirectory);
+    // start write threads to write concurrently, each write waits for its own fsync
+    int threadsNum = 3;
+    ExecutorService executorService = Executors.newFixedThreadPool(threadsNum);
+    List<Future<Void>> futures = new ArrayList<>();
+    Set<InsertTabletPlan> expectedInsertTabletPlans = ConcurrentHashMap.newKeySet();
+    for (int i = 0; i < threadsNum; ++i) {
+      int memTableId = i;
+      Callable<Void> writeTask =
+          () -> {
+            List<WALFlushListener> walFlushListeners = new ArrayList<>();
+            writeInsertTabletPlan(memTableId, expectedInsertTabletPlans, walFlushListeners);
+            for (WALFlushListener walFlushListener : walFlushListeners) {
+              assertEquals(WALFlushListener.Status.SUCCESS, walFlushListener.waitForResult());
+            }
+            return null;
+          };
+      futures.add(executorService.submit(writeTask));
+    }
+    for (Future<Void> future : futures) {
+      future.get();
+    }
+    executorService.shutdown();
+    // all listeners have succeeded, so every entry must already be in .wal files
+    File[] walFiles = new File(logDirectory).listFiles(WALWriter::walFilenameFilter);
+    Set<InsertTabletPlan> actualInsertTabletPlans = new HashSet<>();
+    if (walFiles != null) {
+      for (File walFile : walFiles) {
+        try (WALReader walReader = new WALReader(walFile)) {
+          while (walReader.hasNext()) {
+            actualInsertTabletPlans.add((InsertTabletPlan) walReader.next().getValue());
+          }
+        }
+      }
+    }
+    assertEquals(expectedInsertTabletPlans, actualInsertTabletPlans);
+  }
+
   private void writeInsertTabletPlan(
       int memTableId,
       Set<InsertTabletPlan> expectedInsertTabletPlans,
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.wal.recover;
+
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.memtable.IMemTable;
+import org.apache.iotdb.db.engine.memtable.PrimitiveMemTable;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.wal.buffer.WALEntry;
+import org.apache.iotdb.db.wal.checkpoint.CheckpointManager;
+import org.apache.iotdb.db.wal.checkpoint.MemTableInfo;
+import org.apache.iotdb.db.wal.io.WALFileTest;
+import org.apache.iotdb.db.wal.io.WALWriter;
+import org.apache.iotdb.db.wal.recover.file.UnsealedTsFileRecoverPerformer;
+import org.apache.iotdb.db.wal.utils.TsFileUtilsForRecoverTest;
+import org.apache.iotdb.db.wal.utils.WALByteBufferForTest;
+import org.apache.iotdb.db.wal.utils.listener.WALRecoverListener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class WALNodeRecoverTaskTest {
+  private static final String SG_NAME = "root.recover_sg";
+  private static final String DEVICE_NAME = SG_NAME.concat(".d1");
+  private static final String TS_FILE_NAME =
+      TsFileUtilsForRecoverTest.getTestTsFilePath(SG_NAME, 0, 0, 1);
+  private static final File LOG_DIRECTORY =
+      new File(TestConstant.BASE_OUTPUT_PATH.concat("wal_node_recover_test"));
+  private static final WALRecoverManager recoverManager = WALRecoverManager.getInstance();
+
+  private IMemTable memTable;
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.cleanDir(LOG_DIRECTORY.getPath());
+    recoverManager.clear();
+    memTable = new PrimitiveMemTable();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    recoverManager.clear();
+    EnvironmentUtils.cleanDir(LOG_DIRECTORY.getPath());
+  }
+
+  @Test
+  public void testReplayFilesInOrder() throws Exception {
+    // write the files in reverse order, so they are not listed by creation time
+    for (int versionId = 2; versionId >= 0; versionId--) {
+      writeWALFile(versionId, versionId * 100, 10);
+    }
+    makeCreateMemTableCP(0);
+    RecordingRecoverPerformer recoverPerformer = new RecordingRecoverPerformer();
+
+    recover(recoverPerformer);
+
+    List<Long> expectedTimes = new ArrayList<>();
+    addTimes(expectedTimes, 0, 10);
+    addTimes(expectedTimes, 100, 10);
+    addTimes(expectedTimes, 200, 10);
+    assertEquals(expectedTimes, recoverPerformer.redoneTimes);
+    assertEquals(3, recoverManager.getWALFileNumToReplay());
+    assertEquals(3, recoverManager.getReplayedWALFileNum());
+    assertFalse(LOG_DIRECTORY.exists());
+  }
+
+  @Test
+  public void testReplayFileLargerThanDecodeBatch() throws Exception {
+    writeWALFile(0, 0, 2_500);
+    writeWALFile(1, 10_000, 10);
+    makeCreateMemTableCP(0);
+    RecordingRecoverPerformer recoverPerformer = new RecordingRecoverPerformer();
+
+    recover(recoverPerformer);
+
+    List<Long> expectedTimes = new ArrayList<>();
+    addTimes(expectedTimes, 0, 2_500);
+    addTimes(expectedTimes, 10_000, 10);
+    assertEquals(expectedTimes, recoverPerformer.redoneTimes);
+  }
+
+  @Test
+  public void testSkipCorruptedMiddleFile() throws Exception {
+    writeWALFile(0, 0, 10);
+    File corruptedFile = writeWALFile(1, 100, 10);
+    writeWALFile(2, 200, 10);
+    // cut the 6th log of the middle file in half
+    try (FileChannel channel = new FileOutputStream(corruptedFile, true).getChannel()) {
+      long logSize = channel.size() / 10;
+      channel.truncate(logSize * 5 + logSize / 2);
+    }
+    makeCreateMemTableCP(0);
+    RecordingRecoverPerformer recoverPerformer = new RecordingRecoverPerformer();
+
+    recover(recoverPerformer);
+
+    List<Long> expectedTimes = new ArrayList<>();
+    addTimes(expectedTimes, 0, 10);
+    addTimes(expectedTimes, 100, 5);
+    addTimes(expectedTimes, 200, 10);
+    assertEquals(expectedTimes, recoverPerformer.redoneTimes);
+    assertEquals(3, recoverManager.getReplayedWALFileNum());
+  }
+
+  @Test
+  public void testSkipRestOfFileFailingToRedo() throws Exception {
+    writeWALFile(0, 0, 10);
+    writeWALFile(1, 100, 10);
+    writeWALFile(2, 200, 10);
+    makeCreateMemTableCP(0);
+    RecordingRecoverPerformer recoverPerformer = new RecordingRecoverPerformer();
+    recoverPerformer.failingTime = 103;
+
+    recover(recoverPerformer);
+
+    List<Long> expectedTimes = new ArrayList<>();
+    addTimes(expectedTimes, 0, 10);
+    addTimes(expectedTimes, 100, 3);
+    addTimes(expectedTimes, 200, 10);
+    assertEquals(expectedTimes, recoverPerformer.redoneTimes);
+  }
+
+  @Test
+  public void testSkipFilesCoveredByCheckpoint() throws Exception {
+    writeWALFile(0, 0, 10);
+    writeWALFile(1, 100, 10);
+    writeWALFile(2, 200, 10);
+    writeWALFile(3, 300, 10);
+    // logs in .wal files before the first one of the memTable have been flushed
+    makeCreateMemTableCP(2);
+    RecordingRecoverPerformer recoverPerformer = new RecordingRecoverPerformer();
+
+    recover(recoverPerformer);
+
+    List<Long> expectedTimes = new ArrayList<>();
+    addTimes(expectedTimes, 200, 10);
+    addTimes(expectedTimes, 300, 10);
+    assertEquals(expectedTimes, recoverPerformer.redoneTimes);
+    assertEquals(2, recoverManager.getWALFileNumToReplay());
+  }
+
+  private void recover(RecordingRecoverPerformer recoverPerformer) throws Exception {
+    recoverManager.addRecoverPerformer(recoverPerformer);
+    CountDownLatch latch = new CountDownLatch(1);
+    new WALNodeRecoverTask(LOG_DIRECTORY, latch).run();
+    assertEquals(0, latch.getCount());
+    assertEquals(
+        WALRecoverListener.Status.SUCCESS, recoverPerformer.getRecoverListener().waitForResult());
+  }
+
+  private void makeCreateMemTableCP(int firstFileVersionId) throws IOException {
+    CheckpointManager checkpointManager = new CheckpointManager("0", LOG_DIRECTORY.getPath());
+    try {
+      checkpointManager.makeCreateMemTableCP(
+          new MemTableInfo(memTable, TS_FILE_NAME, firstFileVersionId));
+    } finally {
+      checkpointManager.close();
+    }
+  }
+
+  /** Write a .wal file with logs of the memTable, whose times are in [startTime, startTime + n). */
+  private File writeWALFile(int versionId, long startTime, int logNum)
+      throws IOException, IllegalPathException {
+    List<WALEntry> walEntries = new ArrayList<>();
+    int size = 0;
+    for (int i = 0; i < logNum; i++) {
+      InsertRowPlan insertRowPlan = WALFileTest.getInsertRowPlan(DEVICE_NAME);
+      insertRowPlan.setTime(startTime + i);
+      WALEntry walEntry = new WALEntry(memTable.getMemTableId(), insertRowPlan);
+      walEntries.add(walEntry);
+      size += walEntry.serializedSize();
+    }
+    WALByteBufferForTest buffer = new WALByteBufferForTest(ByteBuffer.allocate(size));
+    for (WALEntry walEntry : walEntries) {
+      walEntry.serialize(buffer);
+    }
+    if (!LOG_DIRECTORY.exists()) {
+      LOG_DIRECTORY.mkdirs();
+    }
+    File walFile = new File(LOG_DIRECTORY, WALWriter.getLogFileName(versionId));
+    try (WALWriter walWriter = new WALWriter(walFile)) {
+      walWriter.write(buffer.getBuffer());
+    }
+    return walFile;
+  }
+
+  private static void addTimes(List<Long> times, long startTime, int n) {
+    for (int i = 0; i < n; i++) {
+      times.add(startTime + i);
+    }
+  }
+
+  /** Record the times of redone logs instead of writing them into the TsFile. */
+  private static class RecordingRecoverPerformer extends UnsealedTsFileRecoverPerformer {
+    private final List<Long> redoneTimes = Collections.synchronizedList(new ArrayList<>());
+    private volatile long failingTime = -1;
+
+    private RecordingRecoverPerformer() {
+      super(new TsFileResource(new File(TS_FILE_NAME)), true, null, performer -> {});
+    }
+
+    @Override
+    public void startRecovery() {}
+
+    @Override
+    public void redoLog(WALEntry walEntry) {
+      long time = ((InsertRowPlan) walEntry.getValue()).getTime();
+      if (time == failingTime) {
+        throw new IllegalStateException("Fail to redo log of time " + time);
+      }
+      redoneTimes.add(time);
+    }
+
+    @Override
+    public void endRecovery() {}
+  }
+}
@@ -21,6 +21,7 @@ package org.apache.iotdb.tsfile.common.conf;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.fileSystem.FSType;
+import org.apache.iotdb.tsfile.fileSystem.TsFileInputMode;
 
 import java.io.Serializable;
 import java.nio.charset.Charset;
@@ -119,6 +120,15 @@ public class TSFileConfig implements Serializable {
   private String endian = "BIG_ENDIAN";
   /** Default storage is in local file system */
   private FSType TSFileStorageFs = FSType.LOCAL;
+  /** Default local TsFile is read through FileChannel */
+  private TsFileInputMode tsFileInputMode = TsFileInputMode.CHANNEL;
+  /** Buffer size of the output stream of a local TsFile, default value is 8KB. */
+  private int writeBufferSizeInByte = 8 * 1024;
+  /**
+   * Max total size of the idle buffers kept for decompressing pages, 0 means pages are always
+   * decompressed into new buffers. Default value is 16MB.
+   */
+  private long pageBufferPoolSizeInByte = 16 * 1024 * 1024L;
   /** Default core-site.xml file path is /etc/hadoop/conf/core-site.xml */
   private String coreSitePath = "/etc/hadoop/conf/core-site.xml";
   /** Default hdfs-site.xml file path is /etc/hadoop/conf/hdfs-site.xml */
@@ -344,6 +354,30 @@ public class TSFileConfig implements Serializable {
     this.TSFileStorageFs = fileStorageFs;
   }
 
+  public TsFileInputMode getTsFileInputMode() {
+    return tsFileInputMode;
+  }
+
+  public void setTsFileInputMode(TsFileInputMode tsFileInputMode) {
+    this.tsFileInputMode = tsFileInputMode;
+  }
+
+  public int getWriteBufferSizeInByte() {
+    return writeBufferSizeInByte;
+  }
+
+  public void setWriteBufferSizeInByte(int writeBufferSizeInByte) {
+    this.writeBufferSizeInByte = writeBufferSizeInByte;
+  }
+
+  public long getPageBufferPoolSizeInByte() {
+    return pageBufferPoolSizeInByte;
+  }
+
+  public void setPageBufferPoolSizeInByte(long pageBufferPoolSizeInByte) {
+    this.pageBufferPoolSizeInByte = pageBufferPoolSizeInByte;
+  }
+
   public String getCoreSitePath() {
     return coreSitePath;
   }
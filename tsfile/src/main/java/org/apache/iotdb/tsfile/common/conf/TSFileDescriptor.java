@@ -20,6 +20,7 @@
 package org.apache.iotdb.tsfile.common.conf;
 
 import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
+import org.apache.iotdb.tsfile.fileSystem.TsFileInputMode;
 import org.apache.iotdb.tsfile.utils.Loader;
 
 import org.slf4j.Logger;
@@ -83,6 +84,10 @@ public class TSFileDescriptor {
     writer.setInt(conf::setBatchSize, "batch_size");
     writer.setInt(conf::setFreqEncodingBlockSize, "freq_block_size");
     writer.setDouble(conf::setFreqEncodingSNR, "freq_snr");
+    writer.setString(
+        mode -> conf.setTsFileInputMode(TsFileInputMode.valueOf(mode)), "tsfile_input_mode");
+    writer.setInt(conf::setWriteBufferSizeInByte, "write_buffer_size_in_byte");
+    writer.setLong(conf::setPageBufferPoolSizeInByte, "page_buffer_pool_size_in_byte");
   }
 
   private class PropertiesOverWriter {
@@ -100,6 +105,10 @@ public class TSFileDescriptor {
       set(setter, propertyKey, Integer::parseInt);
     }
 
+    public void setLong(Consumer<Long> setter, String propertyKey) {
+      set(setter, propertyKey, Long::parseLong);
+    }
+
     public void setDouble(Consumer<Double> setter, String propertyKey) {
       set(setter, propertyKey, Double::parseDouble);
     }
@@ -23,6 +23,7 @@ import org.apache.iotdb.tsfile.exception.compress.CompressionTypeNotSupportedExc
 import org.apache.iotdb.tsfile.exception.compress.GZIPCompressOverflowException;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 
+import com.github.luben.zstd.Zstd;
 import net.jpountz.lz4.LZ4Compressor;
 import net.jpountz.lz4.LZ4Factory;
 import org.xerial.snappy.Snappy;
@@ -32,12 +33,14 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 import static org.apache.iotdb.tsfile.file.metadata.enums.CompressionType.GZIP;
 import static org.apache.iotdb.tsfile.file.metadata.enums.CompressionType.LZ4;
 import static org.apache.iotdb.tsfile.file.metadata.enums.CompressionType.SNAPPY;
+import static org.apache.iotdb.tsfile.file.metadata.enums.CompressionType.ZSTD;
 
 /** compress data according to type in schema. */
 public interface ICompressor extends Serializable {
@@ -65,6 +68,8 @@ public interface ICompressor extends Serializable {
         return new IOTDBLZ4Compressor();
       case GZIP:
         return new GZIPCompressor();
+      case ZSTD:
+        return new ZstdCompressor();
       default:
         throw new CompressionTypeNotSupportedException(name.toString());
     }
@@ -216,8 +221,9 @@ public interface ICompressor extends Serializable {
 
     @Override
     public int compress(ByteBuffer data, ByteBuffer compressed) {
+      int startPosition = compressed.position();
       compressor.compress(data, compressed);
-      return data.limit();
+      return compressed.position() - startPosition;
     }
 
     @Override
@@ -311,4 +317,89 @@ public interface ICompressor extends Serializable {
       return GZIP;
     }
   }
+
+  class ZstdCompressor implements ICompressor {
+
+    private final int level;
+
+    public ZstdCompressor() {
+      this(Zstd.defaultCompressionLevel());
+    }
+
+    public ZstdCompressor(int level) {
+      this.level = level;
+    }
+
+    static void checkError(long result) throws IOException {
+      if (Zstd.isError(result)) {
+        throw new IOException("tsfile-compression ZSTD: " + Zstd.getErrorName(result));
+      }
+    }
+
+    @Override
+    public byte[] compress(byte[] data) throws IOException {
+      if (data == null) {
+        return new byte[0];
+      }
+      return compress(data, 0, data.length);
+    }
+
+    @Override
+    public byte[] compress(byte[] data, int offset, int length) throws IOException {
+      byte[] maxCompressed = new byte[getMaxBytesForCompression(length)];
+      int compressedSize = compress(data, offset, length, maxCompressed);
+      return compressedSize == maxCompressed.length
+          ? maxCompressed
+          : Arrays.copyOf(maxCompressed, compressedSize);
+    }
+
+    @Override
+    public int compress(byte[] data, int offset, int length, byte[] compressed) throws IOException {
+      long size =
+          Zstd.compressByteArray(compressed, 0, compressed.length, data, offset, length, level);
+      checkError(size);
+      return (int) size;
+    }
+
+    /** The positions of data and compressed are moved forward. */
+    @Override
+    public int compress(ByteBuffer data, ByteBuffer compressed) throws IOException {
+      int length = data.remaining();
+      long size;
+      if (data.isDirect() && compressed.isDirect()) {
+        size =
+            Zstd.compressDirectByteBuffer(
+                compressed,
+                compressed.position(),
+                compressed.remaining(),
+                data,
+                data.position(),
+                length,
+                level);
+        checkError(size);
+      } else {
+        byte[] input = new byte[length];
+        data.duplicate().get(input);
+        byte[] output = compress(input, 0, length);
+        if (output.length > compressed.remaining()) {
+          throw new IOException("tsfile-compression ZSTD: the output buffer is too small");
+        }
+        compressed.duplicate().put(output);
+        size = output.length;
+      }
+      data.position(data.position() + length);
+      compressed.position(compressed.position() + (int) size);
+      return (int) size;
+    }
+
+    @Override
+    public int getMaxBytesForCompression(int uncompressedDataSize) {
+      return (int) Zstd.compressBound(uncompressedDataSize);
+    }
+
+    @Override
+    public CompressionType getType() {
+      return ZSTD;
+    }
+  }
 }
@@ -22,6 +22,7 @@ package org.apache.iotdb.tsfile.compress;
 import org.apache.iotdb.tsfile.exception.compress.CompressionTypeNotSupportedException;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 
+import com.github.luben.zstd.Zstd;
 import net.jpountz.lz4.LZ4Compressor;
 import net.jpountz.lz4.LZ4Factory;
 import net.jpountz.lz4.LZ4SafeDecompressor;
@@ -54,6 +55,8 @@ public interface IUnCompressor {
         return new LZ4UnCompressor();
       case GZIP:
         return new GZIPUnCompressor();
+      case ZSTD:
+        return new ZstdUnCompressor();
       default:
         throw new CompressionTypeNotSupportedException(name.toString());
     }
@@ -97,6 +100,45 @@ public interface IUnCompressor {
    */
   int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException;
 
+  /**
+   * uncompress the remaining bytes of compressed into uncompressed, starting at the position of
+   * uncompressed. Unlike {@link #uncompress(ByteBuffer, ByteBuffer)}, the buffers can be heap,
+   * direct or mapped buffers and their positions and limits are not changed, so the same buffer can
+   * be reused for the next page.
+   *
+   * @return the valid length of the output
+   */
+  default int uncompressTo(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+    int length = compressed.remaining();
+    if (uncompressed.hasArray()) {
+      byte[] input;
+      int offset;
+      if (compressed.hasArray()) {
+        input = compressed.array();
+        offset = compressed.arrayOffset() + compressed.position();
+      } else {
+        input = new byte[length];
+        compressed.duplicate().get(input);
+        offset = 0;
+      }
+      return uncompress(
+          input,
+          offset,
+          length,
+          uncompressed.array(),
+          uncompressed.arrayOffset() + uncompressed.position());
+    }
+    if (compressed.isDirect()) {
+      return uncompress(compressed.duplicate(), uncompressed.duplicate());
+    }
+    byte[] input = new byte[length];
+    compressed.duplicate().get(input);
+    byte[] output = new byte[uncompressed.remaining()];
+    int size = uncompress(input, 0, length, output, 0);
+    uncompressed.duplicate().put(output, 0, size);
+    return size;
+  }
+
   CompressionType getCodecName();
 
   class NoUnCompressor implements IUnCompressor {
@@ -127,6 +169,12 @@ public interface IUnCompressor {
       throw new IOException("NoUnCompressor does not support this method.");
     }
 
+    @Override
+    public int uncompressTo(ByteBuffer compressed, ByteBuffer uncompressed) {
+      uncompressed.duplicate().put(compressed.duplicate());
+      return compressed.remaining();
+    }
+
     @Override
     public CompressionType getCodecName() {
       return CompressionType.UNCOMPRESSED;
@@ -183,6 +231,15 @@ public interface IUnCompressor {
       return 0;
     }
 
+    @Override
+    public int uncompressTo(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+      if (compressed.isDirect() && uncompressed.isDirect()) {
+        // snappy only accepts direct buffers in its ByteBuffer api
+        return Snappy.uncompress(compressed.duplicate(), uncompressed.duplicate());
+      }
+      return IUnCompressor.super.uncompressTo(compressed, uncompressed);
+    }
+
     @Override
     public CompressionType getCodecName() {
       return CompressionType.SNAPPY;
@@ -236,7 +293,7 @@ public interface IUnCompressor {
     public int uncompress(byte[] byteArray, int offset, int length, byte[] output, int outOffset)
         throws IOException {
       try {
-        return decompressor.decompress(byteArray, offset, length, output, offset);
+        return decompressor.decompress(byteArray, offset, length, output, outOffset);
       } catch (RuntimeException e) {
         logger.error(UNCOMPRESS_INPUT_ERROR, e);
         throw new IOException(e);
@@ -250,8 +307,25 @@ public interface IUnCompressor {
       }
 
       try {
+        int startPosition = uncompressed.position();
         decompressor.decompress(compressed, uncompressed);
-        return compressed.limit();
+        return uncompressed.position() - startPosition;
+      } catch (RuntimeException e) {
+        logger.error(UNCOMPRESS_INPUT_ERROR, e);
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public int uncompressTo(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+      try {
+        return decompressor.decompress(
+            compressed,
+            compressed.position(),
+            compressed.remaining(),
+            uncompressed,
+            uncompressed.position(),
+            uncompressed.remaining());
       } catch (RuntimeException e) {
         logger.error(UNCOMPRESS_INPUT_ERROR, e);
         throw new IOException(e);
@@ -312,4 +386,92 @@ public interface IUnCompressor {
       return CompressionType.GZIP;
     }
   }
+
+  class ZstdUnCompressor implements IUnCompressor {
+
+    @Override
+    public int getUncompressedLength(byte[] array, int offset, int length) throws IOException {
+      long size = Zstd.getFrameContentSize(array, offset, length);
+      ICompressor.ZstdCompressor.checkError(size);
+      return (int) size;
+    }
+
+    @Override
+    public int getUncompressedLength(ByteBuffer buffer) throws IOException {
+      long size;
+      if (buffer.isDirect()) {
+        size =
+            Zstd.getDirectByteBufferFrameContentSize(buffer, buffer.position(), buffer.remaining());
+      } else {
+        size =
+            Zstd.getFrameContentSize(
+                buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+      }
+      ICompressor.ZstdCompressor.checkError(size);
+      return (int) size;
+    }
+
+    @Override
+    public byte[] uncompress(byte[] byteArray) throws IOException {
+      if (byteArray == null) {
+        return new byte[0];
+      }
+      byte[] output = new byte[getUncompressedLength(byteArray, 0, byteArray.length)];
+      uncompress(byteArray, 0, byteArray.length, output, 0);
+      return output;
+    }
+
+    @Override
+    public int uncompress(byte[] byteArray, int offset, int length, byte[] output, int outOffset)
+        throws IOException {
+      long size =
+          Zstd.decompressByteArray(
+              output, outOffset, output.length - outOffset, byteArray, offset, length);
+      ICompressor.ZstdCompressor.checkError(size);
+      return (int) size;
+    }
+
+    /** The positions of compressed and uncompressed are moved forward. */
+    @Override
+    public int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+      if (compressed == null || !compressed.hasRemaining()) {
+        return 0;
+      }
+      int length = compressed.remaining();
+      long size;
+      if (compressed.isDirect() && uncompressed.isDirect()) {
+        size =
+            Zstd.decompressDirectByteBuffer(
+                uncompressed,
+                uncompressed.position(),
+                uncompressed.remaining(),
+                compressed,
+                compressed.position(),
+                length);
+        ICompressor.ZstdCompressor.checkError(size);
+      } else {
+        byte[] input = new byte[length];
+        compressed.duplicate().get(input);
+        byte[] output = new byte[uncompressed.remaining()];
+        size = uncompress(input, 0, length, output, 0);
+        uncompressed.duplicate().put(output, 0, (int) size);
+      }
+      compressed.position(compressed.position() + length);
+      uncompressed.position(uncompressed.position() + (int) size);
+      return (int) size;
+    }
+
+    @Override
+    public int uncompressTo(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+      if (compressed.isDirect() && uncompressed.isDirect()) {
+        return uncompress(compressed.duplicate(), uncompressed.duplicate());
+      }
+      return IUnCompressor.super.uncompressTo(compressed, uncompressed);
+    }
+
+    @Override
+    public CompressionType getCodecName() {
+      return CompressionType.ZSTD;
+    }
+  }
 }
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.encoding.encoder;
+
+import org.apache.iotdb.tsfile.encoding.decoder.PlainDecoder;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Select the encoding of a chunk whose schema uses {@link TSEncoding#AUTO}. The values of the first
+ * page, which are encoded in PLAIN, are encoded again by every candidate and the one with the
+ * smallest weighted size wins. The weight reflects the relative decoding cost, so that a cheaper
+ * encoding is preferred when the sizes are close.
+ *
+ * <p>Only lossless encodings are candidates, i.e., FREQ is never selected, and RLE and TS_2DIFF are
+ * not used for FLOAT and DOUBLE because they round the values to max_point_number digits.
+ */
+public class EncodingSelector {
+
+  private static final TSEncoding[] BOOLEAN_CANDIDATES = {TSEncoding.PLAIN, TSEncoding.RLE};
+
+  private static final TSEncoding[] INTEGER_CANDIDATES = {
+    TSEncoding.PLAIN, TSEncoding.RLE, TSEncoding.TS_2DIFF, TSEncoding.GORILLA
+  };
+
+  private static final TSEncoding[] FLOATING_CANDIDATES = {TSEncoding.PLAIN, TSEncoding.GORILLA};
+
+  private static final TSEncoding[] TEXT_CANDIDATES = {TSEncoding.PLAIN, TSEncoding.DICTIONARY};
+
+  private EncodingSelector() {}
+
+  /**
+   * @param dataType data type of the values
+   * @param plainValues values encoded in PLAIN, its position is not changed
+   * @param count number of values in plainValues
+   * @param props properties of the measurement schema, used to initialize the candidates
+   * @return the selected encoding
+   */
+  public static TSEncoding select(
+      TSDataType dataType, ByteBuffer plainValues, int count, Map<String, String> props)
+      throws IOException {
+    TSEncoding selected = TSEncoding.PLAIN;
+    double minCost = Double.MAX_VALUE;
+    PublicBAOS out = new PublicBAOS();
+    for (TSEncoding candidate : getCandidates(dataType)) {
+      out.reset();
+      Encoder encoder = getEncoder(candidate, dataType, props);
+      transcode(dataType, plainValues.duplicate(), count, encoder, out);
+      encoder.flush(out);
+      double cost = out.size() * getDecodingCostFactor(candidate);
+      if (cost < minCost) {
+        minCost = cost;
+        selected = candidate;
+      }
+    }
+    return selected;
+  }
+
+  public static Encoder getEncoder(
+      TSEncoding encoding, TSDataType dataType, Map<String, String> props) {
+    TSEncodingBuilder builder = TSEncodingBuilder.getEncodingBuilder(encoding);
+    builder.initFromProps(props);
+    return builder.getEncoder(dataType);
+  }
+
+  /**
+   * The encoding used by writers which can not select the encoding by the data, e.g., the value
+   * chunks of an aligned series.
+   */
+  public static TSEncoding getDefaultEncoding(TSDataType dataType) {
+    switch (dataType) {
+      case BOOLEAN:
+        return TSEncoding.RLE;
+      case INT32:
+      case INT64:
+        return TSEncoding.TS_2DIFF;
+      case FLOAT:
+      case DOUBLE:
+        return TSEncoding.GORILLA;
+      case TEXT:
+        return TSEncoding.PLAIN;
+      default:
+        throw new UnSupportedDataTypeException("AUTO doesn't support data type: " + dataType);
+    }
+  }
+
+  /**
+   * Decode count values encoded in PLAIN from plainValues and write them into out by the given
+   * encoder. The encoder is not flushed.
+   */
+  public static void transcode(
+      TSDataType dataType,
+      ByteBuffer plainValues,
+      int count,
+      Encoder encoder,
+      ByteArrayOutputStream out) {
+    PlainDecoder decoder = new PlainDecoder();
+    for (int i = 0; i < count; i++) {
+      switch (dataType) {
+        case BOOLEAN:
+          encoder.encode(decoder.readBoolean(plainValues), out);
+          break;
+        case INT32:
+          encoder.encode(decoder.readInt(plainValues), out);
+          break;
+        case INT64:
+          encoder.encode(decoder.readLong(plainValues), out);
+          break;
+        case FLOAT:
+          encoder.encode(decoder.readFloat(plainValues), out);
+          break;
+        case DOUBLE:
+          encoder.encode(decoder.readDouble(plainValues), out);
+          break;
+        case TEXT:
+          encoder.encode(decoder.readBinary(plainValues), out);
+          break;
+        default:
+          throw new UnSupportedDataTypeException("AUTO doesn't support data type: " + dataType);
+      }
+    }
+  }
+
+  private static TSEncoding[] getCandidates(TSDataType dataType) {
+    switch (dataType) {
+      case BOOLEAN:
+        return BOOLEAN_CANDIDATES;
+      case INT32:
+      case INT64:
+        return INTEGER_CANDIDATES;
+      case FLOAT:
+      case DOUBLE:
+        return FLOATING_CANDIDATES;
+      case TEXT:
+        return TEXT_CANDIDATES;
+      default:
+        throw new UnSupportedDataTypeException("AUTO doesn't support data type: " + dataType);
+    }
+  }
+
+  private static double getDecodingCostFactor(TSEncoding encoding) {
+    switch (encoding) {
+      case RLE:
+      case TS_2DIFF:
+      case DICTIONARY:
+        return 1.1;
+      case GORILLA:
+        return 1.2;
+      case PLAIN:
+      default:
+        return 1.0;
+    }
+  }
+}
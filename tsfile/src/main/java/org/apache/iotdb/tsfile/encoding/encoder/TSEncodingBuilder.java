@@ -73,6 +73,8 @@ public abstract class TSEncodingBuilder {
         return new Freq();
       case ZIGZAG:
         return new Zigzag();
+      case AUTO:
+        return new Auto();
       default:
         throw new UnsupportedOperationException(type.toString());
     }
@@ -399,4 +401,10 @@ public abstract class TSEncodingBuilder {
       // do nothing
     }
   }
+
+  /**
+   * for all TSDataType. The values are written in PLAIN until the chunk writer has seen enough data
+   * to select the encoding by {@link EncodingSelector}.
+   */
+  public static class Auto extends Plain {}
 }
@@ -29,7 +29,12 @@ public enum TSEncoding {
   REGULAR((byte) 7),
   GORILLA((byte) 8),
   ZIGZAG((byte) 9),
-  FREQ((byte) 10);
+  FREQ((byte) 10),
+  /**
+   * Only used in schemas, the writer selects a concrete encoding for each chunk and records it in
+   * the chunk header, so it never appears in a TsFile.
+   */
+  AUTO((byte) 11);
 
   private final byte type;
 
@@ -71,6 +76,8 @@ public enum TSEncoding {
         return TSEncoding.ZIGZAG;
       case 10:
         return TSEncoding.FREQ;
+      case 11:
+        return TSEncoding.AUTO;
       default:
         throw new IllegalArgumentException("Invalid input: " + encoding);
     }
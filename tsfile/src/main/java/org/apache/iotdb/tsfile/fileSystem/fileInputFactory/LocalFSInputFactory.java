@@ -19,13 +19,17 @@
 
 package org.apache.iotdb.tsfile.fileSystem.fileInputFactory;
 
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.read.reader.LocalTsFileInput;
+import org.apache.iotdb.tsfile.read.reader.MmapTsFileInput;
+import org.apache.iotdb.tsfile.read.reader.ReadAheadTsFileInput;
 import org.apache.iotdb.tsfile.read.reader.TsFileInput;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 public class LocalFSInputFactory implements FileInputFactory {
@@ -35,7 +39,16 @@ public class LocalFSInputFactory implements FileInputFactory {
   @Override
   public TsFileInput getTsFileInput(String filePath) {
     try {
-      return new LocalTsFileInput(Paths.get(filePath));
+      Path path = Paths.get(filePath);
+      switch (TSFileDescriptor.getInstance().getConfig().getTsFileInputMode()) {
+        case MMAP:
+          return new MmapTsFileInput(path);
+        case READ_AHEAD:
+          return new ReadAheadTsFileInput(path);
+        case CHANNEL:
+        default:
+          return new LocalTsFileInput(path);
+      }
     } catch (IOException e) {
       logger.error("Failed to get TsFile input of file: {}, ", filePath, e);
       return null;
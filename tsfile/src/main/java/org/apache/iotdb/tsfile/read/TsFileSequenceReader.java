@@ -60,6 +60,7 @@ import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+import org.apache.iotdb.tsfile.write.writer.TsFileOutput;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -1064,8 +1065,17 @@ public class TsFileSequenceReader implements AutoCloseable {
    * @return -chunk
    */
   public Chunk readMemChunk(ChunkMetadata metaData) throws IOException {
-    int chunkHeadSize = ChunkHeader.getSerializedSize(metaData.getMeasurementUid());
-    ChunkHeader header = readChunkHeader(metaData.getOffsetOfChunkHeader(), chunkHeadSize);
+    return readMemChunk(metaData, readChunkHeader(metaData));
+  }
+
+  /**
+   * read memory chunk whose header has been read.
+   *
+   * @param metaData -given chunk meta data
+   * @param header -header of the chunk read by {@link #readChunkHeader(ChunkMetadata)}
+   * @return -chunk
+   */
+  public Chunk readMemChunk(ChunkMetadata metaData, ChunkHeader header) throws IOException {
     ByteBuffer buffer =
         readChunk(
             metaData.getOffsetOfChunkHeader() + header.getSerializedSize(), header.getDataSize());
@@ -1118,11 +1128,10 @@ public class TsFileSequenceReader implements AutoCloseable {
     ByteBuffer buffer = readData(-1, header.getCompressedSize());
     if (header.getUncompressedSize() == 0 || type == CompressionType.UNCOMPRESSED) {
       return buffer;
-    } // FIXME if the buffer is not array-implemented.
+    }
     IUnCompressor unCompressor = IUnCompressor.getUnCompressor(type);
     ByteBuffer uncompressedBuffer = ByteBuffer.allocate(header.getUncompressedSize());
-    unCompressor.uncompress(
-        buffer.array(), buffer.position(), buffer.remaining(), uncompressedBuffer.array(), 0);
+    unCompressor.uncompressTo(buffer, uncompressedBuffer);
     return uncompressedBuffer;
   }
 
@@ -1211,6 +1220,27 @@ public class TsFileSequenceReader implements AutoCloseable {
     return readData(start, (int) (end - start));
   }
 
+  /**
+   * read the header of a chunk.
+   *
+   * @param metaData the chunk metadata of the chunk
+   */
+  public ChunkHeader readChunkHeader(ChunkMetadata metaData) throws IOException {
+    int chunkHeadSize = ChunkHeader.getSerializedSize(metaData.getMeasurementUid());
+    return readChunkHeader(metaData.getOffsetOfChunkHeader(), chunkHeadSize);
+  }
+
+  /**
+   * transfer the bytes of this file to the output as they are, without reading them into memory if
+   * possible.
+   *
+   * @param position the start position of bytes in this file
+   * @param length the number of bytes to transfer
+   */
+  public void transferRaw(long position, long length, TsFileOutput output) throws IOException {
+    output.transferFrom(tsFileInput, position, length);
+  }
+
   /** notice, the target bytebuffer are not flipped. */
   public int readRaw(long position, int length, ByteBuffer target) throws IOException {
     return ReadWriteIOUtils.readAsPossible(tsFileInput, target, position, length);
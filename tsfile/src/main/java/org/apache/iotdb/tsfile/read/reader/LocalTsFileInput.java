@@ -132,7 +132,7 @@ public class LocalTsFileInput implements TsFileInput {
   @Override
   public String readVarIntString(long offset) throws IOException {
     ByteBuffer byteBuffer = ByteBuffer.allocate(5);
-    channel.read(byteBuffer, offset);
+    read(byteBuffer, offset);
     byteBuffer.flip();
     int strLength = ReadWriteForEncodingUtils.readVarInt(byteBuffer);
     if (strLength < 0) {
@@ -143,7 +143,7 @@ public class LocalTsFileInput implements TsFileInput {
     ByteBuffer strBuffer = ByteBuffer.allocate(strLength);
     int varIntLength = ReadWriteForEncodingUtils.varIntSize(strLength);
     byte[] bytes = new byte[strLength];
-    channel.read(strBuffer, offset + varIntLength);
+    read(strBuffer, offset + varIntLength);
     strBuffer.flip();
     strBuffer.get(bytes, 0, strLength);
     return new String(bytes, 0, strLength);
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.reader;
+
+import org.apache.iotdb.tsfile.utils.MmapUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A TsFileInput which maps the file into memory. The file is mapped lazily in segments of 64MB, so
+ * that only the accessed part of a large file occupies the address space, and each segment can be
+ * addressed by int.
+ *
+ * <p>Only the bytes existing when opening the file are mapped. The bytes appended later, e.g. the
+ * TsFile is still being written, are read through the FileChannel like {@link LocalTsFileInput}.
+ *
+ * <p>The segments are unmapped when closing, reading an unmapped segment crashes the JVM, so reads
+ * of the segments hold the read lock of closeLock and close holds the write lock.
+ */
+public class MmapTsFileInput extends LocalTsFileInput {
+
+  private static final Logger logger = LoggerFactory.getLogger(MmapTsFileInput.class);
+
+  private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  private final int segmentSize;
+  private final long mappedSize;
+  private final MappedByteBuffer[] segments;
+
+  private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+  private boolean closed = false;
+
+  public MmapTsFileInput(Path file) throws IOException {
+    this(file, SEGMENT_SIZE);
+  }
+
+  MmapTsFileInput(Path file, int segmentSize) throws IOException {
+    super(file);
+    this.segmentSize = segmentSize;
+    mappedSize = size();
+    segments = new MappedByteBuffer[(int) ((mappedSize + segmentSize - 1) / segmentSize)];
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    long position = position();
+    int readBytes = read(dst, position);
+    if (readBytes > 0) {
+      position(position + readBytes);
+    }
+    return readBytes;
+  }
+
+  @Override
+  public int read(ByteBuffer dst, long position) throws IOException {
+    if (position < 0 || position + dst.remaining() > mappedSize) {
+      return super.read(dst, position);
+    }
+    int readBytes = 0;
+    closeLock.readLock().lock();
+    try {
+      if (closed) {
+        throw new ClosedChannelException();
+      }
+      while (dst.hasRemaining()) {
+        int segmentIndex = (int) (position / segmentSize);
+        int offsetInSegment = (int) (position % segmentSize);
+        // each reader gets its own view, so that concurrent reads do not affect each other
+        ByteBuffer segment = getSegment(segmentIndex).duplicate();
+        int length = Math.min(dst.remaining(), segment.capacity() - offsetInSegment);
+        segment.position(offsetInSegment);
+        segment.limit(offsetInSegment + length);
+        dst.put(segment);
+        readBytes += length;
+        position += length;
+      }
+    } finally {
+      closeLock.readLock().unlock();
+    }
+    return readBytes;
+  }
+
+  private MappedByteBuffer getSegment(int segmentIndex) throws IOException {
+    MappedByteBuffer segment = segments[segmentIndex];
+    if (segment == null) {
+      synchronized (segments) {
+        segment = segments[segmentIndex];
+        if (segment == null) {
+          long start = (long) segmentIndex * segmentSize;
+          try {
+            segment =
+                wrapAsFileChannel()
+                    .map(
+                        FileChannel.MapMode.READ_ONLY,
+                        start,
+                        Math.min(segmentSize, mappedSize - start));
+          } catch (IOException e) {
+            logger.error("Error happened while mapping {} from position {}", getFilePath(), start);
+            throw e;
+          }
+          segments[segmentIndex] = segment;
+        }
+      }
+    }
+    return segment;
+  }
+
+  @Override
+  public void close() throws IOException {
+    closeLock.writeLock().lock();
+    try {
+      if (!closed) {
+        closed = true;
+        int failed = 0;
+        for (int i = 0; i < segments.length; i++) {
+          if (!MmapUtil.clean(segments[i])) {
+            failed++;
+          }
+          segments[i] = null;
+        }
+        if (failed > 0) {
+          logger.warn("{} segments of {} are not unmapped and wait for GC", failed, getFilePath());
+        }
+      }
+    } finally {
+      closeLock.writeLock().unlock();
+    }
+    super.close();
+  }
+}
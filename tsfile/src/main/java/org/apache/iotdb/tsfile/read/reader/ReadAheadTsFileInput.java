@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.reader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * A TsFileInput which reads more bytes than requested and serves the following reads from the
+ * buffer, so that the small reads like chunk header and page header do not cost a system call each.
+ *
+ * <p>The read-ahead size is adaptive. It is doubled, up to {@link #MAX_READ_AHEAD_SIZE}, each time
+ * a read starts where the last one ends, and it falls back to {@link #MIN_READ_AHEAD_SIZE} on a
+ * random read. The reads not smaller than the current read-ahead size bypass the buffer.
+ */
+public class ReadAheadTsFileInput extends LocalTsFileInput {
+
+  static final int MIN_READ_AHEAD_SIZE = 64 * 1024;
+  static final int MAX_READ_AHEAD_SIZE = 4 * 1024 * 1024;
+
+  private ByteBuffer buffer = ByteBuffer.allocate(0);
+  // the file position of the first byte in buffer
+  private long bufferStart;
+  // the file position where the last read ends, to detect the sequential read
+  private long lastReadEnd = -1;
+  private int readAheadSize = MIN_READ_AHEAD_SIZE;
+
+  public ReadAheadTsFileInput(Path file) throws IOException {
+    super(file);
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    long position = position();
+    int readBytes = read(dst, position);
+    if (readBytes > 0) {
+      position(position + readBytes);
+    }
+    return readBytes;
+  }
+
+  @Override
+  public synchronized int read(ByteBuffer dst, long position) throws IOException {
+    int length = dst.remaining();
+    boolean sequential = position == lastReadEnd;
+    lastReadEnd = position + length;
+
+    if (position >= bufferStart && position + length <= bufferStart + buffer.limit()) {
+      ByteBuffer slice = buffer.duplicate();
+      slice.position((int) (position - bufferStart));
+      slice.limit(slice.position() + length);
+      dst.put(slice);
+      return length;
+    }
+
+    readAheadSize =
+        sequential ? Math.min(readAheadSize * 2, MAX_READ_AHEAD_SIZE) : MIN_READ_AHEAD_SIZE;
+    if (length >= readAheadSize) {
+      return super.read(dst, position);
+    }
+
+    if (buffer.capacity() < readAheadSize) {
+      buffer = ByteBuffer.allocate(readAheadSize);
+    }
+    buffer.clear();
+    buffer.limit(readAheadSize);
+    int readBytes = fill(buffer, position);
+    buffer.flip();
+    bufferStart = position;
+    if (readBytes <= 0) {
+      return readBytes;
+    }
+
+    ByteBuffer slice = buffer.duplicate();
+    slice.limit(Math.min(length, buffer.limit()));
+    dst.put(slice);
+    return slice.limit();
+  }
+
+  /** Read until the buffer is full or the end of file is reached. */
+  private int fill(ByteBuffer buffer, long position) throws IOException {
+    int readBytes = 0;
+    while (buffer.hasRemaining()) {
+      int read = super.read(buffer, position + readBytes);
+      if (read < 0) {
+        return readBytes == 0 ? -1 : readBytes;
+      }
+      readBytes += read;
+    }
+    return readBytes;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    buffer = ByteBuffer.allocate(0);
+    super.close();
+  }
+}
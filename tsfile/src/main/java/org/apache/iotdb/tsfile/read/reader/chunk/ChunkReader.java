@@ -25,6 +25,7 @@ import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
 import org.apache.iotdb.tsfile.file.MetaMarker;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
@@ -162,7 +163,6 @@ public class ChunkReader implements IChunkReader {
 
   private PageReader constructPageReaderForNextPage(PageHeader pageHeader) throws IOException {
     int compressedPageBodyLength = pageHeader.getCompressedSize();
-    byte[] compressedPageBody = new byte[compressedPageBodyLength];
 
     // doesn't has a complete page body
     if (compressedPageBodyLength > chunkDataBuffer.remaining()) {
@@ -173,28 +173,33 @@ public class ChunkReader implements IChunkReader {
               + chunkDataBuffer.remaining());
     }
 
-    chunkDataBuffer.get(compressedPageBody);
+    // the page body is not copied out of the chunk, it is decompressed when the page is read
+    ByteBuffer compressedPageBody = chunkDataBuffer.slice();
+    compressedPageBody.limit(compressedPageBodyLength);
+    skipBytesInStreamByLength(compressedPageBodyLength);
     Decoder valueDecoder =
         Decoder.getDecoderByType(chunkHeader.getEncodingType(), chunkHeader.getDataType());
-    byte[] uncompressedPageData = new byte[pageHeader.getUncompressedSize()];
-    try {
-      unCompressor.uncompress(
-          compressedPageBody, 0, compressedPageBodyLength, uncompressedPageData, 0);
-    } catch (Exception e) {
-      throw new IOException(
-          "Uncompress error! uncompress size: "
-              + pageHeader.getUncompressedSize()
-              + "compressed size: "
-              + pageHeader.getCompressedSize()
-              + "page header: "
-              + pageHeader
-              + e.getMessage());
+    PageReader reader;
+    if (chunkHeader.getCompressionType() == CompressionType.UNCOMPRESSED) {
+      reader =
+          new PageReader(
+              pageHeader,
+              compressedPageBody,
+              chunkHeader.getDataType(),
+              valueDecoder,
+              timeDecoder,
+              filter);
+    } else {
+      reader =
+          new PageReader(
+              pageHeader,
+              compressedPageBody,
+              unCompressor,
+              chunkHeader.getDataType(),
+              valueDecoder,
+              timeDecoder,
+              filter);
     }
-
-    ByteBuffer pageData = ByteBuffer.wrap(uncompressedPageData);
-    PageReader reader =
-        new PageReader(
-            pageHeader, pageData, chunkHeader.getDataType(), valueDecoder, timeDecoder, filter);
     reader.setDeleteIntervalList(deleteIntervalList);
     return reader;
   }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.reader.page;
+
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PageBufferPool keeps the buffers that pages are decompressed into, so that reading a page does
+ * not allocate a new buffer of the uncompressed size. The buffers are grouped by power-of-two size
+ * classes and heap buffers are kept apart from direct buffers. A buffer that is not returned by
+ * {@link #release(ByteBuffer)} is simply garbage collected.
+ */
+public class PageBufferPool {
+
+  /** the smallest pooled buffer is 4KB */
+  private static final int MIN_SIZE_CLASS = 12;
+
+  /** the largest pooled buffer is 16MB, larger pages get an unpooled buffer */
+  private static final int MAX_SIZE_CLASS = 24;
+
+  private final long maxPooledBytes;
+
+  private final AtomicLong pooledBytes = new AtomicLong();
+
+  private final Queue<ByteBuffer>[] heapBuffers;
+
+  private final Queue<ByteBuffer>[] directBuffers;
+
+  @SuppressWarnings("unchecked")
+  public PageBufferPool(long maxPooledBytes) {
+    this.maxPooledBytes = maxPooledBytes;
+    int sizeClassNum = MAX_SIZE_CLASS - MIN_SIZE_CLASS + 1;
+    heapBuffers = new Queue[sizeClassNum];
+    directBuffers = new Queue[sizeClassNum];
+    for (int i = 0; i < sizeClassNum; i++) {
+      heapBuffers[i] = new ConcurrentLinkedQueue<>();
+      directBuffers[i] = new ConcurrentLinkedQueue<>();
+    }
+  }
+
+  public static PageBufferPool getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  /**
+   * Get a buffer whose position is 0 and limit is size. The capacity of the buffer may be larger
+   * than size.
+   *
+   * @param direct whether a direct buffer is needed
+   */
+  public ByteBuffer allocate(int size, boolean direct) {
+    int sizeClass = sizeClassOf(size);
+    if (sizeClass > MAX_SIZE_CLASS || maxPooledBytes <= 0) {
+      return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+    ByteBuffer buffer = queueOf(sizeClass, direct).poll();
+    if (buffer == null) {
+      int capacity = 1 << sizeClass;
+      buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    } else {
+      pooledBytes.addAndGet(-buffer.capacity());
+    }
+    buffer.clear();
+    buffer.limit(size);
+    return buffer;
+  }
+
+  /**
+   * Return a buffer got from {@link #allocate(int, boolean)}. The caller must not use the buffer or
+   * any slice of it afterwards. Buffers that are not of a pooled size, or that would make the pool
+   * exceed its max size, are dropped.
+   */
+  public void release(ByteBuffer buffer) {
+    int capacity = buffer.capacity();
+    int sizeClass = sizeClassOf(capacity);
+    if (sizeClass > MAX_SIZE_CLASS || capacity != 1 << sizeClass || buffer.isReadOnly()) {
+      return;
+    }
+    if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+      pooledBytes.addAndGet(-capacity);
+      return;
+    }
+    queueOf(sizeClass, buffer.isDirect()).offer(buffer);
+  }
+
+  /** @return the total capacity of the idle buffers in the pool */
+  public long getPooledBytes() {
+    return pooledBytes.get();
+  }
+
+  public void clear() {
+    for (int i = 0; i < heapBuffers.length; i++) {
+      clear(heapBuffers[i]);
+      clear(directBuffers[i]);
+    }
+  }
+
+  private void clear(Queue<ByteBuffer> queue) {
+    ByteBuffer buffer;
+    while ((buffer = queue.poll()) != null) {
+      pooledBytes.addAndGet(-buffer.capacity());
+    }
+  }
+
+  private Queue<ByteBuffer> queueOf(int sizeClass, boolean direct) {
+    return direct
+        ? directBuffers[sizeClass - MIN_SIZE_CLASS]
+        : heapBuffers[sizeClass - MIN_SIZE_CLASS];
+  }
+
+  private static int sizeClassOf(int size) {
+    if (size <= 1 << MIN_SIZE_CLASS) {
+      return MIN_SIZE_CLASS;
+    }
+    return 32 - Integer.numberOfLeadingZeros(size - 1);
+  }
+
+  private static class InstanceHolder {
+
+    private static final PageBufferPool INSTANCE =
+        new PageBufferPool(
+            TSFileDescriptor.getInstance().getConfig().getPageBufferPoolSizeInByte());
+
+    private InstanceHolder() {}
+  }
+}
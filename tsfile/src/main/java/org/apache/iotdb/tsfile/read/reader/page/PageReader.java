@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.tsfile.read.reader.page;
 
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
 import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
@@ -43,6 +44,8 @@ import java.util.List;
 
 public class PageReader implements IPageReader {
 
+  private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
   private PageHeader pageHeader;
 
   protected TSDataType dataType;
@@ -66,6 +69,14 @@ public class PageReader implements IPageReader {
 
   private int deleteCursor = 0;
 
+  /** compressed page body, not null until the page is decompressed */
+  private ByteBuffer compressedPageData;
+
+  private IUnCompressor unCompressor;
+
+  /** the buffer from {@link PageBufferPool} that the page is decompressed into */
+  private ByteBuffer pooledBuffer;
+
   public PageReader(
       ByteBuffer pageData,
       TSDataType dataType,
@@ -90,6 +101,30 @@ public class PageReader implements IPageReader {
     splitDataToTimeStampAndValue(pageData);
   }
 
+  /**
+   * The page is decompressed into a buffer of {@link PageBufferPool} when its data is read for the
+   * first time, and the buffer is given back to the pool once all the data of the page is read.
+   *
+   * @param compressedPageData compressed page body, it is not copied so it must not be changed
+   *     before the page is read
+   */
+  public PageReader(
+      PageHeader pageHeader,
+      ByteBuffer compressedPageData,
+      IUnCompressor unCompressor,
+      TSDataType dataType,
+      Decoder valueDecoder,
+      Decoder timeDecoder,
+      Filter filter) {
+    this.dataType = dataType;
+    this.valueDecoder = valueDecoder;
+    this.timeDecoder = timeDecoder;
+    this.filter = filter;
+    this.pageHeader = pageHeader;
+    this.compressedPageData = compressedPageData;
+    this.unCompressor = unCompressor;
+  }
+
   /**
    * split pageContent into two stream: time and value
    *
@@ -105,12 +140,58 @@ public class PageReader implements IPageReader {
     valueBuffer.position(timeBufferLength);
   }
 
+  private void uncompressPageData() throws IOException {
+    if (compressedPageData == null) {
+      return;
+    }
+    int uncompressedSize = pageHeader.getUncompressedSize();
+    pooledBuffer =
+        PageBufferPool.getInstance().allocate(uncompressedSize, compressedPageData.isDirect());
+    int size;
+    try {
+      size = unCompressor.uncompressTo(compressedPageData, pooledBuffer);
+    } catch (Exception e) {
+      releasePageData();
+      throw new IOException(
+          "Uncompress error! uncompress size: "
+              + uncompressedSize
+              + "compressed size: "
+              + pageHeader.getCompressedSize()
+              + "page header: "
+              + pageHeader
+              + e.getMessage());
+    }
+    if (size != uncompressedSize) {
+      releasePageData();
+      throw new IOException(
+          "Uncompress error! expected uncompress size: "
+              + uncompressedSize
+              + ", actual: "
+              + size
+              + ", page header: "
+              + pageHeader);
+    }
+    compressedPageData = null;
+    splitDataToTimeStampAndValue(pooledBuffer);
+  }
+
+  /** the decoded data never refers to the page buffer, so it can be reused once the page is read */
+  private void releasePageData() {
+    if (pooledBuffer != null) {
+      timeBuffer = EMPTY_BUFFER;
+      valueBuffer = EMPTY_BUFFER;
+      PageBufferPool.getInstance().release(pooledBuffer);
+      pooledBuffer = null;
+    }
+  }
+
   /** @return the returned BatchData may be empty, but never be null */
   @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   @Override
   public BatchData getAllSatisfiedPageData(boolean ascending) throws IOException {
     BatchData pageData = BatchDataFactory.createBatchData(dataType, ascending, false);
     if (filter == null || filter.satisfy(getStatistics())) {
+      uncompressPageData();
       while (timeDecoder.hasNext(timeBuffer)) {
         long timestamp = timeDecoder.readLong(timeBuffer);
         switch (dataType) {
@@ -154,6 +235,7 @@ public class PageReader implements IPageReader {
             throw new UnSupportedDataTypeException(String.valueOf(dataType));
         }
       }
+      releasePageData();
     }
     return pageData.flip();
   }
@@ -165,6 +247,7 @@ public class PageReader implements IPageReader {
     TimeColumnBuilder timeBuilder = builder.getTimeColumnBuilder();
     ColumnBuilder valueBuilder = builder.getColumnBuilder(0);
     if (filter == null || filter.satisfy(getStatistics())) {
+      uncompressPageData();
       switch (dataType) {
         case BOOLEAN:
           while (timeDecoder.hasNext(timeBuffer)) {
@@ -235,6 +318,7 @@ public class PageReader implements IPageReader {
         default:
           throw new UnSupportedDataTypeException(String.valueOf(dataType));
       }
+      releasePageData();
     }
     return builder.build();
   }
@@ -25,6 +25,7 @@ import org.apache.iotdb.tsfile.exception.write.PageException;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.PublicBAOS;
@@ -87,6 +88,12 @@ public class ChunkWriterImpl implements IChunkWriter {
   private static final String SDT_COMP_MIN_TIME = "compmintime";
   private static final String SDT_COMP_MAX_TIME = "compmaxtime";
 
+  /**
+   * encoding of this chunk, which is selected by the values of the first page when the schema uses
+   * {@link TSEncoding#AUTO}
+   */
+  private TSEncoding encodingType;
+
   /** first page info */
   private int sizeWithoutStatistic;
 
@@ -111,6 +118,7 @@ public class ChunkWriterImpl implements IChunkWriter {
 
     this.pageWriter.setTimeEncoder(measurementSchema.getTimeEncoder());
     this.pageWriter.setValueEncoder(measurementSchema.getValueEncoder());
+    this.encodingType = measurementSchema.getEncodingType();
 
     // check if the measurement schema uses SDT
     checkSdtEncoding();
@@ -280,6 +288,13 @@ public class ChunkWriterImpl implements IChunkWriter {
 
   private void writePageToPageBuffer() {
     try {
+      if (encodingType == TSEncoding.AUTO) {
+        encodingType = pageWriter.selectValueEncoding(measurementSchema);
+        logger.debug(
+            "select encoding {} for chunk of {}",
+            encodingType,
+            measurementSchema.getMeasurementId());
+      }
       if (numOfPages == 0) { // record the firstPageStatistics
         this.firstPageStatistics = pageWriter.getStatistics();
         this.sizeWithoutStatistic = pageWriter.writePageHeaderAndDataIntoBuff(pageBuffer, true);
@@ -316,6 +331,11 @@ public class ChunkWriterImpl implements IChunkWriter {
     numOfPages = 0;
     firstPageStatistics = null;
     this.statistics = Statistics.getStatsByType(measurementSchema.getType());
+    if (measurementSchema.getEncodingType() == TSEncoding.AUTO && pageWriter != null) {
+      // select the encoding again for the next chunk
+      encodingType = TSEncoding.AUTO;
+      pageWriter.setValueEncoder(measurementSchema.getValueEncoder());
+    }
   }
 
   @Override
@@ -358,6 +378,10 @@ public class ChunkWriterImpl implements IChunkWriter {
    */
   public void writePageHeaderAndDataIntoBuff(ByteBuffer data, PageHeader header)
       throws PageException {
+    if (encodingType == TSEncoding.AUTO) {
+      throw new PageException(
+          "Encoded pages can not be written into a chunk whose encoding is not selected yet");
+    }
     // write the page header to pageBuffer
     try {
       logger.debug(
@@ -422,7 +446,7 @@ public class ChunkWriterImpl implements IChunkWriter {
         measurementSchema.getMeasurementId(),
         compressor.getType(),
         measurementSchema.getType(),
-        measurementSchema.getEncodingType(),
+        encodingType,
         statistics,
         pageBuffer.size(),
         numOfPages,
@@ -22,6 +22,7 @@ import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
 import org.apache.iotdb.tsfile.compress.ICompressor;
 import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.EncodingSelector;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
@@ -84,6 +85,11 @@ public class ValueChunkWriter {
       TSDataType dataType,
       TSEncoding encodingType,
       Encoder valueEncoder) {
+    if (encodingType == TSEncoding.AUTO) {
+      // value chunks of aligned series don't select the encoding by data
+      encodingType = EncodingSelector.getDefaultEncoding(dataType);
+      valueEncoder = EncodingSelector.getEncoder(encodingType, dataType, null);
+    }
     this.measurementId = measurementId;
     this.encodingType = encodingType;
     this.dataType = dataType;
@@ -20,8 +20,10 @@ package org.apache.iotdb.tsfile.write.page;
 
 import org.apache.iotdb.tsfile.compress.ICompressor;
 import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.EncodingSelector;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.PublicBAOS;
@@ -267,6 +269,25 @@ public class PageWriter {
         + valueEncoder.getMaxByteSize();
   }
 
+  /**
+   * Select the value encoding by the values in current page, which must be written by a PLAIN
+   * encoder, and encode them again with the selected encoding. Subsequent values are encoded by it
+   * too.
+   *
+   * @return the selected encoding
+   */
+  public TSEncoding selectValueEncoding(IMeasurementSchema measurementSchema) throws IOException {
+    TSDataType dataType = measurementSchema.getType();
+    int count = (int) statistics.getCount();
+    ByteBuffer plainValues = ByteBuffer.wrap(valueOut.toByteArray());
+    TSEncoding encoding =
+        EncodingSelector.select(dataType, plainValues, count, measurementSchema.getProps());
+    valueEncoder = EncodingSelector.getEncoder(encoding, dataType, measurementSchema.getProps());
+    valueOut.reset();
+    EncodingSelector.transcode(dataType, plainValues, count, valueEncoder, valueOut);
+    return encoding;
+  }
+
   /** reset this page */
   public void reset(IMeasurementSchema measurementSchema) {
     timeOut.reset();
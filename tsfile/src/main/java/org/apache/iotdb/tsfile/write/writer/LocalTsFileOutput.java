@@ -18,11 +18,16 @@
  */
 package org.apache.iotdb.tsfile.write.writer;
 
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.read.reader.TsFileInput;
+
 import java.io.BufferedOutputStream;
+import java.io.EOFException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * a TsFileOutput implementation with FileOutputStream. If the file is not existed, it will be
@@ -30,16 +35,30 @@ import java.nio.ByteBuffer;
  */
 public class LocalTsFileOutput extends OutputStream implements TsFileOutput {
 
+  /** the buffer size is aligned to the page size of the file system */
+  private static final int BUFFER_ALIGNMENT = 4 * 1024;
+
   private FileOutputStream outputStream;
   private BufferedOutputStream bufferedStream;
   private long position;
 
   public LocalTsFileOutput(FileOutputStream outputStream) {
+    this(outputStream, TSFileDescriptor.getInstance().getConfig().getWriteBufferSizeInByte());
+  }
+
+  public LocalTsFileOutput(FileOutputStream outputStream, int bufferSize) {
     this.outputStream = outputStream;
-    this.bufferedStream = new BufferedOutputStream(outputStream);
+    this.bufferedStream = new BufferedOutputStream(outputStream, alignBufferSize(bufferSize));
     position = 0;
   }
 
+  static int alignBufferSize(int bufferSize) {
+    if (bufferSize <= BUFFER_ALIGNMENT) {
+      return BUFFER_ALIGNMENT;
+    }
+    return (bufferSize + BUFFER_ALIGNMENT - 1) / BUFFER_ALIGNMENT * BUFFER_ALIGNMENT;
+  }
+
   @Override
   public synchronized void write(int b) throws IOException {
     bufferedStream.write(b);
@@ -70,6 +89,44 @@ public class LocalTsFileOutput extends OutputStream implements TsFileOutput {
     position += b.array().length;
   }
 
+  /**
+   * Transfer bytes between the file channels directly if the input is backed by a local file
+   * channel, including the memory-mapped and read-ahead inputs. Otherwise the bytes are copied
+   * through a heap buffer.
+   */
+  @Override
+  public synchronized void transferFrom(TsFileInput input, long position, long length)
+      throws IOException {
+    FileChannel source = getFileChannel(input);
+    if (source == null) {
+      TsFileOutput.super.transferFrom(input, position, length);
+      return;
+    }
+    bufferedStream.flush();
+    FileChannel target = outputStream.getChannel();
+    long transferred = 0;
+    while (transferred < length) {
+      long count = source.transferTo(position + transferred, length - transferred, target);
+      if (count <= 0) {
+        throw new EOFException(
+            String.format(
+                "Reach the end of %s when transferring %d bytes from %d",
+                input.getFilePath(), length, position));
+      }
+      transferred += count;
+      this.position += count;
+    }
+  }
+
+  private static FileChannel getFileChannel(TsFileInput input) throws IOException {
+    try {
+      return input.wrapAsFileChannel();
+    } catch (UnsupportedOperationException e) {
+      // e.g. files on HDFS
+      return null;
+    }
+  }
+
   @Override
   public long getPosition() {
     return position;
@@ -35,6 +35,7 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.utils.BytesUtils;
@@ -234,6 +235,37 @@ public class TsFileIOWriter implements AutoCloseable {
     }
   }
 
+  /**
+   * Copy an unmodified chunk of another tsfile into this file byte by byte, only the chunk metadata
+   * is rebuilt. Neither the pages of the chunk are deserialized nor the chunk is read into memory.
+   *
+   * @param reader reader of the tsfile where the chunk is
+   * @param chunkHeader header of the chunk read by {@link
+   *     TsFileSequenceReader#readChunkHeader(ChunkMetadata)}
+   * @param chunkMetadata chunk metadata of the chunk in the source file
+   */
+  public void writeRawChunk(
+      TsFileSequenceReader reader, ChunkHeader chunkHeader, ChunkMetadata chunkMetadata)
+      throws IOException {
+    currentChunkMetadata =
+        new ChunkMetadata(
+            chunkHeader.getMeasurementID(),
+            chunkHeader.getDataType(),
+            out.getPosition(),
+            chunkMetadata.getStatistics());
+    reader.transferRaw(
+        chunkMetadata.getOffsetOfChunkHeader(),
+        (long) chunkHeader.getSerializedSize() + chunkHeader.getDataSize(),
+        out);
+    endCurrentChunk();
+    if (logger.isDebugEnabled()) {
+      logger.debug(
+          "end copying a chunk:{}, totalvalue:{}",
+          chunkHeader.getMeasurementID(),
+          chunkMetadata.getNumOfPoints());
+    }
+  }
+
   /** end chunk and write some log. */
   public void endCurrentChunk() {
     chunkMetadataList.add(currentChunkMetadata);
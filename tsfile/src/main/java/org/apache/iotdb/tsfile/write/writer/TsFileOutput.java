@@ -18,6 +18,9 @@
  */
 package org.apache.iotdb.tsfile.write.writer;
 
+import org.apache.iotdb.tsfile.read.reader.TsFileInput;
+
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
@@ -50,6 +53,34 @@ public interface TsFileOutput {
    */
   void write(ByteBuffer b) throws IOException;
 
+  /**
+   * Writes <code>length</code> bytes of the input from the given position to this output at the
+   * current position, without deserializing them. Implementations may override it to avoid copying
+   * the bytes through the heap.
+   *
+   * @param input the input to read from.
+   * @param position the position of the input where the bytes start.
+   * @param length number of bytes to transfer.
+   * @throws IOException if an I/O error occurs or the input ends before all bytes are transferred.
+   */
+  default void transferFrom(TsFileInput input, long position, long length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, 64 * 1024));
+    long transferred = 0;
+    while (transferred < length) {
+      buffer.clear();
+      buffer.limit((int) Math.min(buffer.capacity(), length - transferred));
+      int read = input.read(buffer, position + transferred);
+      if (read <= 0) {
+        throw new EOFException(
+            String.format(
+                "Reach the end of %s when transferring %d bytes from %d",
+                input.getFilePath(), length, position));
+      }
+      wrapAsStream().write(buffer.array(), 0, read);
+      transferred += read;
+    }
+  }
+
   /**
    * gets the current position of the Output. This method is usually used for recording where the
    * data is. <br>
@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.tsfile.compress;
 
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.utils.PublicBAOS;
 
 import org.junit.After;
@@ -26,6 +27,7 @@ import org.junit.Test;
 import org.xerial.snappy.Snappy;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
@@ -103,4 +105,46 @@ public class CompressTest {
     String result = new String(uncompressed, StandardCharsets.UTF_8);
     assertEquals(inputString, result);
   }
+
+  @Test
+  public void uncompressToTest() throws IOException {
+    byte[] input = inputString.getBytes(StandardCharsets.UTF_8);
+    for (CompressionType type :
+        new CompressionType[] {
+          CompressionType.UNCOMPRESSED,
+          CompressionType.SNAPPY,
+          CompressionType.LZ4,
+          CompressionType.GZIP,
+          CompressionType.ZSTD
+        }) {
+      byte[] compressed = ICompressor.getCompressor(type).compress(input);
+      IUnCompressor unCompressor = IUnCompressor.getUnCompressor(type);
+      for (boolean directInput : new boolean[] {false, true}) {
+        for (boolean directOutput : new boolean[] {false, true}) {
+          // a non-zero position and extra bytes around the data
+          ByteBuffer compressedBuffer = allocate(compressed.length + 10, directInput);
+          compressedBuffer.position(3);
+          compressedBuffer.put(compressed);
+          compressedBuffer.position(3);
+          compressedBuffer.limit(3 + compressed.length);
+          ByteBuffer uncompressedBuffer = allocate(input.length + 10, directOutput);
+          uncompressedBuffer.position(5);
+
+          int size = unCompressor.uncompressTo(compressedBuffer, uncompressedBuffer);
+
+          assertEquals(input.length, size);
+          assertEquals(3, compressedBuffer.position());
+          assertEquals(3 + compressed.length, compressedBuffer.limit());
+          assertEquals(5, uncompressedBuffer.position());
+          byte[] result = new byte[size];
+          uncompressedBuffer.get(result);
+          assertEquals(type.toString(), inputString, new String(result, StandardCharsets.UTF_8));
+        }
+      }
+    }
+  }
+
+  private static ByteBuffer allocate(int size, boolean direct) {
+    return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+  }
 }
@@ -27,6 +27,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -80,4 +81,36 @@ public class LZ4Test {
     byte[] uncompressed = unCompressor.uncompress(compressed);
     Assert.assertArrayEquals(uncom, uncompressed);
   }
+
+  @Test
+  public void testByteBuffer() throws IOException {
+    ICompressor compressor = new IOTDBLZ4Compressor();
+    IUnCompressor unCompressor = new LZ4UnCompressor();
+    byte[] uncom = randomString(100000).getBytes(StandardCharsets.UTF_8);
+
+    ByteBuffer source = ByteBuffer.wrap(uncom);
+    ByteBuffer compressed = ByteBuffer.allocate(compressor.getMaxBytesForCompression(uncom.length));
+    int size = compressor.compress(source, compressed);
+    Assert.assertEquals(compressed.position(), size);
+    compressed.flip();
+
+    ByteBuffer uncompressed = ByteBuffer.allocate(uncom.length);
+    Assert.assertEquals(uncom.length, unCompressor.uncompress(compressed, uncompressed));
+    Assert.assertArrayEquals(uncom, uncompressed.array());
+  }
+
+  @Test
+  public void testBytesWithOffset() throws IOException {
+    ICompressor compressor = new IOTDBLZ4Compressor();
+    IUnCompressor unCompressor = new LZ4UnCompressor();
+    byte[] uncom = randomString(10000).getBytes(StandardCharsets.UTF_8);
+    byte[] compressed = compressor.compress(uncom);
+
+    byte[] uncompressed = new byte[uncom.length + 10];
+    Assert.assertEquals(
+        uncom.length, unCompressor.uncompress(compressed, 0, compressed.length, uncompressed, 10));
+    for (int i = 0; i < uncom.length; i++) {
+      Assert.assertEquals(uncom[i], uncompressed[i + 10]);
+    }
+  }
 }
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.compress;
+
+import org.apache.iotdb.tsfile.compress.ICompressor.ZstdCompressor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor.ZstdUnCompressor;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class ZstdTest {
+
+  private String randomString(int length) {
+    StringBuilder builder = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      builder.append((char) (ThreadLocalRandom.current().nextInt(33, 128)));
+    }
+    return builder.toString();
+  }
+
+  @Test
+  public void testBytes() throws IOException {
+    ICompressor compressor = ICompressor.getCompressor(CompressionType.ZSTD);
+    IUnCompressor unCompressor = IUnCompressor.getUnCompressor(CompressionType.ZSTD);
+
+    byte[] uncom = randomString(500000).getBytes(StandardCharsets.UTF_8);
+    byte[] compressed = compressor.compress(uncom);
+    Assert.assertEquals(
+        uncom.length, unCompressor.getUncompressedLength(compressed, 0, compressed.length));
+    Assert.assertArrayEquals(uncom, unCompressor.uncompress(compressed));
+
+    byte[] buffer = new byte[compressor.getMaxBytesForCompression(uncom.length)];
+    int size = compressor.compress(uncom, 0, uncom.length, buffer);
+    byte[] uncompressed = new byte[uncom.length + 10];
+    Assert.assertEquals(uncom.length, unCompressor.uncompress(buffer, 0, size, uncompressed, 10));
+    for (int i = 0; i < uncom.length; i++) {
+      Assert.assertEquals(uncom[i], uncompressed[i + 10]);
+    }
+  }
+
+  @Test
+  public void testByteBuffer() throws IOException {
+    ICompressor compressor = new ZstdCompressor();
+    IUnCompressor unCompressor = new ZstdUnCompressor();
+    byte[] uncom = randomString(100000).getBytes(StandardCharsets.UTF_8);
+
+    for (boolean direct : new boolean[] {true, false}) {
+      ByteBuffer source =
+          direct ? ByteBuffer.allocateDirect(uncom.length) : ByteBuffer.allocate(uncom.length);
+      source.put(uncom);
+      source.flip();
+      int maxSize = compressor.getMaxBytesForCompression(uncom.length);
+      ByteBuffer compressed =
+          direct ? ByteBuffer.allocateDirect(maxSize) : ByteBuffer.allocate(maxSize);
+      int size = compressor.compress(source, compressed);
+      Assert.assertEquals(size, compressed.position());
+      compressed.flip();
+      Assert.assertEquals(uncom.length, unCompressor.getUncompressedLength(compressed));
+
+      ByteBuffer uncompressed =
+          direct ? ByteBuffer.allocateDirect(uncom.length) : ByteBuffer.allocate(uncom.length);
+      Assert.assertEquals(uncom.length, unCompressor.uncompress(compressed, uncompressed));
+      uncompressed.flip();
+      byte[] result = new byte[uncom.length];
+      uncompressed.get(result);
+      Assert.assertArrayEquals(uncom, result);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.reader;
+
+import org.apache.iotdb.tsfile.read.reader.page.PageBufferPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class PageBufferPoolTest {
+
+  @Test
+  public void testReuse() {
+    PageBufferPool pool = new PageBufferPool(1024 * 1024);
+    ByteBuffer buffer = pool.allocate(5000, false);
+    Assert.assertEquals(0, buffer.position());
+    Assert.assertEquals(5000, buffer.limit());
+    Assert.assertEquals(8192, buffer.capacity());
+    Assert.assertFalse(buffer.isDirect());
+
+    pool.release(buffer);
+    Assert.assertEquals(8192, pool.getPooledBytes());
+    // any size of the same size class gets the released buffer
+    ByteBuffer reused = pool.allocate(8000, false);
+    Assert.assertSame(buffer, reused);
+    Assert.assertEquals(8000, reused.limit());
+    Assert.assertEquals(0, pool.getPooledBytes());
+
+    pool.release(reused);
+    // heap and direct buffers are pooled separately
+    ByteBuffer direct = pool.allocate(5000, true);
+    Assert.assertTrue(direct.isDirect());
+    Assert.assertNotSame(buffer, direct);
+    Assert.assertEquals(8192, pool.getPooledBytes());
+    pool.release(direct);
+    Assert.assertEquals(16384, pool.getPooledBytes());
+
+    pool.clear();
+    Assert.assertEquals(0, pool.getPooledBytes());
+  }
+
+  @Test
+  public void testBound() {
+    PageBufferPool pool = new PageBufferPool(8192);
+    ByteBuffer buffer1 = pool.allocate(8192, false);
+    ByteBuffer buffer2 = pool.allocate(8192, false);
+    pool.release(buffer1);
+    // the pool is full, buffer2 is dropped
+    pool.release(buffer2);
+    Assert.assertEquals(8192, pool.getPooledBytes());
+    Assert.assertSame(buffer1, pool.allocate(8000, false));
+    Assert.assertNotSame(buffer2, pool.allocate(8000, false));
+
+    // a buffer that is not allocated by the pool is dropped
+    pool.release(ByteBuffer.allocate(100));
+    Assert.assertEquals(0, pool.getPooledBytes());
+
+    // a disabled pool never keeps buffers
+    PageBufferPool disabled = new PageBufferPool(0);
+    ByteBuffer buffer = disabled.allocate(100, false);
+    Assert.assertEquals(100, buffer.capacity());
+    disabled.release(buffer);
+    Assert.assertEquals(0, disabled.getPooledBytes());
+  }
+}
@@ -18,6 +18,8 @@
  */
 package org.apache.iotdb.tsfile.read.reader;
 
+import org.apache.iotdb.tsfile.compress.ICompressor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
 import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
 import org.apache.iotdb.tsfile.encoding.decoder.DeltaBinaryDecoder;
 import org.apache.iotdb.tsfile.encoding.decoder.DoublePrecisionDecoderV1;
@@ -32,9 +34,13 @@ import org.apache.iotdb.tsfile.encoding.encoder.IntRleEncoder;
 import org.apache.iotdb.tsfile.encoding.encoder.LongRleEncoder;
 import org.apache.iotdb.tsfile.encoding.encoder.PlainEncoder;
 import org.apache.iotdb.tsfile.encoding.encoder.SinglePrecisionEncoderV1;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.reader.page.PageBufferPool;
 import org.apache.iotdb.tsfile.read.reader.page.PageReader;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.write.page.PageWriter;
@@ -182,6 +188,80 @@ public class PageReaderTest {
     test.test(TSDataType.TEXT);
   }
 
+  @Test
+  public void testCompressedPage() throws IOException {
+    int count = 10000;
+    PageWriter pageWriter = new PageWriter();
+    pageWriter.setTimeEncoder(new DeltaBinaryEncoder.LongDeltaEncoder());
+    pageWriter.setValueEncoder(new LongRleEncoder());
+    pageWriter.initStatistics(TSDataType.INT64);
+    for (int i = 0; i < count; i++) {
+      pageWriter.write(i, (long) i * 3);
+    }
+    ByteBuffer uncompressedPage = pageWriter.getUncompressedBytes();
+    byte[] uncompressedBytes = new byte[uncompressedPage.remaining()];
+    uncompressedPage.get(uncompressedBytes);
+
+    for (CompressionType type :
+        new CompressionType[] {
+          CompressionType.SNAPPY, CompressionType.LZ4, CompressionType.GZIP, CompressionType.ZSTD
+        }) {
+      byte[] compressed = ICompressor.getCompressor(type).compress(uncompressedBytes);
+      PageHeader pageHeader =
+          new PageHeader(uncompressedBytes.length, compressed.length, pageWriter.getStatistics());
+      for (boolean direct : new boolean[] {false, true}) {
+        ByteBuffer compressedPage =
+            direct
+                ? ByteBuffer.allocateDirect(compressed.length)
+                : ByteBuffer.allocate(compressed.length);
+        compressedPage.put(compressed);
+        compressedPage.flip();
+
+        PageReader pageReader =
+            new PageReader(
+                pageHeader,
+                compressedPage,
+                IUnCompressor.getUnCompressor(type),
+                TSDataType.INT64,
+                new LongRleDecoder(),
+                new DeltaBinaryDecoder.LongDeltaDecoder(),
+                null);
+        long pooledBytes = PageBufferPool.getInstance().getPooledBytes();
+        BatchData data = pageReader.getAllSatisfiedPageData();
+        // the page buffer is given back to the pool once the page is read
+        Assert.assertTrue(PageBufferPool.getInstance().getPooledBytes() >= pooledBytes);
+        // the compressed page is not consumed
+        Assert.assertEquals(compressed.length, compressedPage.remaining());
+        int index = 0;
+        while (data.hasCurrent()) {
+          Assert.assertEquals(index, data.currentTime());
+          Assert.assertEquals((long) index * 3, data.getLong());
+          data.next();
+          index++;
+        }
+        Assert.assertEquals(type.toString(), count, index);
+        // the page is read only once
+        Assert.assertFalse(pageReader.getAllSatisfiedPageData().hasCurrent());
+
+        pageReader =
+            new PageReader(
+                pageHeader,
+                compressedPage,
+                IUnCompressor.getUnCompressor(type),
+                TSDataType.INT64,
+                new LongRleDecoder(),
+                new DeltaBinaryDecoder.LongDeltaDecoder(),
+                null);
+        TsBlock tsBlock = pageReader.getAllSatisfiedData(true);
+        Assert.assertEquals(count, tsBlock.getPositionCount());
+        for (int i = 0; i < count; i++) {
+          Assert.assertEquals(i, tsBlock.getTimeByIndex(i));
+          Assert.assertEquals((long) i * 3, tsBlock.getColumn(0).getLong(i));
+        }
+      }
+    }
+  }
+
   private abstract static class LoopWriteReadTest {
 
     private Encoder encoder;
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.reader;
+
+import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.constant.TestConstant;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.fileSystem.TsFileInputMode;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.utils.FileGenerator;
+import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
+import org.apache.iotdb.tsfile.write.writer.LocalTsFileOutput;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TsFileInputTest {
+
+  private static final String FILE_PATH =
+      TestConstant.BASE_OUTPUT_PATH.concat("TsFileInputTest.bin");
+  private static final int FILE_SIZE = 1024 * 1024 + 17;
+
+  private final TSFileConfig config = TSFileDescriptor.getInstance().getConfig();
+  private TsFileInputMode originalMode;
+  private byte[] content;
+
+  @Before
+  public void setUp() throws IOException {
+    originalMode = config.getTsFileInputMode();
+    content = new byte[FILE_SIZE];
+    new Random(0).nextBytes(content);
+    File file = new File(FILE_PATH);
+    if (!file.getParentFile().exists()) {
+      Assert.assertTrue(file.getParentFile().mkdirs());
+    }
+    try (FileOutputStream outputStream = new FileOutputStream(file)) {
+      outputStream.write(content);
+    }
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    config.setTsFileInputMode(originalMode);
+    Files.deleteIfExists(Paths.get(FILE_PATH));
+  }
+
+  @Test
+  public void testMmapRead() throws IOException {
+    // use small segments so that reads across segments are covered
+    TsFileInput input = new MmapTsFileInput(Paths.get(FILE_PATH), 4096);
+    try {
+      checkRandomRead(input);
+      checkSequentialRead(input);
+    } finally {
+      input.close();
+    }
+  }
+
+  @Test
+  public void testMmapReadAfterClose() throws IOException {
+    TsFileInput input = new MmapTsFileInput(Paths.get(FILE_PATH), 4096);
+    checkRandomRead(input);
+    input.close();
+    // the segments are unmapped, so the read must fail instead of touching them
+    try {
+      input.read(ByteBuffer.allocate(100), 0);
+      Assert.fail();
+    } catch (ClosedChannelException e) {
+      // expected
+    }
+    // closing twice is harmless
+    input.close();
+  }
+
+  @Test
+  public void testReadAheadRead() throws IOException {
+    TsFileInput input = new ReadAheadTsFileInput(Paths.get(FILE_PATH));
+    try {
+      checkRandomRead(input);
+      checkSequentialRead(input);
+      // the bytes after the end of file are not returned
+      ByteBuffer buffer = ByteBuffer.allocate(100);
+      Assert.assertEquals(17, input.read(buffer, FILE_SIZE - 17));
+      buffer.clear();
+      Assert.assertEquals(-1, input.read(buffer, FILE_SIZE));
+    } finally {
+      input.close();
+    }
+  }
+
+  @Test
+  public void testReadAppendedBytes() throws IOException {
+    TsFileInput input = new MmapTsFileInput(Paths.get(FILE_PATH), 4096);
+    try {
+      byte[] appended = "appended".getBytes(StandardCharsets.UTF_8);
+      try (FileOutputStream outputStream = new FileOutputStream(FILE_PATH, true)) {
+        outputStream.write(appended);
+      }
+      ByteBuffer buffer = ByteBuffer.allocate(appended.length + 10);
+      Assert.assertEquals(buffer.capacity(), input.read(buffer, FILE_SIZE - 10));
+      buffer.flip();
+      buffer.position(10);
+      byte[] actual = new byte[appended.length];
+      buffer.get(actual);
+      Assert.assertArrayEquals(appended, actual);
+    } finally {
+      input.close();
+    }
+  }
+
+  @Test
+  public void testReadVarIntString() throws IOException {
+    String value = "root.sg.d1.s1";
+    ByteBuffer buffer = ByteBuffer.allocate(100);
+    ReadWriteForEncodingUtils.writeVarInt(value.length(), buffer);
+    buffer.put(value.getBytes(StandardCharsets.UTF_8));
+    System.arraycopy(buffer.array(), 0, content, 5000, buffer.position());
+    try (FileOutputStream outputStream = new FileOutputStream(FILE_PATH)) {
+      outputStream.write(content);
+    }
+    TsFileInput mmapInput = new MmapTsFileInput(Paths.get(FILE_PATH), 4096);
+    TsFileInput readAheadInput = new ReadAheadTsFileInput(Paths.get(FILE_PATH));
+    try {
+      Assert.assertEquals(value, mmapInput.readVarIntString(5000));
+      Assert.assertEquals(value, readAheadInput.readVarIntString(5000));
+    } finally {
+      mmapInput.close();
+      readAheadInput.close();
+    }
+  }
+
+  @Test
+  public void testTransferToOutput() throws IOException {
+    String outputPath = TestConstant.BASE_OUTPUT_PATH.concat("TsFileInputTest.out");
+    List<TsFileInput> inputs = new ArrayList<>();
+    inputs.add(new LocalTsFileInput(Paths.get(FILE_PATH)));
+    inputs.add(new MmapTsFileInput(Paths.get(FILE_PATH), 4096));
+    inputs.add(new ReadAheadTsFileInput(Paths.get(FILE_PATH)));
+    try {
+      for (TsFileInput input : inputs) {
+        try (LocalTsFileOutput output = new LocalTsFileOutput(new FileOutputStream(outputPath))) {
+          output.write(new byte[] {1, 2, 3});
+          output.transferFrom(input, 1000, 300_000);
+          Assert.assertEquals(300_003, output.getPosition());
+        }
+        byte[] actual = Files.readAllBytes(Paths.get(outputPath));
+        Assert.assertEquals(300_003, actual.length);
+        for (int i = 0; i < 300_000; i++) {
+          Assert.assertEquals(content[1000 + i], actual[3 + i]);
+        }
+      }
+    } finally {
+      for (TsFileInput input : inputs) {
+        input.close();
+      }
+      Files.deleteIfExists(Paths.get(outputPath));
+    }
+  }
+
+  @Test
+  public void testReadTsFile() throws IOException {
+    FileGenerator.generateFile(1000, 100);
+    try {
+      List<ByteBuffer> expected = readAllChunks();
+      Assert.assertFalse(expected.isEmpty());
+      for (TsFileInputMode mode : TsFileInputMode.values()) {
+        config.setTsFileInputMode(mode);
+        Assert.assertEquals(mode.name(), expected, readAllChunks());
+      }
+    } finally {
+      FileGenerator.after();
+    }
+  }
+
+  private List<ByteBuffer> readAllChunks() throws IOException {
+    List<ByteBuffer> chunkDataList = new ArrayList<>();
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(FileGenerator.outputDataFile)) {
+      for (String device : reader.getAllDevices()) {
+        for (List<ChunkMetadata> chunkMetadataList :
+            reader.readChunkMetadataInDevice(device).values()) {
+          for (ChunkMetadata chunkMetadata : chunkMetadataList) {
+            chunkDataList.add(reader.readMemChunk(chunkMetadata).getData());
+          }
+        }
+      }
+    }
+    return chunkDataList;
+  }
+
+  private void checkRandomRead(TsFileInput input) throws IOException {
+    Random random = new Random(1);
+    for (int i = 0; i < 1000; i++) {
+      int position = random.nextInt(FILE_SIZE);
+      int length = Math.min(random.nextInt(i % 10 == 0 ? 200_000 : 1000) + 1, FILE_SIZE - position);
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      Assert.assertEquals(length, input.read(buffer, position));
+      checkContent(buffer, position);
+    }
+  }
+
+  private void checkSequentialRead(TsFileInput input) throws IOException {
+    input.position(0);
+    long position = 0;
+    while (position < FILE_SIZE) {
+      ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(37, FILE_SIZE - position));
+      Assert.assertEquals(buffer.capacity(), input.read(buffer));
+      checkContent(buffer, position);
+      position += buffer.capacity();
+      Assert.assertEquals(position, input.position());
+    }
+  }
+
+  private void checkContent(ByteBuffer buffer, long position) {
+    buffer.flip();
+    for (int i = 0; i < buffer.limit(); i++) {
+      Assert.assertEquals(content[(int) position + i], buffer.get(i));
+    }
+  }
+}
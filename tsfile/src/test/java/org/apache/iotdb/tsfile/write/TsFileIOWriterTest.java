@@ -21,9 +21,11 @@ package org.apache.iotdb.tsfile.write;
 import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
 import org.apache.iotdb.tsfile.constant.TestConstant;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
 import org.apache.iotdb.tsfile.file.MetaMarker;
 import org.apache.iotdb.tsfile.file.header.ChunkGroupHeader;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
 import org.apache.iotdb.tsfile.file.metadata.TsFileMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -31,8 +33,11 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.file.metadata.utils.TestHelper;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.utils.MeasurementGroup;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.iotdb.tsfile.write.schema.Schema;
 import org.apache.iotdb.tsfile.write.schema.VectorMeasurementSchema;
@@ -163,6 +168,64 @@ public class TsFileIOWriterTest {
     Assert.assertEquals(2, metaData.getMetadataIndex().getChildren().size());
   }
 
+  @Test
+  public void writeRawChunkTest() throws IOException, WriteProcessException {
+    File sourceFile = new File(TestConstant.BASE_OUTPUT_PATH.concat("TsFileIOWriterSource.tsfile"));
+    File targetFile = new File(TestConstant.BASE_OUTPUT_PATH.concat("TsFileIOWriterTarget.tsfile"));
+    try {
+      try (TsFileWriter writer = new TsFileWriter(sourceFile)) {
+        writer.registerTimeseries(
+            new Path(DEVICE_1), new MeasurementSchema(SENSOR_1, TSDataType.INT64, TSEncoding.RLE));
+        for (long time = 0; time < 3000; time++) {
+          TSRecord record = new TSRecord(time, DEVICE_1);
+          record.addTuple(new LongDataPoint(SENSOR_1, time * 2));
+          writer.write(record);
+          if (time % 1000 == 999) {
+            writer.flushAllChunkGroups();
+          }
+        }
+      }
+
+      try (TsFileSequenceReader sourceReader =
+          new TsFileSequenceReader(sourceFile.getAbsolutePath())) {
+        List<ChunkMetadata> sourceChunkMetadataList =
+            sourceReader.getChunkMetadataList(new Path(DEVICE_1, SENSOR_1));
+        Assert.assertEquals(3, sourceChunkMetadataList.size());
+        try (TsFileIOWriter writer = new TsFileIOWriter(targetFile)) {
+          writer.startChunkGroup(DEVICE_1);
+          for (ChunkMetadata chunkMetadata : sourceChunkMetadataList) {
+            writer.writeRawChunk(
+                sourceReader, sourceReader.readChunkHeader(chunkMetadata), chunkMetadata);
+          }
+          writer.endChunkGroup();
+          writer.endFile();
+        }
+
+        try (TsFileSequenceReader targetReader =
+            new TsFileSequenceReader(targetFile.getAbsolutePath())) {
+          List<ChunkMetadata> targetChunkMetadataList =
+              targetReader.getChunkMetadataList(new Path(DEVICE_1, SENSOR_1));
+          Assert.assertEquals(sourceChunkMetadataList.size(), targetChunkMetadataList.size());
+          for (int i = 0; i < sourceChunkMetadataList.size(); i++) {
+            Assert.assertEquals(
+                sourceChunkMetadataList.get(i).getStatistics(),
+                targetChunkMetadataList.get(i).getStatistics());
+            Chunk sourceChunk = sourceReader.readMemChunk(sourceChunkMetadataList.get(i));
+            Chunk targetChunk = targetReader.readMemChunk(targetChunkMetadataList.get(i));
+            Assert.assertEquals(
+                sourceChunk.getHeader().getChunkType(), targetChunk.getHeader().getChunkType());
+            Assert.assertEquals(
+                sourceChunk.getHeader().getDataSize(), targetChunk.getHeader().getDataSize());
+            Assert.assertEquals(sourceChunk.getData(), targetChunk.getData());
+          }
+        }
+      }
+    } finally {
+      sourceFile.delete();
+      targetFile.delete();
+    }
+  }
+
   private void writeChunkGroup(TsFileIOWriter writer, MeasurementSchema measurementSchema)
       throws IOException {
     for (int i = 0; i < CHUNK_GROUP_NUM; i++) {
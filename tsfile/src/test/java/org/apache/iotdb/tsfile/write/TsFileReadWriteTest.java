@@ -20,6 +20,7 @@ package org.apache.iotdb.tsfile.write;
 
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.TsFileReader;
@@ -47,6 +48,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -202,6 +204,56 @@ public class TsFileReadWriteTest {
     TSFileDescriptor.getInstance().getConfig().setTimeEncoder("TS_2DIFF");
   }
 
+  @Test
+  public void autoEncodingTest() throws IOException, WriteProcessException {
+    int count = 100000;
+    Random random = new Random(0);
+    double[] noises = new double[count];
+    try (TsFileWriter tsFileWriter = new TsFileWriter(f)) {
+      tsFileWriter.registerTimeseries(
+          new Path("device_1"),
+          new MeasurementSchema("sensor_1", TSDataType.INT64, TSEncoding.AUTO));
+      tsFileWriter.registerTimeseries(
+          new Path("device_1"),
+          new MeasurementSchema("sensor_2", TSDataType.DOUBLE, TSEncoding.AUTO));
+      for (int i = 0; i < count; i++) {
+        noises[i] = random.nextDouble();
+        TSRecord tsRecord = new TSRecord(i, "device_1");
+        tsRecord.addTuple(new LongDataPoint("sensor_1", i * 10L));
+        tsRecord.addTuple(new DoubleDataPoint("sensor_2", noises[i]));
+        tsFileWriter.write(tsRecord);
+      }
+    }
+
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(path)) {
+      // monotonic values are encoded by TS_2DIFF and random values are kept in PLAIN
+      for (ChunkMetadata chunkMetadata :
+          reader.getChunkMetadataList(new Path("device_1", "sensor_1"))) {
+        assertEquals(
+            TSEncoding.TS_2DIFF, reader.readMemChunk(chunkMetadata).getHeader().getEncodingType());
+      }
+      for (ChunkMetadata chunkMetadata :
+          reader.getChunkMetadataList(new Path("device_1", "sensor_2"))) {
+        assertEquals(
+            TSEncoding.PLAIN, reader.readMemChunk(chunkMetadata).getHeader().getEncodingType());
+      }
+
+      TsFileReader readTsFile = new TsFileReader(reader);
+      List<Path> paths =
+          Arrays.asList(new Path("device_1", "sensor_1"), new Path("device_1", "sensor_2"));
+      QueryDataSet queryDataSet = readTsFile.query(QueryExpression.create(paths, null));
+      int i = 0;
+      while (queryDataSet.hasNext()) {
+        RowRecord r = queryDataSet.next();
+        assertEquals(i, r.getTimestamp());
+        assertEquals(i * 10L, r.getFields().get(0).getLongV());
+        assertEquals(noises[i], r.getFields().get(1).getDoubleV(), 0);
+        i++;
+      }
+      assertEquals(count, i);
+    }
+  }
+
   private void writeDataByTSRecord(
       TSDataType dataType, DataPointProxy proxy, TSEncoding encodingType)
       throws IOException, WriteProcessException {